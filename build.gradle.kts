@@ -1,6 +1,7 @@
 plugins {
     java
     id("maven-publish")
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "io.tofpu"
@@ -13,8 +14,19 @@ repositories {
 dependencies {
     testImplementation("org.xerial:sqlite-jdbc:3.36.0.3")
 
+    testAnnotationProcessor(project(":database-storage-processor"))
+
     testImplementation("org.junit.jupiter:junit-jupiter-api:5.8.2")
     testRuntimeOnly("org.junit.jupiter:junit-jupiter-engine")
+
+    jmh("org.xerial:sqlite-jdbc:3.36.0.3")
+}
+
+jmh {
+    jmhVersion.set("1.37")
+    includeTests.set(false)
+    profilers.add("gc")
+    resultFormat.set("JSON")
 }
 
 
@@ -0,0 +1,23 @@
+plugins {
+    java
+    id("maven-publish")
+}
+
+group = "io.tofpu"
+version = "1.0.0"
+
+repositories {
+    mavenCentral()
+}
+
+dependencies {
+    implementation(rootProject)
+}
+
+publishing {
+    publications {
+        create<MavenPublication>("maven") {
+            from(components["java"])
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package io.tofpu.databasestorage.processor;
+
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+
+/**
+ * The supported types of the columns, and how they are bound to and read
+ * from JDBC.
+ */
+enum ColumnType {
+    BOOLEAN("INTEGER", "Boolean"),
+    BYTE("INTEGER", "Byte"),
+    SHORT("INTEGER", "Short"),
+    INT("INTEGER", "Int"),
+    LONG("INTEGER", "Long"),
+    FLOAT("REAL", "Float"),
+    DOUBLE("REAL", "Double"),
+    STRING("TEXT", "String"),
+    BYTES("BLOB", "Bytes"),
+    UUID("TEXT", "String"),
+    ENUM("TEXT", "String");
+
+    private final String sqlType;
+    private final String jdbcName;
+
+    ColumnType(final String sqlType, final String jdbcName) {
+        this.sqlType = sqlType;
+        this.jdbcName = jdbcName;
+    }
+
+    /**
+     * @param type the type of the field
+     *
+     * @return the column type of the field, or null if it is not supported
+     */
+    static ColumnType of(final TypeMirror type) {
+        switch (type.getKind()) {
+            case BOOLEAN:
+                return BOOLEAN;
+            case BYTE:
+                return BYTE;
+            case SHORT:
+                return SHORT;
+            case INT:
+                return INT;
+            case LONG:
+                return LONG;
+            case FLOAT:
+                return FLOAT;
+            case DOUBLE:
+                return DOUBLE;
+            case ARRAY:
+                return ((ArrayType) type).getComponentType().getKind() == TypeKind.BYTE ? BYTES : null;
+            case DECLARED:
+                final DeclaredType declaredType = (DeclaredType) type;
+                if (declaredType.asElement().getKind() == ElementKind.ENUM) {
+                    return ENUM;
+                }
+
+                final String name = declaredType.asElement().toString();
+                if (name.equals("java.lang.String")) {
+                    return STRING;
+                }
+                if (name.equals("java.util.UUID")) {
+                    return UUID;
+                }
+                return null;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @return true if the column cannot be null
+     */
+    boolean isPrimitive() {
+        return ordinal() <= DOUBLE.ordinal();
+    }
+
+    /**
+     * @return the SQL type of the column
+     */
+    String getSqlType() {
+        return sqlType;
+    }
+
+    /**
+     * @return the name of the {@code PreparedStatement} setter
+     */
+    String getSetter() {
+        return "set" + jdbcName;
+    }
+
+    /**
+     * @return the name of the {@code ResultSet} getter
+     */
+    String getGetter() {
+        return "get" + jdbcName;
+    }
+}
@@ -0,0 +1,259 @@
+package io.tofpu.databasestorage.processor;
+
+import io.tofpu.databasestorage.annotation.StorageColumn;
+import io.tofpu.databasestorage.annotation.StorageEntity;
+import io.tofpu.databasestorage.annotation.StorageKey;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The mapping of a {@link StorageEntity} type to its table.
+ */
+final class EntityModel {
+    private static final String RESOLVER_SUFFIX = "StorageResolver";
+
+    private final TypeElement element;
+    private final String packageName;
+    private final String resolverName;
+    private final String table;
+    private final FieldModel key;
+    private final List<FieldModel> columns;
+    private final List<FieldModel> constructorFields;
+
+    private EntityModel(final TypeElement element, final String packageName,
+            final String resolverName, final String table, final FieldModel key,
+            final List<FieldModel> columns, final List<FieldModel> constructorFields) {
+        this.element = element;
+        this.packageName = packageName;
+        this.resolverName = resolverName;
+        this.table = table;
+        this.key = key;
+        this.columns = columns;
+        this.constructorFields = constructorFields;
+    }
+
+    /**
+     * @param element the annotated type
+     * @param elements the element utilities of the processing environment
+     * @param types the type utilities of the processing environment
+     *
+     * @return the mapping of the type
+     * @throws ProcessingException if the type cannot be mapped
+     */
+    static EntityModel of(final TypeElement element, final Elements elements,
+            final Types types) throws ProcessingException {
+        if (element.getKind() != ElementKind.CLASS || element.getModifiers().contains(Modifier.ABSTRACT)) {
+            throw new ProcessingException(element, "@StorageEntity must be placed on a concrete class");
+        }
+        if (!element.getTypeParameters().isEmpty()) {
+            throw new ProcessingException(element, "@StorageEntity must not be placed on a generic class");
+        }
+        if (element.getNestingKind() != NestingKind.TOP_LEVEL &&
+            (element.getNestingKind() != NestingKind.MEMBER || !element.getModifiers().contains(Modifier.STATIC))) {
+            throw new ProcessingException(element, "@StorageEntity must be placed on a top-level or static nested class");
+        }
+
+        final StorageEntity entity = element.getAnnotation(StorageEntity.class);
+        final String table = entity.table().isEmpty() ? toSnakeCase(element.getSimpleName().toString()) :
+                entity.table();
+
+        FieldModel key = null;
+        final List<FieldModel> columns = new ArrayList<>();
+        final List<FieldModel> constructorFields = new ArrayList<>();
+        for (final VariableElement field : ElementFilter.fieldsIn(element.getEnclosedElements())) {
+            final StorageKey storageKey = field.getAnnotation(StorageKey.class);
+            final StorageColumn storageColumn = field.getAnnotation(StorageColumn.class);
+            if (storageKey == null && storageColumn == null) {
+                continue;
+            }
+            if (storageKey != null && storageColumn != null) {
+                throw new ProcessingException(field, "A field cannot be both @StorageKey and @StorageColumn");
+            }
+            if (field.getModifiers().contains(Modifier.STATIC)) {
+                throw new ProcessingException(field, "A static field cannot be mapped to a column");
+            }
+
+            final String accessor = findAccessor(element, field, elements, types);
+            final FieldModel model;
+            if (storageKey != null) {
+                if (key != null) {
+                    throw new ProcessingException(field, "@StorageEntity must have exactly one @StorageKey field");
+                }
+                if (field.asType().getKind() != TypeKind.DECLARED) {
+                    throw new ProcessingException(field, "@StorageKey field must not be of a primitive type");
+                }
+
+                model = new FieldModel(field, columnName(storageKey.name(), field),
+                        storageKey.type().isEmpty() ? keySqlType(field) : storageKey.type(), null, accessor);
+                key = model;
+            } else {
+                final ColumnType columnType = ColumnType.of(field.asType());
+                if (columnType == null) {
+                    throw new ProcessingException(field, "Unsupported column type " + field.asType());
+                }
+
+                final String sqlType = storageColumn.type().isEmpty() ? columnType.getSqlType() +
+                        (columnType.isPrimitive() ? " NOT NULL" : "") : storageColumn.type();
+                model = new FieldModel(field, columnName(storageColumn.name(), field), sqlType,
+                        columnType, accessor);
+                columns.add(model);
+            }
+            constructorFields.add(model);
+        }
+
+        if (key == null) {
+            throw new ProcessingException(element, "@StorageEntity must have exactly one @StorageKey field");
+        }
+        requireConstructor(element, constructorFields, types);
+
+        final PackageElement packageElement = elements.getPackageOf(element);
+        return new EntityModel(element, packageElement.isUnnamed() ? "" :
+                packageElement.getQualifiedName().toString(), resolverName(element), table, key,
+                Collections.unmodifiableList(columns), Collections.unmodifiableList(constructorFields));
+    }
+
+    /**
+     * @return the getter of the field, or the field itself if it has no
+     * getter and is not private
+     */
+    private static String findAccessor(final TypeElement element, final VariableElement field,
+            final Elements elements, final Types types) throws ProcessingException {
+        final String name = field.getSimpleName().toString();
+        for (final ExecutableElement method : ElementFilter.methodsIn(elements.getAllMembers(element))) {
+            if (!method.getParameters().isEmpty() || method.getModifiers().contains(Modifier.PRIVATE) ||
+                method.getModifiers().contains(Modifier.STATIC) ||
+                !types.isSameType(method.getReturnType(), field.asType())) {
+                continue;
+            }
+
+            final String methodName = method.getSimpleName().toString();
+            if (methodName.equalsIgnoreCase("get" + name) ||
+                (field.asType().getKind() == TypeKind.BOOLEAN && methodName.equalsIgnoreCase("is" + name))) {
+                return "value." + methodName + "()";
+            }
+        }
+
+        if (!field.getModifiers().contains(Modifier.PRIVATE)) {
+            return "value." + name;
+        }
+        throw new ProcessingException(field, "Field " + name + " is private and has no getter");
+    }
+
+    private static void requireConstructor(final TypeElement element, final List<FieldModel> fields,
+            final Types types) throws ProcessingException {
+        for (final ExecutableElement constructor : ElementFilter.constructorsIn(element.getEnclosedElements())) {
+            if (constructor.getModifiers().contains(Modifier.PRIVATE) ||
+                constructor.getParameters().size() != fields.size()) {
+                continue;
+            }
+
+            boolean matches = true;
+            for (int i = 0; i < fields.size(); i++) {
+                if (!types.isSameType(types.erasure(constructor.getParameters().get(i).asType()),
+                        types.erasure(fields.get(i).getType()))) {
+                    matches = false;
+                    break;
+                }
+            }
+            if (matches) {
+                return;
+            }
+        }
+        throw new ProcessingException(element, "@StorageEntity must have a constructor whose parameters " +
+                                               "match the mapped fields in their declaration order");
+    }
+
+    private static String keySqlType(final VariableElement field) {
+        // the UUID key resolver binds keys as 16 bytes
+        return field.asType().toString().equals("java.util.UUID") ? "BLOB PRIMARY KEY" : "TEXT PRIMARY KEY";
+    }
+
+    private static String columnName(final String name, final VariableElement field) {
+        return name.isEmpty() ? toSnakeCase(field.getSimpleName().toString()) : name;
+    }
+
+    private static String resolverName(final TypeElement element) {
+        final StringBuilder name = new StringBuilder(element.getSimpleName());
+        Element enclosing = element.getEnclosingElement();
+        while (enclosing.getKind() != ElementKind.PACKAGE) {
+            name.insert(0, enclosing.getSimpleName() + "_");
+            enclosing = enclosing.getEnclosingElement();
+        }
+        return name.append(RESOLVER_SUFFIX).toString();
+    }
+
+    /**
+     * @param name a camel case name, e.g. {@code playerUUID}
+     *
+     * @return the name in snake case, e.g. {@code player_uuid}
+     */
+    static String toSnakeCase(final String name) {
+        final StringBuilder builder = new StringBuilder(name.length() + 4);
+        for (int i = 0; i < name.length(); i++) {
+            final char c = name.charAt(i);
+            if (Character.isUpperCase(c)) {
+                final boolean afterLower = i > 0 && (Character.isLowerCase(name.charAt(i - 1)) ||
+                                                     Character.isDigit(name.charAt(i - 1)));
+                final boolean beforeLower = i > 0 && i + 1 < name.length() &&
+                                            Character.isLowerCase(name.charAt(i + 1));
+                if (afterLower || beforeLower) {
+                    builder.append('_');
+                }
+                builder.append(Character.toLowerCase(c));
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    TypeElement getElement() {
+        return element;
+    }
+
+    String getPackageName() {
+        return packageName;
+    }
+
+    String getResolverName() {
+        return resolverName;
+    }
+
+    String getQualifiedResolverName() {
+        return packageName.isEmpty() ? resolverName : packageName + "." + resolverName;
+    }
+
+    String getTable() {
+        return table;
+    }
+
+    FieldModel getKey() {
+        return key;
+    }
+
+    List<FieldModel> getColumns() {
+        return columns;
+    }
+
+    /**
+     * @return the key and the columns in their declaration order, which is
+     * the order of the constructor parameters
+     */
+    List<FieldModel> getConstructorFields() {
+        return constructorFields;
+    }
+}
@@ -0,0 +1,82 @@
+package io.tofpu.databasestorage.processor;
+
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeMirror;
+
+/**
+ * A field of an entity that is mapped to a column.
+ */
+final class FieldModel {
+    private final VariableElement element;
+    private final String column;
+    private final String sqlType;
+    private final ColumnType columnType;
+    private final String accessor;
+
+    FieldModel(final VariableElement element, final String column, final String sqlType,
+            final ColumnType columnType, final String accessor) {
+        this.element = element;
+        this.column = column;
+        this.sqlType = sqlType;
+        this.columnType = columnType;
+        this.accessor = accessor;
+    }
+
+    /**
+     * @return the name of the field
+     */
+    String getName() {
+        return element.getSimpleName().toString();
+    }
+
+    /**
+     * @return the type of the field
+     */
+    TypeMirror getType() {
+        return element.asType();
+    }
+
+    /**
+     * @return the type of the field as it is written in source code
+     */
+    String getTypeName() {
+        return element.asType().toString();
+    }
+
+    /**
+     * @return the name of the column
+     */
+    String getColumn() {
+        return column;
+    }
+
+    /**
+     * @return the SQL type of the column
+     */
+    String getSqlType() {
+        return sqlType;
+    }
+
+    /**
+     * @return the column type, or null if this is the key field
+     */
+    ColumnType getColumnType() {
+        return columnType;
+    }
+
+    /**
+     * @return the expression that reads the field of a value named {@code value},
+     * e.g. {@code value.getName()}
+     */
+    String getAccessor() {
+        return accessor;
+    }
+
+    /**
+     * @return the name of the local variable the field is read into
+     */
+    String getLocal() {
+        final String name = getName();
+        return "column" + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+}
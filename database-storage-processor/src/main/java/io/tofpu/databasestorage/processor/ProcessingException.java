@@ -0,0 +1,23 @@
+package io.tofpu.databasestorage.processor;
+
+import javax.lang.model.element.Element;
+
+/**
+ * Thrown when a {@link io.tofpu.databasestorage.annotation.StorageEntity}
+ * cannot be mapped, it is reported as a compile error on the element.
+ */
+final class ProcessingException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    // the exception is never serialized, it is reported by the processor
+    private final transient Element element;
+
+    ProcessingException(final Element element, final String message) {
+        super(message);
+        this.element = element;
+    }
+
+    Element getElement() {
+        return element;
+    }
+}
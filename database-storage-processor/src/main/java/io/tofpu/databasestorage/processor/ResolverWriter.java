@@ -0,0 +1,357 @@
+package io.tofpu.databasestorage.processor;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes the source code of the resolver of an {@link EntityModel}. The
+ * SQL is built once at compile time, and the values are read via their
+ * getters and created via their constructor, so the generated resolver
+ * does not use reflection.
+ */
+final class ResolverWriter {
+    private static final int MAX_CHUNK_SIZE = 500;
+
+    private final EntityModel model;
+    private final boolean generatedAvailable;
+    private final PrintWriter out;
+
+    private final String valueType;
+    private final String keyType;
+    private final String keyColumn;
+    private final String columnList;
+
+    ResolverWriter(final EntityModel model, final boolean generatedAvailable, final PrintWriter out) {
+        this.model = model;
+        this.generatedAvailable = generatedAvailable;
+        this.out = out;
+
+        this.valueType = model.getElement().getQualifiedName().toString();
+        this.keyType = model.getKey().getTypeName();
+        this.keyColumn = model.getKey().getColumn();
+
+        final List<String> columns = new ArrayList<>();
+        columns.add(keyColumn);
+        for (final FieldModel column : model.getColumns()) {
+            columns.add(column.getColumn());
+        }
+        this.columnList = String.join(", ", columns);
+    }
+
+    void write() {
+        if (!model.getPackageName().isEmpty()) {
+            out.println("package " + model.getPackageName() + ";");
+            out.println();
+        }
+
+        out.println("import io.tofpu.databasestorage.StorageBase;");
+        out.println("import io.tofpu.databasestorage.resolver.value.StorageValueResolver;");
+        out.println("import io.tofpu.databasestorage.scan.ResultSetCursor;");
+        out.println("import io.tofpu.databasestorage.scan.StorageCursor;");
+        out.println("import io.tofpu.databasestorage.statement.CachedStatement;");
+        out.println();
+        out.println("import java.sql.PreparedStatement;");
+        out.println("import java.sql.ResultSet;");
+        out.println("import java.sql.SQLException;");
+        out.println("import java.util.ArrayList;");
+        out.println("import java.util.Collection;");
+        out.println("import java.util.Collections;");
+        out.println("import java.util.HashMap;");
+        out.println("import java.util.LinkedHashMap;");
+        out.println("import java.util.List;");
+        out.println("import java.util.Map;");
+        out.println();
+        out.println("/**");
+        out.println(" * The {@link StorageValueResolver} of {@link " + valueType + "}, generated");
+        out.println(" * from its {@code @StorageEntity} mapping.");
+        out.println(" */");
+        if (generatedAvailable) {
+            out.println("@javax.annotation.processing.Generated(\"" + StorageEntityProcessor.class.getName() + "\")");
+        }
+        out.println("public final class " + model.getResolverName() + " extends StorageValueResolver<" +
+                    keyType + ", " + valueType + "> {");
+
+        writeQueries();
+        writeConstructor();
+        writeCreateTable();
+        writeSave();
+        writeSaveAll();
+        writeRetrieve();
+        writeRetrieveAll();
+        writeDelete();
+        writeDeleteAll();
+        writeScan();
+        writeSnapshot();
+        writeBind();
+        writeRead();
+
+        out.println("}");
+    }
+
+    private void writeQueries() {
+        final StringBuilder definitions = new StringBuilder(keyColumn + " " + model.getKey().getSqlType());
+        final StringBuilder placeholders = new StringBuilder("?");
+        for (final FieldModel column : model.getColumns()) {
+            definitions.append(", ").append(column.getColumn()).append(' ').append(column.getSqlType());
+            placeholders.append(", ?");
+        }
+
+        final String table = model.getTable();
+        final String select = "SELECT " + columnList + " FROM " + table;
+        final StringBuilder chunk = new StringBuilder(select + " WHERE " + keyColumn + " IN (?");
+        for (int i = 1; i < MAX_CHUNK_SIZE; i++) {
+            chunk.append(", ?");
+        }
+        chunk.append(')');
+
+        constant("public", "CREATE_TABLE_QUERY",
+                "CREATE TABLE IF NOT EXISTS " + table + " (" + definitions + ")");
+        constant("private", "INSERT_QUERY",
+                "INSERT OR REPLACE INTO " + table + " (" + columnList + ") VALUES (" + placeholders + ")");
+        constant("private", "SELECT_QUERY", select + " WHERE " + keyColumn + " = ?");
+        constant("private", "SELECT_CHUNK_PREFIX", select + " WHERE " + keyColumn + " IN (");
+        constant("private", "SELECT_CHUNK_QUERY", chunk.toString());
+        constant("private", "DELETE_QUERY", "DELETE FROM " + table + " WHERE " + keyColumn + " = ?");
+        constant("private", "SCAN_QUERY", select + " ORDER BY " + keyColumn);
+        constant("private", "SCAN_FROM_QUERY", select + " WHERE " + keyColumn + " >= ? ORDER BY " + keyColumn);
+        constant("private", "SCAN_TO_QUERY", select + " WHERE " + keyColumn + " < ? ORDER BY " + keyColumn);
+        constant("private", "SCAN_RANGE_QUERY", select + " WHERE " + keyColumn + " >= ? AND " + keyColumn +
+                                                " < ? ORDER BY " + keyColumn);
+        out.println("    private static final int MAX_CHUNK_SIZE = " + MAX_CHUNK_SIZE + ";");
+        out.println();
+    }
+
+    private void writeConstructor() {
+        out.println("    public " + model.getResolverName() + "(final StorageBase storageBase) {");
+        out.println("        super(" + valueType + ".class, " + keyType + ".class, storageBase);");
+        out.println("    }");
+        out.println();
+    }
+
+    private void writeCreateTable() {
+        out.println("    /**");
+        out.println("     * This method will create the table of the values, if it does not exist yet.");
+        out.println("     *");
+        out.println("     * @throws SQLException if the table could not be created");
+        out.println("     */");
+        out.println("    public void createTable() throws SQLException {");
+        out.println("        try (final CachedStatement cachedStatement = prepareStatement(CREATE_TABLE_QUERY)) {");
+        out.println("            cachedStatement.getStatement().execute();");
+        out.println("        }");
+        out.println("    }");
+        out.println();
+    }
+
+    private void writeSave() {
+        out.println("    @Override");
+        out.println("    public void save(final String key, final Object value) throws SQLException {");
+        out.println("        try (final CachedStatement cachedStatement = prepareStatement(INSERT_QUERY)) {");
+        out.println("            final PreparedStatement statement = cachedStatement.getStatement();");
+        out.println("            bind(statement, key, (" + valueType + ") value);");
+        out.println("            statement.executeUpdate();");
+        out.println("        }");
+        out.println("    }");
+        out.println();
+    }
+
+    private void writeSaveAll() {
+        out.println("    @Override");
+        out.println("    public void saveAll(final Map<String, Object> values) throws SQLException {");
+        out.println("        try (final CachedStatement cachedStatement = prepareStatement(INSERT_QUERY)) {");
+        out.println("            final PreparedStatement statement = cachedStatement.getStatement();");
+        out.println("            for (final Map.Entry<String, Object> entry : values.entrySet()) {");
+        out.println("                bind(statement, entry.getKey(), (" + valueType + ") entry.getValue());");
+        out.println("                statement.addBatch();");
+        out.println("            }");
+        out.println();
+        out.println("            statement.executeBatch();");
+        out.println("        }");
+        out.println("    }");
+        out.println();
+    }
+
+    private void writeRetrieve() {
+        out.println("    @Override");
+        out.println("    public " + valueType + " retrieve(final String key) throws SQLException {");
+        out.println("        try (final CachedStatement cachedStatement = prepareStatement(SELECT_QUERY)) {");
+        out.println("            final PreparedStatement statement = cachedStatement.getStatement();");
+        out.println("            bindKey(statement, 1, key);");
+        out.println();
+        out.println("            try (final ResultSet resultSet = statement.executeQuery()) {");
+        out.println("                if (!resultSet.next()) {");
+        out.println("                    return null;");
+        out.println("                }");
+        out.println("                return read(resultSet, key);");
+        out.println("            }");
+        out.println("        }");
+        out.println("    }");
+        out.println();
+    }
+
+    private void writeRetrieveAll() {
+        out.println("    @Override");
+        out.println("    public Map<String, " + valueType + "> retrieveAll(final Collection<String> keys) " +
+                    "throws SQLException {");
+        out.println("        final Map<String, " + valueType + "> values = new HashMap<>();");
+        out.println();
+        out.println("        final List<String> keyList = new ArrayList<>(keys);");
+        out.println("        for (int index = 0; index < keyList.size(); index += MAX_CHUNK_SIZE) {");
+        out.println("            final List<String> chunk = keyList.subList(index,");
+        out.println("                    Math.min(index + MAX_CHUNK_SIZE, keyList.size()));");
+        out.println("            final String query = chunk.size() == MAX_CHUNK_SIZE ? SELECT_CHUNK_QUERY :");
+        out.println("                    SELECT_CHUNK_PREFIX + String.join(\", \", " +
+                    "Collections.nCopies(chunk.size(), \"?\")) + \")\";");
+        out.println();
+        out.println("            try (final CachedStatement cachedStatement = prepareStatement(query)) {");
+        out.println("                final PreparedStatement statement = cachedStatement.getStatement();");
+        out.println("                for (int i = 0; i < chunk.size(); i++) {");
+        out.println("                    bindKey(statement, i + 1, chunk.get(i));");
+        out.println("                }");
+        out.println();
+        out.println("                try (final ResultSet resultSet = statement.executeQuery()) {");
+        out.println("                    while (resultSet.next()) {");
+        out.println("                        final String key = readKey(resultSet, " + literal(keyColumn) + ");");
+        out.println("                        values.put(key, read(resultSet, key));");
+        out.println("                    }");
+        out.println("                }");
+        out.println("            }");
+        out.println("        }");
+        out.println("        return values;");
+        out.println("    }");
+        out.println();
+    }
+
+    private void writeDelete() {
+        out.println("    @Override");
+        out.println("    public void delete(final String key) throws SQLException {");
+        out.println("        try (final CachedStatement cachedStatement = prepareStatement(DELETE_QUERY)) {");
+        out.println("            final PreparedStatement statement = cachedStatement.getStatement();");
+        out.println("            bindKey(statement, 1, key);");
+        out.println("            statement.executeUpdate();");
+        out.println("        }");
+        out.println("    }");
+        out.println();
+    }
+
+    private void writeDeleteAll() {
+        out.println("    @Override");
+        out.println("    public void deleteAll(final Collection<String> keys) throws SQLException {");
+        out.println("        try (final CachedStatement cachedStatement = prepareStatement(DELETE_QUERY)) {");
+        out.println("            final PreparedStatement statement = cachedStatement.getStatement();");
+        out.println("            for (final String key : keys) {");
+        out.println("                bindKey(statement, 1, key);");
+        out.println("                statement.addBatch();");
+        out.println("            }");
+        out.println();
+        out.println("            statement.executeBatch();");
+        out.println("        }");
+        out.println("    }");
+        out.println();
+    }
+
+    private void writeScan() {
+        out.println("    @Override");
+        out.println("    public StorageCursor<" + valueType + "> scan(final String fromKey, final String toKey,");
+        out.println("            final int fetchSize) throws SQLException {");
+        out.println("        final String query = fromKey == null ? (toKey == null ? SCAN_QUERY : SCAN_TO_QUERY) :");
+        out.println("                (toKey == null ? SCAN_FROM_QUERY : SCAN_RANGE_QUERY);");
+        out.println("        final PreparedStatement statement = storageBase.currentConnection().prepareStatement(");
+        out.println("                query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);");
+        out.println("        try {");
+        out.println("            statement.setFetchSize(fetchSize);");
+        out.println();
+        out.println("            int index = 1;");
+        out.println("            if (fromKey != null) {");
+        out.println("                bindKey(statement, index++, fromKey);");
+        out.println("            }");
+        out.println("            if (toKey != null) {");
+        out.println("                bindKey(statement, index, toKey);");
+        out.println("            }");
+        out.println();
+        out.println("            return new ResultSetCursor<>(statement, statement.executeQuery(),");
+        out.println("                    resultSet -> readKey(resultSet, " + literal(keyColumn) + "),");
+        out.println("                    resultSet -> read(resultSet, readKey(resultSet, " + literal(keyColumn) + ")));");
+        out.println("        } catch (SQLException | RuntimeException e) {");
+        out.println("            statement.close();");
+        out.println("            throw e;");
+        out.println("        }");
+        out.println("    }");
+        out.println();
+    }
+
+    private void writeSnapshot() {
+        out.println("    @Override");
+        out.println("    public Map<String, Object> snapshot(final " + valueType + " value) {");
+        out.println("        final Map<String, Object> snapshot = new LinkedHashMap<>();");
+        for (final FieldModel column : model.getColumns()) {
+            final String accessor = column.getAccessor();
+            if (column.getColumnType() == ColumnType.BYTES) {
+                out.println("        final byte[] " + column.getLocal() + " = " + accessor + ";");
+                out.println("        snapshot.put(" + literal(column.getName()) + ", " + column.getLocal() +
+                            " == null ? null : java.nio.ByteBuffer.wrap(" + column.getLocal() + ".clone()));");
+            } else {
+                out.println("        snapshot.put(" + literal(column.getName()) + ", " + accessor + ");");
+            }
+        }
+        out.println("        return snapshot;");
+        out.println("    }");
+        out.println();
+    }
+
+    private void writeBind() {
+        out.println("    private void bind(final PreparedStatement statement, final String key,");
+        out.println("            final " + valueType + " value) throws SQLException {");
+        out.println("        bindKey(statement, 1, key);");
+
+        int index = 2;
+        for (final FieldModel column : model.getColumns()) {
+            final ColumnType columnType = column.getColumnType();
+            final String accessor = column.getAccessor();
+            if (columnType == ColumnType.UUID || columnType == ColumnType.ENUM) {
+                out.println("        final " + column.getTypeName() + " " + column.getLocal() + " = " + accessor + ";");
+                out.println("        statement.setString(" + index + ", " + column.getLocal() + " == null ? null : " +
+                            column.getLocal() + (columnType == ColumnType.ENUM ? ".name()" : ".toString()") + ");");
+            } else {
+                out.println("        statement." + columnType.getSetter() + "(" + index + ", " + accessor + ");");
+            }
+            index++;
+        }
+        out.println("    }");
+        out.println();
+    }
+
+    private void writeRead() {
+        out.println("    private " + valueType + " read(final ResultSet resultSet, final String key) throws SQLException {");
+        out.println("        final " + keyType + " keyValue = getKeyResolver().deserialize(key);");
+        for (final FieldModel column : model.getColumns()) {
+            final ColumnType columnType = column.getColumnType();
+            final String local = column.getLocal();
+            if (columnType == ColumnType.UUID || columnType == ColumnType.ENUM) {
+                out.println("        final String " + local + "Text = resultSet.getString(" +
+                            literal(column.getColumn()) + ");");
+                out.println("        final " + column.getTypeName() + " " + local + " = " + local + "Text == null ? null : " +
+                            (columnType == ColumnType.ENUM ? column.getTypeName() + ".valueOf(" :
+                                    "java.util.UUID.fromString(") + local + "Text);");
+            } else {
+                out.println("        final " + column.getTypeName() + " " + local + " = resultSet." +
+                            columnType.getGetter() + "(" + literal(column.getColumn()) + ");");
+            }
+        }
+
+        final List<String> arguments = new ArrayList<>();
+        for (final FieldModel field : model.getConstructorFields()) {
+            arguments.add(field == model.getKey() ? "keyValue" : field.getLocal());
+        }
+        out.println("        return new " + valueType + "(" + String.join(", ", arguments) + ");");
+        out.println("    }");
+    }
+
+    private void constant(final String visibility, final String name, final String value) {
+        out.println("    " + visibility + " static final String " + name + " = " + literal(value) + ";");
+    }
+
+    private static String literal(final String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+}
@@ -0,0 +1,60 @@
+package io.tofpu.databasestorage.processor;
+
+import io.tofpu.databasestorage.annotation.StorageEntity;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Set;
+
+/**
+ * Generates a {@link io.tofpu.databasestorage.resolver.value.StorageValueResolver}
+ * for every type that is annotated with {@link StorageEntity}, see
+ * {@link ResolverWriter}.
+ */
+@SupportedAnnotationTypes("io.tofpu.databasestorage.annotation.StorageEntity")
+public final class StorageEntityProcessor extends AbstractProcessor {
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations,
+            final RoundEnvironment roundEnvironment) {
+        final boolean generatedAvailable = processingEnv.getElementUtils()
+                .getTypeElement("javax.annotation.processing.Generated") != null;
+
+        for (final Element element : roundEnvironment.getElementsAnnotatedWith(StorageEntity.class)) {
+            try {
+                final EntityModel model = EntityModel.of((TypeElement) element,
+                        processingEnv.getElementUtils(), processingEnv.getTypeUtils());
+                write(model, generatedAvailable);
+            } catch (ProcessingException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, e.getMessage(), e.getElement());
+            }
+        }
+        return true;
+    }
+
+    private void write(final EntityModel model, final boolean generatedAvailable) {
+        try {
+            final JavaFileObject file = processingEnv.getFiler()
+                    .createSourceFile(model.getQualifiedResolverName(), model.getElement());
+            try (final PrintWriter out = new PrintWriter(file.openWriter())) {
+                new ResolverWriter(model, generatedAvailable, out).write();
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Could not write " + model.getQualifiedResolverName() + ": " + e.getMessage(),
+                    model.getElement());
+        }
+    }
+}
@@ -1,2 +1,3 @@
 rootProject.name = "database-storage"
 include("database-storage-api")
+include("database-storage-processor")
@@ -0,0 +1,228 @@
+package io.tofpu.databasestorage.benchmark;
+
+import io.tofpu.databasestorage.StorageBase;
+import io.tofpu.databasestorage.resolver.key.StorageKeyResolver;
+import io.tofpu.databasestorage.resolver.value.StorageValueResolver;
+import io.tofpu.databasestorage.statement.CachedStatement;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The storage the benchmarks are run against, either backed by a local
+ * SQLite file, or by an in-memory stand-in resolver that measures the
+ * overhead of the {@link StorageBase} alone.
+ */
+public class BenchmarkStorage extends StorageBase {
+    public static final String MEMORY = "memory";
+    public static final String SQLITE = "sqlite";
+
+    private static final String DATABASE_FILE = "benchmark.db";
+
+    // the constructor of StorageBase calls the hooks before our fields are assigned
+    private static final ThreadLocal<Settings> SETTINGS = new ThreadLocal<>();
+
+    private final Settings settings;
+    private Connection connection;
+
+    private BenchmarkStorage() {
+        this.settings = SETTINGS.get();
+    }
+
+    /**
+     * @param backend either {@link #MEMORY} or {@link #SQLITE}
+     * @param keyType the type of the keys
+     * @param executorThreads the amount of threads of the executor
+     *
+     * @return the initialized storage
+     */
+    public static BenchmarkStorage create(final String backend, final Class<?> keyType,
+            final int executorThreads) {
+        SETTINGS.set(new Settings(backend, keyType, executorThreads));
+        final BenchmarkStorage storage;
+        try {
+            storage = new BenchmarkStorage();
+        } finally {
+            SETTINGS.remove();
+        }
+
+        storage.init().join();
+        return storage;
+    }
+
+    @Override
+    public CompletableFuture<Boolean> init() {
+        if (!SQLITE.equals(settings.backend)) {
+            return CompletableFuture.completedFuture(true);
+        }
+
+        new File(DATABASE_FILE).delete();
+        try (final Statement statement = getConnection().createStatement()) {
+            statement.execute("PRAGMA journal_mode=WAL");
+            statement.execute("CREATE TABLE IF NOT EXISTS benchmark_value (id BLOB PRIMARY KEY, " +
+                              "name STRING NOT NULL, score INTEGER NOT NULL)");
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+        return CompletableFuture.completedFuture(true);
+    }
+
+    @Override
+    protected List<StorageValueResolver<?, ?>> getValueResolvers() {
+        final Settings settings = SETTINGS.get();
+        final Class<Object> keyType = (Class<Object>) settings.keyType;
+
+        if (SQLITE.equals(settings.backend)) {
+            return Collections.singletonList(new SQLiteValueResolver(keyType, this));
+        }
+        return Collections.singletonList(new MemoryValueResolver(keyType, this));
+    }
+
+    @Override
+    protected List<StorageKeyResolver<?>> getKeyResolvers() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public ExecutorService getExecutorService() {
+        return Executors.newFixedThreadPool(SETTINGS.get().executorThreads);
+    }
+
+    @Override
+    protected void establishConnection() {
+        if (!SQLITE.equals(settings.backend)) {
+            return;
+        }
+
+        try {
+            connection = DriverManager.getConnection("jdbc:sqlite:" + DATABASE_FILE);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public Connection getConnection() {
+        if (connection == null) {
+            establishConnection();
+        }
+        return connection;
+    }
+
+    @Override
+    public void shutdown() {
+        super.shutdown();
+        new File(DATABASE_FILE).delete();
+    }
+
+    private static final class Settings {
+        private final String backend;
+        private final Class<?> keyType;
+        private final int executorThreads;
+
+        private Settings(final String backend, final Class<?> keyType, final int executorThreads) {
+            this.backend = backend;
+            this.keyType = keyType;
+            this.executorThreads = executorThreads;
+        }
+    }
+
+    private static final class MemoryValueResolver extends StorageValueResolver<Object, BenchmarkValue> {
+        private final Map<String, BenchmarkValue> values = new ConcurrentHashMap<>();
+
+        private MemoryValueResolver(final Class<Object> keyType, final StorageBase storageBase) {
+            super(BenchmarkValue.class, keyType, storageBase);
+        }
+
+        @Override
+        public void save(final String key, final Object value) {
+            values.put(key, (BenchmarkValue) value);
+        }
+
+        @Override
+        public BenchmarkValue retrieve(final String key) {
+            return values.get(key);
+        }
+
+        @Override
+        public void delete(final String key) {
+            values.remove(key);
+        }
+    }
+
+    private static final class SQLiteValueResolver extends StorageValueResolver<Object, BenchmarkValue> {
+        private static final String INSERT_QUERY =
+                "INSERT OR REPLACE INTO benchmark_value (id, name, score) VALUES (?, ?, ?)";
+        private static final String SELECT_QUERY = "SELECT name, score FROM benchmark_value WHERE id = ?";
+        private static final String DELETE_QUERY = "DELETE FROM benchmark_value WHERE id = ?";
+
+        private SQLiteValueResolver(final Class<Object> keyType, final StorageBase storageBase) {
+            super(BenchmarkValue.class, keyType, storageBase);
+        }
+
+        @Override
+        public void save(final String key, final Object value) throws SQLException {
+            final BenchmarkValue benchmarkValue = (BenchmarkValue) value;
+
+            try (final CachedStatement cachedStatement = prepareStatement(INSERT_QUERY)) {
+                final PreparedStatement statement = cachedStatement.getStatement();
+                bindKey(statement, 1, key);
+                statement.setString(2, benchmarkValue.getName());
+                statement.setInt(3, benchmarkValue.getScore());
+                statement.executeUpdate();
+            }
+        }
+
+        @Override
+        public void saveAll(final Map<String, Object> values) throws SQLException {
+            try (final CachedStatement cachedStatement = prepareStatement(INSERT_QUERY)) {
+                final PreparedStatement statement = cachedStatement.getStatement();
+                for (final Map.Entry<String, Object> entry : values.entrySet()) {
+                    final BenchmarkValue benchmarkValue = (BenchmarkValue) entry.getValue();
+
+                    bindKey(statement, 1, entry.getKey());
+                    statement.setString(2, benchmarkValue.getName());
+                    statement.setInt(3, benchmarkValue.getScore());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        }
+
+        @Override
+        public BenchmarkValue retrieve(final String key) throws SQLException {
+            try (final CachedStatement cachedStatement = prepareStatement(SELECT_QUERY)) {
+                final PreparedStatement statement = cachedStatement.getStatement();
+                bindKey(statement, 1, key);
+
+                try (final ResultSet resultSet = statement.executeQuery()) {
+                    if (!resultSet.next()) {
+                        return null;
+                    }
+                    return new BenchmarkValue(resultSet.getString(1), resultSet.getInt(2));
+                }
+            }
+        }
+
+        @Override
+        public void delete(final String key) throws SQLException {
+            try (final CachedStatement cachedStatement = prepareStatement(DELETE_QUERY)) {
+                final PreparedStatement statement = cachedStatement.getStatement();
+                bindKey(statement, 1, key);
+                statement.executeUpdate();
+            }
+        }
+    }
+}
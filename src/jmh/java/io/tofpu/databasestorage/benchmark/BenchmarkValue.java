@@ -0,0 +1,19 @@
+package io.tofpu.databasestorage.benchmark;
+
+public class BenchmarkValue {
+    private final String name;
+    private final int score;
+
+    public BenchmarkValue(final String name, final int score) {
+        this.name = name;
+        this.score = score;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getScore() {
+        return score;
+    }
+}
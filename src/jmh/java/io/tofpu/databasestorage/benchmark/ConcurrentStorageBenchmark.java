@@ -0,0 +1,11 @@
+package io.tofpu.databasestorage.benchmark;
+
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Runs the {@link StorageBenchmark} from several caller threads at once, the
+ * thread count may be overridden with the {@code -t} option of JMH.
+ */
+@Threads(8)
+public class ConcurrentStorageBenchmark extends StorageBenchmark {
+}
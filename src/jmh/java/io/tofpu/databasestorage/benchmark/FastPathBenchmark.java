@@ -0,0 +1,151 @@
+package io.tofpu.databasestorage.benchmark;
+
+import io.tofpu.databasestorage.StorageCallback;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the blocking variants, e.g. {@link io.tofpu.databasestorage.StorageBase#save(Object, Object)},
+ * and the callback variants, e.g.
+ * {@link io.tofpu.databasestorage.StorageBase#saveAsync(Object, Object, StorageCallback)},
+ * of the operations on a hot key space. Run with the {@code gc} profiler,
+ * the {@code gc.alloc.rate.norm} of the memory backend shows the bytes that
+ * are allocated per operation by the {@link io.tofpu.databasestorage.StorageBase}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FastPathBenchmark {
+    private static final int HOT_KEY_COUNT = 16;
+
+    @Param({BenchmarkStorage.MEMORY, BenchmarkStorage.SQLITE})
+    public String backend;
+
+    @Param({"uuid", "string"})
+    public String keyType;
+
+    private BenchmarkStorage storage;
+    private Object[] keys;
+    private BenchmarkValue value;
+    private int nextKey;
+
+    private final AwaitingCallback callback = new AwaitingCallback();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final boolean uuid = "uuid".equals(keyType);
+        storage = BenchmarkStorage.create(backend, uuid ? UUID.class : String.class, 2);
+
+        keys = new Object[HOT_KEY_COUNT];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = uuid ? UUID.randomUUID() : "key-" + i;
+        }
+        value = new BenchmarkValue("Tofpu", 42);
+
+        final Map<Object, BenchmarkValue> values = new LinkedHashMap<>();
+        for (final Object key : keys) {
+            values.put(key, value);
+        }
+        storage.saveAllAsync(values).join();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        storage.shutdown();
+    }
+
+    private Object nextKey() {
+        // cycles through the hot keys, the benchmark runs on a single thread
+        nextKey = (nextKey + 1) & (HOT_KEY_COUNT - 1);
+        return keys[nextKey];
+    }
+
+    @Benchmark
+    public void save() {
+        storage.save(nextKey(), value);
+    }
+
+    @Benchmark
+    public BenchmarkValue retrieve() {
+        return storage.retrieve(nextKey(), BenchmarkValue.class);
+    }
+
+    @Benchmark
+    public void delete() {
+        // deleting an absent row costs the same round trip as an existing one
+        storage.delete(nextKey(), BenchmarkValue.class);
+    }
+
+    @Benchmark
+    public Object saveCallback() {
+        callback.reset();
+        storage.saveAsync(nextKey(), value, callback);
+        return callback.await();
+    }
+
+    @Benchmark
+    public Object retrieveCallback() {
+        callback.reset();
+        storage.retrieveAsync(nextKey(), BenchmarkValue.class, callback);
+        return callback.await();
+    }
+
+    @Benchmark
+    public Object deleteCallback() {
+        callback.reset();
+        storage.deleteAsync(nextKey(), BenchmarkValue.class, callback);
+        return callback.await();
+    }
+
+    /**
+     * A callback that is reused by every invocation, and spun on by the
+     * benchmark thread, so that waiting for the outcome does not allocate.
+     */
+    private static final class AwaitingCallback implements StorageCallback<Object> {
+        private Object result;
+        private Throwable throwable;
+        private volatile boolean done;
+
+        void reset() {
+            result = null;
+            throwable = null;
+            done = false;
+        }
+
+        @Override
+        public void onComplete(final Object result, final Throwable throwable) {
+            this.result = result;
+            this.throwable = throwable;
+            done = true;
+        }
+
+        Object await() {
+            while (!done) {
+                Thread.onSpinWait();
+            }
+            if (throwable != null) {
+                throw new IllegalStateException(throwable);
+            }
+            return result;
+        }
+    }
+}
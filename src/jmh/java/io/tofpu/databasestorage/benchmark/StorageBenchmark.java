@@ -0,0 +1,100 @@
+package io.tofpu.databasestorage.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the round trip of {@link io.tofpu.databasestorage.StorageBase#saveAsync(Object, Object)},
+ * {@link io.tofpu.databasestorage.StorageBase#retrieveAsync(Object, Class)} and
+ * {@link io.tofpu.databasestorage.StorageBase#deleteAsync(Object, Class)} from a
+ * single caller thread, see {@link ConcurrentStorageBenchmark} for several callers.
+ * <p>
+ * The hot key space is small enough to stay in every cache, while the cold key
+ * space is spread over many rows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StorageBenchmark {
+    private static final int HOT_KEY_COUNT = 16;
+    private static final int COLD_KEY_COUNT = 100_000;
+
+    @Param({BenchmarkStorage.MEMORY, BenchmarkStorage.SQLITE})
+    public String backend;
+
+    @Param({"uuid", "string"})
+    public String keyType;
+
+    @Param({"hot", "cold"})
+    public String keySpace;
+
+    @Param({"2", "8"})
+    public int executorThreads;
+
+    private BenchmarkStorage storage;
+    private Object[] keys;
+    private BenchmarkValue value;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final boolean uuid = "uuid".equals(keyType);
+        storage = BenchmarkStorage.create(backend, uuid ? UUID.class : String.class, executorThreads);
+
+        keys = new Object["hot".equals(keySpace) ? HOT_KEY_COUNT : COLD_KEY_COUNT];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = uuid ? UUID.randomUUID() : "key-" + i;
+        }
+        value = new BenchmarkValue("Tofpu", 42);
+
+        final Map<Object, BenchmarkValue> values = new LinkedHashMap<>();
+        for (final Object key : keys) {
+            values.put(key, value);
+        }
+        storage.saveAllAsync(values).join();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        storage.shutdown();
+    }
+
+    private Object nextKey() {
+        return keys[ThreadLocalRandom.current().nextInt(keys.length)];
+    }
+
+    @Benchmark
+    public Boolean save() {
+        return storage.saveAsync(nextKey(), value).join();
+    }
+
+    @Benchmark
+    public BenchmarkValue retrieve() {
+        return storage.retrieveAsync(nextKey(), BenchmarkValue.class).join();
+    }
+
+    @Benchmark
+    public Boolean delete() {
+        // deleting an absent row costs the same round trip as an existing one
+        return storage.deleteAsync(nextKey(), BenchmarkValue.class).join();
+    }
+}
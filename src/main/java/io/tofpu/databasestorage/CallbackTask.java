@@ -0,0 +1,191 @@
+package io.tofpu.databasestorage;
+
+import io.tofpu.databasestorage.metrics.StorageOperation;
+import io.tofpu.databasestorage.resolver.value.StorageValueResolver;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Runs an operation that was submitted with a {@link StorageCallback}. The
+ * tasks are taken from a {@link Pool} and returned to it right before the
+ * callback is called, so that submitting an operation does not allocate a
+ * task, a future or a lambda.
+ */
+final class CallbackTask implements Runnable {
+    private final Pool pool;
+
+    private StorageOperation operation;
+    private StorageValueResolver<?, ?> valueResolver;
+    private String key;
+    private Object value;
+    private Class<?> valueType;
+    private StorageCallback<Object> callback;
+    private long submitTime;
+    private EntryKey entryKey;
+    private CompletableFuture<Boolean> pendingWrite;
+
+    private CallbackTask(final Pool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * @param operation either {@link StorageOperation#SAVE},
+     * {@link StorageOperation#RETRIEVE} or {@link StorageOperation#DELETE}
+     * @param valueResolver the resolver to run the operation with
+     * @param key the serialized key
+     * @param value the value to be saved, or null
+     * @param valueType the type the retrieved value is cast to, or null
+     * @param callback the callback of the operation
+     * @param submitTime the time the operation was submitted at
+     *
+     * @return this task
+     */
+    CallbackTask init(final StorageOperation operation, final StorageValueResolver<?, ?> valueResolver,
+            final String key, final Object value, final Class<?> valueType,
+            final StorageCallback<?> callback, final long submitTime) {
+        this.operation = operation;
+        this.valueResolver = valueResolver;
+        this.key = key;
+        this.value = value;
+        this.valueType = valueType;
+        // the callback is only completed with the result of its operation
+        @SuppressWarnings("unchecked")
+        final StorageCallback<Object> resultCallback = (StorageCallback<Object>) callback;
+        this.callback = resultCallback;
+        this.submitTime = submitTime;
+        return this;
+    }
+
+    /**
+     * @param entryKey the entry that is written by this task
+     * @param pendingWrite the future that was registered as the pending write
+     * of the entry, which is completed before the callback is called
+     *
+     * @return this task
+     */
+    CallbackTask trackWrite(final EntryKey entryKey, final CompletableFuture<Boolean> pendingWrite) {
+        this.entryKey = entryKey;
+        this.pendingWrite = pendingWrite;
+        return this;
+    }
+
+    @Override
+    public void run() {
+        Object result = null;
+        Throwable throwable = null;
+        try {
+            final Object retrieved = pool.storageBase.executeNow(operation, valueResolver, key, value,
+                    null, submitTime);
+            result = operation == StorageOperation.RETRIEVE ? valueType.cast(retrieved) : Boolean.TRUE;
+        } catch (Exception e) {
+            throwable = e;
+        }
+
+        complete(result, throwable);
+    }
+
+    /**
+     * This method will return this task to its pool, and then call the callback.
+     *
+     * @param result the result of the operation
+     * @param throwable the cause of the failure, or null
+     */
+    void complete(final Object result, final Throwable throwable) {
+        final StorageCallback<Object> callback = this.callback;
+        final EntryKey entryKey = this.entryKey;
+        final CompletableFuture<Boolean> pendingWrite = this.pendingWrite;
+        operation = null;
+        valueResolver = null;
+        key = null;
+        value = null;
+        valueType = null;
+        this.callback = null;
+        this.entryKey = null;
+        this.pendingWrite = null;
+        pool.release(this);
+
+        if (pendingWrite != null) {
+            pool.storageBase.completeWrite(entryKey, pendingWrite, throwable == null);
+        }
+        callback.onComplete(result, throwable);
+    }
+
+    /**
+     * A bounded pool of tasks, which hands out and takes back tasks without
+     * allocating, via a ring buffer whose slots are claimed by a sequence
+     * number each, so that a slot is never handed out twice. A task that is
+     * released while the pool is full is left to the garbage collector.
+     */
+    static final class Pool {
+        private final StorageBase storageBase;
+        private final int mask;
+        private final CallbackTask[] tasks;
+        private final AtomicLongArray sequences;
+        private final AtomicLong releasePosition = new AtomicLong();
+        private final AtomicLong acquirePosition = new AtomicLong();
+
+        /**
+         * @param storageBase the storage the tasks run their operations on
+         * @param capacity the maximum amount of idle tasks, a power of two
+         */
+        Pool(final StorageBase storageBase, final int capacity) {
+            if (Integer.bitCount(capacity) != 1) {
+                throw new IllegalArgumentException("capacity must be a power of two");
+            }
+
+            this.storageBase = storageBase;
+            this.mask = capacity - 1;
+            this.tasks = new CallbackTask[capacity];
+            this.sequences = new AtomicLongArray(capacity);
+            for (int i = 0; i < capacity; i++) {
+                sequences.set(i, i);
+            }
+        }
+
+        /**
+         * @return an idle task, or a new one if the pool is empty
+         */
+        CallbackTask acquire() {
+            long position = acquirePosition.get();
+            while (true) {
+                final int index = (int) position & mask;
+                final long difference = sequences.get(index) - (position + 1);
+                if (difference == 0) {
+                    if (acquirePosition.compareAndSet(position, position + 1)) {
+                        final CallbackTask task = tasks[index];
+                        tasks[index] = null;
+                        sequences.set(index, position + mask + 1);
+                        return task;
+                    }
+                    position = acquirePosition.get();
+                } else if (difference < 0) {
+                    return new CallbackTask(this);
+                } else {
+                    position = acquirePosition.get();
+                }
+            }
+        }
+
+        private void release(final CallbackTask task) {
+            long position = releasePosition.get();
+            while (true) {
+                final int index = (int) position & mask;
+                final long difference = sequences.get(index) - position;
+                if (difference == 0) {
+                    if (releasePosition.compareAndSet(position, position + 1)) {
+                        tasks[index] = task;
+                        sequences.set(index, position + 1);
+                        return;
+                    }
+                    position = releasePosition.get();
+                } else if (difference < 0) {
+                    return;
+                } else {
+                    position = releasePosition.get();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package io.tofpu.databasestorage;
+
+import java.util.Objects;
+
+/**
+ * Identifies a single stored entry by its value type and its serialized key.
+ */
+public final class EntryKey {
+    private final Class<?> valueType;
+    private final String key;
+    private final int hash;
+
+    public EntryKey(final Class<?> valueType, final String key) {
+        this.valueType = valueType;
+        this.key = key;
+        this.hash = 31 * valueType.hashCode() + key.hashCode();
+    }
+
+    /**
+     * @return the value type of the entry
+     */
+    public Class<?> getValueType() {
+        return valueType;
+    }
+
+    /**
+     * @return the serialized key of the entry
+     */
+    public String getKey() {
+        return key;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        final EntryKey that = (EntryKey) o;
+
+        return valueType == that.valueType && Objects.equals(key, that.key);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return valueType.getSimpleName() + ":" + key;
+    }
+}
@@ -0,0 +1,33 @@
+package io.tofpu.databasestorage;
+
+/**
+ * Hashes serialized keys into well mixed 64-bit values, e.g. for the bits of
+ * a {@link io.tofpu.databasestorage.filter.BloomFilter} and the points of the ring of a
+ * {@link io.tofpu.databasestorage.shard.ShardedStorage}.
+ */
+public final class KeyHash {
+    private KeyHash() {}
+
+    /**
+     * FNV-1a over the characters, followed by the finalizer of MurmurHash3,
+     * so that similar keys, e.g. sequential ids, are spread evenly.
+     *
+     * @param key the key to be hashed
+     *
+     * @return the hash of the key
+     */
+    public static long hash(final String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
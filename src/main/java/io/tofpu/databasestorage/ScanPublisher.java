@@ -0,0 +1,217 @@
+package io.tofpu.databasestorage;
+
+import io.tofpu.databasestorage.resolver.value.StorageValueResolver;
+import io.tofpu.databasestorage.scan.StorageCursor;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the values of a {@link StorageValueResolver#scan(String, String, int)}.
+ * Every subscriber gets its own cursor, which is only opened once the first
+ * value is requested, and only advanced as far as the subscriber requested,
+ * so the amount of values in memory does not depend on the size of the table.
+ * <p>
+ * The cursor is advanced in tasks on the executor, which emit at most one
+ * fetch size of values before they resubmit themselves, so that a long scan
+ * does not occupy a thread while other operations are waiting. As the cursor
+ * keeps its connection in between, a scan opens its own connection when a
+ * {@link io.tofpu.databasestorage.pool.ConnectionPool} is used, instead of
+ * holding one of the pool. Otherwise the cursor is opened and advanced on the
+ * shared connection, but never while a transaction runs on it.
+ */
+final class ScanPublisher<V> implements Flow.Publisher<V> {
+    private final StorageBase storageBase;
+    private final StorageValueResolver<?, ?> valueResolver;
+    private final Class<V> valueType;
+    private final String fromKey;
+    private final String toKey;
+    private final int fetchSize;
+    private final Executor executor;
+
+    ScanPublisher(final StorageBase storageBase, final StorageValueResolver<?, ?> valueResolver,
+            final Class<V> valueType, final String fromKey, final String toKey, final int fetchSize,
+            final Executor executor) {
+        this.storageBase = storageBase;
+        this.valueResolver = valueResolver;
+        this.valueType = valueType;
+        this.fromKey = fromKey;
+        this.toKey = toKey;
+        this.fetchSize = fetchSize;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(final Flow.Subscriber<? super V> subscriber) {
+        final ScanSubscription subscription = new ScanSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+    }
+
+    private final class ScanSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super V> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger pendingDrains = new AtomicInteger();
+
+        private volatile boolean cancelled;
+        private volatile Throwable invalidRequest;
+
+        // only accessed by the drain task, which never runs concurrently
+        private Connection connection;
+        private StorageCursor<?> cursor;
+        private boolean terminated;
+
+        private ScanSubscription(final Flow.Subscriber<? super V> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(final long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("non-positive request: " + n);
+            } else {
+                demand.getAndAccumulate(n, (current, added) -> {
+                    final long sum = current + added;
+                    return sum < 0 ? Long.MAX_VALUE : sum;
+                });
+            }
+            scheduleDrain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (pendingDrains.getAndIncrement() == 0) {
+                executor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            int missed = pendingDrains.get();
+            while (true) {
+                if (terminated) {
+                    return;
+                }
+
+                try {
+                    if (emit()) {
+                        // the budget was used up, let other tasks run first
+                        executor.execute(this::drain);
+                        return;
+                    }
+                } catch (Throwable throwable) {
+                    terminate(throwable);
+                }
+
+                missed = pendingDrains.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * @return true if more values were requested than one fetch size,
+         * and the remaining ones have to be emitted by another task
+         */
+        private boolean emit() throws Exception {
+            if (cancelled) {
+                release();
+                terminated = true;
+                return false;
+            }
+            if (invalidRequest != null) {
+                terminate(invalidRequest);
+                return false;
+            }
+
+            if (demand.get() == 0) {
+                return false;
+            }
+            if (cursor == null) {
+                open();
+            }
+
+            final Boolean remaining = storageBase.withBoundConnection(connection, this::advance);
+            if (remaining == null) {
+                terminate(null);
+                return false;
+            }
+            return remaining;
+        }
+
+        /**
+         * @return true if more values were requested than one fetch size,
+         * false if the requested values were emitted, or null if the cursor
+         * is exhausted
+         */
+        private Boolean advance() throws SQLException {
+            long requested = demand.get();
+            int emitted = 0;
+            while (requested > 0 && !cancelled) {
+                if (emitted == fetchSize) {
+                    return true;
+                }
+                if (!cursor.next()) {
+                    return null;
+                }
+
+                subscriber.onNext(valueType.cast(cursor.getValue()));
+                emitted++;
+                requested = demand.decrementAndGet();
+            }
+            return false;
+        }
+
+        private void open() throws Exception {
+            connection = storageBase.openDedicatedConnection();
+            cursor = storageBase.withBoundConnection(connection,
+                    () -> valueResolver.scan(fromKey, toKey, fetchSize));
+        }
+
+        private void terminate(final Throwable throwable) {
+            terminated = true;
+            try {
+                release();
+            } catch (Exception e) {
+                if (throwable == null) {
+                    subscriber.onError(e);
+                    return;
+                }
+            }
+
+            if (cancelled) {
+                return;
+            }
+            if (throwable == null) {
+                subscriber.onComplete();
+            } else {
+                subscriber.onError(throwable);
+            }
+        }
+
+        private void release() throws Exception {
+            try {
+                final StorageCursor<?> cursor = this.cursor;
+                if (cursor != null) {
+                    storageBase.withBoundConnection(connection, () -> {
+                        cursor.close();
+                        return null;
+                    });
+                }
+            } finally {
+                cursor = null;
+                final Connection connection = this.connection;
+                this.connection = null;
+                storageBase.closeDedicatedConnection(connection);
+            }
+        }
+    }
+}
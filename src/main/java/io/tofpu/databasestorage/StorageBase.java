@@ -1,28 +1,139 @@
 package io.tofpu.databasestorage;
 
+import io.tofpu.databasestorage.cache.CacheStats;
+import io.tofpu.databasestorage.cache.StorageCache;
+import io.tofpu.databasestorage.codec.StorageValueCodec;
+import io.tofpu.databasestorage.executor.AdmissionController;
+import io.tofpu.databasestorage.executor.AdmissionOptions;
+import io.tofpu.databasestorage.executor.Bulkhead;
+import io.tofpu.databasestorage.executor.BulkheadOptions;
+import io.tofpu.databasestorage.executor.StorageExecutors;
+import io.tofpu.databasestorage.executor.TaskPriority;
+import io.tofpu.databasestorage.filter.MembershipFilter;
+import io.tofpu.databasestorage.filter.MembershipFilterOptions;
+import io.tofpu.databasestorage.index.SecondaryIndex;
+import io.tofpu.databasestorage.index.StorageIndex;
+import io.tofpu.databasestorage.journal.JournalEntry;
+import io.tofpu.databasestorage.journal.JournalOptions;
+import io.tofpu.databasestorage.journal.JournalRecord;
+import io.tofpu.databasestorage.journal.StorageJournal;
+import io.tofpu.databasestorage.metrics.StorageMetrics;
+import io.tofpu.databasestorage.metrics.StorageOperation;
+import io.tofpu.databasestorage.pool.ConnectionFactory;
+import io.tofpu.databasestorage.pool.ConnectionPool;
+import io.tofpu.databasestorage.pool.ConnectionPoolOptions;
+import io.tofpu.databasestorage.pool.PooledConnection;
 import io.tofpu.databasestorage.resolver.value.StorageValueResolver;
 import io.tofpu.databasestorage.resolver.key.StorageKeyResolver;
 import io.tofpu.databasestorage.resolver.key.impl.StorageStringResolver;
 import io.tofpu.databasestorage.resolver.key.impl.StorageUUIDResolver;
+import io.tofpu.databasestorage.scan.ScanOptions;
+import io.tofpu.databasestorage.scan.StorageCursor;
+import io.tofpu.databasestorage.statement.CachedStatement;
+import io.tofpu.databasestorage.statement.StatementCache;
+import io.tofpu.databasestorage.tracking.ChangeTracker;
+import io.tofpu.databasestorage.tracking.ChangeTrackingOptions;
+import io.tofpu.databasestorage.warmup.ResidentStore;
+import io.tofpu.databasestorage.warmup.WarmUpOptions;
+import io.tofpu.databasestorage.warmup.WarmUpProgress;
+import io.tofpu.databasestorage.write.GroupCommitOptions;
+import io.tofpu.databasestorage.write.GroupCommitWriter;
+import io.tofpu.databasestorage.write.WriteBehindOptions;
+import io.tofpu.databasestorage.write.WriteBehindQueue;
+import io.tofpu.databasestorage.write.WriteOperation;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 /**
  * An abstract class that provides the basic functionality for a database storage.
  */
 public abstract class StorageBase {
+    private static final Object NOT_PENDING = new Object();
+    private static final Object NOT_LOCAL = new Object();
+    private static final int CALLBACK_TASK_POOL_SIZE = 256;
+    private static final int MEMBERSHIP_SCAN_FETCH_SIZE = 1024;
+
     private final Map<Class<?>, StorageValueResolver<?, ?>> valueResolverMap = new HashMap<>();
     private final Map<Class<?>, StorageKeyResolver<?>> keyResolverMap = new HashMap<>();
 
+    // the resolvers of subtypes are looked up once, and then cached per class
+    private final ClassValue<StorageValueResolver<?, ?>> valueResolverLookup =
+            new ClassValue<StorageValueResolver<?, ?>>() {
+                @Override
+                protected StorageValueResolver<?, ?> computeValue(final Class<?> type) {
+                    return findResolver(valueResolverMap, type);
+                }
+            };
+    private final ClassValue<StorageKeyResolver<?>> keyResolverLookup =
+            new ClassValue<StorageKeyResolver<?>>() {
+                @Override
+                protected StorageKeyResolver<?> computeValue(final Class<?> type) {
+                    return findResolver(keyResolverMap, type);
+                }
+            };
+
+    private final StorageMetrics metrics = getMetrics();
+    private final boolean metricsEnabled = metrics != null && metrics != StorageMetrics.NOOP;
+
     private final ExecutorService executorService = getExecutorService();
+    private final Map<StorageValueResolver<?, ?>, Bulkhead> bulkheadMap = new IdentityHashMap<>();
+    private final AdmissionController admissionController;
+    private final Map<StorageValueResolver<?, ?>, MembershipFilter> membershipFilterMap = new IdentityHashMap<>();
+    private final WriteBehindQueue writeBehindQueue;
+    private final GroupCommitWriter groupCommitWriter;
+
+    private final StorageJournal journal;
+    private final Map<EntryKey, JournalRecord> journaledWrites = new ConcurrentHashMap<>();
+
+    private final StorageCache cache = getCache();
+    private final Map<Class<?>, ResidentStore> residentStoreMap = new HashMap<>();
+    private final Map<Class<?>, Map<String, SecondaryIndex>> indexMap = new HashMap<>();
+    private final Map<EntryKey, Object> loadTokens = new ConcurrentHashMap<>();
+    private final ChangeTracker changeTracker;
+
+    private final Map<EntryKey, CompletableFuture<Object>> retrieveFlights = new ConcurrentHashMap<>();
+    private final Map<EntryKey, CompletableFuture<Boolean>> pendingWrites = new ConcurrentHashMap<>();
+    private final boolean entriesTracked;
+    private final CallbackTask.Pool callbackTaskPool = new CallbackTask.Pool(this, CALLBACK_TASK_POOL_SIZE);
+
+    private final StatementCache statementCache = new StatementCache(getStatementCacheSize());
+    private final ThreadLocal<Connection> boundConnection = new ThreadLocal<>();
+    // held exclusively by transactions on the shared connection, see #runInTransaction(SQLAction)
+    private final ReentrantReadWriteLock sharedConnectionLock = new ReentrantReadWriteLock();
+    private ConnectionFactory connectionFactory;
+    private volatile ConnectionPool connectionPool;
+    private volatile boolean connectionPoolResolved;
 
     protected StorageBase() {
         for (final StorageValueResolver<?, ?> mapper : getValueResolvers()) {
@@ -35,6 +146,77 @@ public abstract class StorageBase {
 
         keyResolverMap.put(String.class, new StorageStringResolver());
         keyResolverMap.put(UUID.class, new StorageUUIDResolver());
+
+        for (final StorageValueResolver<?, ?> valueResolver : valueResolverMap.values()) {
+            final BulkheadOptions bulkheadOptions = getBulkheadOptions(valueResolver.getType());
+            if (bulkheadOptions != null) {
+                bulkheadMap.put(valueResolver, new Bulkhead(executorService, bulkheadOptions));
+            }
+
+            final MembershipFilterOptions membershipFilterOptions =
+                    getMembershipFilterOptions(valueResolver.getType());
+            if (membershipFilterOptions != null) {
+                membershipFilterMap.put(valueResolver,
+                        new MembershipFilter(valueResolver.getType(), membershipFilterOptions));
+            }
+
+            final WarmUpOptions warmUpOptions = getWarmUpOptions(valueResolver.getType());
+            if (warmUpOptions != null) {
+                residentStoreMap.put(valueResolver.getType(),
+                        new ResidentStore(valueResolver.getType(), warmUpOptions));
+            }
+
+            final Map<String, SecondaryIndex> indexes = new HashMap<>();
+            for (final StorageIndex<?> index : valueResolver.getIndexes()) {
+                if (indexes.put(index.getName(), SecondaryIndex.create(index)) != null) {
+                    throw new IllegalArgumentException("duplicate index " + index.getName() + " of " +
+                                                       valueResolver.getType().getName());
+                }
+            }
+            if (!indexes.isEmpty()) {
+                indexMap.put(valueResolver.getType(), indexes);
+            }
+        }
+
+        final AdmissionOptions admissionOptions = getAdmissionOptions();
+        admissionController = admissionOptions == null ? null : new AdmissionController(admissionOptions);
+
+        final WriteBehindOptions writeBehindOptions = getWriteBehindOptions();
+        if (writeBehindOptions != null) {
+            writeBehindQueue = new WriteBehindQueue(writeBehindOptions, executorService,
+                    this::applyWrites);
+        } else {
+            writeBehindQueue = null;
+        }
+
+        final GroupCommitOptions groupCommitOptions = writeBehindQueue == null ?
+                getGroupCommitOptions() : null;
+        if (groupCommitOptions != null) {
+            groupCommitWriter = new GroupCommitWriter(groupCommitOptions, this::applyWrites);
+        } else {
+            groupCommitWriter = null;
+        }
+
+        final ChangeTrackingOptions changeTrackingOptions = getChangeTrackingOptions();
+        changeTracker = changeTrackingOptions == null ? null : new ChangeTracker(changeTrackingOptions);
+
+        final JournalOptions journalOptions = getJournalOptions();
+        if (journalOptions != null) {
+            try {
+                journal = new StorageJournal(journalOptions);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        } else {
+            journal = null;
+        }
+
+        entriesTracked = cache != null || changeTracker != null || journal != null || isWriteQueued() ||
+                         !membershipFilterMap.isEmpty() || !residentStoreMap.isEmpty() || !indexMap.isEmpty();
+
+        if (metricsEnabled) {
+            registerQueues();
+        }
     }
 
     /**
@@ -72,11 +254,403 @@ public abstract class StorageBase {
      */
     public abstract Connection getConnection();
 
+    /**
+     * This method shall be overridden by subclasses if you wish to use a
+     * {@link ConnectionPool} instead of the single connection that is returned
+     * by {@link #getConnection()}. Every asynchronous operation then leases its
+     * own connection from the pool, while a scan opens its own connection via
+     * the factory, as it keeps it until the scan completes. A leased
+     * connection that failed with a connection exception, or that is no longer
+     * valid after a failure, is closed instead of being returned to the pool.
+     * Without a pool, the writes that run within
+     * a transaction, e.g. {@link #saveAllAsync(Map)} or
+     * {@link #transactionAsync(TransactionAction)}, hold back every other
+     * operation on the shared connection until they were committed.
+     *
+     * @return the factory that opens new connections, or null to share the
+     * single connection
+     */
+    protected ConnectionFactory getConnectionFactory() {
+        return null;
+    }
+
+    /**
+     * This method shall be overridden by subclasses if you wish to configure
+     * the {@link ConnectionPool}. By default, the pool allows one connection
+     * per thread of the executor, and one more for the thread of the
+     * group-commit writer if it is enabled, as no other operation keeps its
+     * connection beyond the task it runs in.
+     *
+     * @param executorService the executor the operations are run on
+     *
+     * @return the options of the connection pool
+     */
+    protected ConnectionPoolOptions getConnectionPoolOptions(final ExecutorService executorService) {
+        return ConnectionPoolOptions.alignedTo(executorService, groupCommitWriter != null ? 1 : 0);
+    }
+
+    /**
+     * @return the connection pool, or null if the single connection is shared
+     */
+    public ConnectionPool getConnectionPool() {
+        final ConnectionPool pool = connectionPool;
+        if (pool != null || connectionPoolResolved) {
+            return pool;
+        }
+
+        synchronized (this) {
+            if (!connectionPoolResolved) {
+                connectionFactory = getConnectionFactory();
+                if (connectionFactory != null) {
+                    final ConnectionPool createdPool = new ConnectionPool(connectionFactory,
+                            getConnectionPoolOptions(executorService), statementCache::invalidate);
+                    try {
+                        createdPool.fill();
+                    } catch (SQLException e) {
+                        // the first lease reports the failure
+                    }
+                    connectionPool = createdPool;
+                }
+                connectionPoolResolved = true;
+            }
+            return connectionPool;
+        }
+    }
+
+    /**
+     * Value resolvers shall use this method instead of {@link #getConnection()}.
+     * While an operation runs, the connection that was leased for it from
+     * the {@link ConnectionPool} is bound to the current thread, so that every
+     * resolver call within the same transaction uses the same connection.
+     *
+     * @return the connection that is bound to the current thread, or
+     * {@link #getConnection()} if there is none
+     */
+    public Connection currentConnection() {
+        final Connection connection = boundConnection.get();
+        return connection != null ? connection : getConnection();
+    }
+
+    /**
+     * This method shall be overridden by subclasses if you wish to change
+     * the amount of {@link java.sql.PreparedStatement}s that are cached per
+     * connection by {@link #prepareStatement(String)}.
+     *
+     * @return the maximum amount of cached statements per connection, or 0
+     * to disable the statement cache
+     */
+    protected int getStatementCacheSize() {
+        return 32;
+    }
+
+    /**
+     * This method will check out a cached statement of the given SQL for the
+     * {@link #currentConnection()}, or prepare a new one if there is none.
+     * The statement has to be closed once it is no longer used, which returns
+     * it to the cache instead of closing it.
+     *
+     * @param sql the SQL of the statement
+     *
+     * @return the checked out statement
+     * @throws SQLException if the statement could not be prepared
+     */
+    public CachedStatement prepareStatement(final String sql) throws SQLException {
+        return statementCache.prepare(currentConnection(), sql);
+    }
+
+    /**
+     * @return the cache of the prepared statements
+     */
+    public StatementCache getStatementCache() {
+        return statementCache;
+    }
+
+    /**
+     * This method shall be overridden by subclasses if you wish to enable
+     * the write-behind mode. In write-behind mode, saves and deletes are
+     * queued and coalesced per entry, and then flushed as one batch within
+     * a single transaction.
+     *
+     * @return the write-behind options, or null to write every value
+     * immediately
+     */
+    protected WriteBehindOptions getWriteBehindOptions() {
+        return null;
+    }
+
+    /**
+     * This method shall be overridden by subclasses if you wish to enable
+     * the group-commit mode. In group-commit mode, every save and delete is
+     * run by a single dedicated writer thread, which commits every write that
+     * was queued while it was busy within one transaction. Retrievals still
+     * run concurrently on the {@link ExecutorService}.
+     * <p>
+     * This suits databases that only allow a single writer, such as SQLite in
+     * WAL mode combined with a {@link #getConnectionFactory()}, so the readers
+     * use their own connections. The group-commit mode is ignored when the
+     * write-behind mode is enabled.
+     *
+     * @return the group-commit options, or null to run writes on the
+     * {@link ExecutorService}
+     */
+    protected GroupCommitOptions getGroupCommitOptions() {
+        return null;
+    }
+
+    /**
+     * This method shall be overridden by subclasses if you wish to enable
+     * the write-ahead journal. Every save and delete of a value type whose
+     * {@link StorageValueResolver#getCodec()} is given is then appended to
+     * the {@link StorageJournal}, and its future is completed as soon as it
+     * was appended instead of once it was committed. The writes that did not
+     * reach the database before a crash are committed on the next startup by
+     * {@link #replayJournal()}.
+     *
+     * @return the journal options, or null to acknowledge writes once they
+     * were committed
+     */
+    protected JournalOptions getJournalOptions() {
+        return null;
+    }
+
+    /**
+     * This method will commit the writes that were left in the journal by a
+     * previous run within a single transaction. It shall be called by
+     * {@link #init()} once the database is ready, and does nothing if the
+     * journal is disabled.
+     *
+     * @return the amount of recovered writes
+     * @throws SQLException if the writes could not be committed, in which
+     * case they stay in the journal
+     */
+    protected int replayJournal() throws SQLException {
+        if (journal == null) {
+            return 0;
+        }
+
+        final Collection<JournalEntry> entries;
+        try {
+            entries = journal.recover();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        final Map<String, StorageValueResolver<?, ?>> resolversByName = new HashMap<>();
+        for (final StorageValueResolver<?, ?> valueResolver : valueResolverMap.values()) {
+            resolversByName.put(valueResolver.getType().getName(), valueResolver);
+        }
+
+        int count = 0;
+        final Map<StorageValueResolver<?, ?>, Map<String, Object>> saves = new LinkedHashMap<>();
+        final Map<StorageValueResolver<?, ?>, List<String>> deletes = new LinkedHashMap<>();
+        for (final JournalEntry entry : entries) {
+            final StorageValueResolver<?, ?> valueResolver = resolversByName.get(entry.getValueType());
+            if (valueResolver == null || valueResolver.getCodec() == null) {
+                continue;
+            }
+
+            final EntryKey entryKey = new EntryKey(valueResolver.getType(), entry.getKey());
+            if (entry.isDelete()) {
+                removeMember(valueResolver, entryKey);
+                deletes.computeIfAbsent(valueResolver, resolver -> new ArrayList<>())
+                        .add(entry.getKey());
+            } else {
+                addMember(valueResolver, entryKey);
+                saves.computeIfAbsent(valueResolver, resolver -> new LinkedHashMap<>())
+                        .put(entry.getKey(), entry.decode(valueResolver.getCodec()));
+            }
+            count++;
+        }
+
+        writeAll(saves, deletes, 0);
+        journal.completeRecovery();
+        return count;
+    }
+
+    /**
+     * This method shall be overridden by subclasses if you wish to cache
+     * retrieved values in-process. The cache is kept coherent with
+     * {@link #saveAsync(Object, Object)} and {@link #deleteAsync(Object, Class)},
+     * and a cached value is returned without touching the {@link ExecutorService}.
+     *
+     * @return the cache to be used, or null to always retrieve values from
+     * the database
+     * @see io.tofpu.databasestorage.cache.SegmentedLruCache
+     */
+    protected StorageCache getCache() {
+        return null;
+    }
+
+    /**
+     * This method shall be overridden by subclasses if you wish to enable
+     * change tracking. The last persisted state of every value whose
+     * {@link StorageValueResolver#snapshot(Object)} is given is then
+     * remembered, a save that does not change the state is skipped, or
+     * completed with the write of that state if it is still pending, and
+     * otherwise only the changed fields are passed to
+     * {@link StorageValueResolver#saveChanges(String, Object, Set)}.
+     * <p>
+     * Saves are only passed their changed fields when they are run on the
+     * {@link ExecutorService}, queued and bulk writes are written in full,
+     * but are still skipped if nothing changed.
+     *
+     * @return the change tracking options, or null to save every value in full
+     */
+    protected ChangeTrackingOptions getChangeTrackingOptions() {
+        return null;
+    }
+
+    /**
+     * This method shall be overridden by subclasses if you wish to answer the
+     * retrievals of absent keys of a value type without querying the
+     * database, see {@link MembershipFilter}. The filter has to be built by
+     * {@link #loadMembershipFilters()}.
+     * <p>
+     * The filter only knows the keys that were written through this storage,
+     * so it shall not be enabled for tables that are written to by others.
+     *
+     * @param valueType the value type
+     *
+     * @return the membership filter options of the value type, or null to
+     * always query the database
+     */
+    protected MembershipFilterOptions getMembershipFilterOptions(final Class<?> valueType) {
+        return null;
+    }
+
+    /**
+     * This method will build the membership filters, either by loading them
+     * from the files they were persisted to on the last shutdown, or by
+     * scanning the keys via {@link StorageValueResolver#scan(String, String, int)}.
+     * It shall be called by {@link #init()} once the database is ready, after
+     * {@link #replayJournal()}. The filter of a value type whose resolver does
+     * not support scans stays disabled.
+     *
+     * @return the amount of keys that were scanned
+     * @throws SQLException if the keys could not be scanned
+     */
+    protected int loadMembershipFilters() throws SQLException {
+        int count = 0;
+        for (final Map.Entry<StorageValueResolver<?, ?>, MembershipFilter> entry : membershipFilterMap.entrySet()) {
+            final StorageValueResolver<?, ?> valueResolver = entry.getKey();
+            final MembershipFilter filter = entry.getValue();
+            try {
+                if (filter.load()) {
+                    continue;
+                }
+            } catch (IOException e) {
+                // falls back to scanning the keys
+            }
+
+            try {
+                count += withConnection(() -> {
+                    int scanned = 0;
+                    try (final StorageCursor<?> cursor = valueResolver.scan(null, null,
+                            MEMBERSHIP_SCAN_FETCH_SIZE)) {
+                        while (cursor.next()) {
+                            filter.add(cursor.getKey());
+                            scanned++;
+                        }
+                    }
+                    return scanned;
+                });
+            } catch (UnsupportedOperationException e) {
+                continue;
+            }
+            filter.markReady();
+        }
+        return count;
+    }
+
+    /**
+     * @param valueType the value type
+     *
+     * @return the membership filter of the value type, or null if it has none
+     */
+    public MembershipFilter getMembershipFilter(final Class<?> valueType) {
+        final StorageValueResolver<?, ?> valueResolver = getValueResolver(valueType);
+        return valueResolver == null ? null : membershipFilterMap.get(valueResolver);
+    }
+
+    /**
+     * @return a snapshot of the cache statistics, or null if no cache is used
+     */
+    public CacheStats getCacheStats() {
+        return cache == null ? null : cache.getStats();
+    }
+
+    /**
+     * This method shall be overridden by subclasses if you wish to keep every
+     * retrieved value of a value type in memory, see {@link ResidentStore}.
+     * The store is consulted before the cache, and kept coherent with the
+     * writes like the cache, but never evicts a value. It is preloaded by
+     * {@link #warmUp()}.
+     *
+     * @param valueType the value type
+     *
+     * @return the warm-up options of the value type, or null to not keep its
+     * values resident
+     */
+    protected WarmUpOptions getWarmUpOptions(final Class<?> valueType) {
+        return null;
+    }
+
+    /**
+     * This method will preload the values of every value type that has a
+     * {@link ResidentStore} in the background, see {@link WarmUpTask}. It
+     * shall be called by {@link #init()} once the database is ready, after
+     * {@link #loadMembershipFilters()}, without waiting for the returned
+     * future, as the values that are not resident yet are retrieved on demand
+     * in the meantime. With {@link io.tofpu.databasestorage.warmup.WarmUpMode#ALL},
+     * the store of a value type whose resolver does not support scans is only
+     * filled on demand.
+     *
+     * @return the future that is completed with the amount of loaded values
+     * once every warm-up has completed
+     */
+    protected CompletableFuture<Long> warmUp() {
+        final List<CompletableFuture<Long>> futures = new ArrayList<>(residentStoreMap.size());
+        for (final StorageValueResolver<?, ?> valueResolver : valueResolverMap.values()) {
+            final ResidentStore residentStore = residentStoreMap.get(valueResolver.getType());
+            if (residentStore != null) {
+                futures.add(new WarmUpTask(this, valueResolver, residentStore).start());
+            }
+        }
+
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored -> futures.stream().mapToLong(CompletableFuture::join).sum());
+    }
+
+    /**
+     * This method shall be overridden by subclasses if you wish to report the
+     * progress of the warm-up, e.g. to log it. It is called on the executor
+     * once a chunk of values was loaded, and once the warm-up of a value type
+     * has completed, and shall not block or throw.
+     *
+     * @param progress the progress of the warm-up of a value type
+     */
+    protected void onWarmUpProgress(final WarmUpProgress progress) {}
+
+    /**
+     * @param valueType the value type
+     *
+     * @return the resident store of the value type, or null if it has none
+     */
+    public ResidentStore getResidentStore(final Class<?> valueType) {
+        final StorageValueResolver<?, ?> valueResolver = getValueResolver(valueType);
+        return valueResolver == null ? null : residentStoreMap.get(valueResolver.getType());
+    }
+
     /**
      * This method will attempt to save the value to the database by
      * finding the appropriate {@link StorageValueResolver}, and then
      * calling the {@link StorageValueResolver#save(String, Object)} method
      * asynchronously.
+     * <p>
+     * When the write-behind or the group-commit mode is enabled, the value is
+     * queued instead, and the returned future is completed once its batch has
+     * been committed. When the journal is enabled, the returned future is
+     * already completed once the save was appended to the journal.
      *
      * @param key the key to be passed to the {@link StorageValueResolver}
      * @param value the value to be passed to the {@link StorageValueResolver}
@@ -88,29 +662,46 @@ public abstract class StorageBase {
      * the given type
      */
     public CompletableFuture<Boolean> saveAsync(final Object key, final Object value) {
-        final CompletableFuture<Boolean> future = new CompletableFuture<>();
+        return executeSave(requireKeyResolver(key.getClass()), requireValueResolver(value.getClass()),
+                key, value);
+    }
 
-        final StorageKeyResolver<?> keyResolver = getKeyResolver(key.getClass());
-        if (keyResolver == null) {
-            throw new IllegalArgumentException("No keyResolver found for key type " + key.getClass());
+    CompletableFuture<Boolean> executeSave(final StorageKeyResolver<?> keyResolver,
+            final StorageValueResolver<?, ?> valueResolver, final Object key, final Object value) {
+        final EntryKey entryKey = new EntryKey(valueResolver.getType(), serialize(keyResolver, key));
+        final Set<String> changedFields = trackChanges(entryKey, valueResolver, value);
+        updateCache(entryKey, value);
+        addMember(valueResolver, entryKey);
+        if (changedFields != null && changedFields.isEmpty()) {
+            return skippedWrite(entryKey);
         }
 
-        final StorageValueResolver<?, ?> valueResolver = getValueResolver(value.getClass());
-        if (valueResolver == null) {
-            throw new IllegalArgumentException("No valueResolver found for value type " + value.getClass());
-        }
+        final JournalRecord record = appendJournal(entryKey, valueResolver, value);
+        final CompletableFuture<Boolean> queued = queueWrite(entryKey, valueResolver, value);
+        return acknowledge(record, trackWrite(entryKey, queued != null ? queued :
+                submitSave(entryKey, valueResolver, value, changedFields)));
+    }
 
-        CompletableFuture.runAsync(() -> {
+    private CompletableFuture<Boolean> submitSave(final EntryKey entryKey,
+            final StorageValueResolver<?, ?> valueResolver, final Object value,
+            final Set<String> changedFields) {
+        final long submitTime = submitted(valueResolver.getType(), StorageOperation.SAVE);
+        return submit(valueResolver, StorageOperation.SAVE, () -> {
             try {
-                valueResolver.save(keyResolver.serialize(key), value);
-                future.complete(true);
+                executeNow(StorageOperation.SAVE, valueResolver, entryKey.getKey(), value, changedFields,
+                        submitTime);
             } catch (SQLException e) {
-                future.completeExceptionally(e);
-                throw new IllegalStateException(e);
+                throw new CompletionException(e);
             }
-        }, executorService);
-
-        return future;
+            updateCache(entryKey, value);
+            return true;
+        }).whenComplete((result, throwable) -> {
+            // also reached if the save was never admitted
+            if (throwable != null) {
+                updateCache(entryKey, null);
+                forgetChanges(entryKey);
+            }
+        });
     }
 
     /**
@@ -118,6 +709,12 @@ public abstract class StorageBase {
      * finding the appropriate {@link StorageValueResolver}, and then
      * calling the {@link StorageValueResolver#retrieve(String)} method
      * asynchronously.
+     * <p>
+     * If the value is resident, cached, or queued by the write-behind mode, the
+     * returned future is already completed. Concurrent retrievals of the same entry
+     * share a single call to the {@link StorageValueResolver}, and a retrieval
+     * is only run once the writes that were submitted to the entry before it
+     * have completed.
      *
      * @param key the key to be passed to the {@link StorageValueResolver}
      * @param valueType the type of the value to be passed to the {@link StorageValueResolver}
@@ -131,23 +728,169 @@ public abstract class StorageBase {
      */
     public <T> CompletableFuture<T> retrieveAsync(final Object key,
             final Class<T> valueType) {
-        final StorageKeyResolver<?> keyResolver = getKeyResolver(key.getClass());
-        if (keyResolver == null) {
-            throw new IllegalArgumentException("No keyResolver found for key type " + key.getClass());
+        return executeRetrieve(requireKeyResolver(key.getClass()), requireValueResolver(valueType),
+                key, valueType);
+    }
+
+    <T> CompletableFuture<T> executeRetrieve(final StorageKeyResolver<?> keyResolver,
+            final StorageValueResolver<?, ?> valueResolver, final Object key,
+            final Class<T> valueType) {
+        final EntryKey entryKey = new EntryKey(valueResolver.getType(), serialize(keyResolver, key));
+        final Object local = findLocally(entryKey, valueResolver);
+        if (local != NOT_LOCAL) {
+            return CompletableFuture.completedFuture(valueType.cast(local));
         }
 
-        final StorageValueResolver<?, ?> valueResolver = getValueResolver(valueType);
-        if (valueResolver == null) {
-            throw new IllegalArgumentException("No valueResolver found for value type " + valueType);
+        // concurrent retrievals of the same entry join the retrieval that is
+        // in flight, a write to the entry removes it so that later retrievals
+        // never observe a value that was loaded before the write
+        final CompletableFuture<Object> flight = new CompletableFuture<>();
+        final CompletableFuture<Object> existing = retrieveFlights.putIfAbsent(entryKey, flight);
+        if (existing != null) {
+            return existing.thenApply(valueType::cast);
+        }
+
+        load(entryKey, valueResolver).whenComplete((value, throwable) -> {
+            retrieveFlights.remove(entryKey, flight);
+            if (throwable != null) {
+                flight.completeExceptionally(throwable);
+            } else {
+                flight.complete(value);
+            }
+        });
+        return flight.thenApply(valueType::cast);
+    }
+
+    /**
+     * This method will look for the value of the given entry without querying
+     * the database, i.e. in the journal, the write-behind queue, the resident
+     * store, the cache and the membership filter.
+     *
+     * @param entryKey the entry to look for
+     * @param valueResolver the resolver of the entry
+     *
+     * @return the value of the entry, null if the entry is known to be absent,
+     * or {@link #NOT_LOCAL} if it has to be retrieved from the database
+     */
+    private Object findLocally(final EntryKey entryKey, final StorageValueResolver<?, ?> valueResolver) {
+        final Object pending = getPendingValue(entryKey);
+        if (pending != NOT_PENDING) {
+            return pending;
+        }
+
+        final ResidentStore residentStore = getResidentStore(entryKey);
+        if (residentStore != null) {
+            final Object resident = residentStore.get(entryKey.getKey());
+            if (resident != null) {
+                return resident;
+            }
+        }
+
+        if (cache != null) {
+            final Object cached = cache.getIfPresent(entryKey);
+            if (cached != null) {
+                return cached;
+            }
         }
 
-        return (CompletableFuture<T>) CompletableFuture.supplyAsync(() -> {
+        final MembershipFilter filter = membershipFilterMap.get(valueResolver);
+        if (filter != null && !filter.mightContain(entryKey.getKey())) {
+            return null;
+        }
+        return NOT_LOCAL;
+    }
+
+    /**
+     * This method will retrieve the given entry on the executor, once the
+     * write that is pending for the entry, if any, has completed. The
+     * retrieved value is cached if the cache is enabled.
+     *
+     * @param entryKey the entry to be retrieved
+     * @param valueResolver the resolver that will retrieve the value
+     *
+     * @return the retrieved value, or null if no value was found
+     */
+    private CompletableFuture<Object> load(final EntryKey entryKey,
+            final StorageValueResolver<?, ?> valueResolver) {
+        final Object loadToken = registerLoad(entryKey);
+        final long stamp = stamp(entryKey, valueResolver);
+
+        final long submitTime = submitted(valueResolver.getType(), StorageOperation.RETRIEVE);
+        final Supplier<Object> task = () -> {
             try {
-                return valueResolver.retrieve(keyResolver.serialize(key));
+                return loadNow(entryKey, valueResolver, loadToken, stamp, submitTime);
             } catch (SQLException e) {
                 throw new IllegalStateException(e);
             }
-        }, executorService);
+        };
+
+        final CompletableFuture<Boolean> pendingWrite = pendingWrites.get(entryKey);
+        final CompletableFuture<Object> future;
+        if (pendingWrite == null) {
+            future = submit(valueResolver, StorageOperation.RETRIEVE, task);
+        } else {
+            // the outcome of the write does not matter, the entry is retrieved either way
+            future = pendingWrite.handle((result, throwable) -> null)
+                    .thenCompose(ignored -> submit(valueResolver, StorageOperation.RETRIEVE, task));
+        }
+
+        if (loadToken == null) {
+            return future;
+        }
+        // also reached if the retrieval was never admitted
+        return future.whenComplete((value, throwable) -> {
+            if (throwable != null) {
+                loadTokens.remove(entryKey, loadToken);
+            }
+        });
+    }
+
+    /**
+     * @return the token that is registered for the retrieval of the given
+     * entry, or null if retrieved values are neither cached nor kept resident
+     */
+    private Object registerLoad(final EntryKey entryKey) {
+        // a write to the entry removes the token, so that a value that was
+        // loaded before the write completed is never cached
+        final Object loadToken = isPopulated(entryKey.getValueType()) ? new Object() : null;
+        if (loadToken != null) {
+            loadTokens.put(entryKey, loadToken);
+        }
+        return loadToken;
+    }
+
+    private long stamp(final EntryKey entryKey, final StorageValueResolver<?, ?> valueResolver) {
+        final MembershipFilter filter = membershipFilterMap.get(valueResolver);
+        return filter == null ? 0 : filter.stamp(entryKey.getKey());
+    }
+
+    /**
+     * This method will retrieve the given entry on the current thread, and
+     * cache the retrieved value unless the entry was written in the meantime.
+     *
+     * @param entryKey the entry to be retrieved
+     * @param valueResolver the resolver that will retrieve the value
+     * @param loadToken the token that was registered by {@link #registerLoad(EntryKey)}
+     * @param stamp the stamp of the entry in the membership filter
+     * @param submitTime the time the retrieval was submitted at
+     *
+     * @return the retrieved value, or null if no value was found
+     * @throws SQLException if an error occurs while retrieving the value
+     */
+    private Object loadNow(final EntryKey entryKey, final StorageValueResolver<?, ?> valueResolver,
+            final Object loadToken, final long stamp, final long submitTime) throws SQLException {
+        final Object value = executeNow(StorageOperation.RETRIEVE, valueResolver, entryKey.getKey(),
+                null, null, submitTime);
+
+        if (loadToken != null) {
+            populateCache(entryKey, valueResolver, loadToken, value);
+        }
+
+        final MembershipFilter filter = membershipFilterMap.get(valueResolver);
+        if (filter != null && value == null) {
+            filter.recordAbsent(entryKey.getKey(), stamp);
+        }
+        return value;
     }
 
     /**
@@ -155,6 +898,9 @@ public abstract class StorageBase {
      * finding the appropriate {@link StorageValueResolver}, and then
      * calling the {@link StorageValueResolver#delete(String)} method
      * asynchronously.
+     * <p>
+     * When the write-behind or the group-commit mode is enabled, the delete is
+     * queued alongside the saves, and replaces any save that is queued for the same entry.
      *
      * @param key the key to be passed to the {@link StorageValueResolver}
      * @param valueType the type of the value
@@ -162,82 +908,2075 @@ public abstract class StorageBase {
      * @return true if the value was successfully deleted, false otherwise
      */
     public CompletableFuture<Boolean> deleteAsync(final Object key, final Class<?> valueType) {
-        final CompletableFuture<Boolean> future = new CompletableFuture<>();
+        return executeDelete(requireKeyResolver(key.getClass()), requireValueResolver(valueType), key);
+    }
 
-        final StorageKeyResolver<?> keyResolver = getKeyResolver(key.getClass());
-        if (keyResolver == null) {
-            throw new IllegalArgumentException("No keyResolver found for key type " + key.getClass());
-        }
+    CompletableFuture<Boolean> executeDelete(final StorageKeyResolver<?> keyResolver,
+            final StorageValueResolver<?, ?> valueResolver, final Object key) {
+        final EntryKey entryKey = new EntryKey(valueResolver.getType(), serialize(keyResolver, key));
+        updateCache(entryKey, null);
+        recordDeleted(entryKey);
+        removeMember(valueResolver, entryKey);
 
-        final StorageValueResolver<?, ?> valueResolver = getValueResolver(valueType);
-        if (valueResolver == null) {
-            throw new IllegalArgumentException("No valueResolver found for value type " + valueType);
-        }
+        final JournalRecord record = appendJournal(entryKey, valueResolver, null);
+        final CompletableFuture<Boolean> queued = queueWrite(entryKey, valueResolver, null);
+        return acknowledge(record, trackWrite(entryKey, queued != null ? queued :
+                submitDelete(entryKey, valueResolver)));
+    }
 
-        CompletableFuture.runAsync(() -> {
+    private CompletableFuture<Boolean> submitDelete(final EntryKey entryKey,
+            final StorageValueResolver<?, ?> valueResolver) {
+        final long submitTime = submitted(valueResolver.getType(), StorageOperation.DELETE);
+        return submit(valueResolver, StorageOperation.DELETE, () -> {
             try {
-                valueResolver.delete(keyResolver.serialize(key));
+                executeNow(StorageOperation.DELETE, valueResolver, entryKey.getKey(), null, null, submitTime);
             } catch (SQLException e) {
-                future.completeExceptionally(e);
-                throw new IllegalStateException(e);
+                throw new CompletionException(e);
             }
-            future.complete(true);
-        }, executorService);
-
-        return future;
+            return true;
+        }).whenComplete((result, throwable) -> updateCache(entryKey, null));
     }
 
     /**
-     * This method shall be overridden by subclasses if you wish to
-     * return your own {@link ExecutorService} for asynchronous
-     * operations.
+     * This method will save the value like {@link #saveAsync(Object, Object)},
+     * but on the current thread, for callers that already run on a worker
+     * thread. Unless the entries are tracked, e.g. by the cache, the journal
+     * or the write-behind mode, the value is passed to the
+     * {@link StorageValueResolver} directly, without allocating a future or a
+     * task, and without admission. Otherwise, this method waits for the
+     * future of {@link #saveAsync(Object, Object)}.
+     * <p>
+     * The save is not registered as a pending write, as it has completed
+     * once this method returns, so only the operations that are submitted
+     * afterwards are ordered after it, while the ones that other threads
+     * submit in the meantime are not.
      *
-     * @return the executorService to be used for asynchronous operations
+     * @param key the key to be passed to the {@link StorageValueResolver}
+     * @param value the value to be passed to the {@link StorageValueResolver}
+     *
+     * @throws IllegalStateException if the value could not be stored, or no
+     * {@link StorageKeyResolver} or {@link StorageValueResolver} is found for
+     * the given types
      */
-    public ExecutorService getExecutorService() {
-        return Executors.newFixedThreadPool(2);
+    public void save(final Object key, final Object value) {
+        executeSaveNow(requireKeyResolver(key.getClass()), requireValueResolver(value.getClass()), key, value);
+    }
+
+    void executeSaveNow(final StorageKeyResolver<?> keyResolver,
+            final StorageValueResolver<?, ?> valueResolver, final Object key, final Object value) {
+        if (isTrackingEntries()) {
+            await(executeSave(keyResolver, valueResolver, key, value));
+            return;
+        }
+        runNow(StorageOperation.SAVE, valueResolver, serialize(keyResolver, key), value);
     }
 
     /**
-     * This method will attempt to retrieve the {@link StorageValueResolver}
-     * for the given type.
+     * This method will retrieve the value like {@link #retrieveAsync(Object, Class)},
+     * but on the current thread, see {@link #save(Object, Object)}.
      *
-     * @param type the type of the value
+     * @param key the key to be passed to the {@link StorageValueResolver}
+     * @param valueType the type of the value to be passed to the {@link StorageValueResolver}
      * @param <T> the type of the value
      *
-     * @return the {@link StorageValueResolver} if found, null otherwise
+     * @return the value stored in the database, or null if no value was found
+     * @throws IllegalStateException if the value could not be retrieved, or no
+     * {@link StorageKeyResolver} or {@link StorageValueResolver} is found for
+     * the given types
      */
-    public <T> StorageValueResolver<?, T> getValueResolver(final Class<T> type) {
-        return (StorageValueResolver<?, T>) valueResolverMap.get(type);
+    public <T> T retrieve(final Object key, final Class<T> valueType) {
+        return executeRetrieveNow(requireKeyResolver(key.getClass()), requireValueResolver(valueType),
+                key, valueType);
+    }
+
+    <T> T executeRetrieveNow(final StorageKeyResolver<?> keyResolver,
+            final StorageValueResolver<?, ?> valueResolver, final Object key, final Class<T> valueType) {
+        if (isTrackingEntries()) {
+            return await(executeRetrieve(keyResolver, valueResolver, key, valueType));
+        }
+        return valueType.cast(runNow(StorageOperation.RETRIEVE, valueResolver, serialize(keyResolver, key),
+                null));
     }
 
     /**
-     * This method will attempt to retrieve the {@link StorageKeyResolver}
-     * for the given type.
+     * This method will delete the value like {@link #deleteAsync(Object, Class)},
+     * but on the current thread, see {@link #save(Object, Object)}.
      *
-     * @param type the type of the key
+     * @param key the key to be passed to the {@link StorageValueResolver}
+     * @param valueType the type of the value
+     *
+     * @throws IllegalStateException if the value could not be deleted, or no
+     * {@link StorageKeyResolver} or {@link StorageValueResolver} is found for
+     * the given types
+     */
+    public void delete(final Object key, final Class<?> valueType) {
+        executeDeleteNow(requireKeyResolver(key.getClass()), requireValueResolver(valueType), key);
+    }
+
+    void executeDeleteNow(final StorageKeyResolver<?> keyResolver,
+            final StorageValueResolver<?, ?> valueResolver, final Object key) {
+        if (isTrackingEntries()) {
+            await(executeDelete(keyResolver, valueResolver, key));
+            return;
+        }
+        runNow(StorageOperation.DELETE, valueResolver, serialize(keyResolver, key), null);
+    }
+
+    /**
+     * This method will save the value like {@link #saveAsync(Object, Object)},
+     * but report the outcome to the given callback instead of a future. Unless
+     * the entries are tracked, e.g. by the cache, the journal or the
+     * write-behind mode, or the operations are admitted by the
+     * {@link AdmissionController}, the save is run by a pooled task, and only
+     * a marker future is registered as the pending write of the entry, so
+     * that later retrievals of the entry are still ordered after the save.
+     *
+     * @param key the key to be passed to the {@link StorageValueResolver}
+     * @param value the value to be passed to the {@link StorageValueResolver}
+     * @param callback the callback that is called with true once the value
+     * was stored, or with the cause of the failure
+     *
+     * @throws IllegalStateException if no {@link StorageKeyResolver} or
+     * {@link StorageValueResolver} is found for the given types
+     */
+    public void saveAsync(final Object key, final Object value, final StorageCallback<? super Boolean> callback) {
+        executeSave(requireKeyResolver(key.getClass()), requireValueResolver(value.getClass()), key, value,
+                callback);
+    }
+
+    void executeSave(final StorageKeyResolver<?> keyResolver, final StorageValueResolver<?, ?> valueResolver,
+            final Object key, final Object value, final StorageCallback<? super Boolean> callback) {
+        if (isTrackingEntries() || admissionController != null) {
+            completeCallback(executeSave(keyResolver, valueResolver, key, value), callback);
+            return;
+        }
+        submitCallback(StorageOperation.SAVE, valueResolver, serialize(keyResolver, key), value, null, callback);
+    }
+
+    /**
+     * This method will retrieve the value like {@link #retrieveAsync(Object, Class)},
+     * but report the outcome to the given callback instead of a future, see
+     * {@link #saveAsync(Object, Object, StorageCallback)}.
+     *
+     * @param key the key to be passed to the {@link StorageValueResolver}
+     * @param valueType the type of the value to be passed to the {@link StorageValueResolver}
+     * @param callback the callback that is called with the value stored in
+     * the database, or null if no value was found, or with the cause of the failure
+     * @param <T> the type of the value
+     *
+     * @throws IllegalStateException if no {@link StorageKeyResolver} or
+     * {@link StorageValueResolver} is found for the given types
+     */
+    public <T> void retrieveAsync(final Object key, final Class<T> valueType,
+            final StorageCallback<? super T> callback) {
+        executeRetrieve(requireKeyResolver(key.getClass()), requireValueResolver(valueType), key, valueType,
+                callback);
+    }
+
+    <T> void executeRetrieve(final StorageKeyResolver<?> keyResolver,
+            final StorageValueResolver<?, ?> valueResolver, final Object key, final Class<T> valueType,
+            final StorageCallback<? super T> callback) {
+        if (isTrackingEntries() || admissionController != null) {
+            completeCallback(executeRetrieve(keyResolver, valueResolver, key, valueType), callback);
+            return;
+        }
+        submitCallback(StorageOperation.RETRIEVE, valueResolver, serialize(keyResolver, key), null, valueType,
+                callback);
+    }
+
+    /**
+     * This method will delete the value like {@link #deleteAsync(Object, Class)},
+     * but report the outcome to the given callback instead of a future, see
+     * {@link #saveAsync(Object, Object, StorageCallback)}.
+     *
+     * @param key the key to be passed to the {@link StorageValueResolver}
+     * @param valueType the type of the value
+     * @param callback the callback that is called with true once the value
+     * was deleted, or with the cause of the failure
+     *
+     * @throws IllegalStateException if no {@link StorageKeyResolver} or
+     * {@link StorageValueResolver} is found for the given types
+     */
+    public void deleteAsync(final Object key, final Class<?> valueType,
+            final StorageCallback<? super Boolean> callback) {
+        executeDelete(requireKeyResolver(key.getClass()), requireValueResolver(valueType), key, callback);
+    }
+
+    void executeDelete(final StorageKeyResolver<?> keyResolver, final StorageValueResolver<?, ?> valueResolver,
+            final Object key, final StorageCallback<? super Boolean> callback) {
+        if (isTrackingEntries() || admissionController != null) {
+            completeCallback(executeDelete(keyResolver, valueResolver, key), callback);
+            return;
+        }
+        submitCallback(StorageOperation.DELETE, valueResolver, serialize(keyResolver, key), null, null, callback);
+    }
+
+    /**
+     * @return true if an operation has to keep an in-memory structure
+     * coherent, or has to be ordered after another operation of the same
+     * entry, in which case the fast paths fall back to the futures
+     */
+    private boolean isTrackingEntries() {
+        return entriesTracked || !pendingWrites.isEmpty() || !retrieveFlights.isEmpty();
+    }
+
+    private Object runNow(final StorageOperation operation, final StorageValueResolver<?, ?> valueResolver,
+            final String key, final Object value) {
+        try {
+            return executeNow(operation, valueResolver, key, value, null,
+                    submitted(valueResolver.getType(), operation));
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void submitCallback(final StorageOperation operation,
+            final StorageValueResolver<?, ?> valueResolver, final String key, final Object value,
+            final Class<?> valueType, final StorageCallback<?> callback) {
+        final CallbackTask task = callbackTaskPool.acquire().init(operation, valueResolver, key, value,
+                valueType, callback, submitted(valueResolver.getType(), operation));
+        if (operation != StorageOperation.RETRIEVE) {
+            // a marker instead of the future of the write, so that later retrievals are ordered after it
+            final EntryKey entryKey = new EntryKey(valueResolver.getType(), key);
+            final CompletableFuture<Boolean> pendingWrite = new CompletableFuture<>();
+            pendingWrites.put(entryKey, pendingWrite);
+            task.trackWrite(entryKey, pendingWrite);
+        }
+        try {
+            executorFor(valueResolver).execute(task);
+        } catch (RejectedExecutionException e) {
+            metrics.onRejected(valueResolver.getType(), operation);
+            task.complete(null, e);
+        }
+    }
+
+    /**
+     * This method will complete the marker that was registered as the pending
+     * write of the given entry by a callback write.
+     *
+     * @param entryKey the written entry
+     * @param pendingWrite the registered marker
+     * @param written true if the write succeeded, false otherwise
+     */
+    void completeWrite(final EntryKey entryKey, final CompletableFuture<Boolean> pendingWrite,
+            final boolean written) {
+        pendingWrites.remove(entryKey, pendingWrite);
+        pendingWrite.complete(written);
+    }
+
+    private static <T> void completeCallback(final CompletableFuture<T> future,
+            final StorageCallback<? super T> callback) {
+        future.whenComplete((result, throwable) -> {
+            final boolean wrapped = throwable instanceof CompletionException && throwable.getCause() != null;
+            callback.onComplete(result, wrapped ? throwable.getCause() : throwable);
+        });
+    }
+
+    private static <T> T await(final CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * This method will attempt to save every value to the database at once,
+     * the values are grouped per {@link StorageValueResolver} and passed to
+     * {@link StorageValueResolver#saveAll(Map)} within a single transaction,
+     * which runs within the {@link Bulkhead} of the value type of the first
+     * value, if any.
+     * <p>
+     * When the write-behind or the group-commit mode is enabled, the values
+     * are queued instead.
+     *
+     * @param values the values to be saved, mapped by their key
+     *
+     * @return true if the values were successfully stored, false otherwise
+     * @throws IllegalStateException if no {@link StorageKeyResolver} or
+     * {@link StorageValueResolver} is found for one of the given types
+     */
+    public CompletableFuture<Boolean> saveAllAsync(final Map<?, ?> values) {
+        final Map<EntryKey, StorageValueResolver<?, ?>> resolvers = new HashMap<>();
+        final Map<EntryKey, Object> entries = new LinkedHashMap<>();
+        final Map<StorageValueResolver<?, ?>, Map<String, Object>> saves = new LinkedHashMap<>();
+        final List<CompletableFuture<Boolean>> skipped = new ArrayList<>();
+        for (final Map.Entry<?, ?> entry : values.entrySet()) {
+            final Object value = entry.getValue();
+
+            final StorageValueResolver<?, ?> valueResolver = requireValueResolver(value.getClass());
+            final EntryKey entryKey = new EntryKey(valueResolver.getType(), serializeKey(entry.getKey()));
+            final Set<String> changedFields = trackChanges(entryKey, valueResolver, value);
+            addMember(valueResolver, entryKey);
+            if (changedFields != null && changedFields.isEmpty()) {
+                updateCache(entryKey, value);
+                skipped.add(skippedWrite(entryKey));
+                continue;
+            }
+
+            entries.put(entryKey, value);
+            resolvers.put(entryKey, valueResolver);
+            saves.computeIfAbsent(valueResolver, resolver -> new LinkedHashMap<>())
+                    .put(entryKey.getKey(), value);
+        }
+
+        if (entries.isEmpty()) {
+            return allOf(skipped);
+        }
+        entries.forEach(this::updateCache);
+
+        final List<JournalRecord> records = new ArrayList<>();
+        for (final Map.Entry<EntryKey, Object> entry : entries.entrySet()) {
+            final EntryKey entryKey = entry.getKey();
+            final JournalRecord record = appendJournal(entryKey, resolvers.get(entryKey), entry.getValue());
+            if (record != null) {
+                records.add(record);
+            }
+        }
+
+        if (isWriteQueued()) {
+            final List<CompletableFuture<Boolean>> futures = new ArrayList<>(entries.size());
+            for (final Map.Entry<EntryKey, Object> entry : entries.entrySet()) {
+                final EntryKey entryKey = entry.getKey();
+                futures.add(trackWrite(entryKey, queueWrite(entryKey, resolvers.get(entryKey),
+                        entry.getValue())));
+            }
+            futures.addAll(skipped);
+            return acknowledgeAll(records, entries.size(), allOf(futures));
+        }
+
+        final long submitTime = submittedWrites(saves, Collections.emptyMap());
+        // a batch of several value types runs within the bulkhead of the first one, like it is admitted
+        final Executor executor = executorFor(saves.keySet().iterator().next());
+        final CompletableFuture<Boolean> future = submitWrites(executor, saves, Collections.emptyMap(), () -> {
+            try {
+                writeAll(saves, Collections.emptyMap(), submitTime);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+
+            entries.forEach(this::updateCache);
+            return true;
+        }).whenComplete((result, throwable) -> {
+            // also reached if the saves were never admitted
+            if (throwable != null) {
+                for (final EntryKey entryKey : entries.keySet()) {
+                    updateCache(entryKey, null);
+                    forgetChanges(entryKey);
+                }
+            }
+        });
+        final CompletableFuture<Boolean> written = trackWrites(entries.keySet(), future);
+        if (!skipped.isEmpty()) {
+            skipped.add(written);
+            return acknowledgeAll(records, entries.size(), allOf(skipped));
+        }
+        return acknowledgeAll(records, entries.size(), written);
+    }
+
+    /**
+     * This method will attempt to load every value from the database at once
+     * via {@link StorageValueResolver#retrieveAll(Collection)}. Values that
+     * are resident, cached, or queued by the write-behind mode, are not
+     * retrieved again.
+     *
+     * @param keys the keys of the values
+     * @param valueType the type of the values
+     * @param <K> the type of the keys
+     * @param <T> the type of the values
+     *
+     * @return the values stored in the database mapped by their key, keys
+     * without a value are left out
+     * @throws IllegalStateException if no {@link StorageKeyResolver} or
+     * {@link StorageValueResolver} is found for one of the given types
+     */
+    public <K, T> CompletableFuture<Map<K, T>> retrieveAllAsync(final Collection<K> keys,
+            final Class<T> valueType) {
+        final StorageValueResolver<?, ?> valueResolver = requireValueResolver(valueType);
+        final Class<?> resolverType = valueResolver.getType();
+
+        final MembershipFilter filter = membershipFilterMap.get(valueResolver);
+        final ResidentStore residentStore = residentStoreMap.get(resolverType);
+        final boolean populated = isPopulated(resolverType);
+
+        final Map<K, T> result = new HashMap<>();
+        final Map<String, K> missing = new LinkedHashMap<>();
+        for (final K key : keys) {
+            final EntryKey entryKey = new EntryKey(resolverType, serializeKey(key));
+
+            final Object local = findLocally(entryKey, valueResolver);
+            if (local == NOT_LOCAL) {
+                missing.put(entryKey.getKey(), key);
+            } else if (local != null) {
+                result.put(key, valueType.cast(local));
+            }
+        }
+
+        if (missing.isEmpty()) {
+            return CompletableFuture.completedFuture(result);
+        }
+
+        final long[] stamps = filter == null ? null : new long[missing.size()];
+        if (filter != null) {
+            int index = 0;
+            for (final String key : missing.keySet()) {
+                stamps[index++] = filter.stamp(key);
+            }
+        }
+
+        final Object loadToken = new Object();
+        if (populated) {
+            for (final String key : missing.keySet()) {
+                loadTokens.put(new EntryKey(resolverType, key), loadToken);
+            }
+        }
+
+        final long submitTime = submitted(resolverType, StorageOperation.RETRIEVE_ALL);
+        final CompletableFuture<Map<K, T>> future = submit(valueResolver, StorageOperation.RETRIEVE_ALL, () -> {
+            final Map<String, ?> values;
+            try {
+                values = executeMeasured(resolverType, StorageOperation.RETRIEVE_ALL, submitTime,
+                        () -> valueResolver.retrieveAll(missing.keySet()));
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+
+            int index = 0;
+            for (final Map.Entry<String, K> entry : missing.entrySet()) {
+                final T value = valueType.cast(values.get(entry.getKey()));
+                if (value != null) {
+                    result.put(entry.getValue(), value);
+                } else if (filter != null) {
+                    filter.recordAbsent(entry.getKey(), stamps[index]);
+                }
+                index++;
+
+                final EntryKey entryKey = new EntryKey(resolverType, entry.getKey());
+                if (populated) {
+                    populateCache(entryKey, valueResolver, loadToken, value);
+                }
+            }
+            return result;
+        });
+
+        if (!populated) {
+            return future;
+        }
+        // also reached if the retrieval was never admitted
+        return future.whenComplete((values, throwable) -> {
+            if (throwable != null) {
+                for (final String key : missing.keySet()) {
+                    loadTokens.remove(new EntryKey(resolverType, key), loadToken);
+                }
+            }
+        });
+    }
+
+    /**
+     * This method will look up the values whose indexed value of the given
+     * {@link StorageIndex} equals the given one. The keys are looked up in the
+     * {@link SecondaryIndex}, and their values are retrieved like
+     * {@link #retrieveAllAsync(Collection, Class)} does.
+     * <p>
+     * The index is only complete once every value of the type was loaded by
+     * a warm-up with {@link io.tofpu.databasestorage.warmup.WarmUpMode#ALL},
+     * in which case the returned future is already completed if the values
+     * are resident. Otherwise, the values are also queried via
+     * {@link StorageValueResolver#findByIndex(String, Object)}, indexed, and
+     * merged with the indexed ones. A value is only returned if its current
+     * indexed value still equals the given one.
+     *
+     * @param valueType the type of the values
+     * @param indexName the name of the index
+     * @param indexedValue the indexed value to look up
+     * @param <T> the type of the values
+     *
+     * @return the values that have the indexed value, or an empty list if none
+     * was found
+     * @throws IllegalArgumentException if the value type has no index of the
+     * given name
+     * @throws IllegalStateException if no {@link StorageValueResolver} is found
+     * for the given type
+     */
+    public <T> CompletableFuture<List<T>> findByIndexAsync(final Class<T> valueType, final String indexName,
+            final Object indexedValue) {
+        final StorageValueResolver<?, ?> valueResolver = requireValueResolver(valueType);
+        final SecondaryIndex index = requireIndex(valueResolver, indexName);
+
+        final Predicate<Object> matcher = value -> index.matches(value, indexedValue);
+        final Class<?> resolverType = valueResolver.getType();
+        final ResidentStore residentStore = residentStoreMap.get(resolverType);
+        if (residentStore != null && residentStore.isComplete()) {
+            return retrieveIndexed(valueResolver, valueType, index.find(indexedValue), matcher);
+        }
+
+        final long submitTime = submitted(resolverType, StorageOperation.FIND_BY_INDEX);
+        return submit(valueResolver, StorageOperation.FIND_BY_INDEX, () -> {
+            Map<String, ?> values;
+            try {
+                values = executeMeasured(resolverType, StorageOperation.FIND_BY_INDEX, submitTime,
+                        () -> valueResolver.findByIndex(indexName, indexedValue));
+            } catch (UnsupportedOperationException e) {
+                // only the indexed values are found
+                values = Collections.emptyMap();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+
+            final Map<String, T> result = new LinkedHashMap<>();
+            for (final Map.Entry<String, ?> entry : values.entrySet()) {
+                // the queried value is stale if the entry was written in the meantime
+                final EntryKey entryKey = new EntryKey(resolverType, entry.getKey());
+                final Object local = findLocally(entryKey, valueResolver);
+                if (local == NOT_LOCAL) {
+                    indexLoaded(resolverType, entry.getKey(), entry.getValue());
+                }
+
+                final Object value = local == NOT_LOCAL ? entry.getValue() : local;
+                if (value != null && matcher.test(value)) {
+                    result.put(entry.getKey(), valueType.cast(value));
+                }
+            }
+            return result;
+        }).thenCompose(queried -> {
+            // the indexed entries that were written, but not committed yet, are not queried
+            final List<String> keys = index.find(indexedValue);
+            keys.removeAll(queried.keySet());
+            if (keys.isEmpty()) {
+                return CompletableFuture.completedFuture(new ArrayList<>(queried.values()));
+            }
+            return retrieveIndexed(valueResolver, valueType, keys, matcher).thenApply(indexed -> {
+                final List<T> result = new ArrayList<>(queried.size() + indexed.size());
+                result.addAll(queried.values());
+                result.addAll(indexed);
+                return result;
+            });
+        });
+    }
+
+    /**
+     * This method will look up the values whose indexed value of the given
+     * sorted {@link StorageIndex} is within the given range, see
+     * {@link #findByIndexAsync(Class, String, Object)}. Only the keys that
+     * are indexed in memory are looked up, so the result is only complete if
+     * every value of the type is resident, see {@link #warmUp()}.
+     *
+     * @param valueType the type of the values
+     * @param indexName the name of the index
+     * @param fromValue the lowest indexed value to look up, or null to start
+     * at the lowest one
+     * @param toValue the indexed value to stop at, which is not looked up
+     * itself, or null to stop after the highest one
+     * @param <T> the type of the values
+     *
+     * @return the values whose indexed value is within the range, in the
+     * order of their indexed value
+     * @throws IllegalArgumentException if the value type has no index of the
+     * given name
+     * @throws UnsupportedOperationException if the index is not sorted
+     * @throws IllegalStateException if no {@link StorageValueResolver} is found
+     * for the given type
+     */
+    public <T> CompletableFuture<List<T>> findByIndexRangeAsync(final Class<T> valueType,
+            final String indexName, final Object fromValue, final Object toValue) {
+        final StorageValueResolver<?, ?> valueResolver = requireValueResolver(valueType);
+        final SecondaryIndex index = requireIndex(valueResolver, indexName);
+
+        final List<String> keys = index.findRange(fromValue, toValue);
+        return retrieveIndexed(valueResolver, valueType, keys,
+                value -> index.matchesRange(value, fromValue, toValue));
+    }
+
+    /**
+     * @param valueType the value type
+     * @param indexName the name of the index
+     *
+     * @return the index of the value type, or null if it has none of the given name
+     */
+    public SecondaryIndex getIndex(final Class<?> valueType, final String indexName) {
+        final StorageValueResolver<?, ?> valueResolver = getValueResolver(valueType);
+        final Map<String, SecondaryIndex> indexes = valueResolver == null ? null :
+                getIndexes(valueResolver.getType());
+        return indexes == null ? null : indexes.get(indexName);
+    }
+
+    private SecondaryIndex requireIndex(final StorageValueResolver<?, ?> valueResolver,
+            final String indexName) {
+        final Map<String, SecondaryIndex> indexes = getIndexes(valueResolver.getType());
+        final SecondaryIndex index = indexes == null ? null : indexes.get(indexName);
+        if (index == null) {
+            throw new IllegalArgumentException("No index " + indexName + " found for " +
+                                               valueResolver.getType().getName());
+        }
+        return index;
+    }
+
+    /**
+     * This method will retrieve the values of the given indexed keys, and
+     * leave out the values that no longer match the lookup, e.g. as their
+     * entry was written while the keys were looked up.
+     */
+    private <T> CompletableFuture<List<T>> retrieveIndexed(final StorageValueResolver<?, ?> valueResolver,
+            final Class<T> valueType, final List<String> keys, final Predicate<Object> matcher) {
+        // the values are kept in the order of their keys
+        final Object[] values = new Object[keys.size()];
+        final List<String> missing = new ArrayList<>();
+        for (int i = 0; i < values.length; i++) {
+            final String key = keys.get(i);
+            final Object local = findLocally(new EntryKey(valueResolver.getType(), key), valueResolver);
+            if (local == NOT_LOCAL) {
+                missing.add(key);
+            } else {
+                values[i] = local;
+            }
+        }
+
+        if (missing.isEmpty()) {
+            return CompletableFuture.completedFuture(matching(values, valueType, matcher));
+        }
+        // the serialized keys are strings, whose resolver serializes them as they are
+        return retrieveAllAsync(missing, valueType).thenApply(retrieved -> {
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] == null) {
+                    values[i] = retrieved.get(keys.get(i));
+                }
+            }
+            return matching(values, valueType, matcher);
+        });
+    }
+
+    private static <T> List<T> matching(final Object[] values, final Class<T> valueType,
+            final Predicate<Object> matcher) {
+        final List<T> result = new ArrayList<>(values.length);
+        for (final Object value : values) {
+            if (value != null && matcher.test(value)) {
+                result.add(valueType.cast(value));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * This method will attempt to delete every value from the database at
+     * once via {@link StorageValueResolver#deleteAll(Collection)}.
+     * <p>
+     * When the write-behind or the group-commit mode is enabled, the deletes
+     * are queued instead.
+     *
+     * @param keys the keys of the values
+     * @param valueType the type of the values
+     *
+     * @return true if the values were successfully deleted, false otherwise
+     * @throws IllegalStateException if no {@link StorageKeyResolver} or
+     * {@link StorageValueResolver} is found for one of the given types
+     */
+    public CompletableFuture<Boolean> deleteAllAsync(final Collection<?> keys,
+            final Class<?> valueType) {
+        final StorageValueResolver<?, ?> valueResolver = requireValueResolver(valueType);
+
+        final List<EntryKey> entryKeys = new ArrayList<>(keys.size());
+        final List<String> serializedKeys = new ArrayList<>(keys.size());
+        for (final Object key : keys) {
+            final EntryKey entryKey = new EntryKey(valueResolver.getType(), serializeKey(key));
+            entryKeys.add(entryKey);
+            serializedKeys.add(entryKey.getKey());
+            updateCache(entryKey, null);
+            recordDeleted(entryKey);
+            removeMember(valueResolver, entryKey);
+        }
+
+        final List<JournalRecord> records = new ArrayList<>();
+        for (final EntryKey entryKey : entryKeys) {
+            final JournalRecord record = appendJournal(entryKey, valueResolver, null);
+            if (record != null) {
+                records.add(record);
+            }
+        }
+
+        if (isWriteQueued()) {
+            final List<CompletableFuture<Boolean>> futures = new ArrayList<>(entryKeys.size());
+            for (final EntryKey entryKey : entryKeys) {
+                futures.add(trackWrite(entryKey, queueWrite(entryKey, valueResolver, null)));
+            }
+            return acknowledgeAll(records, entryKeys.size(), allOf(futures));
+        }
+
+        final Map<StorageValueResolver<?, ?>, List<String>> deletes =
+                Collections.singletonMap(valueResolver, serializedKeys);
+        final long submitTime = submittedWrites(Collections.emptyMap(), deletes);
+        final CompletableFuture<Boolean> future = submitWrites(executorFor(valueResolver), Collections.emptyMap(), deletes, () -> {
+            try {
+                writeAll(Collections.emptyMap(), deletes, submitTime);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+            return true;
+        }).whenComplete((result, throwable) -> entryKeys.forEach(entryKey -> updateCache(entryKey, null)));
+        return acknowledgeAll(records, entryKeys.size(), trackWrites(entryKeys, future));
+    }
+
+    /**
+     * This method will run the given action on the {@link ExecutorService}
+     * within a single transaction, on a single connection that is leased from
+     * the {@link ConnectionPool}, so that its operations are committed at
+     * once, or not at all, see {@link StorageTransaction}.
+     * <p>
+     * The transaction is only run once the writes that were submitted before
+     * it have completed, so that they cannot overwrite it, which flushes the
+     * write-behind queue if there are any. Once committed, the writes of the
+     * transaction are applied to the cache. A storage without a connection
+     * runs the operations without a transaction.
+     * <p>
+     * The transactions are measured under the value type
+     * {@link StorageTransaction}.
+     *
+     * @param action the operations to be run
+     *
+     * @return true if the transaction was committed, or a future that failed
+     * with the cause of the rollback
+     */
+    public CompletableFuture<Boolean> transactionAsync(final TransactionAction action) {
+        final List<CompletableFuture<Boolean>> writes = new ArrayList<>(pendingWrites.values());
+        if (writes.isEmpty()) {
+            return submitTransaction(action);
+        }
+
+        // the outcome of the writes does not matter, the transaction is run either way
+        final CompletableFuture<Void> submittedWrites =
+                CompletableFuture.allOf(writes.toArray(new CompletableFuture<?>[0]));
+        return CompletableFuture.allOf(flushAsync(), submittedWrites)
+                .handle((result, throwable) -> null)
+                .thenCompose(ignored -> submitTransaction(action));
+    }
+
+    private CompletableFuture<Boolean> submitTransaction(final TransactionAction action) {
+        final long submitTime = submitted(StorageTransaction.class, StorageOperation.TRANSACTION);
+        return submit(executorService, StorageTransaction.class, StorageOperation.TRANSACTION, () -> {
+            final StorageTransaction transaction = new StorageTransaction(this);
+            try {
+                measure(StorageTransaction.class, StorageOperation.TRANSACTION, submitTime, () -> {
+                    runInTransaction(() -> action.run(transaction));
+                    return null;
+                });
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            } finally {
+                transaction.end();
+            }
+
+            for (final Map.Entry<EntryKey, Object> entry : transaction.getWrites().entrySet()) {
+                final EntryKey entryKey = entry.getKey();
+                retrieveFlights.remove(entryKey);
+                updateCache(entryKey, entry.getValue());
+                if (entry.getValue() == null) {
+                    recordDeleted(entryKey);
+                } else {
+                    forgetChanges(entryKey);
+                }
+            }
+            return true;
+        }, () -> metrics.onRejected(StorageTransaction.class, StorageOperation.TRANSACTION));
+    }
+
+    /**
+     * This method will stream every value of the given type via
+     * {@link StorageValueResolver#scan(String, String, int)}.
+     *
+     * @param valueType the type of the values
+     * @param <T> the type of the values
+     *
+     * @return the publisher of the values
+     * @see #streamAsync(Class, ScanOptions)
+     */
+    public <T> Flow.Publisher<T> streamAsync(final Class<T> valueType) {
+        return streamAsync(valueType, new ScanOptions());
+    }
+
+    /**
+     * This method will stream the values of the given type via
+     * {@link StorageValueResolver#scan(String, String, int)}. The values are
+     * read from the database on the {@link ExecutorService} as they are
+     * requested by the subscriber, and every subscriber leases its own
+     * connection from the {@link ConnectionPool} until the scan is completed
+     * or cancelled.
+     * <p>
+     * Writes that are still queued by the write-behind mode or the journal are
+     * not streamed, see {@link #flushAsync()}. If the resolver does not support
+     * scans, the subscriber is completed with an {@link UnsupportedOperationException}.
+     *
+     * @param valueType the type of the values
+     * @param options the fetch size and the key range of the scan
+     * @param <T> the type of the values
+     *
+     * @return the publisher of the values
+     * @throws IllegalArgumentException if no {@link StorageValueResolver} is
+     * found for the given type, or no {@link StorageKeyResolver} is found for
+     * the type of the key range
+     */
+    public <T> Flow.Publisher<T> streamAsync(final Class<T> valueType, final ScanOptions options) {
+        final StorageValueResolver<?, ?> valueResolver = requireValueResolver(valueType);
+        final String fromKey = options.getFromKey() == null ? null : serializeKey(options.getFromKey());
+        final String toKey = options.getToKey() == null ? null : serializeKey(options.getToKey());
+
+        return new ScanPublisher<>(this, valueResolver, valueType, fromKey, toKey,
+                options.getFetchSize(), executorFor(valueResolver));
+    }
+
+    private boolean isWriteQueued() {
+        return writeBehindQueue != null || groupCommitWriter != null;
+    }
+
+    /**
+     * This method will queue the given write to the write-behind queue, or to
+     * the group-commit writer, whichever is enabled.
+     *
+     * @param entryKey the entry to be written
+     * @param valueResolver the resolver that will write the value
+     * @param value the value to be saved, or null to delete the entry
+     *
+     * @return the future of the queued write, or null if writes are not
+     * queued and shall be run on the {@link ExecutorService}
+     */
+    private CompletableFuture<Boolean> queueWrite(final EntryKey entryKey,
+            final StorageValueResolver<?, ?> valueResolver, final Object value) {
+        if (writeBehindQueue != null) {
+            return invalidateOnFailure(entryKey, writeBehindQueue.enqueue(entryKey, valueResolver, value));
+        }
+        if (groupCommitWriter != null) {
+            return invalidateOnFailure(entryKey, groupCommitWriter.submit(entryKey, valueResolver, value));
+        }
+        return null;
+    }
+
+    /**
+     * This method will append the given write to the journal, if the journal
+     * is enabled and the value type has a codec. If the write cannot be
+     * appended, it is only acknowledged once it was committed.
+     *
+     * @param entryKey the entry to be written
+     * @param valueResolver the resolver that will write the value
+     * @param value the value to be saved, or null to delete the entry
+     *
+     * @return the appended record, or null if the write was not journaled
+     */
+    private JournalRecord appendJournal(final EntryKey entryKey,
+            final StorageValueResolver<?, ?> valueResolver, final Object value) {
+        if (journal == null) {
+            return null;
+        }
+
+        // the value is of the type of the resolver
+        @SuppressWarnings("unchecked")
+        final StorageValueCodec<Object> codec = (StorageValueCodec<Object>) valueResolver.getCodec();
+        if (codec == null) {
+            return null;
+        }
+
+        try {
+            // appends to the same entry are serialized, so the latest record is kept
+            return journaledWrites.compute(entryKey, (ignored, previous) -> {
+                try {
+                    return journal.append(entryKey, codec, value);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * This method will checkpoint the given record once the write was
+     * committed. As the write was already acknowledged, a write that failed
+     * to be committed is moved to the dead-letter file of the journal, see
+     * {@link StorageJournal#deadLetter(JournalRecord, StorageValueCodec)}.
+     *
+     * @param record the journaled record, or null if the write was not journaled
+     * @param future the future of the write
+     *
+     * @return an already completed future if the write was journaled, the
+     * given future otherwise
+     */
+    private CompletableFuture<Boolean> acknowledge(final JournalRecord record,
+            final CompletableFuture<Boolean> future) {
+        if (record == null) {
+            return future;
+        }
+
+        future.whenComplete((result, throwable) -> {
+            if (throwable == null) {
+                checkpoint(record);
+            } else {
+                deadLetter(record);
+            }
+        });
+        return CompletableFuture.completedFuture(true);
+    }
+
+    private CompletableFuture<Boolean> acknowledgeAll(final List<JournalRecord> records,
+            final int writeCount, final CompletableFuture<Boolean> future) {
+        if (records.isEmpty()) {
+            return future;
+        }
+
+        final boolean acknowledged = records.size() == writeCount;
+        future.whenComplete((result, throwable) -> {
+            if (throwable == null || !acknowledged) {
+                // the failure is reported by the returned future otherwise
+                records.forEach(this::checkpoint);
+            } else {
+                records.forEach(this::deadLetter);
+            }
+        });
+        return acknowledged ? CompletableFuture.completedFuture(true) : future;
+    }
+
+    private CompletableFuture<Boolean> trackWrite(final EntryKey entryKey,
+            final CompletableFuture<Boolean> future) {
+        return trackWrites(Collections.singletonList(entryKey), future);
+    }
+
+    /**
+     * This method will remove the retrievals that are in flight for the given
+     * entries, and keep the write as pending until it completes, so that
+     * later retrievals of the entries are ordered after the write.
+     *
+     * @param entryKeys the entries that are written
+     * @param future the future of the write
+     *
+     * @return the given future
+     */
+    private CompletableFuture<Boolean> trackWrites(final Collection<EntryKey> entryKeys,
+            final CompletableFuture<Boolean> future) {
+        for (final EntryKey entryKey : entryKeys) {
+            retrieveFlights.remove(entryKey);
+            pendingWrites.put(entryKey, future);
+        }
+
+        future.whenComplete((result, throwable) -> {
+            for (final EntryKey entryKey : entryKeys) {
+                pendingWrites.remove(entryKey, future);
+            }
+        });
+        return future;
+    }
+
+    private void checkpoint(final JournalRecord record) {
+        journaledWrites.remove(record.getEntryKey(), record);
+        journal.checkpoint(record);
+    }
+
+    private void deadLetter(final JournalRecord record) {
+        journaledWrites.remove(record.getEntryKey(), record);
+
+        final StorageValueResolver<?, ?> valueResolver = valueResolverMap.get(
+                record.getEntryKey().getValueType());
+        try {
+            journal.deadLetter(record, valueResolver.getCodec());
+        } catch (IOException e) {
+            // the record stays in its segment, and is committed again on the next startup
+        }
+    }
+
+    /**
+     * @param entryKey the entry to look for
+     *
+     * @return the value of the journaled or queued write to the given entry,
+     * null if the entry is to be deleted, or {@link #NOT_PENDING} if there is
+     * no such write
+     */
+    private Object getPendingValue(final EntryKey entryKey) {
+        if (journal != null) {
+            final JournalRecord record = journaledWrites.get(entryKey);
+            if (record != null) {
+                return record.getValue();
+            }
+        }
+
+        if (writeBehindQueue != null) {
+            final WriteOperation operation = writeBehindQueue.getPending(entryKey);
+            if (operation != null) {
+                return operation.getValue();
+            }
+        }
+        return NOT_PENDING;
+    }
+
+    String serializeKey(final Object key) {
+        return serialize(requireKeyResolver(key.getClass()), key);
+    }
+
+    private static CompletableFuture<Boolean> allOf(final List<CompletableFuture<Boolean>> futures) {
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored -> true);
+    }
+
+    /**
+     * This method will keep the cache and the resident store coherent with a
+     * write to the given entry, it is called once the write is submitted and
+     * once it completes.
+     *
+     * @param entryKey the entry that is written
+     * @param value the written value, or null if the entry was deleted or the
+     * write failed
+     */
+    private void updateCache(final EntryKey entryKey, final Object value) {
+        final ResidentStore residentStore = getResidentStore(entryKey);
+        final Map<String, SecondaryIndex> indexes = getIndexes(entryKey.getValueType());
+        if (cache == null && residentStore == null && indexes == null && changeTracker == null) {
+            return;
+        }
+
+        loadTokens.remove(entryKey);
+        if (indexes != null) {
+            for (final SecondaryIndex index : indexes.values()) {
+                index.update(entryKey.getKey(), value);
+            }
+        }
+        if (residentStore != null) {
+            if (value == null) {
+                residentStore.invalidate(entryKey.getKey());
+            } else {
+                residentStore.put(entryKey.getKey(), value);
+            }
+        }
+        if (cache == null) {
+            return;
+        }
+        if (value == null) {
+            cache.invalidate(entryKey);
+        } else {
+            cache.put(entryKey, value);
+        }
+    }
+
+    /**
+     * Caches a value that was retrieved from the database, makes it resident,
+     * and records its state for the change tracking, unless the entry was
+     * written since the value was retrieved.
+     *
+     * @param entryKey the retrieved entry
+     * @param valueResolver the resolver that retrieved the value
+     * @param loadToken the token that was registered before retrieving
+     * @param value the retrieved value, or null if none was found
+     */
+    private void populateCache(final EntryKey entryKey, final StorageValueResolver<?, ?> valueResolver,
+            final Object loadToken, final Object value) {
+        loadTokens.computeIfPresent(entryKey, (ignored, token) -> {
+            if (token != loadToken) {
+                return token;
+            }
+            recordLoaded(entryKey, valueResolver, value);
+            if (value == null) {
+                return null;
+            }
+
+            final ResidentStore residentStore = getResidentStore(entryKey);
+            if (residentStore != null) {
+                residentStore.put(entryKey.getKey(), value);
+            }
+            if (cache != null) {
+                cache.put(entryKey, value);
+            }
+            indexLoaded(entryKey.getValueType(), entryKey.getKey(), value);
+            return null;
+        });
+    }
+
+    private ResidentStore getResidentStore(final EntryKey entryKey) {
+        return residentStoreMap.isEmpty() ? null : residentStoreMap.get(entryKey.getValueType());
+    }
+
+    private Map<String, SecondaryIndex> getIndexes(final Class<?> valueType) {
+        return indexMap.isEmpty() ? null : indexMap.get(valueType);
+    }
+
+    /**
+     * @return true if the retrieved values of the given type are cached,
+     * made resident, indexed, or change tracked
+     */
+    private boolean isPopulated(final Class<?> valueType) {
+        return cache != null || changeTracker != null || residentStoreMap.containsKey(valueType) ||
+               indexMap.containsKey(valueType);
+    }
+
+    /**
+     * This method will index a value that was retrieved from the database,
+     * unless its key is already indexed.
+     *
+     * @param valueType the value type of the resolver
+     * @param key the serialized key of the value
+     * @param value the retrieved value
+     */
+    void indexLoaded(final Class<?> valueType, final String key, final Object value) {
+        final Map<String, SecondaryIndex> indexes = getIndexes(valueType);
+        if (indexes == null) {
+            return;
+        }
+        for (final SecondaryIndex index : indexes.values()) {
+            index.load(key, value);
+        }
+    }
+
+    /**
+     * This method will record the snapshot of the value that is about to be
+     * saved to the given entry, if change tracking is enabled.
+     *
+     * @param entryKey the entry that is saved
+     * @param valueResolver the resolver that will save the value
+     * @param value the value to be saved
+     *
+     * @return the names of the fields that changed, an empty set if the save
+     * can be skipped, or null if the value shall be saved in full
+     */
+    private Set<String> trackChanges(final EntryKey entryKey,
+            final StorageValueResolver<?, ?> valueResolver, final Object value) {
+        if (changeTracker == null) {
+            return null;
+        }
+
+        final Map<String, Object> snapshot = snapshot(valueResolver, value);
+        if (snapshot == null) {
+            return null;
+        }
+        return changeTracker.track(entryKey, snapshot);
+    }
+
+    private void recordLoaded(final EntryKey entryKey,
+            final StorageValueResolver<?, ?> valueResolver, final Object value) {
+        if (changeTracker == null || value == null) {
+            return;
+        }
+
+        final Map<String, Object> snapshot = snapshot(valueResolver, value);
+        if (snapshot != null) {
+            changeTracker.recordLoaded(entryKey, snapshot);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> snapshot(final StorageValueResolver<?, ?> valueResolver,
+            final Object value) {
+        // the value is of the type of the resolver
+        return ((StorageValueResolver<?, Object>) valueResolver).snapshot(value);
+    }
+
+    void addMember(final StorageValueResolver<?, ?> valueResolver, final EntryKey entryKey) {
+        final MembershipFilter filter = membershipFilterMap.get(valueResolver);
+        if (filter != null) {
+            filter.add(entryKey.getKey());
+        }
+    }
+
+    void removeMember(final StorageValueResolver<?, ?> valueResolver, final EntryKey entryKey) {
+        final MembershipFilter filter = membershipFilterMap.get(valueResolver);
+        if (filter != null) {
+            filter.remove(entryKey.getKey());
+        }
+    }
+
+    private void forgetChanges(final EntryKey entryKey) {
+        if (changeTracker != null) {
+            changeTracker.invalidate(entryKey);
+        }
+    }
+
+    private void recordDeleted(final EntryKey entryKey) {
+        if (changeTracker != null) {
+            changeTracker.recordDeleted(entryKey);
+        }
+    }
+
+    /**
+     * @return the future of a save that was skipped, as the same state is
+     * already persisted, or about to be by the write that is pending for the
+     * entry, in which case the skipped save fails if that write fails
+     */
+    private CompletableFuture<Boolean> skippedWrite(final EntryKey entryKey) {
+        final CompletableFuture<Boolean> pendingWrite = pendingWrites.get(entryKey);
+        if (pendingWrite == null) {
+            return CompletableFuture.completedFuture(true);
+        }
+        // a copy, so that the pending write cannot be completed by the caller
+        return pendingWrite.thenApply(written -> written);
+    }
+
+    private CompletableFuture<Boolean> invalidateOnFailure(final EntryKey entryKey,
+            final CompletableFuture<Boolean> future) {
+        if (cache == null && changeTracker == null && residentStoreMap.isEmpty() && indexMap.isEmpty()) {
+            return future;
+        }
+
+        future.whenComplete((result, throwable) -> {
+            if (throwable != null) {
+                updateCache(entryKey, null);
+                forgetChanges(entryKey);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * This method will flush every write that is queued by the write-behind
+     * mode. If the write-behind mode is disabled, the returned future is
+     * already completed.
+     *
+     * @return a future that is completed once the queued writes were flushed
+     */
+    public CompletableFuture<Void> flushAsync() {
+        if (writeBehindQueue == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return writeBehindQueue.flushAsync();
+    }
+
+    /**
+     * This method will write the given operations within a single transaction,
+     * the operations are grouped per {@link StorageValueResolver} and passed to
+     * {@link StorageValueResolver#saveAll(Map)} and
+     * {@link StorageValueResolver#deleteAll(Collection)}.
+     *
+     * @param operations the operations to be written
+     *
+     * @throws SQLException if an error occurs while writing, in which case
+     * the transaction is rolled back
+     */
+    protected void applyWrites(final Collection<WriteOperation> operations) throws SQLException {
+        final Map<StorageValueResolver<?, ?>, Map<String, Object>> saves = new LinkedHashMap<>();
+        final Map<StorageValueResolver<?, ?>, List<String>> deletes = new LinkedHashMap<>();
+        for (final WriteOperation operation : operations) {
+            if (operation.isDelete()) {
+                deletes.computeIfAbsent(operation.getValueResolver(), resolver -> new ArrayList<>())
+                        .add(operation.getKey());
+            } else {
+                saves.computeIfAbsent(operation.getValueResolver(), resolver -> new LinkedHashMap<>())
+                        .put(operation.getKey(), operation.getValue());
+            }
+        }
+
+        writeAll(saves, deletes, 0);
+    }
+
+    /**
+     * @param submitTime the time the writes were submitted at, or 0 if they
+     * were not submitted via {@link #submittedWrites(Map, Map)}
+     */
+    private void writeAll(final Map<StorageValueResolver<?, ?>, Map<String, Object>> saves,
+            final Map<StorageValueResolver<?, ?>, List<String>> deletes,
+            final long submitTime) throws SQLException {
+        final long startTime = startedWrites(saves, deletes, submitTime);
+        boolean failed = true;
+        try {
+            runInTransaction(() -> {
+                for (final Map.Entry<StorageValueResolver<?, ?>, Map<String, Object>> entry : saves.entrySet()) {
+                    entry.getKey().saveAll(entry.getValue());
+                }
+                for (final Map.Entry<StorageValueResolver<?, ?>, List<String>> entry : deletes.entrySet()) {
+                    entry.getKey().deleteAll(entry.getValue());
+                }
+            });
+            failed = false;
+        } finally {
+            completedWrites(saves, deletes, startTime, failed);
+        }
+    }
+
+    /**
+     * This method will run the given action within a transaction on the
+     * connection that is leased from the {@link ConnectionPool}, or on the
+     * shared connection while every other operation on it is held back, so
+     * that concurrent operations are never pulled into the transaction and
+     * rolled back along with it.
+     *
+     * @param action the action to be run
+     *
+     * @throws SQLException if the action failed, in which case the
+     * transaction is rolled back
+     */
+    private void runInTransaction(final SQLAction action) throws SQLException {
+        if (getConnectionPool() != null) {
+            runWithConnection(() -> runTransaction(action));
+            return;
+        }
+
+        if (sharedConnectionLock.getReadHoldCount() > 0 && !sharedConnectionLock.isWriteLockedByCurrentThread()) {
+            // the operation that is running on this thread would never let the transaction start
+            throw new IllegalStateException("a transaction cannot be started within an operation " +
+                    "on the shared connection");
+        }
+
+        final Lock lock = sharedConnectionLock.writeLock();
+        lock.lock();
+        try {
+            runTransaction(action);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void runTransaction(final SQLAction action) throws SQLException {
+        final Connection connection = currentConnection();
+        if (connection == null) {
+            action.run();
+            return;
+        }
+
+        final boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            action.run();
+            connection.commit();
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * This method will lease a connection from the {@link ConnectionPool} and
+     * bind it to the current thread while the given supplier is called, so
+     * that {@link #currentConnection()} returns it. If a connection is already
+     * bound, the supplier is called directly, and if no pool is used, it is
+     * called once no transaction runs on the shared connection.
+     *
+     * @param supplier the supplier to be called
+     * @param <T> the type of the result
+     *
+     * @return the result of the supplier
+     * @throws SQLException if no connection could be leased, or the supplier
+     * failed
+     */
+    private <T> T withConnection(final SQLSupplier<T> supplier) throws SQLException {
+        if (getConnectionPool() == null) {
+            final Lock lock = sharedConnectionLock.readLock();
+            lock.lock();
+            try {
+                return supplier.get();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        final PooledConnection pooledConnection = bindConnection();
+        try {
+            return supplier.get();
+        } catch (SQLException e) {
+            invalidateOn(pooledConnection, e);
+            throw e;
+        } finally {
+            releaseConnection(pooledConnection);
+        }
+    }
+
+    /**
+     * @return the connection that was leased from the {@link ConnectionPool}
+     * and bound to the current thread, or null if a connection is already
+     * bound, or no pool is used
+     * @throws SQLException if no connection could be leased
+     */
+    private PooledConnection bindConnection() throws SQLException {
+        final ConnectionPool pool = getConnectionPool();
+        if (pool == null || boundConnection.get() != null) {
+            return null;
+        }
+
+        final PooledConnection pooledConnection = pool.lease();
+        boundConnection.set(pooledConnection.getConnection());
+        return pooledConnection;
+    }
+
+    private static void invalidateOn(final PooledConnection pooledConnection, final SQLException failure) {
+        if (pooledConnection != null) {
+            pooledConnection.invalidateOn(failure);
+        }
+    }
+
+    /**
+     * @return a connection that is opened by the {@link ConnectionFactory}
+     * for an operation that keeps it beyond the task it runs in, e.g. a scan,
+     * so that it does not hold a connection of the {@link ConnectionPool},
+     * or null if no pool is used
+     * @throws SQLException if the connection could not be established
+     */
+    Connection openDedicatedConnection() throws SQLException {
+        if (getConnectionPool() == null) {
+            return null;
+        }
+        return connectionFactory.create();
+    }
+
+    /**
+     * @param connection the connection that was opened by
+     * {@link #openDedicatedConnection()}, or null
+     * @throws SQLException if the connection could not be closed
+     */
+    void closeDedicatedConnection(final Connection connection) throws SQLException {
+        if (connection == null) {
+            return;
+        }
+        statementCache.invalidate(connection);
+        connection.close();
+    }
+
+    private void releaseConnection(final PooledConnection pooledConnection) {
+        if (pooledConnection == null) {
+            return;
+        }
+        // cleared instead of removed, so that the entry of the thread is reused
+        boundConnection.set(null);
+        pooledConnection.close();
+    }
+
+    /**
+     * This method will bind the given connection to the current thread while
+     * the given supplier is called, e.g. the connection that was opened for
+     * the lifetime of a scan.
+     *
+     * @param connection the connection to be bound, or null to call the
+     * supplier on the shared connection, once no transaction runs on it
+     * @param supplier the supplier to be called
+     * @param <T> the type of the result
+     *
+     * @return the result of the supplier
+     * @throws SQLException if the supplier failed
+     */
+    <T> T withBoundConnection(final Connection connection, final SQLSupplier<T> supplier)
+            throws SQLException {
+        if (connection == null) {
+            final Lock lock = sharedConnectionLock.readLock();
+            lock.lock();
+            try {
+                return supplier.get();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        final Connection previous = boundConnection.get();
+        boundConnection.set(connection);
+        try {
+            return supplier.get();
+        } finally {
+            if (previous == null) {
+                boundConnection.remove();
+            } else {
+                boundConnection.set(previous);
+            }
+        }
+    }
+
+    private void runWithConnection(final SQLAction action) throws SQLException {
+        withConnection(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * This method shall be overridden by subclasses if you wish to measure
+     * the operations, e.g. via {@link io.tofpu.databasestorage.metrics.RecordingStorageMetrics}.
+     * No measurement is taken when the default is used.
+     *
+     * @return the metrics the measurements are recorded into
+     */
+    protected StorageMetrics getMetrics() {
+        return StorageMetrics.NOOP;
+    }
+
+    private void registerQueues() {
+        if (executorService instanceof ThreadPoolExecutor) {
+            final ThreadPoolExecutor threadPoolExecutor = (ThreadPoolExecutor) executorService;
+            metrics.registerQueue("executor", () -> threadPoolExecutor.getQueue().size());
+        } else if (executorService instanceof ForkJoinPool) {
+            final ForkJoinPool forkJoinPool = (ForkJoinPool) executorService;
+            metrics.registerQueue("executor", forkJoinPool::getQueuedSubmissionCount);
+        }
+
+        for (final Map.Entry<StorageValueResolver<?, ?>, Bulkhead> entry : bulkheadMap.entrySet()) {
+            final Bulkhead bulkhead = entry.getValue();
+            metrics.registerQueue("bulkhead:" + entry.getKey().getType().getName(),
+                    bulkhead::getQueuedCount);
+        }
+        if (writeBehindQueue != null) {
+            metrics.registerQueue("write-behind", writeBehindQueue::getPendingCount);
+        }
+        if (groupCommitWriter != null) {
+            metrics.registerQueue("group-commit", groupCommitWriter::getPendingCount);
+        }
+    }
+
+    private String serialize(final StorageKeyResolver<?> keyResolver, final Object key) {
+        if (!metricsEnabled) {
+            return keyResolver.serialize(key);
+        }
+
+        final long startTime = System.nanoTime();
+        final String serialized = keyResolver.serialize(key);
+        metrics.onKeySerialized(keyResolver.getType(), System.nanoTime() - startTime);
+        return serialized;
+    }
+
+    /**
+     * @return the time the operation was submitted at, or 0 if no
+     * measurement is taken
+     */
+    private long submitted(final Class<?> valueType, final StorageOperation operation) {
+        if (!metricsEnabled) {
+            return 0;
+        }
+
+        metrics.onSubmit(valueType, operation);
+        return System.nanoTime();
+    }
+
+    /**
+     * This method will call the given supplier via {@link #withConnection(SQLSupplier)},
+     * and record the time the operation waited since it was submitted, and the
+     * time it took to execute.
+     */
+    private <T> T executeMeasured(final Class<?> valueType, final StorageOperation operation,
+            final long submitTime, final SQLSupplier<T> supplier) throws SQLException {
+        if (!metricsEnabled) {
+            return withConnection(supplier);
+        }
+        return measure(valueType, operation, submitTime, () -> withConnection(supplier));
+    }
+
+    /**
+     * This method will call the given supplier, and record the time the
+     * operation waited since it was submitted, and the time it took to
+     * execute, e.g. for a transaction that binds its own connection.
+     */
+    private <T> T measure(final Class<?> valueType, final StorageOperation operation,
+            final long submitTime, final SQLSupplier<T> supplier) throws SQLException {
+        if (!metricsEnabled) {
+            return supplier.get();
+        }
+
+        final long startTime = System.nanoTime();
+        metrics.onStart(valueType, operation, startTime - submitTime);
+
+        boolean failed = true;
+        try {
+            final T result = supplier.get();
+            failed = false;
+            return result;
+        } finally {
+            metrics.onComplete(valueType, operation, System.nanoTime() - startTime, failed);
+        }
+    }
+
+    /**
+     * This method will run a single operation of the given resolver on the
+     * current thread, like {@link #executeMeasured(Class, StorageOperation, long, SQLSupplier)}
+     * does, but without allocating a supplier, so that it can be used by the
+     * fast paths.
+     *
+     * @param operation either {@link StorageOperation#SAVE},
+     * {@link StorageOperation#RETRIEVE} or {@link StorageOperation#DELETE}
+     * @param valueResolver the resolver to run the operation with
+     * @param key the serialized key
+     * @param value the value to be saved, or null
+     * @param changedFields the fields that changed since the value was last
+     * persisted, or null to save the whole value
+     * @param submitTime the time the operation was submitted at
+     *
+     * @return the retrieved value, or null
+     * @throws SQLException if the operation failed
+     */
+    Object executeNow(final StorageOperation operation, final StorageValueResolver<?, ?> valueResolver,
+            final String key, final Object value, final Set<String> changedFields,
+            final long submitTime) throws SQLException {
+        final Class<?> valueType = valueResolver.getType();
+        long startTime = 0;
+        if (metricsEnabled) {
+            startTime = System.nanoTime();
+            metrics.onStart(valueType, operation, startTime - submitTime);
+        }
+
+        boolean failed = true;
+        PooledConnection pooledConnection = null;
+        Lock sharedLock = null;
+        try {
+            if (getConnectionPool() == null) {
+                sharedLock = sharedConnectionLock.readLock();
+                sharedLock.lock();
+            } else {
+                pooledConnection = bindConnection();
+            }
+
+            final Object result;
+            switch (operation) {
+                case SAVE:
+                    if (changedFields == null) {
+                        valueResolver.save(key, value);
+                    } else {
+                        valueResolver.saveChanges(key, value, changedFields);
+                    }
+                    result = null;
+                    break;
+                case RETRIEVE:
+                    result = valueResolver.retrieve(key);
+                    break;
+                case DELETE:
+                    valueResolver.delete(key);
+                    result = null;
+                    break;
+                default:
+                    throw new IllegalArgumentException("unsupported operation: " + operation);
+            }
+            failed = false;
+            return result;
+        } catch (SQLException e) {
+            invalidateOn(pooledConnection, e);
+            throw e;
+        } finally {
+            releaseConnection(pooledConnection);
+            if (sharedLock != null) {
+                sharedLock.unlock();
+            }
+            if (metricsEnabled) {
+                metrics.onComplete(valueType, operation, System.nanoTime() - startTime, failed);
+            }
+        }
+    }
+
+    /**
+     * This method will run a task of the warm-up of the given resolver on its
+     * executor, after it was admitted by the {@link AdmissionController}.
+     */
+    <T> CompletableFuture<T> submitWarmUp(final StorageValueResolver<?, ?> valueResolver,
+            final SQLSupplier<T> task) {
+        final Class<?> valueType = valueResolver.getType();
+        final long submitTime = submitted(valueType, StorageOperation.WARM_UP);
+        return submit(valueResolver, StorageOperation.WARM_UP, () -> {
+            try {
+                return executeMeasured(valueType, StorageOperation.WARM_UP, submitTime, task);
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    private long submittedWrites(final Map<StorageValueResolver<?, ?>, Map<String, Object>> saves,
+            final Map<StorageValueResolver<?, ?>, List<String>> deletes) {
+        if (!metricsEnabled) {
+            return 0;
+        }
+
+        for (final StorageValueResolver<?, ?> valueResolver : saves.keySet()) {
+            metrics.onSubmit(valueResolver.getType(), StorageOperation.SAVE_ALL);
+        }
+        for (final StorageValueResolver<?, ?> valueResolver : deletes.keySet()) {
+            metrics.onSubmit(valueResolver.getType(), StorageOperation.DELETE_ALL);
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * Batched writes that were queued, e.g. by the write-behind mode, are
+     * submitted once they are written, and do not record a queue wait.
+     */
+    private long startedWrites(final Map<StorageValueResolver<?, ?>, Map<String, Object>> saves,
+            final Map<StorageValueResolver<?, ?>, List<String>> deletes, final long submitTime) {
+        if (!metricsEnabled) {
+            return 0;
+        }
+        if (submitTime == 0) {
+            submittedWrites(saves, deletes);
+        }
+
+        final long startTime = System.nanoTime();
+        if (submitTime != 0) {
+            for (final StorageValueResolver<?, ?> valueResolver : saves.keySet()) {
+                metrics.onStart(valueResolver.getType(), StorageOperation.SAVE_ALL, startTime - submitTime);
+            }
+            for (final StorageValueResolver<?, ?> valueResolver : deletes.keySet()) {
+                metrics.onStart(valueResolver.getType(), StorageOperation.DELETE_ALL, startTime - submitTime);
+            }
+        }
+        return startTime;
+    }
+
+    /**
+     * Every resolver of the batch records the time of the whole transaction,
+     * as that is the time its writes took to be committed.
+     */
+    private void completedWrites(final Map<StorageValueResolver<?, ?>, Map<String, Object>> saves,
+            final Map<StorageValueResolver<?, ?>, List<String>> deletes, final long startTime,
+            final boolean failed) {
+        if (!metricsEnabled) {
+            return;
+        }
+
+        final long executionTime = System.nanoTime() - startTime;
+        for (final StorageValueResolver<?, ?> valueResolver : saves.keySet()) {
+            metrics.onComplete(valueResolver.getType(), StorageOperation.SAVE_ALL, executionTime, failed);
+        }
+        for (final StorageValueResolver<?, ?> valueResolver : deletes.keySet()) {
+            metrics.onComplete(valueResolver.getType(), StorageOperation.DELETE_ALL, executionTime, failed);
+        }
+    }
+
+    /**
+     * This method shall be overridden by subclasses if you wish to
+     * return your own {@link ExecutorService} for asynchronous
+     * operations.
+     *
+     * @return the executorService to be used for asynchronous operations
+     * @see StorageExecutors#virtualThreadPerTask()
+     */
+    public ExecutorService getExecutorService() {
+        return Executors.newFixedThreadPool(2);
+    }
+
+    /**
+     * This method shall be overridden by subclasses if you wish to isolate
+     * the operations of a value type within a {@link Bulkhead}. The operations
+     * still run on the {@link ExecutorService}, but with their own concurrency
+     * limit and their own bounded queue, so that a slow value type cannot
+     * starve the others.
+     *
+     * @param valueType the value type
+     *
+     * @return the bulkhead options of the value type, or null to submit its
+     * operations to the {@link ExecutorService} directly
+     */
+    protected BulkheadOptions getBulkheadOptions(final Class<?> valueType) {
+        return null;
+    }
+
+    /**
+     * @param valueType the value type
+     *
+     * @return the bulkhead of the value type, or null if it has none
+     */
+    public Bulkhead getBulkhead(final Class<?> valueType) {
+        final StorageValueResolver<?, ?> valueResolver = getValueResolver(valueType);
+        return valueResolver == null ? null : bulkheadMap.get(valueResolver);
+    }
+
+    /**
+     * This method shall be overridden by subclasses if you wish to bound the
+     * amount of operations that wait for the {@link ExecutorService}. The
+     * operations then wait in the bounded queue of an {@link AdmissionController}
+     * instead of the queue of the {@link ExecutorService}, which is unbounded
+     * by default, so that a stalled database cannot pile up operations until
+     * the heap runs out.
+     *
+     * @return the admission options, or null to submit the operations to the
+     * {@link ExecutorService} directly
+     */
+    protected AdmissionOptions getAdmissionOptions() {
+        return null;
+    }
+
+    /**
+     * This method shall be overridden by subclasses if you wish to change the
+     * priority of an operation within the {@link AdmissionController}. By
+     * default, retrievals are {@link TaskPriority#INTERACTIVE}, and writes
+     * and the warm-up are {@link TaskPriority#BACKGROUND}.
+     *
+     * @param valueType the value type
+     * @param operation the operation
+     *
+     * @return the priority of the operation
+     */
+    protected TaskPriority getPriority(final Class<?> valueType, final StorageOperation operation) {
+        return operation == StorageOperation.RETRIEVE || operation == StorageOperation.RETRIEVE_ALL ?
+                TaskPriority.INTERACTIVE : TaskPriority.BACKGROUND;
+    }
+
+    /**
+     * This method shall be overridden by subclasses if you wish to give an
+     * operation its own deadline within the {@link AdmissionController}, e.g.
+     * a short one for retrievals that a player is waiting for.
+     *
+     * @param valueType the value type
+     * @param operation the operation
+     *
+     * @return the time in milliseconds the operation may wait for admission
+     * before it fails with a {@link java.util.concurrent.TimeoutException},
+     * or 0 to let it wait indefinitely, by default the deadline of the
+     * {@link AdmissionOptions}
+     */
+    protected long getDeadlineMillis(final Class<?> valueType, final StorageOperation operation) {
+        return admissionController.getOptions().getDeadlineMillis();
+    }
+
+    /**
+     * @return the admission controller, or null if the operations are
+     * submitted to the {@link ExecutorService} directly
+     */
+    public AdmissionController getAdmissionController() {
+        return admissionController;
+    }
+
+    /**
+     * This method will run the given task on the executor of the given
+     * resolver, after it was admitted by the {@link AdmissionController}.
+     *
+     * @return the future of the task, which fails with a
+     * {@link java.util.concurrent.RejectedExecutionException} or a
+     * {@link java.util.concurrent.TimeoutException} if the task was not admitted
+     */
+    private <T> CompletableFuture<T> submit(final StorageValueResolver<?, ?> valueResolver,
+            final StorageOperation operation, final Supplier<T> task) {
+        final Class<?> valueType = valueResolver.getType();
+        return submit(executorFor(valueResolver), valueType, operation, task,
+                () -> metrics.onRejected(valueType, operation));
+    }
+
+    /**
+     * This method will run the given writes of several resolvers on the given
+     * executor, after they were admitted by the {@link AdmissionController}
+     * with the priority and the deadline of the first resolver.
+     */
+    private <T> CompletableFuture<T> submitWrites(final Executor executor,
+            final Map<StorageValueResolver<?, ?>, Map<String, Object>> saves,
+            final Map<StorageValueResolver<?, ?>, List<String>> deletes, final Supplier<T> task) {
+        final boolean saving = !saves.isEmpty();
+        final Class<?> valueType = (saving ? saves.keySet() : deletes.keySet()).iterator().next().getType();
+        return submit(executor, valueType, saving ? StorageOperation.SAVE_ALL :
+                StorageOperation.DELETE_ALL, task, () -> {
+            for (final StorageValueResolver<?, ?> valueResolver : saves.keySet()) {
+                metrics.onRejected(valueResolver.getType(), StorageOperation.SAVE_ALL);
+            }
+            for (final StorageValueResolver<?, ?> valueResolver : deletes.keySet()) {
+                metrics.onRejected(valueResolver.getType(), StorageOperation.DELETE_ALL);
+            }
+        });
+    }
+
+    private <T> CompletableFuture<T> submit(final Executor executor, final Class<?> valueType,
+            final StorageOperation operation, final Supplier<T> task, final Runnable onRejected) {
+        if (admissionController == null) {
+            try {
+                return CompletableFuture.supplyAsync(task, executor);
+            } catch (RejectedExecutionException e) {
+                // e.g. a full bulkhead, failed like a task the admission controller rejects
+                onRejected.run();
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+
+        final CompletableFuture<T> future = admissionController.submit(executor,
+                getPriority(valueType, operation), getDeadlineMillis(valueType, operation), task);
+        if (metricsEnabled) {
+            future.whenComplete((result, throwable) -> {
+                // the failures of admitted tasks are always wrapped
+                if (throwable != null && !(throwable instanceof CompletionException)) {
+                    onRejected.run();
+                }
+            });
+        }
+        return future;
+    }
+
+    private Executor executorFor(final StorageValueResolver<?, ?> valueResolver) {
+        if (bulkheadMap.isEmpty()) {
+            return executorService;
+        }
+
+        final Bulkhead bulkhead = bulkheadMap.get(valueResolver);
+        return bulkhead != null ? bulkhead : executorService;
+    }
+
+    /**
+     * This method will attempt to retrieve the {@link StorageValueResolver}
+     * for the given type, or for its closest superclass or interface.
+     *
+     * @param type the type of the value
+     * @param <T> the type of the value
+     *
+     * @return the {@link StorageValueResolver} if found, null otherwise
+     */
+    @SuppressWarnings("unchecked")
+    public <T> StorageValueResolver<?, T> getValueResolver(final Class<T> type) {
+        return (StorageValueResolver<?, T>) valueResolverLookup.get(type);
+    }
+
+    /**
+     * This method will attempt to retrieve the {@link StorageKeyResolver}
+     * for the given type, or for its closest superclass or interface, e.g.
+     * an {@link Integer} key is resolved by a resolver of {@link Number}.
+     *
+     * @param type the type of the key
      * @param <T> the type of the key
      *
      * @return the {@link StorageKeyResolver} if found, null otherwise
      */
+    @SuppressWarnings("unchecked")
     public <T> StorageKeyResolver<T> getKeyResolver(final Class<T> type) {
-        return (StorageKeyResolver<T>) keyResolverMap.get(type);
+        return (StorageKeyResolver<T>) keyResolverLookup.get(type);
+    }
+
+    /**
+     * This method will bind the {@link StorageKeyResolver} and the
+     * {@link StorageValueResolver} of the given types into a reusable handle,
+     * so that its operations do not have to look the resolvers up again.
+     * The handle is meant to be held for the lifetime of this storage.
+     *
+     * @param keyType the type of the key
+     * @param valueType the type of the value
+     * @param <K> the type of the key
+     * @param <V> the type of the value
+     *
+     * @return the binding of the given types
+     * @throws IllegalArgumentException if no {@link StorageKeyResolver} or
+     * {@link StorageValueResolver} is found for the given types
+     */
+    public <K, V> StorageBinding<K, V> bind(final Class<K> keyType, final Class<V> valueType) {
+        return new StorageBinding<>(this, requireKeyResolver(keyType), requireValueResolver(valueType),
+                valueType);
+    }
+
+    private StorageKeyResolver<?> requireKeyResolver(final Class<?> type) {
+        final StorageKeyResolver<?> keyResolver = keyResolverLookup.get(type);
+        if (keyResolver == null) {
+            throw new IllegalArgumentException("No keyResolver found for key type " + type);
+        }
+        return keyResolver;
+    }
+
+    StorageValueResolver<?, ?> requireValueResolver(final Class<?> type) {
+        final StorageValueResolver<?, ?> valueResolver = valueResolverLookup.get(type);
+        if (valueResolver == null) {
+            throw new IllegalArgumentException("No valueResolver found for value type " + type);
+        }
+        return valueResolver;
+    }
+
+    /**
+     * @return the resolver that is registered for the given type, or for its
+     * closest superclass or interface
+     */
+    private static <R> R findResolver(final Map<Class<?>, R> resolverMap, final Class<?> type) {
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            final R resolver = resolverMap.get(current);
+            if (resolver != null) {
+                return resolver;
+            }
+        }
+
+        final Deque<Class<?>> interfaces = new ArrayDeque<>();
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            interfaces.addAll(Arrays.asList(current.getInterfaces()));
+        }
+        while (!interfaces.isEmpty()) {
+            final Class<?> current = interfaces.poll();
+            final R resolver = resolverMap.get(current);
+            if (resolver != null) {
+                return resolver;
+            }
+            interfaces.addAll(Arrays.asList(current.getInterfaces()));
+        }
+        return null;
     }
 
     /**
-     * This method will close the connection from the database,
-     * and then shutdown the {@link ExecutorService} threads.
+     * This method will flush the write-behind queue, wait for the group-commit
+     * writer to commit the queued writes, reject the operations that still
+     * wait for admission, shutdown the {@link ExecutorService} threads and wait
+     * up to a minute for the running operations, close the connection from
+     * the database or the {@link ConnectionPool}, and then close the journal.
+     * Journaled writes that were not committed by then are committed on the
+     * next startup. The membership filters and the most recently accessed
+     * keys of the resident stores are persisted last, each on its own, so
+     * that one failure does not prevent the others from being persisted.
+     *
+     * @throws IllegalStateException if anything could not be closed or
+     * persisted, with the further failures attached as suppressed exceptions
      */
     public void shutdown() {
-        final Connection connection = getConnection();
-        if (connection != null) {
+        if (writeBehindQueue != null) {
+            writeBehindQueue.shutdown();
+        }
+        if (groupCommitWriter != null) {
+            groupCommitWriter.shutdown();
+        }
+
+        if (admissionController != null) {
+            admissionController.shutdown();
+        }
+
+        // the journaled writes that are still running shall be checkpointed before the journal is closed
+        executorService.shutdown();
+        try {
+            executorService.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        statementCache.close();
+
+        IllegalStateException failure = null;
+        final ConnectionPool pool = getConnectionPool();
+        if (pool != null) {
+            pool.close();
+        } else {
+            final Connection connection = getConnection();
+            if (connection != null) {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    failure = addFailure(failure, e);
+                }
+            }
+        }
+
+        if (journal != null) {
             try {
-                connection.close();
-            } catch (SQLException e) {
-                throw new IllegalStateException(e);
+                journal.close();
+            } catch (IOException e) {
+                failure = addFailure(failure, e);
             }
         }
 
-        executorService.shutdown();
+        for (final MembershipFilter filter : membershipFilterMap.values()) {
+            try {
+                filter.persist();
+            } catch (IOException e) {
+                failure = addFailure(failure, e);
+            }
+        }
+
+        for (final ResidentStore residentStore : residentStoreMap.values()) {
+            try {
+                residentStore.persistRecentKeys();
+            } catch (IOException e) {
+                failure = addFailure(failure, e);
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static IllegalStateException addFailure(final IllegalStateException failure,
+            final Exception exception) {
+        if (failure == null) {
+            return new IllegalStateException(exception);
+        }
+        failure.addSuppressed(exception);
+        return failure;
+    }
+
+    @FunctionalInterface
+    private interface SQLAction {
+        void run() throws SQLException;
+    }
+
+    @FunctionalInterface
+    interface SQLSupplier<T> {
+        T get() throws SQLException;
     }
 }
@@ -0,0 +1,154 @@
+package io.tofpu.databasestorage;
+
+import io.tofpu.databasestorage.resolver.key.StorageKeyResolver;
+import io.tofpu.databasestorage.resolver.value.StorageValueResolver;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A typed handle of a {@link StorageBase} that has its {@link StorageKeyResolver}
+ * and {@link StorageValueResolver} already resolved, so that its operations
+ * skip the resolver lookups. It is obtained via
+ * {@link StorageBase#bind(Class, Class)}, and is meant to be held as a constant.
+ *
+ * @param <K> the type of the key
+ * @param <V> the type of the value
+ */
+public final class StorageBinding<K, V> {
+    private final StorageBase storageBase;
+    private final StorageKeyResolver<?> keyResolver;
+    private final StorageValueResolver<?, ?> valueResolver;
+    private final Class<V> valueType;
+
+    StorageBinding(final StorageBase storageBase, final StorageKeyResolver<?> keyResolver,
+            final StorageValueResolver<?, ?> valueResolver, final Class<V> valueType) {
+        this.storageBase = storageBase;
+        this.keyResolver = keyResolver;
+        this.valueResolver = valueResolver;
+        this.valueType = valueType;
+    }
+
+    /**
+     * @param key the key of the value
+     * @param value the value to be saved
+     *
+     * @return true if the value was successfully stored, false otherwise
+     * @see StorageBase#saveAsync(Object, Object)
+     */
+    public CompletableFuture<Boolean> saveAsync(final K key, final V value) {
+        return storageBase.executeSave(keyResolver, valueResolver, key, value);
+    }
+
+    /**
+     * @param key the key of the value
+     *
+     * @return the value stored in the database, or null if no value was found
+     * @see StorageBase#retrieveAsync(Object, Class)
+     */
+    public CompletableFuture<V> retrieveAsync(final K key) {
+        return storageBase.executeRetrieve(keyResolver, valueResolver, key, valueType);
+    }
+
+    /**
+     * @param key the key of the value
+     *
+     * @return true if the value was successfully deleted, false otherwise
+     * @see StorageBase#deleteAsync(Object, Class)
+     */
+    public CompletableFuture<Boolean> deleteAsync(final K key) {
+        return storageBase.executeDelete(keyResolver, valueResolver, key);
+    }
+
+    /**
+     * @param key the key of the value
+     * @param value the value to be saved
+     *
+     * @see StorageBase#save(Object, Object)
+     */
+    public void save(final K key, final V value) {
+        storageBase.executeSaveNow(keyResolver, valueResolver, key, value);
+    }
+
+    /**
+     * @param key the key of the value
+     *
+     * @return the value stored in the database, or null if no value was found
+     * @see StorageBase#retrieve(Object, Class)
+     */
+    public V retrieve(final K key) {
+        return storageBase.executeRetrieveNow(keyResolver, valueResolver, key, valueType);
+    }
+
+    /**
+     * @param key the key of the value
+     *
+     * @see StorageBase#delete(Object, Class)
+     */
+    public void delete(final K key) {
+        storageBase.executeDeleteNow(keyResolver, valueResolver, key);
+    }
+
+    /**
+     * @param key the key of the value
+     * @param value the value to be saved
+     * @param callback the callback of the save
+     *
+     * @see StorageBase#saveAsync(Object, Object, StorageCallback)
+     */
+    public void saveAsync(final K key, final V value, final StorageCallback<? super Boolean> callback) {
+        storageBase.executeSave(keyResolver, valueResolver, key, value, callback);
+    }
+
+    /**
+     * @param key the key of the value
+     * @param callback the callback of the retrieval
+     *
+     * @see StorageBase#retrieveAsync(Object, Class, StorageCallback)
+     */
+    public void retrieveAsync(final K key, final StorageCallback<? super V> callback) {
+        storageBase.executeRetrieve(keyResolver, valueResolver, key, valueType, callback);
+    }
+
+    /**
+     * @param key the key of the value
+     * @param callback the callback of the delete
+     *
+     * @see StorageBase#deleteAsync(Object, Class, StorageCallback)
+     */
+    public void deleteAsync(final K key, final StorageCallback<? super Boolean> callback) {
+        storageBase.executeDelete(keyResolver, valueResolver, key, callback);
+    }
+
+    /**
+     * @param indexName the name of the index
+     * @param indexedValue the indexed value to look up
+     *
+     * @return the values that have the indexed value
+     * @see StorageBase#findByIndexAsync(Class, String, Object)
+     */
+    public CompletableFuture<List<V>> findByIndexAsync(final String indexName, final Object indexedValue) {
+        return storageBase.findByIndexAsync(valueType, indexName, indexedValue);
+    }
+
+    /**
+     * @return the resolver that serializes the keys of this binding
+     */
+    public StorageKeyResolver<?> getKeyResolver() {
+        return keyResolver;
+    }
+
+    /**
+     * @return the resolver that stores the values of this binding
+     */
+    public StorageValueResolver<?, ?> getValueResolver() {
+        return valueResolver;
+    }
+
+    /**
+     * @return the type of the values of this binding
+     */
+    public Class<V> getValueType() {
+        return valueType;
+    }
+}
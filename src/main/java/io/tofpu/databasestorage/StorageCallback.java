@@ -0,0 +1,22 @@
+package io.tofpu.databasestorage;
+
+/**
+ * The callback of an operation that is submitted via one of the callback
+ * variants of the {@link StorageBase}, e.g.
+ * {@link StorageBase#retrieveAsync(Object, Class, StorageCallback)}.
+ *
+ * @param <T> the type of the result
+ */
+@FunctionalInterface
+public interface StorageCallback<T> {
+    /**
+     * This method is called once the operation has completed, usually on a
+     * thread of the {@link java.util.concurrent.ExecutorService}, so it shall
+     * not block or throw.
+     *
+     * @param result the result of the operation, or null if it failed
+     * @param throwable the cause of the failure, e.g. a
+     * {@link java.sql.SQLException}, or null if the operation succeeded
+     */
+    void onComplete(final T result, final Throwable throwable);
+}
@@ -0,0 +1,108 @@
+package io.tofpu.databasestorage;
+
+import io.tofpu.databasestorage.resolver.key.StorageKeyResolver;
+import io.tofpu.databasestorage.resolver.value.StorageValueResolver;
+
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The operations of a {@link StorageBase#transactionAsync(TransactionAction)}.
+ * They call the {@link StorageValueResolver} directly on the connection of
+ * the transaction, so a retrieval sees the writes that were made before it
+ * within the same transaction, and bypass the cache, the write-behind mode
+ * and the journal. The writes are applied to the cache once the transaction
+ * has been committed.
+ * <p>
+ * A transaction shall only be used by the action it was passed to, and only
+ * until the action returns.
+ */
+public final class StorageTransaction {
+    private final StorageBase storageBase;
+    // the last write of every entry, null if the entry was deleted
+    private final Map<EntryKey, Object> writes = new LinkedHashMap<>();
+
+    private boolean ended;
+
+    StorageTransaction(final StorageBase storageBase) {
+        this.storageBase = storageBase;
+    }
+
+    /**
+     * @param key the key of the value
+     * @param value the value to be saved
+     *
+     * @throws SQLException if an error occurs while storing the value
+     * @throws IllegalArgumentException if no {@link StorageKeyResolver} or
+     * {@link StorageValueResolver} is found for the given types
+     * @throws IllegalStateException if the transaction has ended
+     * @see StorageValueResolver#save(String, Object)
+     */
+    public void save(final Object key, final Object value) throws SQLException {
+        checkActive();
+        final StorageValueResolver<?, ?> valueResolver = storageBase.requireValueResolver(value.getClass());
+        final EntryKey entryKey = new EntryKey(valueResolver.getType(), storageBase.serializeKey(key));
+
+        storageBase.addMember(valueResolver, entryKey);
+        valueResolver.save(entryKey.getKey(), value);
+        writes.put(entryKey, value);
+    }
+
+    /**
+     * @param key the key of the value
+     * @param valueType the type of the value
+     * @param <T> the type of the value
+     *
+     * @return the value stored in the database, including the writes of this
+     * transaction, or null if no value was found
+     * @throws SQLException if an error occurs while retrieving the value
+     * @throws IllegalArgumentException if no {@link StorageKeyResolver} or
+     * {@link StorageValueResolver} is found for the given types
+     * @throws IllegalStateException if the transaction has ended
+     * @see StorageValueResolver#retrieve(String)
+     */
+    public <T> T retrieve(final Object key, final Class<T> valueType) throws SQLException {
+        checkActive();
+        final StorageValueResolver<?, ?> valueResolver = storageBase.requireValueResolver(valueType);
+        return valueType.cast(valueResolver.retrieve(storageBase.serializeKey(key)));
+    }
+
+    /**
+     * @param key the key of the value
+     * @param valueType the type of the value
+     *
+     * @throws SQLException if an error occurs while deleting the value
+     * @throws IllegalArgumentException if no {@link StorageKeyResolver} or
+     * {@link StorageValueResolver} is found for the given types
+     * @throws IllegalStateException if the transaction has ended
+     * @see StorageValueResolver#delete(String)
+     */
+    public void delete(final Object key, final Class<?> valueType) throws SQLException {
+        checkActive();
+        final StorageValueResolver<?, ?> valueResolver = storageBase.requireValueResolver(valueType);
+        final EntryKey entryKey = new EntryKey(valueResolver.getType(), storageBase.serializeKey(key));
+
+        storageBase.removeMember(valueResolver, entryKey);
+        valueResolver.delete(entryKey.getKey());
+        writes.put(entryKey, null);
+    }
+
+    void end() {
+        ended = true;
+    }
+
+    /**
+     * @return the last write of every entry that was written, mapped by the
+     * entry, null if the entry was deleted
+     */
+    Map<EntryKey, Object> getWrites() {
+        return writes;
+    }
+
+    private void checkActive() {
+        if (ended) {
+            throw new IllegalStateException("the transaction has already ended");
+        }
+    }
+}
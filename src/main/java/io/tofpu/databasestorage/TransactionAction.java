@@ -0,0 +1,18 @@
+package io.tofpu.databasestorage;
+
+import java.sql.SQLException;
+
+/**
+ * The operations that are run within a single transaction by
+ * {@link StorageBase#transactionAsync(TransactionAction)}.
+ */
+@FunctionalInterface
+public interface TransactionAction {
+    /**
+     * @param transaction the transaction the operations are run in
+     *
+     * @throws SQLException if an operation failed, which rolls the
+     * transaction back
+     */
+    void run(final StorageTransaction transaction) throws SQLException;
+}
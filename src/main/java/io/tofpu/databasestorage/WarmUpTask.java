@@ -0,0 +1,164 @@
+package io.tofpu.databasestorage;
+
+import io.tofpu.databasestorage.resolver.value.StorageValueResolver;
+import io.tofpu.databasestorage.scan.StorageCursor;
+import io.tofpu.databasestorage.warmup.ResidentStore;
+import io.tofpu.databasestorage.warmup.WarmUpMode;
+import io.tofpu.databasestorage.warmup.WarmUpOptions;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Preloads the values of a value type into its {@link ResidentStore}. The
+ * values are loaded in chunks, each by its own task on the executor, and at
+ * most {@link WarmUpOptions#getParallelism()} tasks are submitted at once, so
+ * that a retrieval of a value that is not resident yet only waits behind a
+ * few chunks, or overtakes them within the
+ * {@link io.tofpu.databasestorage.executor.AdmissionController}.
+ * <p>
+ * With {@link WarmUpMode#ALL}, the values are loaded by range scans that
+ * continue at the last key of the previous chunk. As the key range cannot be
+ * split up front, the chunks of a value type are loaded one after another,
+ * while the value types are preloaded in parallel.
+ */
+final class WarmUpTask {
+    private final StorageBase storageBase;
+    private final StorageValueResolver<?, ?> valueResolver;
+    private final ResidentStore residentStore;
+    private final int chunkSize;
+    private final CompletableFuture<Long> future = new CompletableFuture<>();
+
+    WarmUpTask(final StorageBase storageBase, final StorageValueResolver<?, ?> valueResolver,
+            final ResidentStore residentStore) {
+        this.storageBase = storageBase;
+        this.valueResolver = valueResolver;
+        this.residentStore = residentStore;
+        this.chunkSize = residentStore.getOptions().getChunkSize();
+    }
+
+    /**
+     * @return the future that is completed with the amount of loaded values
+     * once the warm-up has completed
+     */
+    CompletableFuture<Long> start() {
+        future.whenComplete((count, throwable) -> {
+            residentStore.finishWarmUp();
+            storageBase.onWarmUpProgress(residentStore.getProgress());
+        });
+
+        final WarmUpOptions options = residentStore.getOptions();
+        if (options.getMode() == WarmUpMode.ALL) {
+            residentStore.startWarmUp(-1);
+            scanChunk(null);
+            return future;
+        }
+
+        final List<String> keys;
+        try {
+            keys = residentStore.loadRecentKeys();
+        } catch (IOException e) {
+            residentStore.startWarmUp(0);
+            future.completeExceptionally(new UncheckedIOException(e));
+            return future;
+        }
+
+        residentStore.startWarmUp(keys.size());
+        final int chunkCount = (keys.size() + chunkSize - 1) / chunkSize;
+        if (chunkCount == 0) {
+            complete();
+            return future;
+        }
+
+        final AtomicInteger nextChunk = new AtomicInteger();
+        final int chains = Math.min(options.getParallelism(), chunkCount);
+        final AtomicInteger runningChains = new AtomicInteger(chains);
+        for (int i = 0; i < chains; i++) {
+            loadChunk(keys, nextChunk, runningChains);
+        }
+        return future;
+    }
+
+    private void loadChunk(final List<String> keys, final AtomicInteger nextChunk,
+            final AtomicInteger runningChains) {
+        final int from = nextChunk.getAndIncrement() * chunkSize;
+        if (from >= keys.size() || future.isDone()) {
+            if (runningChains.decrementAndGet() == 0) {
+                complete();
+            }
+            return;
+        }
+
+        final List<String> chunk = keys.subList(from, Math.min(from + chunkSize, keys.size()));
+        storageBase.submitWarmUp(valueResolver, () -> {
+            valueResolver.retrieveAll(chunk).forEach(this::preload);
+            return null;
+        }).whenComplete((result, throwable) -> {
+            if (throwable != null) {
+                future.completeExceptionally(unwrap(throwable));
+            }
+            storageBase.onWarmUpProgress(residentStore.getProgress());
+            loadChunk(keys, nextChunk, runningChains);
+        });
+    }
+
+    private void scanChunk(final String fromKey) {
+        storageBase.submitWarmUp(valueResolver, () -> {
+            try (final StorageCursor<?> cursor = valueResolver.scan(fromKey, null, chunkSize)) {
+                String lastKey = null;
+                int count = 0;
+                while (count < chunkSize && cursor.next()) {
+                    final String key = cursor.getKey();
+                    // the scan starts at the last key of the previous chunk
+                    if (key.equals(fromKey)) {
+                        continue;
+                    }
+
+                    preload(key, cursor.getValue());
+                    lastKey = key;
+                    count++;
+                }
+                return count < chunkSize ? null : lastKey;
+            }
+        }).whenComplete((lastKey, throwable) -> {
+            if (throwable != null) {
+                final Throwable cause = unwrap(throwable);
+                if (cause instanceof UnsupportedOperationException) {
+                    // the values of this type are retrieved on demand only
+                    complete();
+                } else {
+                    future.completeExceptionally(cause);
+                }
+                return;
+            }
+
+            if (lastKey == null) {
+                residentStore.markComplete();
+                complete();
+                return;
+            }
+            storageBase.onWarmUpProgress(residentStore.getProgress());
+            scanChunk(lastKey);
+        });
+    }
+
+    private void preload(final String key, final Object value) {
+        // a value that is not made resident was already retrieved or written, which indexed it
+        if (residentStore.preload(key, value)) {
+            storageBase.indexLoaded(valueResolver.getType(), key, value);
+        }
+    }
+
+    private void complete() {
+        future.complete(residentStore.getProgress().getLoadedCount());
+    }
+
+    private static Throwable unwrap(final Throwable throwable) {
+        return throwable instanceof CompletionException && throwable.getCause() != null ?
+                throwable.getCause() : throwable;
+    }
+}
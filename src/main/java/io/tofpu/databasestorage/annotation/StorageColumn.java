@@ -0,0 +1,28 @@
+package io.tofpu.databasestorage.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a field of a {@link StorageEntity} that is stored in a column.
+ * <p>
+ * Supported are the primitive types, {@link String}, {@link java.util.UUID},
+ * enums, which are stored by their name, and byte arrays.
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.FIELD)
+public @interface StorageColumn {
+    /**
+     * @return the name of the column, or an empty string to derive it from
+     * the name of the field in snake case
+     */
+    String name() default "";
+
+    /**
+     * @return the SQL type of the column, or an empty string to derive it
+     * from the type of the field
+     */
+    String type() default "";
+}
@@ -0,0 +1,27 @@
+package io.tofpu.databasestorage.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a value type whose {@link io.tofpu.databasestorage.resolver.value.StorageValueResolver}
+ * shall be generated at build time by the {@code database-storage-processor}.
+ * <p>
+ * The generated resolver is named after the value type with a
+ * {@code StorageResolver} suffix, and maps the {@link StorageKey} field and
+ * every {@link StorageColumn} field to a column of the table. The fields are
+ * read via their getters, or directly if they are not private, and the value
+ * is created via the constructor whose parameters match the mapped fields in
+ * their declaration order.
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface StorageEntity {
+    /**
+     * @return the name of the table, or an empty string to derive it from
+     * the name of the type in snake case
+     */
+    String table() default "";
+}
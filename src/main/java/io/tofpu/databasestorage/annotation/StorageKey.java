@@ -0,0 +1,28 @@
+package io.tofpu.databasestorage.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks the field of a {@link StorageEntity} that holds its key, which is
+ * stored in the primary key column. The type of the field has to have a
+ * {@link io.tofpu.databasestorage.resolver.key.StorageKeyResolver} that can
+ * deserialize keys.
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.FIELD)
+public @interface StorageKey {
+    /**
+     * @return the name of the column, or an empty string to derive it from
+     * the name of the field in snake case
+     */
+    String name() default "";
+
+    /**
+     * @return the SQL type of the column, or an empty string to derive it
+     * from the type of the field
+     */
+    String type() default "";
+}
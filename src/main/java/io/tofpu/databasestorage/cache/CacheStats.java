@@ -0,0 +1,63 @@
+package io.tofpu.databasestorage.cache;
+
+/**
+ * An immutable snapshot of the {@link StorageCache} statistics.
+ */
+public final class CacheStats {
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final long size;
+
+    public CacheStats(final long hitCount, final long missCount, final long evictionCount,
+            final long size) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.size = size;
+    }
+
+    /**
+     * @return the amount of lookups that found a cached value
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return the amount of lookups that did not find a cached value
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * @return the amount of entries that were evicted due to the size limit,
+     * or because they expired
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * @return the amount of entries that are currently cached
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * @return the ratio of lookups that found a cached value, or 1.0 if there
+     * were no lookups
+     */
+    public double getHitRate() {
+        final long requestCount = hitCount + missCount;
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{" + "hitCount=" + hitCount + ", missCount=" + missCount +
+               ", evictionCount=" + evictionCount + ", size=" + size + '}';
+    }
+}
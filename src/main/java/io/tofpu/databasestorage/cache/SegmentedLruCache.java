@@ -0,0 +1,240 @@
+package io.tofpu.databasestorage.cache;
+
+import io.tofpu.databasestorage.EntryKey;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded {@link StorageCache} that evicts with a segmented LRU policy.
+ * <p>
+ * New entries are admitted into a probation segment, and are only promoted
+ * into the protected segment once they are accessed again. This way, a scan
+ * over many cold entries can only push out other cold entries, while the hot
+ * entries stay in the protected segment. Entries also expire once the
+ * configured time has elapsed since they were written.
+ * <p>
+ * Lookups do not block, the recency order is only updated when the eviction
+ * lock is free, so under heavy contention some accesses are not recorded.
+ */
+public class SegmentedLruCache implements StorageCache {
+    private static final double PROTECTED_RATIO = 0.8;
+
+    private final ConcurrentHashMap<EntryKey, Node> nodeMap = new ConcurrentHashMap<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private final long maximumSize;
+    private final long maximumProtectedSize;
+    private final long expireAfterWriteNanos;
+
+    private final Segment probation = new Segment();
+    private final Segment protectedSegment = new Segment();
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    /**
+     * @param maximumSize the maximum amount of entries to be cached
+     * @param expireAfterWrite the time after an entry was written until it
+     * expires, or 0 to never expire entries
+     * @param unit the unit of the expire time
+     */
+    public SegmentedLruCache(final long maximumSize, final long expireAfterWrite,
+            final TimeUnit unit) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize must be positive");
+        }
+        if (expireAfterWrite < 0) {
+            throw new IllegalArgumentException("expireAfterWrite must not be negative");
+        }
+
+        this.maximumSize = maximumSize;
+        this.maximumProtectedSize = (long) (maximumSize * PROTECTED_RATIO);
+        this.expireAfterWriteNanos = expireAfterWrite == 0 ? Long.MAX_VALUE :
+                unit.toNanos(expireAfterWrite);
+    }
+
+    @Override
+    public Object getIfPresent(final EntryKey entryKey) {
+        final Node node = nodeMap.get(entryKey);
+        if (node == null) {
+            missCount.increment();
+            return null;
+        }
+
+        if (System.nanoTime() - node.writeTime > expireAfterWriteNanos) {
+            if (nodeMap.remove(entryKey, node)) {
+                evictionCount.increment();
+                unlinkLocked(node);
+            }
+            missCount.increment();
+            return null;
+        }
+
+        hitCount.increment();
+        if (evictionLock.tryLock()) {
+            try {
+                onAccess(node);
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+        return node.value;
+    }
+
+    @Override
+    public void put(final EntryKey entryKey, final Object value) {
+        final Node node = new Node(entryKey, value, System.nanoTime());
+        final Node prior = nodeMap.put(entryKey, node);
+
+        evictionLock.lock();
+        try {
+            if (prior != null) {
+                unlink(prior);
+            }
+            // the node may have been replaced or invalidated in the meantime
+            if (nodeMap.get(entryKey) == node) {
+                probation.addFirst(node);
+            }
+            evict();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    @Override
+    public void invalidate(final EntryKey entryKey) {
+        final Node node = nodeMap.remove(entryKey);
+        if (node != null) {
+            unlinkLocked(node);
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        evictionLock.lock();
+        try {
+            for (final EntryKey entryKey : nodeMap.keySet()) {
+                final Node node = nodeMap.remove(entryKey);
+                if (node != null) {
+                    unlink(node);
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    @Override
+    public CacheStats getStats() {
+        return new CacheStats(hitCount.sum(), missCount.sum(), evictionCount.sum(),
+                probation.size + protectedSegment.size);
+    }
+
+    private void onAccess(final Node node) {
+        if (node.segment == probation) {
+            probation.remove(node);
+            protectedSegment.addFirst(node);
+
+            // demote the least recently used protected entries back to probation
+            while (protectedSegment.size > maximumProtectedSize) {
+                final Node demoted = protectedSegment.removeLast();
+                probation.addFirst(demoted);
+            }
+        } else if (node.segment == protectedSegment) {
+            protectedSegment.remove(node);
+            protectedSegment.addFirst(node);
+        }
+    }
+
+    private void evict() {
+        while (probation.size + protectedSegment.size > maximumSize) {
+            final Node victim = probation.size > 0 ? probation.removeLast() :
+                    protectedSegment.removeLast();
+            if (nodeMap.remove(victim.entryKey, victim)) {
+                evictionCount.increment();
+            }
+        }
+    }
+
+    private void unlinkLocked(final Node node) {
+        evictionLock.lock();
+        try {
+            unlink(node);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private void unlink(final Node node) {
+        if (node.segment != null) {
+            node.segment.remove(node);
+        }
+    }
+
+    private static final class Node {
+        private final EntryKey entryKey;
+        private final Object value;
+        private final long writeTime;
+
+        private Segment segment;
+        private Node previous;
+        private Node next;
+
+        private Node(final EntryKey entryKey, final Object value, final long writeTime) {
+            this.entryKey = entryKey;
+            this.value = value;
+            this.writeTime = writeTime;
+        }
+    }
+
+    /**
+     * A doubly linked list of nodes, ordered from the most recently used to
+     * the least recently used. Only accessed while holding the eviction lock.
+     */
+    private static final class Segment {
+        private Node head;
+        private Node tail;
+        private long size;
+
+        private void addFirst(final Node node) {
+            node.segment = this;
+            node.previous = null;
+            node.next = head;
+            if (head != null) {
+                head.previous = node;
+            } else {
+                tail = node;
+            }
+            head = node;
+            size++;
+        }
+
+        private Node removeLast() {
+            final Node node = tail;
+            remove(node);
+            return node;
+        }
+
+        private void remove(final Node node) {
+            if (node.previous != null) {
+                node.previous.next = node.next;
+            } else {
+                head = node.next;
+            }
+            if (node.next != null) {
+                node.next.previous = node.previous;
+            } else {
+                tail = node.previous;
+            }
+
+            node.segment = null;
+            node.previous = null;
+            node.next = null;
+            size--;
+        }
+    }
+}
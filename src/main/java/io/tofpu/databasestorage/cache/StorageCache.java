@@ -0,0 +1,42 @@
+package io.tofpu.databasestorage.cache;
+
+import io.tofpu.databasestorage.EntryKey;
+
+/**
+ * An in-process cache that is consulted by the
+ * {@link io.tofpu.databasestorage.StorageBase} before retrieving a value from
+ * the database. Implementations must be safe to use from multiple threads.
+ */
+public interface StorageCache {
+    /**
+     * @param entryKey the entry to look for
+     *
+     * @return the cached value, or null if the entry is not cached
+     */
+    Object getIfPresent(final EntryKey entryKey);
+
+    /**
+     * Caches the given value, replacing the existing value of the entry if any.
+     *
+     * @param entryKey the entry to be cached
+     * @param value the value of the entry
+     */
+    void put(final EntryKey entryKey, final Object value);
+
+    /**
+     * Removes the given entry from the cache.
+     *
+     * @param entryKey the entry to be removed
+     */
+    void invalidate(final EntryKey entryKey);
+
+    /**
+     * Removes every entry from the cache.
+     */
+    void invalidateAll();
+
+    /**
+     * @return a snapshot of the cache statistics
+     */
+    CacheStats getStats();
+}
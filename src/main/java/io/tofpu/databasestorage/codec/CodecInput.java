@@ -0,0 +1,211 @@
+package io.tofpu.databasestorage.codec;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads the values that were written by a {@link CodecOutput}.
+ */
+public final class CodecInput {
+    private final ByteBuffer buffer;
+    private List<String> stringTable;
+
+    /**
+     * @param buffer the buffer to read from, starting at its position
+     */
+    public CodecInput(final ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    public CodecInput(final byte[] bytes) {
+        this(ByteBuffer.wrap(bytes));
+    }
+
+    public byte readByte() {
+        return buffer.get();
+    }
+
+    public boolean readBoolean() {
+        return buffer.get() != 0;
+    }
+
+    public int readInt() {
+        return buffer.getInt();
+    }
+
+    public long readLong() {
+        return buffer.getLong();
+    }
+
+    public double readDouble() {
+        return buffer.getDouble();
+    }
+
+    /**
+     * This method is the reverse of {@link CodecOutput#writeVarInt(int)}.
+     *
+     * @return the read value
+     */
+    public int readVarInt() {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            final byte current = buffer.get();
+            value |= (current & 0x7F) << shift;
+            if (current >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("malformed varint");
+    }
+
+    /**
+     * This method is the reverse of {@link CodecOutput#writeVarLong(long)}.
+     *
+     * @return the read value
+     */
+    public long readVarLong() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final byte current = buffer.get();
+            value |= (long) (current & 0x7F) << shift;
+            if (current >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("malformed varlong");
+    }
+
+    /**
+     * This method is the reverse of {@link CodecOutput#writeSignedVarInt(int)}.
+     *
+     * @return the read value
+     */
+    public int readSignedVarInt() {
+        final int value = readVarInt();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * This method is the reverse of {@link CodecOutput#writeSignedVarLong(long)}.
+     *
+     * @return the read value
+     */
+    public long readSignedVarLong() {
+        final long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * This method is the reverse of {@link CodecOutput#writeBytes(byte[])}.
+     *
+     * @return the read bytes
+     */
+    public byte[] readBytes() {
+        final byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * This method is the reverse of {@link CodecOutput#writeString(String)}.
+     *
+     * @return the read string, or null
+     */
+    public String readString() {
+        final int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        return readString(length);
+    }
+
+    /**
+     * This method is the reverse of {@link CodecOutput#writeTableString(String)}.
+     *
+     * @return the read string, or null
+     */
+    public String readTableString() {
+        final int reference = readVarInt();
+        if (reference == 0) {
+            return null;
+        }
+
+        if (stringTable == null) {
+            stringTable = new ArrayList<>();
+        }
+        if (reference > 1) {
+            if (reference - 2 >= stringTable.size()) {
+                throw new IllegalArgumentException("unknown string table index: " + (reference - 2));
+            }
+            return stringTable.get(reference - 2);
+        }
+
+        final String value = readString(readVarInt());
+        stringTable.add(value);
+        return value;
+    }
+
+    public UUID readUUID() {
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+
+    /**
+     * @param length the amount of bytes to be read
+     *
+     * @return a read-only view of the next bytes, which were written by
+     * {@link CodecOutput#writeRaw(ByteBuffer)}
+     */
+    public ByteBuffer readRaw(final int length) {
+        final ByteBuffer view = buffer.slice();
+        view.limit(length);
+        buffer.position(buffer.position() + length);
+        return view.asReadOnlyBuffer();
+    }
+
+    /**
+     * @return the amount of bytes that are left to be read
+     */
+    public int remaining() {
+        return buffer.remaining();
+    }
+
+    /**
+     * Inflates the next bytes into the given buffer until the inflater is
+     * finished, the bytes after the compressed ones are left to be read.
+     *
+     * @param inflater the inflater to be used
+     * @param target the buffer to inflate into, which has to fit the
+     * uncompressed bytes
+     */
+    void inflate(final Inflater inflater, final ByteBuffer target) {
+        inflater.setInput(buffer);
+        try {
+            while (!inflater.finished()) {
+                if (inflater.inflate(target) == 0 && (inflater.needsInput() || !target.hasRemaining())) {
+                    throw new IllegalArgumentException("compressed bytes are truncated or too long");
+                }
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private String readString(final int length) {
+        final String value;
+        if (buffer.hasArray()) {
+            value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+                    StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+        } else {
+            final byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return value;
+    }
+}
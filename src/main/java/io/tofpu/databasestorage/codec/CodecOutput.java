@@ -0,0 +1,247 @@
+package io.tofpu.databasestorage.codec;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.Deflater;
+
+/**
+ * A growable buffer that values are encoded into by a {@link StorageValueCodec}.
+ * An output is meant to be reused via {@link #clear()}, so that encoding does
+ * not allocate a new buffer per value.
+ */
+public final class CodecOutput {
+    private ByteBuffer buffer;
+    private Map<String, Integer> stringTable;
+
+    public CodecOutput() {
+        this(256);
+    }
+
+    /**
+     * @param initialCapacity the initial capacity of the buffer in bytes
+     */
+    public CodecOutput(final int initialCapacity) {
+        this.buffer = ByteBuffer.allocate(initialCapacity);
+    }
+
+    public void writeByte(final int value) {
+        ensureCapacity(1);
+        buffer.put((byte) value);
+    }
+
+    public void writeBoolean(final boolean value) {
+        writeByte(value ? 1 : 0);
+    }
+
+    public void writeInt(final int value) {
+        ensureCapacity(4);
+        buffer.putInt(value);
+    }
+
+    public void writeLong(final long value) {
+        ensureCapacity(8);
+        buffer.putLong(value);
+    }
+
+    public void writeDouble(final double value) {
+        ensureCapacity(8);
+        buffer.putDouble(value);
+    }
+
+    /**
+     * Writes the given value in 1 to 5 bytes, 7 bits per byte, so that small
+     * non-negative values take less space than with {@link #writeInt(int)}.
+     * Negative values always take 5 bytes, see {@link #writeSignedVarInt(int)}.
+     *
+     * @param value the value to be written
+     */
+    public void writeVarInt(final int value) {
+        ensureCapacity(5);
+        int remaining = value;
+        while ((remaining & ~0x7F) != 0) {
+            buffer.put((byte) ((remaining & 0x7F) | 0x80));
+            remaining >>>= 7;
+        }
+        buffer.put((byte) remaining);
+    }
+
+    /**
+     * Writes the given value in 1 to 10 bytes, as in {@link #writeVarInt(int)}.
+     *
+     * @param value the value to be written
+     */
+    public void writeVarLong(final long value) {
+        ensureCapacity(10);
+        long remaining = value;
+        while ((remaining & ~0x7FL) != 0) {
+            buffer.put((byte) ((remaining & 0x7F) | 0x80));
+            remaining >>>= 7;
+        }
+        buffer.put((byte) remaining);
+    }
+
+    /**
+     * Writes the given value zigzag-encoded as in {@link #writeVarInt(int)},
+     * so that small negative values take little space as well.
+     *
+     * @param value the value to be written
+     */
+    public void writeSignedVarInt(final int value) {
+        writeVarInt((value << 1) ^ (value >> 31));
+    }
+
+    /**
+     * Writes the given value zigzag-encoded as in {@link #writeVarLong(long)}.
+     *
+     * @param value the value to be written
+     */
+    public void writeSignedVarLong(final long value) {
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * Writes the given bytes prefixed with their length.
+     *
+     * @param value the bytes to be written
+     */
+    public void writeBytes(final byte[] value) {
+        writeInt(value.length);
+        writeRaw(value, 0, value.length);
+    }
+
+    /**
+     * Writes the given string as UTF-8 prefixed with its length, a null
+     * string is written as a length of -1.
+     *
+     * @param value the string to be written, or null
+     */
+    public void writeString(final String value) {
+        if (value == null) {
+            writeInt(-1);
+            return;
+        }
+        writeBytes(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Writes the given string via the string table of this output. The first
+     * occurrence of a string is written with a varint length, and every
+     * further occurrence as the varint index of the first one, which keeps
+     * repeated strings such as map keys or item ids small. The table is reset
+     * by {@link #clear()}.
+     *
+     * @param value the string to be written, or null
+     */
+    public void writeTableString(final String value) {
+        if (value == null) {
+            writeVarInt(0);
+            return;
+        }
+
+        if (stringTable == null) {
+            stringTable = new HashMap<>();
+        }
+        final Integer index = stringTable.get(value);
+        if (index != null) {
+            writeVarInt(index + 2);
+            return;
+        }
+
+        stringTable.put(value, stringTable.size());
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(1);
+        writeVarInt(bytes.length);
+        writeRaw(bytes, 0, bytes.length);
+    }
+
+    public void writeUUID(final UUID value) {
+        writeLong(value.getMostSignificantBits());
+        writeLong(value.getLeastSignificantBits());
+    }
+
+    /**
+     * Writes the given bytes as they are, without a length prefix.
+     *
+     * @param value the bytes to be written
+     * @param offset the offset of the first byte
+     * @param length the amount of bytes
+     */
+    public void writeRaw(final byte[] value, final int offset, final int length) {
+        ensureCapacity(length);
+        buffer.put(value, offset, length);
+    }
+
+    /**
+     * Writes the remaining bytes of the given buffer as they are, without a
+     * length prefix.
+     *
+     * @param value the bytes to be written
+     */
+    public void writeRaw(final ByteBuffer value) {
+        ensureCapacity(value.remaining());
+        buffer.put(value.duplicate());
+    }
+
+    /**
+     * @return the amount of bytes written since the output was cleared
+     */
+    public int size() {
+        return buffer.position();
+    }
+
+    /**
+     * Discards every written byte, so that the output can be reused.
+     */
+    public void clear() {
+        buffer.clear();
+        if (stringTable != null) {
+            stringTable.clear();
+        }
+    }
+
+    /**
+     * @return a read-only view of the written bytes, the view is only valid
+     * until the output is written to again
+     */
+    public ByteBuffer toByteBuffer() {
+        final ByteBuffer view = buffer.asReadOnlyBuffer();
+        view.flip();
+        return view;
+    }
+
+    /**
+     * @return a copy of the written bytes
+     */
+    public byte[] toByteArray() {
+        final byte[] bytes = new byte[buffer.position()];
+        System.arraycopy(buffer.array(), 0, bytes, 0, bytes.length);
+        return bytes;
+    }
+
+    /**
+     * Writes the output of the given deflater until it is finished.
+     *
+     * @param deflater the deflater whose input was set and finished
+     */
+    void deflate(final Deflater deflater) {
+        while (!deflater.finished()) {
+            ensureCapacity(Math.max(64, buffer.capacity() / 2));
+            deflater.deflate(buffer);
+        }
+    }
+
+    private void ensureCapacity(final int length) {
+        if (buffer.remaining() >= length) {
+            return;
+        }
+
+        final int capacity = Math.max(buffer.capacity() * 2, buffer.position() + length);
+        final ByteBuffer grown = ByteBuffer.allocate(capacity);
+        buffer.flip();
+        grown.put(buffer);
+        buffer = grown;
+    }
+}
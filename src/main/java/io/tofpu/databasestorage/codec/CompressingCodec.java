@@ -0,0 +1,93 @@
+package io.tofpu.databasestorage.codec;
+
+import java.nio.ByteBuffer;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A {@link StorageValueCodec} that deflates the values of another codec,
+ * once their encoded size reaches a threshold. Smaller values are stored as
+ * they are, as compressing them costs more CPU than it saves in I/O.
+ * <p>
+ * Every value is prefixed with a flag of whether it is compressed, and its
+ * uncompressed size as a varint.
+ *
+ * @param <V> the type of the values
+ */
+public final class CompressingCodec<V> implements StorageValueCodec<V> {
+    private static final int UNCOMPRESSED = 0;
+    private static final int COMPRESSED = 1;
+
+    private final StorageValueCodec<V> codec;
+    private final int threshold;
+    private final ThreadLocal<CodecOutput> outputs = ThreadLocal.withInitial(CodecOutput::new);
+
+    /**
+     * @param codec the codec of the values
+     * @param threshold the encoded size in bytes from which values are compressed
+     */
+    public CompressingCodec(final StorageValueCodec<V> codec, final int threshold) {
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("threshold must be positive");
+        }
+
+        this.codec = codec;
+        this.threshold = threshold;
+    }
+
+    @Override
+    public void encode(final V value, final CodecOutput output) {
+        final CodecOutput encoded = outputs.get();
+        encoded.clear();
+        codec.encode(value, encoded);
+
+        final ByteBuffer bytes = encoded.toByteBuffer();
+        if (bytes.remaining() < threshold) {
+            output.writeByte(UNCOMPRESSED);
+            output.writeVarInt(bytes.remaining());
+            output.writeRaw(bytes);
+            return;
+        }
+
+        output.writeByte(COMPRESSED);
+        output.writeVarInt(bytes.remaining());
+        final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(bytes);
+            deflater.finish();
+            output.deflate(deflater);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    @Override
+    public V decode(final CodecInput input) {
+        final byte flag = input.readByte();
+        final int length = input.readVarInt();
+        if (flag == UNCOMPRESSED) {
+            return codec.decode(new CodecInput(input.readRaw(length)));
+        }
+        if (flag != COMPRESSED) {
+            throw new IllegalArgumentException("unknown compression flag: " + flag);
+        }
+
+        final ByteBuffer bytes = ByteBuffer.allocate(length);
+        final Inflater inflater = new Inflater();
+        try {
+            input.inflate(inflater, bytes);
+        } finally {
+            inflater.end();
+        }
+
+        bytes.flip();
+        return codec.decode(new CodecInput(bytes));
+    }
+
+    /**
+     * @return the codec of the values
+     */
+    public StorageValueCodec<V> getCodec() {
+        return codec;
+    }
+}
@@ -0,0 +1,26 @@
+package io.tofpu.databasestorage.codec;
+
+/**
+ * Encodes values of a type into a binary form, and decodes them back. The
+ * binary form is used wherever a value has to be stored outside of its
+ * {@link io.tofpu.databasestorage.resolver.value.StorageValueResolver}, e.g.
+ * by the {@link io.tofpu.databasestorage.journal.StorageJournal}.
+ *
+ * @param <V> the type of the values
+ */
+public interface StorageValueCodec<V> {
+    /**
+     * @param value the value to be encoded, never null
+     * @param output the output to write the value to
+     */
+    void encode(final V value, final CodecOutput output);
+
+    /**
+     * This method is the reverse of {@link #encode(Object, CodecOutput)}.
+     *
+     * @param input the input to read the value from
+     *
+     * @return the decoded value
+     */
+    V decode(final CodecInput input);
+}
@@ -0,0 +1,68 @@
+package io.tofpu.databasestorage.codec;
+
+/**
+ * A {@link StorageValueCodec} that prefixes every encoded value with the
+ * version of its format, so that values that were encoded before a field
+ * was added or removed can still be decoded. Values are always encoded in
+ * the current version, and {@link #decode(CodecInput, int)} has to handle
+ * every earlier version.
+ *
+ * @param <V> the type of the values
+ */
+public abstract class VersionedCodec<V> implements StorageValueCodec<V> {
+    private final int version;
+
+    /**
+     * @param version the current version of the format
+     */
+    protected VersionedCodec(final int version) {
+        if (version < 0) {
+            throw new IllegalArgumentException("version must not be negative");
+        }
+
+        this.version = version;
+    }
+
+    /**
+     * This method will encode the value in the current version, after the
+     * version itself.
+     *
+     * @param value the value to be encoded, never null
+     * @param output the output to write the value to
+     */
+    protected abstract void encodeValue(final V value, final CodecOutput output);
+
+    /**
+     * This method is the reverse of {@link #encodeValue(Object, CodecOutput)}.
+     *
+     * @param input the input to read the value from
+     * @param version the version the value was encoded in, never newer than
+     * the current version
+     *
+     * @return the decoded value
+     */
+    protected abstract V decode(final CodecInput input, final int version);
+
+    @Override
+    public final void encode(final V value, final CodecOutput output) {
+        output.writeVarInt(version);
+        encodeValue(value, output);
+    }
+
+    @Override
+    public final V decode(final CodecInput input) {
+        final int valueVersion = input.readVarInt();
+        if (valueVersion > version) {
+            throw new IllegalArgumentException("value version " + valueVersion +
+                    " is newer than the codec version " + version);
+        }
+        return decode(input, valueVersion);
+    }
+
+    /**
+     * @return the current version of the format
+     */
+    public int getVersion() {
+        return version;
+    }
+}
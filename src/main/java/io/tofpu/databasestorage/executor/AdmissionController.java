@@ -0,0 +1,398 @@
+package io.tofpu.databasestorage.executor;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Admits tasks to their executors, but never more than the configured amount
+ * at once. The remaining tasks wait in a bounded queue of this controller
+ * rather than the unbounded queue of the executor, so that a stalled
+ * database cannot pile up tasks until the heap runs out. What happens once
+ * the queue is full is decided by the {@link AdmissionPolicy}.
+ * <p>
+ * {@link TaskPriority#INTERACTIVE} tasks overtake the queued
+ * {@link TaskPriority#BACKGROUND} tasks, but every
+ * {@value #BACKGROUND_INTERVAL}th admitted task is a background one if any
+ * is queued, so that writes cannot be starved by reads. A task that is still
+ * queued at its deadline, or still blocked by {@link AdmissionPolicy#BLOCK},
+ * is cancelled with a {@link TimeoutException}.
+ * <p>
+ * Tasks that are submitted by a running task, or by the completion of
+ * another task, e.g. a retrieval that waited for a write, are never blocked
+ * by {@link AdmissionPolicy#BLOCK}, as the thread they would block may be
+ * the one that has to make room. They are queued beyond the capacity instead.
+ */
+public class AdmissionController {
+    private static final int BACKGROUND_INTERVAL = 8;
+
+    private static final int QUEUED = 0;
+    private static final int ADMITTED = 1;
+    private static final int CANCELLED = 2;
+
+    private final AdmissionOptions options;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final ArrayDeque<Task<?>> interactiveQueue = new ArrayDeque<>();
+    private final ArrayDeque<Task<?>> backgroundQueue = new ArrayDeque<>();
+
+    // guarded by the lock
+    private int activeCount;
+    private int admittedCount;
+    private boolean shutdown;
+    private ScheduledExecutorService deadlineScheduler;
+
+    private final ThreadLocal<Boolean> internalThread = new ThreadLocal<>();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong expiredCount = new AtomicLong();
+
+    public AdmissionController(final AdmissionOptions options) {
+        this.options = options;
+    }
+
+    /**
+     * @param executor the executor the task shall run on
+     * @param priority the priority of the task
+     * @param deadlineMillis the time in milliseconds the task may wait for
+     * admission, or 0 to let it wait indefinitely
+     * @param supplier the task
+     * @param <T> the type of the result
+     *
+     * @return the future of the result, which is completed with a
+     * {@link RejectedExecutionException} if the task was rejected, or with a
+     * {@link TimeoutException} if it was not admitted before its deadline
+     */
+    public <T> CompletableFuture<T> submit(final Executor executor, final TaskPriority priority,
+            final long deadlineMillis, final Supplier<T> supplier) {
+        final Task<T> task = new Task<>(executor, priority, supplier);
+        final long deadlineNanos = deadlineMillis > 0 ?
+                System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMillis) : 0;
+
+        Task<?> dropped = null;
+        boolean admitted = false;
+        lock.lock();
+        try {
+            while (true) {
+                if (shutdown) {
+                    return reject(task, "admission controller is shut down");
+                }
+                if (activeCount < options.getMaxConcurrency()) {
+                    activeCount++;
+                    task.state.set(ADMITTED);
+                    admitted = true;
+                    break;
+                }
+                if (queuedCount() < options.getQueueCapacity()) {
+                    break;
+                }
+
+                if (options.getPolicy() == AdmissionPolicy.FAIL_FAST) {
+                    return reject(task, "admission queue is full (" + options.getQueueCapacity() + ")");
+                }
+                if (options.getPolicy() == AdmissionPolicy.DROP_OLDEST_READ) {
+                    dropped = interactiveQueue.pollFirst();
+                    if (dropped == null) {
+                        return reject(task, "admission queue is full (" + options.getQueueCapacity() +
+                                            ") of background tasks");
+                    }
+                    dropped.state.set(CANCELLED);
+                    dropped.cancelDeadline();
+                    break;
+                }
+
+                if (internalThread.get() != null) {
+                    break;
+                }
+                try {
+                    if (deadlineMillis <= 0) {
+                        notFull.await();
+                    } else {
+                        final long remainingNanos = deadlineNanos - System.nanoTime();
+                        if (remainingNanos <= 0) {
+                            expiredCount.incrementAndGet();
+                            task.state.set(CANCELLED);
+                            task.future.completeExceptionally(
+                                    new TimeoutException("task was still blocked at its deadline"));
+                            return task.future;
+                        }
+                        notFull.awaitNanos(remainingNanos);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return reject(task, "interrupted while waiting for admission");
+                }
+            }
+
+            if (!admitted) {
+                (priority == TaskPriority.INTERACTIVE ? interactiveQueue : backgroundQueue).offerLast(task);
+                if (deadlineMillis > 0) {
+                    // the time the task was blocked counts towards its deadline
+                    task.deadline = deadlineScheduler().schedule(() -> expire(task),
+                            deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (dropped != null) {
+            rejectedCount.incrementAndGet();
+            dropped.future.completeExceptionally(new RejectedExecutionException(
+                    "dropped from the full admission queue by a newer task"));
+        }
+        if (admitted) {
+            dispatch(task);
+        }
+        return task.future;
+    }
+
+    /**
+     * This method will reject every queued task, and every task that is
+     * submitted from now on. Running tasks are not affected.
+     */
+    public void shutdown() {
+        final ArrayDeque<Task<?>> queued = new ArrayDeque<>();
+        lock.lock();
+        try {
+            shutdown = true;
+            queued.addAll(interactiveQueue);
+            queued.addAll(backgroundQueue);
+            interactiveQueue.clear();
+            backgroundQueue.clear();
+            notFull.signalAll();
+
+            if (deadlineScheduler != null) {
+                deadlineScheduler.shutdownNow();
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        for (final Task<?> task : queued) {
+            if (task.state.compareAndSet(QUEUED, CANCELLED)) {
+                task.future.completeExceptionally(
+                        new RejectedExecutionException("admission controller is shut down"));
+            }
+        }
+    }
+
+    /**
+     * @return the amount of tasks that are currently running
+     */
+    public int getActiveCount() {
+        lock.lock();
+        try {
+            return activeCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the amount of tasks that are waiting for their turn
+     */
+    public int getQueuedCount() {
+        lock.lock();
+        try {
+            return queuedCount();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the amount of tasks that were rejected or dropped
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    /**
+     * @return the amount of tasks that were cancelled at their deadline
+     */
+    public long getExpiredCount() {
+        return expiredCount.get();
+    }
+
+    /**
+     * @return the options of this controller
+     */
+    public AdmissionOptions getOptions() {
+        return options;
+    }
+
+    private <T> CompletableFuture<T> reject(final Task<T> task, final String message) {
+        rejectedCount.incrementAndGet();
+        task.state.set(CANCELLED);
+        task.future.completeExceptionally(new RejectedExecutionException(message));
+        return task.future;
+    }
+
+    private void expire(final Task<?> task) {
+        internalThread.set(Boolean.TRUE);
+        lock.lock();
+        try {
+            if (!task.state.compareAndSet(QUEUED, CANCELLED)) {
+                return;
+            }
+            (task.priority == TaskPriority.INTERACTIVE ? interactiveQueue : backgroundQueue).remove(task);
+            notFull.signal();
+        } finally {
+            lock.unlock();
+        }
+
+        expiredCount.incrementAndGet();
+        task.future.completeExceptionally(new TimeoutException("task was still queued at its deadline"));
+    }
+
+    /**
+     * This method will run the given admitted task on its executor. If the
+     * executor rejects it, the next queued task is admitted in its place,
+     * in a loop rather than recursively, as an executor that was shut down
+     * rejects every queued task.
+     */
+    private void dispatch(final Task<?> task) {
+        Task<?> next = task;
+        while (next != null) {
+            final Task<?> current = next;
+            try {
+                current.executor.execute(() -> {
+                    internalThread.set(Boolean.TRUE);
+                    try {
+                        current.run();
+                    } finally {
+                        internalThread.remove();
+                        release();
+                    }
+                });
+                return;
+            } catch (RejectedExecutionException e) {
+                // e.g. a full bulkhead, or an executor that was shut down
+                current.state.set(CANCELLED);
+                current.future.completeExceptionally(e);
+                next = admitNext();
+            }
+        }
+    }
+
+    /**
+     * This method will admit the next queued task in place of a task that
+     * completed.
+     */
+    private void release() {
+        final Task<?> next = admitNext();
+        if (next != null) {
+            dispatch(next);
+        }
+    }
+
+    /**
+     * @return the next queued task, which takes over the slot of a task that
+     * completed or was rejected, or null if none is queued, in which case
+     * the slot is freed
+     */
+    private Task<?> admitNext() {
+        lock.lock();
+        try {
+            final Task<?> next = poll();
+            if (next == null) {
+                activeCount--;
+            }
+            notFull.signal();
+            return next;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // guarded by the lock
+    private Task<?> poll() {
+        final boolean backgroundTurn = ++admittedCount % BACKGROUND_INTERVAL == 0;
+        final ArrayDeque<Task<?>> first = backgroundTurn ? backgroundQueue : interactiveQueue;
+        final ArrayDeque<Task<?>> second = backgroundTurn ? interactiveQueue : backgroundQueue;
+
+        Task<?> task = first.pollFirst();
+        if (task == null) {
+            task = second.pollFirst();
+        }
+        if (task != null) {
+            // the queued tasks are never cancelled, they are removed from the queue first
+            task.state.set(ADMITTED);
+            task.cancelDeadline();
+        }
+        return task;
+    }
+
+    // guarded by the lock
+    private int queuedCount() {
+        return interactiveQueue.size() + backgroundQueue.size();
+    }
+
+    // guarded by the lock
+    private ScheduledExecutorService deadlineScheduler() {
+        if (deadlineScheduler == null) {
+            final ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+                final Thread thread = Executors.defaultThreadFactory().newThread(runnable);
+                thread.setName("storage-admission");
+                thread.setDaemon(true);
+                return thread;
+            });
+            // most tasks are admitted long before their deadline
+            scheduler.setRemoveOnCancelPolicy(true);
+            deadlineScheduler = scheduler;
+        }
+        return deadlineScheduler;
+    }
+
+    private static final class Task<T> {
+        private final Executor executor;
+        private final TaskPriority priority;
+        private final Supplier<T> supplier;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private final AtomicInteger state = new AtomicInteger(QUEUED);
+
+        // guarded by the lock of the controller
+        private ScheduledFuture<?> deadline;
+
+        private Task(final Executor executor, final TaskPriority priority, final Supplier<T> supplier) {
+            this.executor = executor;
+            this.priority = priority;
+            this.supplier = supplier;
+        }
+
+        private void run() {
+            if (state.get() != ADMITTED) {
+                return;
+            }
+
+            try {
+                future.complete(supplier.get());
+            } catch (Throwable throwable) {
+                // a CompletionException is unwrapped by the future, as with supplyAsync
+                future.completeExceptionally(throwable instanceof CompletionException ?
+                        throwable : new CompletionException(throwable));
+            }
+        }
+
+        private void cancelDeadline() {
+            if (deadline != null) {
+                deadline.cancel(false);
+                deadline = null;
+            }
+        }
+    }
+}
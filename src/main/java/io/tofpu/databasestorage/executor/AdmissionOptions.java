@@ -0,0 +1,80 @@
+package io.tofpu.databasestorage.executor;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The options that are used to configure an {@link AdmissionController}.
+ */
+public class AdmissionOptions {
+    private final int maxConcurrency;
+    private final int queueCapacity;
+    private final AdmissionPolicy policy;
+    private final long deadlineMillis;
+
+    /**
+     * @param maxConcurrency the maximum amount of tasks that may run at once,
+     * usually the amount of threads of the executor
+     * @param queueCapacity the maximum amount of tasks that may wait for their turn
+     * @param policy the policy for tasks that are submitted while the queue is full
+     */
+    public AdmissionOptions(final int maxConcurrency, final int queueCapacity,
+            final AdmissionPolicy policy) {
+        this(maxConcurrency, queueCapacity, policy, 0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param maxConcurrency the maximum amount of tasks that may run at once,
+     * usually the amount of threads of the executor
+     * @param queueCapacity the maximum amount of tasks that may wait for their turn
+     * @param policy the policy for tasks that are submitted while the queue is full
+     * @param deadline the time a task may wait in the queue before it is
+     * cancelled, or 0 to let it wait indefinitely
+     * @param unit the unit of the deadline
+     */
+    public AdmissionOptions(final int maxConcurrency, final int queueCapacity,
+            final AdmissionPolicy policy, final long deadline, final TimeUnit unit) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency must be positive");
+        }
+        if (queueCapacity < 0) {
+            throw new IllegalArgumentException("queueCapacity must not be negative");
+        }
+        if (deadline < 0) {
+            throw new IllegalArgumentException("deadline must not be negative");
+        }
+
+        this.maxConcurrency = maxConcurrency;
+        this.queueCapacity = queueCapacity;
+        this.policy = policy;
+        this.deadlineMillis = unit.toMillis(deadline);
+    }
+
+    /**
+     * @return the maximum amount of tasks that may run at once
+     */
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * @return the maximum amount of tasks that may wait for their turn
+     */
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * @return the policy for tasks that are submitted while the queue is full
+     */
+    public AdmissionPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * @return the time in milliseconds a task may wait in the queue, or 0 if
+     * it may wait indefinitely
+     */
+    public long getDeadlineMillis() {
+        return deadlineMillis;
+    }
+}
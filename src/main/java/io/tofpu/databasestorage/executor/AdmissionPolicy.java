@@ -0,0 +1,23 @@
+package io.tofpu.databasestorage.executor;
+
+/**
+ * Decides what an {@link AdmissionController} does with a task that is
+ * submitted while its queue is full.
+ */
+public enum AdmissionPolicy {
+    /**
+     * The submitting thread waits until the queue has room again.
+     */
+    BLOCK,
+    /**
+     * The task is rejected with a
+     * {@link java.util.concurrent.RejectedExecutionException}.
+     */
+    FAIL_FAST,
+    /**
+     * The oldest queued {@link TaskPriority#INTERACTIVE} task is rejected to
+     * make room, as its caller is the most likely to have given up already.
+     * If no such task is queued, the submitted task is rejected instead.
+     */
+    DROP_OLDEST_READ
+}
@@ -0,0 +1,128 @@
+package io.tofpu.databasestorage.executor;
+
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An {@link Executor} that runs its tasks on a shared executor, but never
+ * more than the configured amount at once. The remaining tasks wait in the
+ * bulkhead's own bounded queue, so that a slow value type can neither
+ * occupy every shared thread nor grow the shared queue.
+ */
+public class Bulkhead implements Executor {
+    private final Executor delegate;
+    private final BulkheadOptions options;
+
+    private final Deque<Runnable> queue = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger queuedCount = new AtomicInteger();
+    private final AtomicInteger activeCount = new AtomicInteger();
+
+    public Bulkhead(final Executor delegate, final BulkheadOptions options) {
+        this.delegate = delegate;
+        this.options = options;
+    }
+
+    /**
+     * @param task the task to be run
+     *
+     * @throws RejectedExecutionException if the queue of this bulkhead is full,
+     * or if the shared executor rejected the task
+     */
+    @Override
+    public void execute(final Runnable task) {
+        if (queuedCount.incrementAndGet() > options.getQueueCapacity() + availableSlots()) {
+            queuedCount.decrementAndGet();
+            throw new RejectedExecutionException("Bulkhead queue is full (" +
+                                                 options.getQueueCapacity() + ")");
+        }
+
+        queue.offer(task);
+        try {
+            drain();
+        } catch (RuntimeException e) {
+            // the task is only rejected if it has not been handed to the shared executor
+            if (queue.removeLastOccurrence(task)) {
+                queuedCount.decrementAndGet();
+                throw e;
+            }
+        }
+    }
+
+    private int availableSlots() {
+        return Math.max(options.getMaxConcurrency() - activeCount.get(), 0);
+    }
+
+    /**
+     * This method will hand the queued tasks to the shared executor while
+     * there are available slots. A task the shared executor rejects is put
+     * back at the head of the queue, where it waits for the next drain.
+     *
+     * @throws RuntimeException if the shared executor rejected a task
+     */
+    private void drain() {
+        while (true) {
+            final int active = activeCount.get();
+            if (active >= options.getMaxConcurrency()) {
+                return;
+            }
+            if (!activeCount.compareAndSet(active, active + 1)) {
+                continue;
+            }
+
+            final Runnable task = queue.poll();
+            if (task == null) {
+                activeCount.decrementAndGet();
+                // a task may have been queued after the poll, but before the decrement
+                if (queue.isEmpty()) {
+                    return;
+                }
+                continue;
+            }
+            queuedCount.decrementAndGet();
+
+            try {
+                delegate.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        activeCount.decrementAndGet();
+                        try {
+                            drain();
+                        } catch (RuntimeException ignored) {
+                            // the rejected task stays queued
+                        }
+                    }
+                });
+            } catch (RuntimeException e) {
+                queue.offerFirst(task);
+                queuedCount.incrementAndGet();
+                activeCount.decrementAndGet();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * @return the amount of tasks that are currently running
+     */
+    public int getActiveCount() {
+        return activeCount.get();
+    }
+
+    /**
+     * @return the amount of tasks that are waiting for their turn
+     */
+    public int getQueuedCount() {
+        return queuedCount.get();
+    }
+
+    /**
+     * @return the options of this bulkhead
+     */
+    public BulkheadOptions getOptions() {
+        return options;
+    }
+}
@@ -0,0 +1,40 @@
+package io.tofpu.databasestorage.executor;
+
+/**
+ * The options that are used to configure a {@link Bulkhead}.
+ */
+public class BulkheadOptions {
+    private final int maxConcurrency;
+    private final int queueCapacity;
+
+    /**
+     * @param maxConcurrency the maximum amount of tasks that may run at once
+     * @param queueCapacity the maximum amount of tasks that may wait for
+     * their turn, further tasks are rejected
+     */
+    public BulkheadOptions(final int maxConcurrency, final int queueCapacity) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency must be positive");
+        }
+        if (queueCapacity < 0) {
+            throw new IllegalArgumentException("queueCapacity must not be negative");
+        }
+
+        this.maxConcurrency = maxConcurrency;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * @return the maximum amount of tasks that may run at once
+     */
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * @return the maximum amount of tasks that may wait for their turn
+     */
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+}
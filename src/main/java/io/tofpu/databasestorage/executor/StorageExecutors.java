@@ -0,0 +1,73 @@
+package io.tofpu.databasestorage.executor;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Factory methods for the executors that can be returned by
+ * {@link io.tofpu.databasestorage.StorageBase#getExecutorService()}.
+ */
+public final class StorageExecutors {
+    private static final Method VIRTUAL_EXECUTOR_FACTORY = findVirtualExecutorFactory();
+
+    private StorageExecutors() {
+    }
+
+    /**
+     * @param threadCount the amount of threads
+     *
+     * @return an executor with a fixed amount of platform threads
+     */
+    public static ExecutorService fixed(final int threadCount) {
+        return Executors.newFixedThreadPool(threadCount, threadFactory("storage-worker"));
+    }
+
+    /**
+     * Creates an executor that starts a new virtual thread for every task, so
+     * that blocking JDBC calls do not occupy a platform thread. On runtimes
+     * older than JDK 21, this falls back to a cached pool of platform threads.
+     * <p>
+     * As the amount of concurrent tasks is no longer bounded by the thread
+     * count, the concurrency should be bounded by the connection pool or by
+     * a {@link Bulkhead} instead.
+     *
+     * @return an executor that runs every task on its own thread
+     */
+    public static ExecutorService virtualThreadPerTask() {
+        if (VIRTUAL_EXECUTOR_FACTORY != null) {
+            try {
+                return (ExecutorService) VIRTUAL_EXECUTOR_FACTORY.invoke(null);
+            } catch (ReflectiveOperationException ignored) {
+                // fall back to platform threads
+            }
+        }
+        return Executors.newCachedThreadPool(threadFactory("storage-worker"));
+    }
+
+    /**
+     * @return true if the runtime supports virtual threads, false otherwise
+     */
+    public static boolean isVirtualThreadSupported() {
+        return VIRTUAL_EXECUTOR_FACTORY != null;
+    }
+
+    private static ThreadFactory threadFactory(final String prefix) {
+        final AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            final Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static Method findVirtualExecutorFactory() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package io.tofpu.databasestorage.executor;
+
+/**
+ * The priority of a task within an {@link AdmissionController}.
+ */
+public enum TaskPriority {
+    /**
+     * Tasks that a caller is waiting for, e.g. retrievals, which overtake
+     * the background tasks in the queue.
+     */
+    INTERACTIVE,
+    /**
+     * Tasks that no caller is waiting for to continue, e.g. writes.
+     */
+    BACKGROUND
+}
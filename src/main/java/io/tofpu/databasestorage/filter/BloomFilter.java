@@ -0,0 +1,134 @@
+package io.tofpu.databasestorage.filter;
+
+import io.tofpu.databasestorage.KeyHash;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A thread-safe Bloom filter over string keys. Keys can only be added, a
+ * key that was never added is reported as absent with the configured
+ * probability, while a key that was added is always reported as present.
+ * <p>
+ * The bit positions are derived from a single 64-bit hash of the key by
+ * double hashing, and the bits are set with a compare-and-set, so the filter
+ * can be read and written concurrently without locking.
+ */
+public final class BloomFilter {
+    private static final int FORMAT_VERSION = 1;
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+
+    /**
+     * @param expectedInsertions the amount of keys the filter is sized for
+     * @param falsePositiveProbability the probability of an absent key being
+     * reported as present, once the expected amount of keys was inserted
+     */
+    public BloomFilter(final long expectedInsertions, final double falsePositiveProbability) {
+        final double ln2 = Math.log(2);
+        final long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveProbability) / (ln2 * ln2));
+        final int words = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (bits + 63) >>> 6));
+
+        this.words = new AtomicLongArray(words);
+        this.bitCount = (long) words << 6;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * ln2));
+    }
+
+    /**
+     * @param key the key to be added
+     */
+    public void put(final String key) {
+        final long hash = KeyHash.hash(key);
+        final long hash1 = (int) hash;
+        final long hash2 = hash >>> 32;
+
+        for (int i = 1; i <= hashCount; i++) {
+            final long bit = ((hash1 + i * hash2) & Long.MAX_VALUE) % bitCount;
+            final int index = (int) (bit >>> 6);
+            final long mask = 1L << bit;
+
+            long word = words.get(index);
+            while ((word & mask) == 0 && !words.compareAndSet(index, word, word | mask)) {
+                word = words.get(index);
+            }
+        }
+    }
+
+    /**
+     * @param key the key to look for
+     *
+     * @return false if the key was never added, true if it might have been
+     */
+    public boolean mightContain(final String key) {
+        final long hash = KeyHash.hash(key);
+        final long hash1 = (int) hash;
+        final long hash2 = hash >>> 32;
+
+        for (int i = 1; i <= hashCount; i++) {
+            final long bit = ((hash1 + i * hash2) & Long.MAX_VALUE) % bitCount;
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the amount of bits of the filter
+     */
+    public long getBitCount() {
+        return bitCount;
+    }
+
+    /**
+     * @return the amount of bits that are set per key
+     */
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    /**
+     * @param output the output to write the bits of this filter to
+     *
+     * @throws IOException if the bits could not be written
+     */
+    public void writeTo(final DataOutput output) throws IOException {
+        output.writeInt(FORMAT_VERSION);
+        output.writeLong(bitCount);
+        output.writeInt(hashCount);
+        for (int i = 0; i < words.length(); i++) {
+            output.writeLong(words.get(i));
+        }
+    }
+
+    /**
+     * This method will add the bits that were written by
+     * {@link #writeTo(DataOutput)} to this filter, the keys that were added
+     * to this filter in the meantime are kept.
+     *
+     * @param input the input to read the bits from
+     *
+     * @return true if the bits were read, false if they were written by a
+     * filter of a different size, in which case this filter is unchanged
+     * @throws IOException if the bits could not be read
+     */
+    public boolean readFrom(final DataInput input) throws IOException {
+        if (input.readInt() != FORMAT_VERSION || input.readLong() != bitCount ||
+            input.readInt() != hashCount) {
+            return false;
+        }
+
+        final long[] read = new long[words.length()];
+        for (int i = 0; i < read.length; i++) {
+            read[i] = input.readLong();
+        }
+        for (int i = 0; i < read.length; i++) {
+            words.getAndAccumulate(i, read[i], (current, bits) -> current | bits);
+        }
+        return true;
+    }
+}
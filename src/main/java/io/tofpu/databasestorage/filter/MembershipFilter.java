@@ -0,0 +1,230 @@
+package io.tofpu.databasestorage.filter;
+
+import io.tofpu.databasestorage.EntryKey;
+import io.tofpu.databasestorage.cache.SegmentedLruCache;
+import io.tofpu.databasestorage.cache.StorageCache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tells whether a key of a value type is definitely absent from the
+ * database, so that its retrieval can be answered without a query.
+ * <p>
+ * Every saved key is added to a {@link BloomFilter}, which answers for the
+ * keys that were never stored. The keys that were stored and deleted since,
+ * and the false positives of the Bloom filter, are remembered in a short-lived
+ * negative cache once a retrieval did not find them. Every write to a key
+ * advances its stamp, and a retrieval only records the key as absent if the
+ * stamp did not change while it was running, so a concurrent save is never
+ * hidden by the negative cache.
+ * <p>
+ * Until the filter is {@link #isReady() ready}, i.e. built from a key scan or
+ * loaded from its file, every key is reported as possibly present.
+ */
+public final class MembershipFilter {
+    private static final int STAMP_COUNT = 1024;
+
+    private final Class<?> valueType;
+    private final BloomFilter bloomFilter;
+    private final StorageCache negativeCache;
+    private final AtomicLongArray stamps = new AtomicLongArray(STAMP_COUNT);
+    private final Path file;
+
+    private final LongAdder filteredCount = new LongAdder();
+    private final LongAdder negativeHitCount = new LongAdder();
+
+    private volatile boolean ready;
+
+    /**
+     * @param valueType the value type of the keys
+     * @param options the options of the filter
+     */
+    public MembershipFilter(final Class<?> valueType, final MembershipFilterOptions options) {
+        this.valueType = valueType;
+        this.bloomFilter = new BloomFilter(options.getExpectedInsertions(),
+                options.getFalsePositiveProbability());
+        this.negativeCache = options.getNegativeCacheSize() == 0 ? null :
+                new SegmentedLruCache(options.getNegativeCacheSize(), options.getNegativeCacheTtlNanos(),
+                        TimeUnit.NANOSECONDS);
+        this.file = options.getFile();
+    }
+
+    /**
+     * @param key the serialized key to look for
+     *
+     * @return false if the key is definitely absent, true if it might be present
+     */
+    public boolean mightContain(final String key) {
+        if (!ready) {
+            return true;
+        }
+
+        if (!bloomFilter.mightContain(key)) {
+            filteredCount.increment();
+            return false;
+        }
+        if (negativeCache != null && negativeCache.getIfPresent(new EntryKey(valueType, key)) != null) {
+            negativeHitCount.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * This method shall be called once the given key is saved, before the
+     * save is submitted.
+     *
+     * @param key the serialized key that is saved
+     */
+    public void add(final String key) {
+        bloomFilter.put(key);
+        onWrite(key);
+    }
+
+    /**
+     * This method shall be called once the given key is deleted, before the
+     * delete is submitted. The key stays in the Bloom filter, and is only
+     * reported as absent once a retrieval did not find it.
+     *
+     * @param key the serialized key that is deleted
+     */
+    public void remove(final String key) {
+        onWrite(key);
+    }
+
+    /**
+     * @param key the serialized key that is about to be retrieved
+     *
+     * @return the stamp to be passed to {@link #recordAbsent(String, long)}
+     */
+    public long stamp(final String key) {
+        return stamps.get(stampIndex(key));
+    }
+
+    /**
+     * This method will remember the given key as absent, unless it was
+     * written since the given stamp was taken.
+     *
+     * @param key the serialized key that was not found
+     * @param stamp the stamp that was taken before the key was retrieved
+     */
+    public void recordAbsent(final String key, final long stamp) {
+        if (negativeCache == null || stamps.get(stampIndex(key)) != stamp) {
+            return;
+        }
+
+        final EntryKey entryKey = new EntryKey(valueType, key);
+        negativeCache.put(entryKey, Boolean.TRUE);
+        // a write that advanced the stamp in the meantime might have missed the entry
+        if (stamps.get(stampIndex(key)) != stamp) {
+            negativeCache.invalidate(entryKey);
+        }
+    }
+
+    /**
+     * This method shall be called once every stored key was added, from then
+     * on keys are reported as absent.
+     */
+    public void markReady() {
+        ready = true;
+    }
+
+    /**
+     * @return true if every stored key was added to the filter
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * This method will load the filter from its file, and delete the file, so
+     * that a filter that missed the writes after a crash is never loaded.
+     *
+     * @return true if the filter was loaded and is ready, false if there was
+     * no file or it was written by a filter of a different size
+     * @throws IOException if the file could not be read
+     */
+    public boolean load() throws IOException {
+        if (file == null) {
+            return false;
+        }
+
+        final boolean loaded;
+        try (final DataInputStream input = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file)))) {
+            loaded = bloomFilter.readFrom(input);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+
+        Files.deleteIfExists(file);
+        if (loaded) {
+            markReady();
+        }
+        return loaded;
+    }
+
+    /**
+     * This method will write the filter to its file, if it has one and is
+     * ready. It shall only be called once no more writes are submitted.
+     *
+     * @throws IOException if the file could not be written
+     */
+    public void persist() throws IOException {
+        if (file == null || !ready) {
+            return;
+        }
+
+        final Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (final DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+            bloomFilter.writeTo(output);
+        }
+        Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return the amount of lookups that were answered by the Bloom filter
+     */
+    public long getFilteredCount() {
+        return filteredCount.sum();
+    }
+
+    /**
+     * @return the amount of lookups that were answered by the negative cache
+     */
+    public long getNegativeHitCount() {
+        return negativeHitCount.sum();
+    }
+
+    /**
+     * @return the Bloom filter of the stored keys
+     */
+    public BloomFilter getBloomFilter() {
+        return bloomFilter;
+    }
+
+    private void onWrite(final String key) {
+        stamps.incrementAndGet(stampIndex(key));
+        if (negativeCache != null) {
+            negativeCache.invalidate(new EntryKey(valueType, key));
+        }
+    }
+
+    private static int stampIndex(final String key) {
+        final int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (STAMP_COUNT - 1);
+    }
+}
@@ -0,0 +1,101 @@
+package io.tofpu.databasestorage.filter;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The options that are used to configure the {@link MembershipFilter} of
+ * a value type.
+ */
+public class MembershipFilterOptions {
+    private static final int DEFAULT_NEGATIVE_CACHE_SIZE = 10_000;
+    private static final long DEFAULT_NEGATIVE_CACHE_TTL_SECONDS = 30;
+
+    private final long expectedInsertions;
+    private final double falsePositiveProbability;
+    private final int negativeCacheSize;
+    private final long negativeCacheTtlNanos;
+    private final Path file;
+
+    /**
+     * @param expectedInsertions the amount of keys the filter is sized for
+     * @param falsePositiveProbability the probability of an absent key being
+     * reported as present, once the expected amount of keys was inserted
+     */
+    public MembershipFilterOptions(final long expectedInsertions,
+            final double falsePositiveProbability) {
+        this(expectedInsertions, falsePositiveProbability, DEFAULT_NEGATIVE_CACHE_SIZE,
+                DEFAULT_NEGATIVE_CACHE_TTL_SECONDS, TimeUnit.SECONDS, null);
+    }
+
+    /**
+     * @param expectedInsertions the amount of keys the filter is sized for
+     * @param falsePositiveProbability the probability of an absent key being
+     * reported as present, once the expected amount of keys was inserted
+     * @param negativeCacheSize the maximum amount of keys that are remembered
+     * as absent after the filter reported them as present, or 0 to disable
+     * the negative cache
+     * @param negativeCacheTtl the time an absent key is remembered for
+     * @param unit the unit of the time
+     * @param file the file the filter is persisted to on shutdown and loaded
+     * from on startup, or null to always build it from a key scan
+     */
+    public MembershipFilterOptions(final long expectedInsertions,
+            final double falsePositiveProbability, final int negativeCacheSize,
+            final long negativeCacheTtl, final TimeUnit unit, final Path file) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("expectedInsertions must be positive");
+        }
+        if (falsePositiveProbability <= 0 || falsePositiveProbability >= 1) {
+            throw new IllegalArgumentException("falsePositiveProbability must be between 0 and 1");
+        }
+        if (negativeCacheSize < 0) {
+            throw new IllegalArgumentException("negativeCacheSize must not be negative");
+        }
+        if (negativeCacheSize > 0 && negativeCacheTtl <= 0) {
+            throw new IllegalArgumentException("negativeCacheTtl must be positive");
+        }
+
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveProbability = falsePositiveProbability;
+        this.negativeCacheSize = negativeCacheSize;
+        this.negativeCacheTtlNanos = unit.toNanos(negativeCacheTtl);
+        this.file = file;
+    }
+
+    /**
+     * @return the amount of keys the filter is sized for
+     */
+    public long getExpectedInsertions() {
+        return expectedInsertions;
+    }
+
+    /**
+     * @return the probability of an absent key being reported as present
+     */
+    public double getFalsePositiveProbability() {
+        return falsePositiveProbability;
+    }
+
+    /**
+     * @return the maximum amount of keys that are remembered as absent, or 0
+     * if the negative cache is disabled
+     */
+    public int getNegativeCacheSize() {
+        return negativeCacheSize;
+    }
+
+    /**
+     * @return the time in nanoseconds an absent key is remembered for
+     */
+    public long getNegativeCacheTtlNanos() {
+        return negativeCacheTtlNanos;
+    }
+
+    /**
+     * @return the file the filter is persisted to, or null if it is not persisted
+     */
+    public Path getFile() {
+        return file;
+    }
+}
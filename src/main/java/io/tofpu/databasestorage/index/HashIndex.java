@@ -0,0 +1,48 @@
+package io.tofpu.databasestorage.index;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@link SecondaryIndex} that groups the keys by their indexed value in a
+ * {@link ConcurrentHashMap}, a group is removed with its last key.
+ */
+final class HashIndex extends SecondaryIndex {
+    private final Map<Object, Set<String>> groups = new ConcurrentHashMap<>();
+
+    HashIndex(final StorageIndex<?> definition) {
+        super(definition);
+    }
+
+    @Override
+    public List<String> find(final Object indexedValue) {
+        final Set<String> keys = groups.get(indexedValue);
+        if (keys == null) {
+            return Collections.emptyList();
+        }
+        return new ArrayList<>(keys);
+    }
+
+    @Override
+    void add(final Object indexedValue, final String key) {
+        // the group is only changed while its mapping is locked, so that a
+        // key is never added to a group that is being removed
+        groups.compute(indexedValue, (ignored, keys) -> {
+            final Set<String> group = keys == null ? ConcurrentHashMap.newKeySet() : keys;
+            group.add(key);
+            return group;
+        });
+    }
+
+    @Override
+    void remove(final Object indexedValue, final String key) {
+        groups.computeIfPresent(indexedValue, (ignored, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+}
@@ -0,0 +1,18 @@
+package io.tofpu.databasestorage.index;
+
+/**
+ * Decides the structure a {@link SecondaryIndex} keeps its keys in.
+ */
+public enum IndexType {
+    /**
+     * The keys are grouped by their indexed value in a hash map, which only
+     * supports lookups of a single indexed value.
+     */
+    HASH,
+    /**
+     * The keys are kept in the order of their indexed value in a skip list,
+     * which also supports range lookups. The indexed values have to be
+     * {@link Comparable}.
+     */
+    SORTED
+}
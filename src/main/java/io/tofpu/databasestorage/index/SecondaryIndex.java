@@ -0,0 +1,162 @@
+package io.tofpu.databasestorage.index;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps the indexed values of a {@link StorageIndex} to the serialized keys
+ * of the entries that have them. The index is maintained by the
+ * {@link io.tofpu.databasestorage.StorageBase} whenever an entry is written,
+ * and whenever a value is retrieved that is not indexed yet, so it covers
+ * every entry that was written or retrieved since startup, and every entry
+ * that was preloaded into the
+ * {@link io.tofpu.databasestorage.warmup.ResidentStore}. Only the keys are
+ * held, the values are looked up by their key.
+ * <p>
+ * The indexed value of every key is recorded as well, so that a write moves
+ * its key out of the group of the previous value. The writes of the same key
+ * are applied one at a time, while a retrieved value never replaces the
+ * indexed value of a key, as a write may have overtaken the retrieval.
+ */
+public abstract class SecondaryIndex {
+    private final StorageIndex<Object> definition;
+    private final Map<String, Object> indexedValues = new ConcurrentHashMap<>();
+
+    // the index only extracts from values of the type it was declared for
+    @SuppressWarnings("unchecked")
+    SecondaryIndex(final StorageIndex<?> definition) {
+        this.definition = (StorageIndex<Object>) definition;
+    }
+
+    /**
+     * @param definition the declaration of the index
+     *
+     * @return the index of the structure that is declared
+     */
+    public static SecondaryIndex create(final StorageIndex<?> definition) {
+        switch (definition.getType()) {
+            case HASH:
+                return new HashIndex(definition);
+            case SORTED:
+                return new SortedIndex(definition);
+            default:
+                throw new IllegalArgumentException("unknown index type: " + definition.getType());
+        }
+    }
+
+    /**
+     * This method will index the value that was written to the given key.
+     *
+     * @param key the serialized key of the entry
+     * @param value the written value, or null if the entry was deleted
+     */
+    public void update(final String key, final Object value) {
+        final Object indexedValue = value == null ? null : definition.extract(value);
+        indexedValues.compute(key, (ignored, previous) -> {
+            if (Objects.equals(previous, indexedValue)) {
+                return previous;
+            }
+
+            if (previous != null) {
+                remove(previous, key);
+            }
+            if (indexedValue != null) {
+                add(indexedValue, key);
+            }
+            return indexedValue;
+        });
+    }
+
+    /**
+     * This method will index the value that was retrieved from the given key,
+     * unless the key is already indexed.
+     *
+     * @param key the serialized key of the entry
+     * @param value the retrieved value
+     */
+    public void load(final String key, final Object value) {
+        final Object indexedValue = definition.extract(value);
+        if (indexedValue == null) {
+            return;
+        }
+
+        indexedValues.computeIfAbsent(key, ignored -> {
+            add(indexedValue, key);
+            return indexedValue;
+        });
+    }
+
+    /**
+     * @param value the value to be checked
+     * @param indexedValue the indexed value that was looked up
+     *
+     * @return true if the value has the given indexed value
+     */
+    public boolean matches(final Object value, final Object indexedValue) {
+        return indexedValue.equals(definition.extract(value));
+    }
+
+    /**
+     * @param value the value to be checked
+     * @param fromValue the lowest indexed value, or null
+     * @param toValue the indexed value to stop at, which is excluded, or null
+     *
+     * @return true if the indexed value of the value is within the given range
+     * @throws UnsupportedOperationException if this index is not sorted
+     */
+    public boolean matchesRange(final Object value, final Object fromValue, final Object toValue) {
+        throw new UnsupportedOperationException("index " + getName() + " is not sorted");
+    }
+
+    /**
+     * @param indexedValue the indexed value to look up
+     *
+     * @return a copy of the keys of the entries that have the indexed value
+     */
+    public abstract List<String> find(final Object indexedValue);
+
+    /**
+     * @param fromValue the lowest indexed value to look up, or null to start
+     * at the lowest one
+     * @param toValue the indexed value to stop at, which is not looked up
+     * itself, or null to stop after the highest one
+     *
+     * @return a copy of the keys of the entries whose indexed value is within
+     * the range, in the order of their indexed value
+     * @throws UnsupportedOperationException if this index is not sorted
+     */
+    public List<String> findRange(final Object fromValue, final Object toValue) {
+        throw new UnsupportedOperationException("index " + getName() + " is not sorted");
+    }
+
+    abstract void add(final Object indexedValue, final String key);
+
+    abstract void remove(final Object indexedValue, final String key);
+
+    Object extract(final Object value) {
+        return definition.extract(value);
+    }
+
+    /**
+     * @return the amount of indexed keys
+     */
+    public int size() {
+        return indexedValues.size();
+    }
+
+    /**
+     * @return the name of the index
+     */
+    public String getName() {
+        return definition.getName();
+    }
+
+    /**
+     * @return the structure of the index
+     */
+    public IndexType getType() {
+        return definition.getType();
+    }
+}
@@ -0,0 +1,108 @@
+package io.tofpu.databasestorage.index;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * A {@link SecondaryIndex} that keeps a pair of the indexed value and the key
+ * of every entry in a {@link ConcurrentSkipListSet}, ordered by the indexed
+ * value and then by the key, so that a lookup is a range of the set, and
+ * adding or removing a key never touches the pairs of other keys.
+ */
+final class SortedIndex extends SecondaryIndex {
+    private final NavigableSet<Pair> pairs = new ConcurrentSkipListSet<>();
+
+    SortedIndex(final StorageIndex<?> definition) {
+        super(definition);
+    }
+
+    @Override
+    public List<String> find(final Object indexedValue) {
+        return keys(pairs.subSet(Pair.lowest(indexedValue), true, Pair.highest(indexedValue), true));
+    }
+
+    @Override
+    public List<String> findRange(final Object fromValue, final Object toValue) {
+        final NavigableSet<Pair> range;
+        if (fromValue == null && toValue == null) {
+            range = pairs;
+        } else if (fromValue == null) {
+            range = pairs.headSet(Pair.lowest(toValue), false);
+        } else if (toValue == null) {
+            range = pairs.tailSet(Pair.lowest(fromValue), true);
+        } else {
+            range = pairs.subSet(Pair.lowest(fromValue), true, Pair.lowest(toValue), false);
+        }
+        return keys(range);
+    }
+
+    @Override
+    public boolean matchesRange(final Object value, final Object fromValue, final Object toValue) {
+        @SuppressWarnings("unchecked")
+        final Comparable<Object> indexedValue = (Comparable<Object>) extract(value);
+        if (indexedValue == null) {
+            return false;
+        }
+        return (fromValue == null || indexedValue.compareTo(fromValue) >= 0) &&
+               (toValue == null || indexedValue.compareTo(toValue) < 0);
+    }
+
+    @Override
+    void add(final Object indexedValue, final String key) {
+        pairs.add(new Pair(indexedValue, key, 0));
+    }
+
+    @Override
+    void remove(final Object indexedValue, final String key) {
+        pairs.remove(new Pair(indexedValue, key, 0));
+    }
+
+    private static List<String> keys(final NavigableSet<Pair> range) {
+        final List<String> keys = new ArrayList<>();
+        for (final Pair pair : range) {
+            keys.add(pair.key);
+        }
+        return keys;
+    }
+
+    /**
+     * An indexed value and a key, or a bound that is ordered before or after
+     * every key of its indexed value.
+     */
+    private static final class Pair implements Comparable<Pair> {
+        private final Comparable<Object> indexedValue;
+        private final String key;
+        // -1 for the lowest bound, 1 for the highest bound, 0 for a key
+        private final int bound;
+
+        // the values of a sorted index are comparable to each other
+        @SuppressWarnings("unchecked")
+        private Pair(final Object indexedValue, final String key, final int bound) {
+            this.indexedValue = (Comparable<Object>) indexedValue;
+            this.key = key;
+            this.bound = bound;
+        }
+
+        private static Pair lowest(final Object indexedValue) {
+            return new Pair(indexedValue, null, -1);
+        }
+
+        private static Pair highest(final Object indexedValue) {
+            return new Pair(indexedValue, null, 1);
+        }
+
+        @Override
+        public int compareTo(final Pair other) {
+            final int result = indexedValue.compareTo(other.indexedValue);
+            if (result != 0) {
+                return result;
+            }
+            if (bound != 0 || other.bound != 0) {
+                return Integer.compare(bound, other.bound);
+            }
+            return key.compareTo(other.key);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package io.tofpu.databasestorage.index;
+
+import java.util.function.Function;
+
+/**
+ * Declares a secondary index of a value type, which is returned by
+ * {@link io.tofpu.databasestorage.resolver.value.StorageValueResolver#getIndexes()}.
+ *
+ * @param <V> the value type
+ */
+public final class StorageIndex<V> {
+    private final String name;
+    private final IndexType type;
+    private final Function<? super V, ?> extractor;
+
+    /**
+     * @param name the name the index is looked up by, unique per value type
+     * @param type the structure of the index
+     * @param extractor the function that returns the indexed value of a value,
+     * or null if the value shall not be indexed. The indexed values have to
+     * implement {@code equals} and {@code hashCode}, and be immutable
+     */
+    public StorageIndex(final String name, final IndexType type, final Function<? super V, ?> extractor) {
+        if (name == null) {
+            throw new IllegalArgumentException("name must not be null");
+        }
+        if (type == null) {
+            throw new IllegalArgumentException("type must not be null");
+        }
+        if (extractor == null) {
+            throw new IllegalArgumentException("extractor must not be null");
+        }
+
+        this.name = name;
+        this.type = type;
+        this.extractor = extractor;
+    }
+
+    /**
+     * @param value the value to be indexed
+     *
+     * @return the indexed value of the value, or null if it is not indexed
+     */
+    public Object extract(final V value) {
+        return extractor.apply(value);
+    }
+
+    /**
+     * @return the name of the index
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the structure of the index
+     */
+    public IndexType getType() {
+        return type;
+    }
+}
@@ -0,0 +1,23 @@
+package io.tofpu.databasestorage.journal;
+
+/**
+ * Controls when the {@link StorageJournal} forces its appended records to
+ * the disk.
+ */
+public enum FsyncPolicy {
+    /**
+     * Every record is forced to the disk before it is acknowledged, this is
+     * the slowest but safest policy.
+     */
+    ALWAYS,
+    /**
+     * The records are forced to the disk periodically, a crash of the
+     * machine may lose the records of the last interval.
+     */
+    INTERVAL,
+    /**
+     * The records are never forced explicitly, and are written to the disk
+     * whenever the operating system decides to.
+     */
+    NEVER
+}
@@ -0,0 +1,65 @@
+package io.tofpu.databasestorage.journal;
+
+import io.tofpu.databasestorage.codec.CodecInput;
+import io.tofpu.databasestorage.codec.StorageValueCodec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The latest save or delete of an entry, as it was recovered from the
+ * {@link StorageJournal} on startup, or read from its dead-letter file.
+ */
+public final class JournalEntry {
+    private final long sequence;
+    private final String valueType;
+    private final String key;
+    private final ByteBuffer value;
+
+    JournalEntry(final long sequence, final String valueType, final String key, final ByteBuffer value) {
+        this.sequence = sequence;
+        this.valueType = valueType;
+        this.key = key;
+        this.value = value;
+    }
+
+    /**
+     * @return the sequence number of the record the entry was recovered from
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * @return the name of the value type of the entry
+     */
+    public String getValueType() {
+        return valueType;
+    }
+
+    /**
+     * @return the serialized key of the entry
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * @return true if the entry was deleted, false otherwise
+     */
+    public boolean isDelete() {
+        return value == null;
+    }
+
+    /**
+     * @param codec the codec the value was encoded with
+     * @param <V> the type of the value
+     *
+     * @return the decoded value, or null if the entry was deleted
+     */
+    public <V> V decode(final StorageValueCodec<V> codec) {
+        if (value == null) {
+            return null;
+        }
+        return codec.decode(new CodecInput(value.duplicate()));
+    }
+}
@@ -0,0 +1,76 @@
+package io.tofpu.databasestorage.journal;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The options that are used to configure the {@link StorageJournal} of
+ * the {@link io.tofpu.databasestorage.StorageBase}.
+ */
+public class JournalOptions {
+    private static final long DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+
+    private final Path directory;
+    private final long segmentSize;
+    private final FsyncPolicy fsyncPolicy;
+    private final long fsyncIntervalMillis;
+
+    /**
+     * @param directory the directory the journal segments are stored in
+     * @param fsyncPolicy the policy of forcing the records to the disk
+     */
+    public JournalOptions(final Path directory, final FsyncPolicy fsyncPolicy) {
+        this(directory, DEFAULT_SEGMENT_SIZE, fsyncPolicy, 1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * @param directory the directory the journal segments are stored in
+     * @param segmentSize the size in bytes after which a new segment is
+     * started, a segment is deleted once all of its records were committed
+     * @param fsyncPolicy the policy of forcing the records to the disk
+     * @param fsyncInterval the interval of {@link FsyncPolicy#INTERVAL}
+     * @param unit the unit of the interval
+     */
+    public JournalOptions(final Path directory, final long segmentSize,
+            final FsyncPolicy fsyncPolicy, final long fsyncInterval, final TimeUnit unit) {
+        if (segmentSize <= 0) {
+            throw new IllegalArgumentException("segmentSize must be positive");
+        }
+        if (fsyncPolicy == FsyncPolicy.INTERVAL && fsyncInterval <= 0) {
+            throw new IllegalArgumentException("fsyncInterval must be positive");
+        }
+
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncIntervalMillis = unit.toMillis(fsyncInterval);
+    }
+
+    /**
+     * @return the directory the journal segments are stored in
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @return the size in bytes after which a new segment is started
+     */
+    public long getSegmentSize() {
+        return segmentSize;
+    }
+
+    /**
+     * @return the policy of forcing the records to the disk
+     */
+    public FsyncPolicy getFsyncPolicy() {
+        return fsyncPolicy;
+    }
+
+    /**
+     * @return the interval of {@link FsyncPolicy#INTERVAL} in milliseconds
+     */
+    public long getFsyncIntervalMillis() {
+        return fsyncIntervalMillis;
+    }
+}
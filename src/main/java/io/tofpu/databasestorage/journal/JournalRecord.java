@@ -0,0 +1,52 @@
+package io.tofpu.databasestorage.journal;
+
+import io.tofpu.databasestorage.EntryKey;
+
+/**
+ * A save or delete that was appended to the {@link StorageJournal}, and
+ * that has to be passed to {@link StorageJournal#checkpoint(JournalRecord)}
+ * once it was committed to the database.
+ */
+public final class JournalRecord {
+    private final EntryKey entryKey;
+    private final Object value;
+    private final long sequence;
+    final StorageJournal.Segment segment;
+
+    JournalRecord(final EntryKey entryKey, final Object value, final long sequence,
+            final StorageJournal.Segment segment) {
+        this.entryKey = entryKey;
+        this.value = value;
+        this.sequence = sequence;
+        this.segment = segment;
+    }
+
+    /**
+     * @return the entry that was written
+     */
+    public EntryKey getEntryKey() {
+        return entryKey;
+    }
+
+    /**
+     * @return the saved value, or null if the entry was deleted
+     */
+    public Object getValue() {
+        return value;
+    }
+
+    /**
+     * @return the sequence number of the record, later records of the
+     * journal have a higher sequence number
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * @return true if the entry was deleted, false otherwise
+     */
+    public boolean isDelete() {
+        return value == null;
+    }
+}
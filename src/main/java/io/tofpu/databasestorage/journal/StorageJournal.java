@@ -0,0 +1,470 @@
+package io.tofpu.databasestorage.journal;
+
+import io.tofpu.databasestorage.EntryKey;
+import io.tofpu.databasestorage.codec.CodecInput;
+import io.tofpu.databasestorage.codec.CodecOutput;
+import io.tofpu.databasestorage.codec.StorageValueCodec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only write-ahead journal. Every save and delete is appended to
+ * the active segment file before it is acknowledged, and checkpointed once
+ * it was committed to the database. A segment is deleted as soon as it is
+ * no longer active, all of its records were checkpointed and every older
+ * segment was deleted, so only the records that may not have reached the
+ * database survive a crash, along with every record that was appended
+ * after them, and are recovered on the next startup via {@link #recover()}.
+ * <p>
+ * Each record is stored as its length and its CRC32 checksum followed by
+ * the operation, the sequence number, the value type, the key and the
+ * encoded value, so that a record that was torn by a crash is detected and
+ * skipped, and a record that was superseded by a later one is never
+ * recovered. Records that could not be committed are moved to the
+ * dead-letter file via {@link #deadLetter(JournalRecord, StorageValueCodec)}
+ * instead of being kept in their segment.
+ */
+public class StorageJournal implements AutoCloseable {
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String DEAD_LETTER_FILE = "dead-letters.log";
+    private static final int HEADER_SIZE = 8;
+
+    private static final byte SAVE = 1;
+    private static final byte DELETE = 2;
+
+    private final JournalOptions options;
+    private final List<Segment> recoverableSegments;
+    private final Map<String, JournalEntry> recoveredEntries = new HashMap<>();
+    // every segment that was not deleted yet, ordered by its id
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    private final ScheduledExecutorService scheduler;
+
+    private final Object lock = new Object();
+    private final CodecOutput body = new CodecOutput();
+    private final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+    private final CRC32 checksum = new CRC32();
+
+    private Segment activeSegment;
+    private FileChannel deadLetterChannel;
+    private long nextSequence;
+    private boolean dirty;
+    private boolean closed;
+
+    public StorageJournal(final JournalOptions options) throws IOException {
+        this.options = options;
+        Files.createDirectories(options.getDirectory());
+
+        this.recoverableSegments = listSegments();
+        for (final Segment segment : recoverableSegments) {
+            // the leftover segments are kept until the recovery completed
+            segment.outstanding.incrementAndGet();
+            segments.add(segment);
+            readSegment(segment.path, entry -> {
+                recoveredEntries.merge(entry.getValueType() + '\0' + entry.getKey(), entry,
+                        (previous, current) -> current.getSequence() > previous.getSequence() ? current : previous);
+                nextSequence = Math.max(nextSequence, entry.getSequence() + 1);
+            });
+        }
+
+        final long nextId = recoverableSegments.isEmpty() ? 0 :
+                recoverableSegments.get(recoverableSegments.size() - 1).id + 1;
+        this.activeSegment = openSegment(nextId);
+        segments.add(activeSegment);
+
+        if (options.getFsyncPolicy() == FsyncPolicy.INTERVAL) {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "storage-journal");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+            final long interval = options.getFsyncIntervalMillis();
+            scheduler.scheduleWithFixedDelay(this::forceQuietly, interval, interval,
+                    TimeUnit.MILLISECONDS);
+        } else {
+            this.scheduler = null;
+        }
+    }
+
+    /**
+     * Appends a save or a delete of the given entry to the active segment.
+     * With {@link FsyncPolicy#ALWAYS}, the record is forced to the disk before
+     * this method returns.
+     *
+     * @param entryKey the entry to be written
+     * @param codec the codec to encode the value with, only used for saves
+     * @param value the value to be saved, or null to delete the entry
+     * @param <V> the type of the value
+     *
+     * @return the appended record
+     * @throws IOException if the record could not be appended
+     */
+    public <V> JournalRecord append(final EntryKey entryKey, final StorageValueCodec<V> codec,
+            final V value) throws IOException {
+        synchronized (lock) {
+            if (closed) {
+                throw new ClosedChannelException();
+            }
+
+            final long sequence = nextSequence;
+            final ByteBuffer bodyBuffer = encode(sequence, entryKey, codec, value);
+
+            if (activeSegment.size >= options.getSegmentSize()) {
+                roll();
+            }
+
+            final Segment segment = activeSegment;
+            final FileChannel channel = segment.channel;
+            segment.size += write(channel, bodyBuffer);
+            nextSequence++;
+
+            if (options.getFsyncPolicy() == FsyncPolicy.ALWAYS) {
+                channel.force(false);
+            } else {
+                dirty = true;
+            }
+
+            segment.outstanding.incrementAndGet();
+            return new JournalRecord(entryKey, value, sequence, segment);
+        }
+    }
+
+    /**
+     * Marks the given record as committed to the database, it will no longer
+     * be recovered once its segment is deleted.
+     *
+     * @param record the committed record
+     */
+    public void checkpoint(final JournalRecord record) {
+        if (record.segment.outstanding.decrementAndGet() == 0) {
+            deleteCompletedSegments();
+        }
+    }
+
+    /**
+     * Moves the given record, that could not be committed to the database,
+     * to the dead-letter file of the journal, which is forced to the disk,
+     * and then checkpoints it, so that it no longer keeps its segment alive.
+     * The dead-letter file is never replayed, its records can be read via
+     * {@link #readDeadLetters()}.
+     *
+     * @param record the record that could not be committed
+     * @param codec the codec to encode the value with, only used for saves
+     * @param <V> the type of the value
+     *
+     * @throws IOException if the record could not be moved, in which case it
+     * stays in its segment
+     */
+    public <V> void deadLetter(final JournalRecord record, final StorageValueCodec<V> codec)
+            throws IOException {
+        synchronized (lock) {
+            if (closed) {
+                throw new ClosedChannelException();
+            }
+
+            @SuppressWarnings("unchecked")
+            final V value = (V) record.getValue();
+            final ByteBuffer bodyBuffer = encode(record.getSequence(), record.getEntryKey(), codec, value);
+
+            if (deadLetterChannel == null) {
+                deadLetterChannel = FileChannel.open(options.getDirectory().resolve(DEAD_LETTER_FILE),
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            }
+            write(deadLetterChannel, bodyBuffer);
+            deadLetterChannel.force(false);
+        }
+        checkpoint(record);
+    }
+
+    /**
+     * @return every record that was moved to the dead-letter file, in the
+     * order they were moved
+     * @throws IOException if the dead-letter file could not be read
+     */
+    public List<JournalEntry> readDeadLetters() throws IOException {
+        final Path path = options.getDirectory().resolve(DEAD_LETTER_FILE);
+        final List<JournalEntry> entries = new ArrayList<>();
+        if (Files.exists(path)) {
+            readSegment(path, entries::add);
+        }
+        return entries;
+    }
+
+    /**
+     * Encodes the given record into the body buffer, and its length and
+     * checksum into the header buffer. Called while holding the lock.
+     */
+    private <V> ByteBuffer encode(final long sequence, final EntryKey entryKey,
+            final StorageValueCodec<V> codec, final V value) {
+        body.clear();
+        body.writeByte(value == null ? DELETE : SAVE);
+        body.writeVarLong(sequence);
+        body.writeString(entryKey.getValueType().getName());
+        body.writeString(entryKey.getKey());
+        if (value != null) {
+            codec.encode(value, body);
+        }
+        final ByteBuffer bodyBuffer = body.toByteBuffer();
+
+        checksum.reset();
+        checksum.update(bodyBuffer.duplicate());
+
+        header.clear();
+        header.putInt(bodyBuffer.remaining());
+        header.putInt((int) checksum.getValue());
+        header.flip();
+        return bodyBuffer;
+    }
+
+    /**
+     * Writes the encoded header and the given body to the given channel.
+     * Called while holding the lock.
+     *
+     * @return the amount of written bytes
+     */
+    private long write(final FileChannel channel, final ByteBuffer bodyBuffer) throws IOException {
+        long written = 0;
+        while (header.hasRemaining() || bodyBuffer.hasRemaining()) {
+            written += channel.write(new ByteBuffer[]{header, bodyBuffer});
+        }
+        return written;
+    }
+
+    /**
+     * Returns the entries of every segment that was left behind by a previous
+     * run, which were read when the journal was opened. Only the record of
+     * each entry with the highest sequence number is returned, in the order
+     * the entries were last written. Once the returned entries were committed, the segments
+     * shall be deleted via {@link #completeRecovery()}.
+     *
+     * @return the recovered entries
+     * @throws IOException if a segment could not be read
+     */
+    public Collection<JournalEntry> recover() throws IOException {
+        final List<JournalEntry> entries = new ArrayList<>(recoveredEntries.values());
+        entries.sort(Comparator.comparingLong(JournalEntry::getSequence));
+        return entries;
+    }
+
+    /**
+     * Deletes the segments that were left behind by a previous run, along
+     * with the segments of this run that were only kept alive by them.
+     */
+    public void completeRecovery() {
+        recoveredEntries.clear();
+        for (final Segment segment : recoverableSegments) {
+            segment.outstanding.decrementAndGet();
+        }
+        recoverableSegments.clear();
+        deleteCompletedSegments();
+    }
+
+    private static void readSegment(final Path path, final Consumer<JournalEntry> consumer)
+            throws IOException {
+        final ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        while (buffer.remaining() >= HEADER_SIZE) {
+            final int length = buffer.getInt();
+            final int expectedChecksum = buffer.getInt();
+            if (length < 0 || length > buffer.remaining()) {
+                break;
+            }
+
+            final ByteBuffer bodyBuffer = buffer.slice();
+            bodyBuffer.limit(length);
+            buffer.position(buffer.position() + length);
+
+            final CRC32 crc = new CRC32();
+            crc.update(bodyBuffer.duplicate());
+            if ((int) crc.getValue() != expectedChecksum) {
+                // the remainder of the segment was torn by a crash
+                break;
+            }
+
+            final CodecInput input = new CodecInput(bodyBuffer);
+            final byte operation = input.readByte();
+            final long sequence = input.readVarLong();
+            final String valueType = input.readString();
+            final String key = input.readString();
+            final ByteBuffer value = operation == SAVE ? bodyBuffer.slice() : null;
+
+            consumer.accept(new JournalEntry(sequence, valueType, key, value));
+        }
+    }
+
+    /**
+     * Deletes the oldest segments that are no longer active, and whose
+     * records were all checkpointed. A segment is never deleted before an
+     * older one, as its records may supersede the records of the older
+     * segment that would otherwise be recovered.
+     */
+    private void deleteCompletedSegments() {
+        synchronized (segments) {
+            Segment segment;
+            while ((segment = segments.peekFirst()) != null && !segment.active &&
+                    segment.outstanding.get() == 0) {
+                segments.pollFirst();
+                segment.delete();
+            }
+        }
+    }
+
+    /**
+     * Forces every appended record to the disk.
+     *
+     * @throws IOException if the records could not be forced
+     */
+    public void force() throws IOException {
+        final FileChannel channel;
+        synchronized (lock) {
+            if (closed || !dirty) {
+                return;
+            }
+            dirty = false;
+            channel = activeSegment.channel;
+        }
+
+        try {
+            channel.force(false);
+        } catch (ClosedChannelException e) {
+            // the segment was rolled, which already forced it
+        }
+    }
+
+    private void forceQuietly() {
+        try {
+            force();
+        } catch (IOException e) {
+            synchronized (lock) {
+                dirty = true;
+            }
+        }
+    }
+
+    /**
+     * Forces the active segment to the disk, and starts a new one. Called
+     * while holding the lock.
+     */
+    private void roll() throws IOException {
+        final Segment previous = activeSegment;
+        activeSegment = openSegment(previous.id + 1);
+        synchronized (segments) {
+            segments.add(activeSegment);
+        }
+
+        previous.close();
+        deleteCompletedSegments();
+    }
+
+    private Segment openSegment(final long id) throws IOException {
+        final Path path = options.getDirectory().resolve(SEGMENT_PREFIX + id + SEGMENT_SUFFIX);
+        final FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        return new Segment(id, path, channel);
+    }
+
+    private List<Segment> listSegments() throws IOException {
+        final List<Segment> segments = new ArrayList<>();
+        try (final DirectoryStream<Path> stream = Files.newDirectoryStream(options.getDirectory(),
+                SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (final Path path : stream) {
+                final String name = path.getFileName().toString();
+                final String id = name.substring(SEGMENT_PREFIX.length(),
+                        name.length() - SEGMENT_SUFFIX.length());
+                try {
+                    segments.add(new Segment(Long.parseLong(id), path, null));
+                } catch (NumberFormatException e) {
+                    // not one of our segments
+                }
+            }
+        }
+
+        segments.sort((first, second) -> Long.compare(first.id, second.id));
+        return segments;
+    }
+
+    /**
+     * Forces and closes the active segment. Records that were not checkpointed
+     * stay in the journal, and are recovered on the next startup, otherwise
+     * the segment is deleted.
+     *
+     * @throws IOException if the segment could not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+
+        try {
+            activeSegment.close();
+        } finally {
+            if (deadLetterChannel != null) {
+                deadLetterChannel.close();
+            }
+        }
+        deleteCompletedSegments();
+    }
+
+    static final class Segment {
+        private final long id;
+        private final Path path;
+        private final FileChannel channel;
+        private final AtomicInteger outstanding = new AtomicInteger();
+
+        private long size;
+        private volatile boolean active;
+
+        private Segment(final long id, final Path path, final FileChannel channel) {
+            this.id = id;
+            this.path = path;
+            this.channel = channel;
+            this.active = channel != null;
+        }
+
+        private void close() throws IOException {
+            try {
+                channel.force(false);
+            } finally {
+                active = false;
+                channel.close();
+            }
+        }
+
+        private void delete() {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                // a leftover segment is only replayed again, which is harmless
+            }
+        }
+    }
+}
@@ -0,0 +1,712 @@
+package io.tofpu.databasestorage.log;
+
+import io.tofpu.databasestorage.journal.FsyncPolicy;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * An embedded, log-structured key-value store in the style of Bitcask.
+ * <p>
+ * Every put and delete is appended to the active segment file, and the
+ * location of the latest value of every key is kept in an in-memory key
+ * directory, so a read is a single lookup followed by a single read. Once
+ * the active segment reaches its size, it is sealed and memory-mapped, and
+ * reads from it no longer need a system call.
+ * <p>
+ * Each record is stored as its CRC32 checksum, the length of the key and the
+ * length of the value, or -1 for a delete, followed by the key and the value.
+ * Alongside every segment, a hint file lists the key and the location of each
+ * record, so that the key directory can be rebuilt on startup without reading
+ * the values. A segment without a complete hint file, i.e. the active segment
+ * of a crashed run, is scanned instead and truncated at its first torn record.
+ * <p>
+ * Overwritten and deleted records are reclaimed by compaction, which copies
+ * the live records of every sealed segment to the active segment, and then
+ * deletes the sealed segments.
+ */
+public class LogStore implements AutoCloseable {
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String DATA_SUFFIX = ".data";
+    private static final String HINT_SUFFIX = ".hint";
+
+    private static final int HEADER_SIZE = 12;
+    private static final int TOMBSTONE = -1;
+    private static final int HINT_END = -1;
+    private static final int HINT_TRAILER = 0x48494e54;
+
+    private final LogStoreOptions options;
+    private final ConcurrentSkipListMap<String, Location> keyDirectory = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<Integer, Segment> segments = new ConcurrentSkipListMap<>();
+    private final ScheduledExecutorService scheduler;
+
+    private final Object writeLock = new Object();
+    private final Object compactionLock = new Object();
+    private final CRC32 checksum = new CRC32();
+    private ByteBuffer recordBuffer = ByteBuffer.allocate(4096);
+
+    private volatile Segment activeSegment;
+    private volatile boolean closed;
+    private boolean dirty;
+
+    public LogStore(final LogStoreOptions options) throws IOException {
+        this.options = options;
+        Files.createDirectories(options.getDirectory());
+
+        final List<Integer> ids = listSegmentIds();
+        for (final int id : ids) {
+            recoverSegment(id);
+        }
+        this.activeSegment = openSegment(ids.isEmpty() ? 0 : ids.get(ids.size() - 1) + 1);
+
+        final boolean fsyncScheduled = options.getFsyncPolicy() == FsyncPolicy.INTERVAL;
+        final boolean compactionScheduled = options.getCompactionIntervalMillis() > 0;
+        if (fsyncScheduled || compactionScheduled) {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "storage-log");
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            this.scheduler = null;
+        }
+
+        if (fsyncScheduled) {
+            final long interval = options.getFsyncIntervalMillis();
+            scheduler.scheduleWithFixedDelay(this::forceQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        }
+        if (compactionScheduled) {
+            final long interval = options.getCompactionIntervalMillis();
+            scheduler.scheduleWithFixedDelay(this::compactQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * @param key the key of the value
+     *
+     * @return a read-only buffer of the value, or null if the key is absent
+     * @throws IOException if the value could not be read
+     */
+    public ByteBuffer get(final String key) throws IOException {
+        final Location location = keyDirectory.get(key);
+        return location == null ? null : location.segment.read(location);
+    }
+
+    /**
+     * @param key the key of the value
+     * @param value the value, from its position to its limit
+     *
+     * @throws IOException if the value could not be appended
+     */
+    public void put(final String key, final ByteBuffer value) throws IOException {
+        synchronized (writeLock) {
+            ensureOpen();
+            putLocked(key, value);
+            afterWrite();
+        }
+    }
+
+    /**
+     * This method will append every value at once, and only force them to
+     * the disk once.
+     *
+     * @param values the values mapped by their key
+     *
+     * @throws IOException if the values could not be appended
+     */
+    public void putAll(final Map<String, ByteBuffer> values) throws IOException {
+        synchronized (writeLock) {
+            ensureOpen();
+            for (final Map.Entry<String, ByteBuffer> entry : values.entrySet()) {
+                putLocked(entry.getKey(), entry.getValue());
+            }
+            afterWrite();
+        }
+    }
+
+    /**
+     * @param key the key of the value
+     *
+     * @return true if the key was present
+     * @throws IOException if the delete could not be appended
+     */
+    public boolean delete(final String key) throws IOException {
+        synchronized (writeLock) {
+            ensureOpen();
+            final boolean deleted = deleteLocked(key);
+            afterWrite();
+            return deleted;
+        }
+    }
+
+    /**
+     * @param keys the keys of the values
+     *
+     * @throws IOException if the deletes could not be appended
+     */
+    public void deleteAll(final Collection<String> keys) throws IOException {
+        synchronized (writeLock) {
+            ensureOpen();
+            for (final String key : keys) {
+                deleteLocked(key);
+            }
+            afterWrite();
+        }
+    }
+
+    /**
+     * @param fromKey the lowest key to be returned, or null to start from the
+     * first key
+     * @param toKey the key to stop at, which is not returned itself, or null
+     * to continue until the last key
+     *
+     * @return the present keys in their natural order, the iterator reflects
+     * concurrent writes, but never fails because of them
+     */
+    public Iterator<String> keys(final String fromKey, final String toKey) {
+        NavigableMap<String, Location> range = keyDirectory;
+        if (fromKey != null) {
+            range = range.tailMap(fromKey, true);
+        }
+        if (toKey != null) {
+            range = range.headMap(toKey, false);
+        }
+        return range.keySet().iterator();
+    }
+
+    /**
+     * @return the amount of present keys
+     */
+    public int size() {
+        return keyDirectory.size();
+    }
+
+    /**
+     * @return the amount of segment files
+     */
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * This method will compact the sealed segments, if the ratio of their
+     * overwritten and deleted bytes reached the compaction threshold.
+     *
+     * @return true if the sealed segments were compacted
+     * @throws IOException if the live records could not be copied
+     */
+    public boolean compact() throws IOException {
+        synchronized (compactionLock) {
+            final List<Segment> sealed = new ArrayList<>(segments.headMap(activeSegment.id).values());
+
+            long totalBytes = 0;
+            long deadBytes = 0;
+            for (final Segment segment : sealed) {
+                totalBytes += segment.size;
+                deadBytes += segment.deadBytes.get();
+            }
+            if (totalBytes == 0 || (double) deadBytes / totalBytes < options.getCompactionThreshold()) {
+                return false;
+            }
+
+            for (final Segment segment : sealed) {
+                copyLiveRecords(segment);
+            }
+            synchronized (writeLock) {
+                ensureOpen();
+                activeSegment.channel.force(false);
+                dirty = false;
+            }
+
+            // the older segments are deleted first, so that a crash never
+            // resurrects a value whose delete is in a newer segment
+            for (final Segment segment : sealed) {
+                segments.remove(segment.id);
+                segment.channel.close();
+                Files.deleteIfExists(segment.dataPath);
+                Files.deleteIfExists(segment.hintPath);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * This method will force the appended records to the disk.
+     *
+     * @throws IOException if the records could not be forced
+     */
+    public void force() throws IOException {
+        synchronized (writeLock) {
+            if (!dirty || closed) {
+                return;
+            }
+            dirty = false;
+        }
+        try {
+            activeSegment.channel.force(false);
+        } catch (ClosedChannelException e) {
+            // the store was closed in the meantime, which forced the records
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (writeLock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+
+        if (scheduler != null) {
+            // not interrupted, as an interrupt closes the channel of a running compaction
+            scheduler.shutdown();
+            try {
+                scheduler.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        synchronized (writeLock) {
+            seal(activeSegment);
+            for (final Segment segment : segments.values()) {
+                segment.channel.close();
+            }
+        }
+    }
+
+    private void putLocked(final String key, final ByteBuffer value) throws IOException {
+        final Location location = append(key.getBytes(StandardCharsets.UTF_8), value);
+        final Location previous = keyDirectory.put(key, location);
+        if (previous != null) {
+            previous.segment.deadBytes.addAndGet(previous.getRecordSize());
+        }
+    }
+
+    private boolean deleteLocked(final String key) throws IOException {
+        final Location previous = keyDirectory.get(key);
+        if (previous == null) {
+            return false;
+        }
+
+        final Location tombstone = append(key.getBytes(StandardCharsets.UTF_8), null);
+        keyDirectory.remove(key);
+        previous.segment.deadBytes.addAndGet(previous.getRecordSize());
+        tombstone.segment.deadBytes.addAndGet(tombstone.getRecordSize());
+        return true;
+    }
+
+    private void afterWrite() throws IOException {
+        dirty = true;
+        if (options.getFsyncPolicy() == FsyncPolicy.ALWAYS) {
+            activeSegment.channel.force(false);
+            dirty = false;
+        }
+    }
+
+    /**
+     * @param value the value to be appended, or null to append a delete
+     *
+     * @return the location of the appended record
+     */
+    private Location append(final byte[] key, final ByteBuffer value) throws IOException {
+        final int valueLength = value == null ? TOMBSTONE : value.remaining();
+        final int recordSize = HEADER_SIZE + key.length + Math.max(valueLength, 0);
+
+        Segment segment = activeSegment;
+        if (segment.size > 0 && (long) segment.size + recordSize > options.getSegmentSize()) {
+            seal(segment);
+            segment = openSegment(segment.id + 1);
+            activeSegment = segment;
+        }
+
+        if (recordBuffer.capacity() < recordSize) {
+            recordBuffer = ByteBuffer.allocate(Math.max(recordSize, recordBuffer.capacity() * 2));
+        }
+        final ByteBuffer buffer = recordBuffer;
+        buffer.clear();
+        buffer.putInt(0);
+        buffer.putInt(key.length);
+        buffer.putInt(valueLength);
+        buffer.put(key);
+        if (value != null) {
+            buffer.put(value.duplicate());
+        }
+
+        checksum.reset();
+        checksum.update(buffer.array(), Integer.BYTES, recordSize - Integer.BYTES);
+        buffer.putInt(0, (int) checksum.getValue());
+        buffer.flip();
+
+        final int offset = segment.size;
+        while (buffer.hasRemaining()) {
+            segment.channel.write(buffer, offset + buffer.position());
+        }
+        segment.size += recordSize;
+
+        segment.hint.writeInt(key.length);
+        segment.hint.write(key);
+        segment.hint.writeInt(offset);
+        segment.hint.writeInt(valueLength);
+        segment.hintEntries++;
+
+        return new Location(segment, offset, key.length, valueLength);
+    }
+
+    /**
+     * This method will complete the hint file of the given segment, force
+     * its records to the disk and memory-map it for reading.
+     */
+    private void seal(final Segment segment) throws IOException {
+        segment.hint.writeInt(HINT_END);
+        segment.hint.writeInt(HINT_TRAILER);
+        segment.hint.writeInt(segment.hintEntries);
+        segment.hint.close();
+
+        segment.channel.force(false);
+        segment.mapped = segment.channel.map(FileChannel.MapMode.READ_ONLY, 0, segment.size);
+    }
+
+    private void copyLiveRecords(final Segment segment) throws IOException {
+        final ByteBuffer mapped = segment.mapped;
+        int position = 0;
+        while (position < segment.size) {
+            final int keyLength = mapped.getInt(position + Integer.BYTES);
+            final int valueLength = mapped.getInt(position + Integer.BYTES * 2);
+            final int recordSize = HEADER_SIZE + keyLength + Math.max(valueLength, 0);
+
+            if (valueLength != TOMBSTONE) {
+                final byte[] key = new byte[keyLength];
+                final ByteBuffer keyBuffer = mapped.duplicate();
+                keyBuffer.position(position + HEADER_SIZE);
+                keyBuffer.get(key);
+                final String keyString = new String(key, StandardCharsets.UTF_8);
+
+                synchronized (writeLock) {
+                    ensureOpen();
+                    final Location current = keyDirectory.get(keyString);
+                    // only the latest record of a key is live, and copied under the
+                    // write lock, so that it never overtakes a concurrent write
+                    if (current != null && current.segment == segment && current.recordOffset == position) {
+                        final ByteBuffer value = mapped.duplicate();
+                        value.position(position + HEADER_SIZE + keyLength);
+                        value.limit(position + recordSize);
+                        keyDirectory.put(keyString, append(key, value));
+                    }
+                }
+            }
+            position += recordSize;
+        }
+    }
+
+    private void recoverSegment(final int id) throws IOException {
+        final Path dataPath = dataPath(id);
+        if (Files.size(dataPath) == 0) {
+            // the active segment of a run that wrote nothing
+            Files.delete(dataPath);
+            Files.deleteIfExists(hintPath(id));
+            return;
+        }
+
+        final FileChannel channel = FileChannel.open(dataPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        final Segment segment = new Segment(id, dataPath, hintPath(id), channel, null);
+
+        List<HintEntry> entries = readHint(segment.hintPath, channel.size());
+        if (entries == null) {
+            entries = scan(channel);
+            writeHint(segment.hintPath, entries);
+        }
+
+        segment.size = (int) channel.size();
+        segment.mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, segment.size);
+        segments.put(id, segment);
+
+        for (final HintEntry entry : entries) {
+            final Location location = new Location(segment, entry.recordOffset, entry.key.length,
+                    entry.valueLength);
+            final String key = new String(entry.key, StandardCharsets.UTF_8);
+            final Location previous = entry.valueLength == TOMBSTONE ? keyDirectory.remove(key) :
+                    keyDirectory.put(key, location);
+
+            if (previous != null) {
+                previous.segment.deadBytes.addAndGet(previous.getRecordSize());
+            }
+            if (entry.valueLength == TOMBSTONE) {
+                segment.deadBytes.addAndGet(location.getRecordSize());
+            }
+        }
+    }
+
+    /**
+     * @return the entries of the hint file, or null if it is missing,
+     * incomplete or does not match the data file
+     */
+    private static List<HintEntry> readHint(final Path hintPath, final long dataSize) throws IOException {
+        if (!Files.exists(hintPath)) {
+            return null;
+        }
+
+        final List<HintEntry> entries = new ArrayList<>();
+        try (final DataInputStream input = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(hintPath)))) {
+            while (true) {
+                final int keyLength = input.readInt();
+                if (keyLength == HINT_END) {
+                    return input.readInt() == HINT_TRAILER && input.readInt() == entries.size() ? entries : null;
+                }
+                if (keyLength < 0) {
+                    return null;
+                }
+
+                final byte[] key = new byte[keyLength];
+                input.readFully(key);
+                final int recordOffset = input.readInt();
+                final int valueLength = input.readInt();
+                if (recordOffset + (long) HEADER_SIZE + keyLength + Math.max(valueLength, 0) > dataSize) {
+                    return null;
+                }
+                entries.add(new HintEntry(key, recordOffset, valueLength));
+            }
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private static void writeHint(final Path hintPath, final List<HintEntry> entries) throws IOException {
+        try (final DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(hintPath)))) {
+            for (final HintEntry entry : entries) {
+                output.writeInt(entry.key.length);
+                output.write(entry.key);
+                output.writeInt(entry.recordOffset);
+                output.writeInt(entry.valueLength);
+            }
+            output.writeInt(HINT_END);
+            output.writeInt(HINT_TRAILER);
+            output.writeInt(entries.size());
+        }
+    }
+
+    /**
+     * This method will read every record of the given data file, and
+     * truncate it at the first record that is torn or fails its checksum.
+     */
+    private static List<HintEntry> scan(final FileChannel channel) throws IOException {
+        final long size = channel.size();
+        final ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        final CRC32 checksum = new CRC32();
+
+        final List<HintEntry> entries = new ArrayList<>();
+        int position = 0;
+        while (position + HEADER_SIZE <= size) {
+            final int crc = mapped.getInt(position);
+            final int keyLength = mapped.getInt(position + Integer.BYTES);
+            final int valueLength = mapped.getInt(position + Integer.BYTES * 2);
+            if (keyLength < 0 || valueLength < TOMBSTONE) {
+                break;
+            }
+
+            final long recordSize = HEADER_SIZE + (long) keyLength + Math.max(valueLength, 0);
+            if (position + recordSize > size) {
+                break;
+            }
+
+            final ByteBuffer body = mapped.duplicate();
+            body.position(position + Integer.BYTES);
+            body.limit((int) (position + recordSize));
+            checksum.reset();
+            checksum.update(body);
+            if ((int) checksum.getValue() != crc) {
+                break;
+            }
+
+            final byte[] key = new byte[keyLength];
+            final ByteBuffer keyBuffer = mapped.duplicate();
+            keyBuffer.position(position + HEADER_SIZE);
+            keyBuffer.get(key);
+            entries.add(new HintEntry(key, position, valueLength));
+
+            position += (int) recordSize;
+        }
+
+        if (position < size) {
+            channel.truncate(position);
+        }
+        return entries;
+    }
+
+    private Segment openSegment(final int id) throws IOException {
+        final Path dataPath = dataPath(id);
+        final FileChannel channel = FileChannel.open(dataPath, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        final DataOutputStream hint = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(hintPath(id))));
+
+        final Segment segment = new Segment(id, dataPath, hintPath(id), channel, hint);
+        segments.put(id, segment);
+        return segment;
+    }
+
+    private List<Integer> listSegmentIds() throws IOException {
+        final List<Integer> ids = new ArrayList<>();
+        try (final DirectoryStream<Path> stream = Files.newDirectoryStream(options.getDirectory(),
+                SEGMENT_PREFIX + "*" + DATA_SUFFIX)) {
+            for (final Path path : stream) {
+                final String name = path.getFileName().toString();
+                try {
+                    ids.add(Integer.parseInt(name.substring(SEGMENT_PREFIX.length(),
+                            name.length() - DATA_SUFFIX.length())));
+                } catch (NumberFormatException e) {
+                    // not a segment of this store
+                }
+            }
+        }
+        Collections.sort(ids);
+        return ids;
+    }
+
+    private Path dataPath(final int id) {
+        return options.getDirectory().resolve(SEGMENT_PREFIX + id + DATA_SUFFIX);
+    }
+
+    private Path hintPath(final int id) {
+        return options.getDirectory().resolve(SEGMENT_PREFIX + id + HINT_SUFFIX);
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new ClosedChannelException();
+        }
+    }
+
+    private void forceQuietly() {
+        try {
+            force();
+        } catch (IOException e) {
+            // retried on the next interval
+        }
+    }
+
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (IOException e) {
+            // retried on the next interval, the sealed segments are still intact
+        }
+    }
+
+    private static final class Segment {
+        private final int id;
+        private final Path dataPath;
+        private final Path hintPath;
+        private final FileChannel channel;
+        private final DataOutputStream hint;
+        private final AtomicLong deadBytes = new AtomicLong();
+
+        // only written while holding the write lock
+        private int size;
+        private int hintEntries;
+        private volatile MappedByteBuffer mapped;
+
+        private Segment(final int id, final Path dataPath, final Path hintPath,
+                final FileChannel channel, final DataOutputStream hint) {
+            this.id = id;
+            this.dataPath = dataPath;
+            this.hintPath = hintPath;
+            this.channel = channel;
+            this.hint = hint;
+        }
+
+        private ByteBuffer read(final Location location) throws IOException {
+            final int valueOffset = location.getValueOffset();
+            while (true) {
+                final MappedByteBuffer mapped = this.mapped;
+                if (mapped != null) {
+                    final ByteBuffer value = mapped.duplicate();
+                    value.position(valueOffset);
+                    value.limit(valueOffset + location.valueLength);
+                    return value.slice().asReadOnlyBuffer();
+                }
+
+                final ByteBuffer value = ByteBuffer.allocate(location.valueLength);
+                try {
+                    while (value.hasRemaining()) {
+                        if (channel.read(value, valueOffset + value.position()) < 0) {
+                            throw new EOFException();
+                        }
+                    }
+                } catch (ClosedChannelException e) {
+                    // the segment was sealed and compacted in the meantime, so it is mapped
+                    if (this.mapped == null) {
+                        throw e;
+                    }
+                    continue;
+                }
+                value.flip();
+                return value.asReadOnlyBuffer();
+            }
+        }
+    }
+
+    private static final class Location {
+        private final Segment segment;
+        private final int recordOffset;
+        private final int keyLength;
+        private final int valueLength;
+
+        private Location(final Segment segment, final int recordOffset, final int keyLength,
+                final int valueLength) {
+            this.segment = segment;
+            this.recordOffset = recordOffset;
+            this.keyLength = keyLength;
+            this.valueLength = valueLength;
+        }
+
+        private int getValueOffset() {
+            return recordOffset + HEADER_SIZE + keyLength;
+        }
+
+        private int getRecordSize() {
+            return HEADER_SIZE + keyLength + Math.max(valueLength, 0);
+        }
+    }
+
+    private static final class HintEntry {
+        private final byte[] key;
+        private final int recordOffset;
+        private final int valueLength;
+
+        private HintEntry(final byte[] key, final int recordOffset, final int valueLength) {
+            this.key = key;
+            this.recordOffset = recordOffset;
+            this.valueLength = valueLength;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package io.tofpu.databasestorage.log;
+
+import io.tofpu.databasestorage.journal.FsyncPolicy;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The options that are used to configure a {@link LogStore}.
+ */
+public class LogStoreOptions {
+    private static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    private static final long DEFAULT_COMPACTION_INTERVAL_SECONDS = 60;
+    private static final double DEFAULT_COMPACTION_THRESHOLD = 0.5;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final FsyncPolicy fsyncPolicy;
+    private final long fsyncIntervalMillis;
+    private final long compactionIntervalMillis;
+    private final double compactionThreshold;
+
+    /**
+     * @param directory the directory the segments are stored in
+     * @param fsyncPolicy the policy of forcing the records to the disk
+     */
+    public LogStoreOptions(final Path directory, final FsyncPolicy fsyncPolicy) {
+        this(directory, DEFAULT_SEGMENT_SIZE, fsyncPolicy, 1, TimeUnit.SECONDS,
+                DEFAULT_COMPACTION_INTERVAL_SECONDS, TimeUnit.SECONDS, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    /**
+     * @param directory the directory the segments are stored in
+     * @param segmentSize the size in bytes after which a new segment is started
+     * @param fsyncPolicy the policy of forcing the records to the disk
+     * @param fsyncInterval the interval of {@link FsyncPolicy#INTERVAL}
+     * @param fsyncUnit the unit of the fsync interval
+     * @param compactionInterval the interval at which the sealed segments are
+     * checked for compaction, or 0 to never compact them
+     * @param compactionUnit the unit of the compaction interval
+     * @param compactionThreshold the ratio of overwritten and deleted bytes in
+     * the sealed segments from which they are compacted
+     */
+    public LogStoreOptions(final Path directory, final int segmentSize,
+            final FsyncPolicy fsyncPolicy, final long fsyncInterval, final TimeUnit fsyncUnit,
+            final long compactionInterval, final TimeUnit compactionUnit,
+            final double compactionThreshold) {
+        if (segmentSize <= 0) {
+            throw new IllegalArgumentException("segmentSize must be positive");
+        }
+        if (fsyncPolicy == FsyncPolicy.INTERVAL && fsyncInterval <= 0) {
+            throw new IllegalArgumentException("fsyncInterval must be positive");
+        }
+        if (compactionInterval < 0) {
+            throw new IllegalArgumentException("compactionInterval must not be negative");
+        }
+        if (compactionThreshold <= 0 || compactionThreshold > 1) {
+            throw new IllegalArgumentException("compactionThreshold must be between 0 and 1");
+        }
+
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncIntervalMillis = fsyncUnit.toMillis(fsyncInterval);
+        this.compactionIntervalMillis = compactionUnit.toMillis(compactionInterval);
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    /**
+     * @return the directory the segments are stored in
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @return the size in bytes after which a new segment is started
+     */
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
+    /**
+     * @return the policy of forcing the records to the disk
+     */
+    public FsyncPolicy getFsyncPolicy() {
+        return fsyncPolicy;
+    }
+
+    /**
+     * @return the interval in milliseconds of {@link FsyncPolicy#INTERVAL}
+     */
+    public long getFsyncIntervalMillis() {
+        return fsyncIntervalMillis;
+    }
+
+    /**
+     * @return the interval in milliseconds at which the sealed segments are
+     * checked for compaction, or 0 if they are never compacted
+     */
+    public long getCompactionIntervalMillis() {
+        return compactionIntervalMillis;
+    }
+
+    /**
+     * @return the ratio of overwritten and deleted bytes from which the
+     * sealed segments are compacted
+     */
+    public double getCompactionThreshold() {
+        return compactionThreshold;
+    }
+}
@@ -0,0 +1,87 @@
+package io.tofpu.databasestorage.log;
+
+import io.tofpu.databasestorage.StorageBase;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A {@link StorageBase} that stores its values in an embedded
+ * {@link LogStore} instead of a database, for workloads that are dominated
+ * by writes and point reads. Its value resolvers shall extend
+ * {@link LogValueResolver}.
+ * <p>
+ * There is no database connection, so connection pools, prepared statements
+ * and transactions do not apply. Every other feature of the
+ * {@link StorageBase}, e.g. caching, write-behind or the journal, works as
+ * with any other storage.
+ */
+public abstract class LogStructuredStorage extends StorageBase {
+    private volatile LogStore logStore;
+
+    /**
+     * @return the options of the {@link LogStore}, which is opened by
+     * {@link #init()}
+     */
+    protected abstract LogStoreOptions getLogStoreOptions();
+
+    @Override
+    public CompletableFuture<Boolean> init() {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                logStore = new LogStore(getLogStoreOptions());
+                replayJournal();
+                loadMembershipFilters();
+                warmUp();
+            } catch (IOException | SQLException e) {
+                throw new IllegalStateException(e);
+            }
+            return true;
+        });
+    }
+
+    @Override
+    protected void establishConnection() {
+        // there is no connection to be established
+    }
+
+    /**
+     * @return null, the values are not stored in a database
+     */
+    @Override
+    public Connection getConnection() {
+        return null;
+    }
+
+    /**
+     * @return the log store
+     * @throws IllegalStateException if the storage was not initialized
+     */
+    public LogStore getLogStore() {
+        final LogStore logStore = this.logStore;
+        if (logStore == null) {
+            throw new IllegalStateException("the log store is not opened, call init() first");
+        }
+        return logStore;
+    }
+
+    /**
+     * This method will shutdown the storage as described in
+     * {@link StorageBase#shutdown()}, and then close the log store.
+     */
+    @Override
+    public void shutdown() {
+        super.shutdown();
+
+        final LogStore logStore = this.logStore;
+        if (logStore != null) {
+            try {
+                logStore.close();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
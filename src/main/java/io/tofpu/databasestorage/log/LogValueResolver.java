@@ -0,0 +1,180 @@
+package io.tofpu.databasestorage.log;
+
+import io.tofpu.databasestorage.codec.CodecInput;
+import io.tofpu.databasestorage.codec.CodecOutput;
+import io.tofpu.databasestorage.codec.StorageValueCodec;
+import io.tofpu.databasestorage.resolver.value.StorageValueResolver;
+import io.tofpu.databasestorage.scan.StorageCursor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link StorageValueResolver} that stores its values in the
+ * {@link LogStore} of a {@link LogStructuredStorage}, encoded by the given
+ * codec. The keys of every value type are kept apart by prefixing them with
+ * the name of the type.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class LogValueResolver<K, V> extends StorageValueResolver<K, V> {
+    private static final char NAMESPACE_SEPARATOR = '\0';
+
+    private final LogStructuredStorage storage;
+    private final StorageValueCodec<V> codec;
+    private final String namespace;
+
+    /**
+     * @param type the value type
+     * @param keyType the key type, or null if the keys are strings
+     * @param storage the storage this resolver belongs to
+     * @param codec the codec the values are encoded with
+     */
+    public LogValueResolver(final Class<V> type, final Class<K> keyType,
+            final LogStructuredStorage storage, final StorageValueCodec<V> codec) {
+        super(type, keyType, storage);
+        this.storage = storage;
+        this.codec = codec;
+        this.namespace = type.getName() + NAMESPACE_SEPARATOR;
+    }
+
+    @Override
+    public void save(final String key, final Object value) throws SQLException {
+        try {
+            storage.getLogStore().put(namespace + key, encode(value));
+        } catch (IOException e) {
+            throw new SQLException(e);
+        }
+    }
+
+    @Override
+    public void saveAll(final Map<String, Object> values) throws SQLException {
+        final Map<String, ByteBuffer> encodedValues = new LinkedHashMap<>();
+        for (final Map.Entry<String, Object> entry : values.entrySet()) {
+            encodedValues.put(namespace + entry.getKey(), encode(entry.getValue()));
+        }
+
+        try {
+            storage.getLogStore().putAll(encodedValues);
+        } catch (IOException e) {
+            throw new SQLException(e);
+        }
+    }
+
+    @Override
+    public V retrieve(final String key) throws SQLException {
+        try {
+            return decode(storage.getLogStore().get(namespace + key));
+        } catch (IOException e) {
+            throw new SQLException(e);
+        }
+    }
+
+    @Override
+    public void delete(final String key) throws SQLException {
+        try {
+            storage.getLogStore().delete(namespace + key);
+        } catch (IOException e) {
+            throw new SQLException(e);
+        }
+    }
+
+    @Override
+    public void deleteAll(final Collection<String> keys) throws SQLException {
+        final List<String> namespacedKeys = new ArrayList<>(keys.size());
+        for (final String key : keys) {
+            namespacedKeys.add(namespace + key);
+        }
+
+        try {
+            storage.getLogStore().deleteAll(namespacedKeys);
+        } catch (IOException e) {
+            throw new SQLException(e);
+        }
+    }
+
+    /**
+     * The scan iterates over the in-memory key directory of the
+     * {@link LogStore}, and only reads a value once the cursor reaches it, so
+     * the fetch size is not used.
+     */
+    @Override
+    public StorageCursor<V> scan(final String fromKey, final String toKey, final int fetchSize) {
+        final String from = fromKey == null ? namespace : namespace + fromKey;
+        // the separator is the lowest character, so its successor ends the namespace
+        final String to = toKey == null ? namespace.substring(0, namespace.length() - 1) +
+                (char) (NAMESPACE_SEPARATOR + 1) : namespace + toKey;
+        return new LogCursor(storage.getLogStore().keys(from, to));
+    }
+
+    @Override
+    public StorageValueCodec<V> getCodec() {
+        return codec;
+    }
+
+    private ByteBuffer encode(final Object value) {
+        final CodecOutput output = new CodecOutput();
+        codec.encode(getType().cast(value), output);
+        return output.toByteBuffer();
+    }
+
+    private V decode(final ByteBuffer buffer) {
+        return buffer == null ? null : codec.decode(new CodecInput(buffer));
+    }
+
+    private final class LogCursor implements StorageCursor<V> {
+        private final Iterator<String> keys;
+
+        private String key;
+        private V value;
+
+        private LogCursor(final Iterator<String> keys) {
+            this.keys = keys;
+        }
+
+        @Override
+        public boolean next() throws SQLException {
+            while (keys.hasNext()) {
+                final String namespacedKey = keys.next();
+                try {
+                    value = decode(storage.getLogStore().get(namespacedKey));
+                } catch (IOException e) {
+                    throw new SQLException(e);
+                }
+
+                // skips the keys that were deleted after the iterator passed them
+                if (value != null) {
+                    key = namespacedKey.substring(namespace.length());
+                    return true;
+                }
+            }
+
+            key = null;
+            value = null;
+            return false;
+        }
+
+        @Override
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public void close() {
+            // the key directory holds no resources
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package io.tofpu.databasestorage.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The measurements of a single operation of a single value type, recorded
+ * by the {@link RecordingStorageMetrics}.
+ */
+public class OperationMetrics implements OperationMetricsMXBean {
+    private static final double NANOS_PER_MICRO = 1000.0;
+
+    private final LatencyHistogram queueWait = new LatencyHistogram();
+    private final LatencyHistogram execution = new LatencyHistogram();
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    void onSubmit() {
+        submitted.increment();
+    }
+
+    void onStart(final long queueWaitNanos) {
+        queueWait.record(queueWaitNanos);
+    }
+
+    void onComplete(final long executionNanos, final boolean failed) {
+        execution.record(executionNanos);
+        completed.increment();
+        if (failed) {
+            errors.increment();
+        }
+    }
+
+    void onRejected() {
+        rejected.increment();
+    }
+
+    /**
+     * @return a snapshot of the time the operations waited to be started
+     */
+    public HistogramSnapshot getQueueWait() {
+        return queueWait.snapshot();
+    }
+
+    /**
+     * @return a snapshot of the time the operations took to execute
+     */
+    public HistogramSnapshot getExecution() {
+        return execution.snapshot();
+    }
+
+    @Override
+    public long getCompletedCount() {
+        return completed.sum();
+    }
+
+    @Override
+    public long getErrorCount() {
+        return errors.sum();
+    }
+
+    @Override
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    @Override
+    public long getInFlightCount() {
+        // read in this order, so that the count never turns negative
+        final long completedCount = completed.sum() + rejected.sum();
+        return Math.max(0, submitted.sum() - completedCount);
+    }
+
+    @Override
+    public double getQueueWaitMeanMicros() {
+        return queueWait.snapshot().getMean() / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getQueueWaitP99Micros() {
+        return queueWait.snapshot().getPercentile(99) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getExecutionMeanMicros() {
+        return execution.snapshot().getMean() / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getExecutionP50Micros() {
+        return execution.snapshot().getPercentile(50) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getExecutionP99Micros() {
+        return execution.snapshot().getPercentile(99) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getExecutionMaxMicros() {
+        return execution.snapshot().getMax() / NANOS_PER_MICRO;
+    }
+}
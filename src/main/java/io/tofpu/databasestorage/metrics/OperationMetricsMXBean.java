@@ -0,0 +1,26 @@
+package io.tofpu.databasestorage.metrics;
+
+/**
+ * Exposes the {@link OperationMetrics} of a value type and an operation via JMX.
+ */
+public interface OperationMetricsMXBean {
+    long getCompletedCount();
+
+    long getErrorCount();
+
+    long getRejectedCount();
+
+    long getInFlightCount();
+
+    double getQueueWaitMeanMicros();
+
+    double getQueueWaitP99Micros();
+
+    double getExecutionMeanMicros();
+
+    double getExecutionP50Micros();
+
+    double getExecutionP99Micros();
+
+    double getExecutionMaxMicros();
+}
@@ -0,0 +1,182 @@
+package io.tofpu.databasestorage.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Records the measurements of the {@link io.tofpu.databasestorage.StorageBase}
+ * per value type and operation into {@link OperationMetrics}. Recording only
+ * touches striped counters and lock-free histograms, and the metrics of a
+ * value type are only allocated when the type is first recorded.
+ * <p>
+ * If a JMX name is given, the metrics are registered as MXBeans under the
+ * {@code io.tofpu.databasestorage} domain until {@link #unregister()} is
+ * called.
+ */
+public class RecordingStorageMetrics implements StorageMetrics, StorageMetricsMXBean {
+    private static final String DOMAIN = "io.tofpu.databasestorage";
+    private static final StorageOperation[] OPERATIONS = StorageOperation.values();
+
+    private final ConcurrentHashMap<Class<?>, OperationMetrics[]> operationMetricsMap =
+            new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Class<?>, LatencyHistogram> keySerializationMap =
+            new ConcurrentHashMap<>();
+    private final Map<String, LongSupplier> queueMap = new ConcurrentHashMap<>();
+
+    private final String jmxName;
+    private final List<ObjectName> registeredNames = new ArrayList<>();
+
+    public RecordingStorageMetrics() {
+        this(null);
+    }
+
+    /**
+     * @param jmxName the name the metrics are registered under via JMX, or
+     * null to not expose them
+     */
+    public RecordingStorageMetrics(final String jmxName) {
+        this.jmxName = jmxName;
+        if (jmxName != null) {
+            register("type=Storage,name=" + ObjectName.quote(jmxName), this);
+        }
+    }
+
+    @Override
+    public void onSubmit(final Class<?> valueType, final StorageOperation operation) {
+        getOperationMetrics(valueType, operation).onSubmit();
+    }
+
+    @Override
+    public void onStart(final Class<?> valueType, final StorageOperation operation,
+            final long queueWaitNanos) {
+        getOperationMetrics(valueType, operation).onStart(queueWaitNanos);
+    }
+
+    @Override
+    public void onComplete(final Class<?> valueType, final StorageOperation operation,
+            final long executionNanos, final boolean failed) {
+        getOperationMetrics(valueType, operation).onComplete(executionNanos, failed);
+    }
+
+    @Override
+    public void onRejected(final Class<?> valueType, final StorageOperation operation) {
+        getOperationMetrics(valueType, operation).onRejected();
+    }
+
+    @Override
+    public void onKeySerialized(final Class<?> keyType, final long nanos) {
+        LatencyHistogram histogram = keySerializationMap.get(keyType);
+        if (histogram == null) {
+            histogram = keySerializationMap.computeIfAbsent(keyType, ignored -> new LatencyHistogram());
+        }
+        histogram.record(nanos);
+    }
+
+    @Override
+    public void registerQueue(final String name, final LongSupplier depth) {
+        queueMap.put(name, depth);
+    }
+
+    /**
+     * @param valueType the value type
+     * @param operation the operation
+     *
+     * @return the metrics of the given value type and operation
+     */
+    public OperationMetrics getOperationMetrics(final Class<?> valueType,
+            final StorageOperation operation) {
+        OperationMetrics[] metrics = operationMetricsMap.get(valueType);
+        if (metrics == null) {
+            metrics = createOperationMetrics(valueType);
+        }
+        return metrics[operation.ordinal()];
+    }
+
+    /**
+     * @param keyType the key type
+     *
+     * @return a snapshot of the time the keys of the given type took to be
+     * serialized
+     */
+    public HistogramSnapshot getKeySerialization(final Class<?> keyType) {
+        final LatencyHistogram histogram = keySerializationMap.get(keyType);
+        return histogram == null ? new LatencyHistogram().snapshot() : histogram.snapshot();
+    }
+
+    /**
+     * @param name the name of the queue
+     *
+     * @return the current amount of queued tasks, or -1 if no such queue
+     * was registered
+     */
+    public long getQueueDepth(final String name) {
+        final LongSupplier depth = queueMap.get(name);
+        return depth == null ? -1 : depth.getAsLong();
+    }
+
+    @Override
+    public Map<String, Long> getQueueDepths() {
+        final Map<String, Long> depths = new TreeMap<>();
+        queueMap.forEach((name, depth) -> depths.put(name, depth.getAsLong()));
+        return depths;
+    }
+
+    private OperationMetrics[] createOperationMetrics(final Class<?> valueType) {
+        final OperationMetrics[] metrics = new OperationMetrics[OPERATIONS.length];
+        for (int i = 0; i < metrics.length; i++) {
+            metrics[i] = new OperationMetrics();
+        }
+
+        final OperationMetrics[] previous = operationMetricsMap.putIfAbsent(valueType, metrics);
+        if (previous != null) {
+            return previous;
+        }
+
+        if (jmxName != null) {
+            for (final StorageOperation operation : OPERATIONS) {
+                register("type=Operation,name=" + ObjectName.quote(jmxName) + ",valueType=" +
+                         ObjectName.quote(valueType.getName()) + ",operation=" + operation.name(),
+                        metrics[operation.ordinal()]);
+            }
+        }
+        return metrics;
+    }
+
+    private void register(final String properties, final Object mbean) {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            final ObjectName name = new ObjectName(DOMAIN + ":" + properties);
+            server.registerMBean(mbean, name);
+            synchronized (registeredNames) {
+                registeredNames.add(name);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Unregisters every MXBean of these metrics from the platform MBean server.
+     */
+    public void unregister() {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        synchronized (registeredNames) {
+            for (final ObjectName name : registeredNames) {
+                try {
+                    server.unregisterMBean(name);
+                } catch (JMException e) {
+                    // already unregistered
+                }
+            }
+            registeredNames.clear();
+        }
+    }
+}
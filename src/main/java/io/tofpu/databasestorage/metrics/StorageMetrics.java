@@ -0,0 +1,66 @@
+package io.tofpu.databasestorage.metrics;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Receives the measurements of the {@link io.tofpu.databasestorage.StorageBase}.
+ * Every method is called on the hot path, so implementations shall not block,
+ * see {@link RecordingStorageMetrics}.
+ * <p>
+ * An operation is first submitted, then started once it leaves the queue of
+ * the executor, and completed once the resolver returned. Operations that are
+ * served from the cache or from a pending write are not recorded.
+ */
+public interface StorageMetrics {
+    /**
+     * The default metrics, which record nothing. The {@link io.tofpu.databasestorage.StorageBase}
+     * skips taking any measurement when these are used.
+     */
+    StorageMetrics NOOP = new StorageMetrics() {};
+
+    /**
+     * @param valueType the value type of the operation
+     * @param operation the submitted operation
+     */
+    default void onSubmit(final Class<?> valueType, final StorageOperation operation) {}
+
+    /**
+     * @param valueType the value type of the operation
+     * @param operation the started operation
+     * @param queueWaitNanos the time the operation waited to be started
+     */
+    default void onStart(final Class<?> valueType, final StorageOperation operation,
+            final long queueWaitNanos) {}
+
+    /**
+     * @param valueType the value type of the operation
+     * @param operation the completed operation
+     * @param executionNanos the time the operation took to execute
+     * @param failed true if the operation failed, false otherwise
+     */
+    default void onComplete(final Class<?> valueType, final StorageOperation operation,
+            final long executionNanos, final boolean failed) {}
+
+    /**
+     * @param valueType the value type of the operation
+     * @param operation the operation that was submitted, but never started,
+     * as it was rejected or cancelled by the
+     * {@link io.tofpu.databasestorage.executor.AdmissionController}
+     */
+    default void onRejected(final Class<?> valueType, final StorageOperation operation) {}
+
+    /**
+     * @param keyType the type of the serialized key
+     * @param nanos the time the key took to be serialized
+     */
+    default void onKeySerialized(final Class<?> keyType, final long nanos) {}
+
+    /**
+     * Called once per queue by the {@link io.tofpu.databasestorage.StorageBase}
+     * when it is constructed, e.g. for the queue of the executor.
+     *
+     * @param name the name of the queue
+     * @param depth the supplier of the current amount of queued tasks
+     */
+    default void registerQueue(final String name, final LongSupplier depth) {}
+}
@@ -0,0 +1,13 @@
+package io.tofpu.databasestorage.metrics;
+
+import java.util.Map;
+
+/**
+ * Exposes the queue depths of the {@link RecordingStorageMetrics} via JMX.
+ */
+public interface StorageMetricsMXBean {
+    /**
+     * @return the current amount of queued tasks, mapped by the queue name
+     */
+    Map<String, Long> getQueueDepths();
+}
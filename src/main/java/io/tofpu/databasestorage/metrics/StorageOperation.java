@@ -0,0 +1,16 @@
+package io.tofpu.databasestorage.metrics;
+
+/**
+ * The operations that are recorded by the {@link StorageMetrics}.
+ */
+public enum StorageOperation {
+    SAVE,
+    RETRIEVE,
+    DELETE,
+    SAVE_ALL,
+    RETRIEVE_ALL,
+    DELETE_ALL,
+    WARM_UP,
+    TRANSACTION,
+    FIND_BY_INDEX
+}
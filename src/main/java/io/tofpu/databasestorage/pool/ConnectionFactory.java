@@ -0,0 +1,17 @@
+package io.tofpu.databasestorage.pool;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Opens new connections to the database for the {@link ConnectionPool}.
+ */
+@FunctionalInterface
+public interface ConnectionFactory {
+    /**
+     * @return a new connection to the database
+     *
+     * @throws SQLException if the connection could not be established
+     */
+    Connection create() throws SQLException;
+}
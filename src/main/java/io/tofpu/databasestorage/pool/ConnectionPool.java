@@ -0,0 +1,240 @@
+package io.tofpu.databasestorage.pool;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * A lightweight pool of JDBC connections.
+ * <p>
+ * Every lease holds a permit, so there are never more connections open than
+ * the configured maximum. Acquiring an idle connection does not lock, the
+ * idle connections are kept in a stack so that the most recently used
+ * connection is leased first, and the rarely used ones can be closed once
+ * they exceed the idle timeout.
+ */
+public class ConnectionPool implements AutoCloseable {
+    static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+    private final ConnectionFactory connectionFactory;
+    private final ConnectionPoolOptions options;
+    private final Consumer<Connection> discardListener;
+
+    private final ConcurrentLinkedDeque<PooledConnection> idleConnections = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger openCount = new AtomicInteger();
+    private final Semaphore permits;
+    private final ScheduledExecutorService maintenanceScheduler;
+
+    private volatile boolean closed;
+
+    public ConnectionPool(final ConnectionFactory connectionFactory,
+            final ConnectionPoolOptions options) {
+        this(connectionFactory, options, connection -> {});
+    }
+
+    /**
+     * @param connectionFactory the factory that opens new connections
+     * @param options the options of the pool
+     * @param discardListener the listener that is called right before a
+     * connection is closed by the pool, e.g. to close its cached statements
+     */
+    public ConnectionPool(final ConnectionFactory connectionFactory,
+            final ConnectionPoolOptions options, final Consumer<Connection> discardListener) {
+        this.connectionFactory = connectionFactory;
+        this.options = options;
+        this.discardListener = discardListener;
+        this.permits = new Semaphore(options.getMaximumSize());
+
+        final long idleTimeout = options.getIdleTimeoutMillis();
+        if (idleTimeout > 0) {
+            this.maintenanceScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "storage-pool-maintenance");
+                thread.setDaemon(true);
+                return thread;
+            });
+            final long period = Math.max(idleTimeout / 2, 1);
+            maintenanceScheduler.scheduleWithFixedDelay(this::maintain, period, period,
+                    TimeUnit.MILLISECONDS);
+        } else {
+            this.maintenanceScheduler = null;
+        }
+    }
+
+    /**
+     * Leases a connection from the pool, the connection has to be returned
+     * by closing the returned {@link PooledConnection}.
+     *
+     * @return the leased connection
+     *
+     * @throws SQLException if no connection became available within the
+     * acquire timeout, or a new connection could not be established
+     */
+    public PooledConnection lease() throws SQLException {
+        if (closed) {
+            throw new SQLException("The connection pool is closed");
+        }
+
+        if (!permits.tryAcquire()) {
+            try {
+                if (!permits.tryAcquire(options.getAcquireTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+                    throw new SQLTimeoutException("Timed out while waiting for a connection");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for a connection", e);
+            }
+        }
+
+        try {
+            PooledConnection pooledConnection;
+            while ((pooledConnection = idleConnections.pollFirst()) != null) {
+                if (isUsable(pooledConnection)) {
+                    pooledConnection.onLease();
+                    return pooledConnection;
+                }
+                discard(pooledConnection);
+            }
+
+            pooledConnection = open();
+            pooledConnection.onLease();
+            return pooledConnection;
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    void release(final PooledConnection pooledConnection) {
+        try {
+            if (closed || pooledConnection.isBroken()) {
+                discard(pooledConnection);
+                return;
+            }
+
+            pooledConnection.touch();
+            idleConnections.offerFirst(pooledConnection);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Opens connections until the minimum size of the pool is reached.
+     *
+     * @throws SQLException if a connection could not be established
+     */
+    public void fill() throws SQLException {
+        while (!closed && openCount.get() < options.getMinimumSize()) {
+            if (!permits.tryAcquire()) {
+                return;
+            }
+            try {
+                idleConnections.offerLast(open());
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * @return the amount of connections that are currently open
+     */
+    public int getOpenCount() {
+        return openCount.get();
+    }
+
+    /**
+     * @return the amount of connections that are currently idle
+     */
+    public int getIdleCount() {
+        return idleConnections.size();
+    }
+
+    /**
+     * @return the options of this pool
+     */
+    public ConnectionPoolOptions getOptions() {
+        return options;
+    }
+
+    private PooledConnection open() throws SQLException {
+        final Connection connection = connectionFactory.create();
+        openCount.incrementAndGet();
+        return new PooledConnection(this, connection);
+    }
+
+    private boolean isUsable(final PooledConnection pooledConnection) {
+        final long idleNanos = System.nanoTime() - pooledConnection.getLastUsedNanos();
+        if (idleNanos < TimeUnit.MILLISECONDS.toNanos(options.getValidationIntervalMillis())) {
+            return true;
+        }
+
+        try {
+            return pooledConnection.getConnection().isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void discard(final PooledConnection pooledConnection) {
+        openCount.decrementAndGet();
+        discardListener.accept(pooledConnection.getConnection());
+        try {
+            pooledConnection.getConnection().close();
+        } catch (SQLException ignored) {
+            // the connection is unusable either way
+        }
+    }
+
+    /**
+     * Closes the connections that exceeded the idle timeout, and then opens
+     * connections until the minimum size of the pool is reached again.
+     */
+    private void maintain() {
+        final long idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(options.getIdleTimeoutMillis());
+        final long now = System.nanoTime();
+
+        // the least recently used connections are at the end of the stack
+        final Iterator<PooledConnection> iterator = idleConnections.descendingIterator();
+        while (iterator.hasNext() && openCount.get() > options.getMinimumSize()) {
+            final PooledConnection pooledConnection = iterator.next();
+            if (now - pooledConnection.getLastUsedNanos() < idleTimeoutNanos) {
+                break;
+            }
+            if (idleConnections.removeLastOccurrence(pooledConnection)) {
+                discard(pooledConnection);
+            }
+        }
+
+        try {
+            fill();
+        } catch (SQLException ignored) {
+            // the next lease will report the failure
+        }
+    }
+
+    /**
+     * Closes every idle connection, leased connections are closed once they
+     * are returned to the pool.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        if (maintenanceScheduler != null) {
+            maintenanceScheduler.shutdownNow();
+        }
+
+        PooledConnection pooledConnection;
+        while ((pooledConnection = idleConnections.pollFirst()) != null) {
+            discard(pooledConnection);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package io.tofpu.databasestorage.pool;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The options that are used to configure a {@link ConnectionPool}.
+ */
+public class ConnectionPoolOptions {
+    private static final int DEFAULT_MAXIMUM_SIZE = 10;
+    private static final int UNBOUNDED_MAXIMUM_SIZE = 64;
+
+    private final int minimumSize;
+    private final int maximumSize;
+    private final long idleTimeoutMillis;
+    private final long acquireTimeoutMillis;
+    private final long validationIntervalMillis;
+
+    /**
+     * Creates options with a ten minute idle timeout, a thirty second acquire
+     * timeout, and connections that are validated once they were idle for
+     * more than a second.
+     *
+     * @param minimumSize the amount of connections that are kept open
+     * @param maximumSize the maximum amount of connections that may be open
+     */
+    public ConnectionPoolOptions(final int minimumSize, final int maximumSize) {
+        this(minimumSize, maximumSize, TimeUnit.MINUTES.toMillis(10),
+                TimeUnit.SECONDS.toMillis(30), TimeUnit.SECONDS.toMillis(1),
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param minimumSize the amount of connections that are kept open
+     * @param maximumSize the maximum amount of connections that may be open
+     * @param idleTimeout the time an idle connection is kept open while there
+     * are more than the minimum amount of connections, or 0 to never close
+     * idle connections
+     * @param acquireTimeout the maximum time to wait for a connection
+     * @param validationInterval the time a connection may be idle before it is
+     * validated again on lease
+     * @param unit the unit of the given times
+     */
+    public ConnectionPoolOptions(final int minimumSize, final int maximumSize,
+            final long idleTimeout, final long acquireTimeout,
+            final long validationInterval, final TimeUnit unit) {
+        if (minimumSize < 0 || maximumSize <= 0 || minimumSize > maximumSize) {
+            throw new IllegalArgumentException("Invalid pool size " + minimumSize + ".." + maximumSize);
+        }
+
+        this.minimumSize = minimumSize;
+        this.maximumSize = maximumSize;
+        this.idleTimeoutMillis = unit.toMillis(idleTimeout);
+        this.acquireTimeoutMillis = unit.toMillis(acquireTimeout);
+        this.validationIntervalMillis = unit.toMillis(validationInterval);
+    }
+
+    /**
+     * Creates options that allow one connection per thread of the given
+     * executor, so that no asynchronous operation has to wait for a connection.
+     *
+     * @param executorService the executor the operations are run on
+     *
+     * @return the options that are aligned to the executor
+     */
+    public static ConnectionPoolOptions alignedTo(final ExecutorService executorService) {
+        return alignedTo(executorService, 0);
+    }
+
+    /**
+     * Creates options that allow one connection per thread of the given
+     * executor, and the given amount of connections for the threads that
+     * lease connections outside of the executor, e.g. the group-commit writer.
+     *
+     * @param executorService the executor the operations are run on
+     * @param reservedSize the amount of connections that are leased outside
+     * of the executor
+     *
+     * @return the options that are aligned to the executor
+     */
+    public static ConnectionPoolOptions alignedTo(final ExecutorService executorService,
+            final int reservedSize) {
+        if (reservedSize < 0) {
+            throw new IllegalArgumentException("Invalid reserved size " + reservedSize);
+        }
+
+        int maximumSize = DEFAULT_MAXIMUM_SIZE;
+        if (executorService instanceof ThreadPoolExecutor) {
+            maximumSize = Math.min(((ThreadPoolExecutor) executorService).getMaximumPoolSize(),
+                    UNBOUNDED_MAXIMUM_SIZE);
+        }
+        return new ConnectionPoolOptions(1, maximumSize + reservedSize);
+    }
+
+    /**
+     * @return the amount of connections that are kept open
+     */
+    public int getMinimumSize() {
+        return minimumSize;
+    }
+
+    /**
+     * @return the maximum amount of connections that may be open
+     */
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * @return the time in milliseconds an idle connection is kept open, or 0
+     * to never close idle connections
+     */
+    public long getIdleTimeoutMillis() {
+        return idleTimeoutMillis;
+    }
+
+    /**
+     * @return the maximum time in milliseconds to wait for a connection
+     */
+    public long getAcquireTimeoutMillis() {
+        return acquireTimeoutMillis;
+    }
+
+    /**
+     * @return the time in milliseconds a connection may be idle before it is
+     * validated again on lease
+     */
+    public long getValidationIntervalMillis() {
+        return validationIntervalMillis;
+    }
+}
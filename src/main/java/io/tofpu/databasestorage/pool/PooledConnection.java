@@ -0,0 +1,94 @@
+package io.tofpu.databasestorage.pool;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+
+/**
+ * A connection that is leased from a {@link ConnectionPool}, closing it
+ * returns the connection to the pool instead of closing it.
+ */
+public final class PooledConnection implements AutoCloseable {
+    private final ConnectionPool pool;
+    private final Connection connection;
+
+    private volatile long lastUsedNanos;
+    private boolean leased;
+    private boolean broken;
+
+    PooledConnection(final ConnectionPool pool, final Connection connection) {
+        this.pool = pool;
+        this.connection = connection;
+        this.lastUsedNanos = System.nanoTime();
+    }
+
+    /**
+     * @return the underlying connection, it must not be closed directly
+     */
+    public Connection getConnection() {
+        return connection;
+    }
+
+    /**
+     * Marks the connection as broken, so that it is closed instead of being
+     * returned to the pool.
+     */
+    public void invalidate() {
+        this.broken = true;
+    }
+
+    /**
+     * Marks the connection as broken if the given failure was caused by the
+     * connection itself, i.e. it is a connection exception, or the connection
+     * is no longer valid, so that it is closed instead of being returned to
+     * the pool.
+     *
+     * @param failure the failure of an operation on the connection
+     */
+    public void invalidateOn(final SQLException failure) {
+        final String sqlState = failure.getSQLState();
+        if (failure instanceof SQLNonTransientConnectionException || failure instanceof SQLRecoverableException ||
+            (sqlState != null && sqlState.startsWith("08"))) {
+            invalidate();
+            return;
+        }
+
+        try {
+            if (!connection.isValid(ConnectionPool.VALIDATION_TIMEOUT_SECONDS)) {
+                invalidate();
+            }
+        } catch (SQLException e) {
+            invalidate();
+        }
+    }
+
+    /**
+     * Returns the connection to the pool.
+     */
+    @Override
+    public void close() {
+        if (!leased) {
+            return;
+        }
+        leased = false;
+        pool.release(this);
+    }
+
+    void onLease() {
+        this.leased = true;
+        this.broken = false;
+    }
+
+    void touch() {
+        this.lastUsedNanos = System.nanoTime();
+    }
+
+    long getLastUsedNanos() {
+        return lastUsedNanos;
+    }
+
+    boolean isBroken() {
+        return broken;
+    }
+}
@@ -1,5 +1,11 @@
 package io.tofpu.databasestorage.resolver.key;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
 public abstract class StorageKeyResolver<T> {
     private final Class<T> type;
 
@@ -16,14 +22,83 @@ public abstract class StorageKeyResolver<T> {
      */
     public abstract String serialize(final Object obj);
 
-//    /**
-//     * This method is used to deserialize the object.
-//     *
-//     * @param serialized the serialized object
-//     *
-//     * @return the deserialized object
-//     */
-//    public abstract T deserialize(final String serialized);
+    /**
+     * This method is used to deserialize the object.
+     *
+     * @param serialized the serialized object
+     *
+     * @return the deserialized object
+     * @throws UnsupportedOperationException if this resolver cannot deserialize
+     * its keys
+     */
+    public T deserialize(final String serialized) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " cannot deserialize keys");
+    }
+
+    /**
+     * This method is used to bind a serialized key to a statement parameter in
+     * the native form of the key, e.g. a UUID as 16 bytes. By default, the
+     * serialized key is bound as a string.
+     *
+     * @param statement the statement to bind the key to
+     * @param index the index of the parameter
+     * @param serialized the serialized key
+     *
+     * @throws SQLException if the key could not be bound
+     */
+    public void bind(final PreparedStatement statement, final int index,
+            final String serialized) throws SQLException {
+        statement.setString(index, serialized);
+    }
+
+    /**
+     * This method is the reverse of {@link #bind(PreparedStatement, int, String)}.
+     *
+     * @param resultSet the result set to read the key from
+     * @param column the column of the key
+     *
+     * @return the serialized key, or null if the column is null
+     * @throws SQLException if the key could not be read
+     */
+    public String read(final ResultSet resultSet, final String column) throws SQLException {
+        return resultSet.getString(column);
+    }
+
+    /**
+     * @param serialized the serialized key
+     *
+     * @return the amount of bytes {@link #encode(String, ByteBuffer)} writes
+     * for the given key
+     */
+    public int getEncodedLength(final String serialized) {
+        return Integer.BYTES + utf8Length(serialized);
+    }
+
+    /**
+     * This method is used to write a serialized key to a buffer in its binary
+     * form. By default, the key is written as a length-prefixed UTF-8 string.
+     *
+     * @param serialized the serialized key
+     * @param buffer the buffer to write the key to
+     */
+    public void encode(final String serialized, final ByteBuffer buffer) {
+        final byte[] bytes = serialized.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    /**
+     * This method is the reverse of {@link #encode(String, ByteBuffer)}.
+     *
+     * @param buffer the buffer to read the key from
+     *
+     * @return the serialized key
+     */
+    public String decode(final ByteBuffer buffer) {
+        final byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
 
     /**
      * @return the key resolver type
@@ -31,4 +106,22 @@ public abstract class StorageKeyResolver<T> {
     public Class<T> getType() {
         return type;
     }
+
+    private static int utf8Length(final String string) {
+        int length = 0;
+        for (int i = 0; i < string.length(); i++) {
+            final char c = string.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
 }
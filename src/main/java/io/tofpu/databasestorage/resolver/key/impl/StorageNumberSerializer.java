@@ -2,7 +2,20 @@ package io.tofpu.databasestorage.resolver.key.impl;
 
 import io.tofpu.databasestorage.resolver.key.StorageKeyResolver;
 
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Serializes numbers into their decimal string form, and binds integral
+ * numbers as native integers.
+ */
 public class StorageNumberSerializer extends StorageKeyResolver<Number> {
+    private static final byte INTEGRAL = 0;
+    private static final byte DECIMAL = 1;
+
     public StorageNumberSerializer() {
         super(Number.class);
     }
@@ -11,4 +24,75 @@ public class StorageNumberSerializer extends StorageKeyResolver<Number> {
     public String serialize(final Object obj) {
         return obj.toString();
     }
+
+    @Override
+    public Number deserialize(final String serialized) {
+        if (isIntegral(serialized)) {
+            return Long.parseLong(serialized);
+        }
+        return new BigDecimal(serialized);
+    }
+
+    @Override
+    public void bind(final PreparedStatement statement, final int index,
+            final String serialized) throws SQLException {
+        if (isIntegral(serialized)) {
+            statement.setLong(index, Long.parseLong(serialized));
+        } else {
+            statement.setBigDecimal(index, new BigDecimal(serialized));
+        }
+    }
+
+    @Override
+    public String read(final ResultSet resultSet, final String column) throws SQLException {
+        final Object value = resultSet.getObject(column);
+        return value == null ? null : value.toString();
+    }
+
+    @Override
+    public int getEncodedLength(final String serialized) {
+        if (isIntegral(serialized)) {
+            return 1 + Long.BYTES;
+        }
+        return 1 + super.getEncodedLength(serialized);
+    }
+
+    @Override
+    public void encode(final String serialized, final ByteBuffer buffer) {
+        if (isIntegral(serialized)) {
+            buffer.put(INTEGRAL);
+            buffer.putLong(Long.parseLong(serialized));
+        } else {
+            buffer.put(DECIMAL);
+            super.encode(serialized, buffer);
+        }
+    }
+
+    @Override
+    public String decode(final ByteBuffer buffer) {
+        if (buffer.get() == INTEGRAL) {
+            return Long.toString(buffer.getLong());
+        }
+        return super.decode(buffer);
+    }
+
+    /**
+     * @return true if the given string is an integer that fits into a long
+     */
+    private static boolean isIntegral(final String serialized) {
+        final int length = serialized.length();
+        final int start = length > 0 && serialized.charAt(0) == '-' ? 1 : 0;
+        if (length == start || length - start > 18) {
+            // longer numbers may overflow, they are handled as decimals
+            return false;
+        }
+
+        for (int i = start; i < length; i++) {
+            final char c = serialized.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
 }
@@ -2,9 +2,20 @@ package io.tofpu.databasestorage.resolver.key.impl;
 
 import io.tofpu.databasestorage.resolver.key.StorageKeyResolver;
 
+import java.nio.ByteBuffer;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.UUID;
 
+/**
+ * Serializes UUIDs into their canonical string form, and binds them as
+ * 16 bytes, so they should be stored in a {@code BLOB}/{@code BINARY(16)}
+ * column.
+ */
 public class StorageUUIDResolver extends StorageKeyResolver<UUID> {
+    private static final int UUID_LENGTH = 36;
+
     public StorageUUIDResolver() {
         super(UUID.class);
     }
@@ -13,4 +24,68 @@ public class StorageUUIDResolver extends StorageKeyResolver<UUID> {
     public String serialize(final Object obj) {
         return obj.toString();
     }
+
+    @Override
+    public UUID deserialize(final String serialized) {
+        return UUID.fromString(serialized);
+    }
+
+    @Override
+    public void bind(final PreparedStatement statement, final int index,
+            final String serialized) throws SQLException {
+        final ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES * 2);
+        encode(serialized, buffer);
+        statement.setBytes(index, buffer.array());
+    }
+
+    @Override
+    public String read(final ResultSet resultSet, final String column) throws SQLException {
+        final byte[] bytes = resultSet.getBytes(column);
+        if (bytes == null) {
+            return null;
+        }
+        return decode(ByteBuffer.wrap(bytes));
+    }
+
+    @Override
+    public int getEncodedLength(final String serialized) {
+        return Long.BYTES * 2;
+    }
+
+    @Override
+    public void encode(final String serialized, final ByteBuffer buffer) {
+        if (!isCanonical(serialized)) {
+            final UUID uuid = UUID.fromString(serialized);
+            buffer.putLong(uuid.getMostSignificantBits());
+            buffer.putLong(uuid.getLeastSignificantBits());
+            return;
+        }
+
+        // parses the canonical form without allocating a UUID
+        buffer.putLong(parseHex(serialized, 0, 8) << 32 | parseHex(serialized, 9, 13) << 16 |
+                       parseHex(serialized, 14, 18));
+        buffer.putLong(parseHex(serialized, 19, 23) << 48 | parseHex(serialized, 24, 36));
+    }
+
+    @Override
+    public String decode(final ByteBuffer buffer) {
+        return new UUID(buffer.getLong(), buffer.getLong()).toString();
+    }
+
+    private static boolean isCanonical(final String serialized) {
+        return serialized.length() == UUID_LENGTH && serialized.charAt(8) == '-' &&
+               serialized.charAt(13) == '-' && serialized.charAt(18) == '-' && serialized.charAt(23) == '-';
+    }
+
+    private static long parseHex(final String string, final int start, final int end) {
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            final int digit = Character.digit(string.charAt(i), 16);
+            if (digit < 0) {
+                throw new IllegalArgumentException("Invalid UUID string: " + string);
+            }
+            value = value << 4 | digit;
+        }
+        return value;
+    }
 }
@@ -0,0 +1,245 @@
+package io.tofpu.databasestorage.resolver.value;
+
+import io.tofpu.databasestorage.StorageBase;
+import io.tofpu.databasestorage.codec.CodecInput;
+import io.tofpu.databasestorage.codec.CodecOutput;
+import io.tofpu.databasestorage.codec.CompressingCodec;
+import io.tofpu.databasestorage.codec.StorageValueCodec;
+import io.tofpu.databasestorage.scan.ResultSetCursor;
+import io.tofpu.databasestorage.scan.StorageCursor;
+import io.tofpu.databasestorage.statement.CachedStatement;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link StorageValueResolver} that stores every value as a single BLOB,
+ * encoded by a {@link StorageValueCodec}, instead of mapping its fields to
+ * columns. This suits nested values, such as inventories or maps of
+ * statistics, which would otherwise have to be stored as JSON.
+ * <p>
+ * The table consists of an {@code id} column for the key, and a {@code data}
+ * column for the encoded value, see {@link #createTable()}.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class BlobValueResolver<K, V> extends StorageValueResolver<K, V> {
+    private static final int MAX_CHUNK_SIZE = 500;
+
+    private final StorageValueCodec<V> codec;
+    private final ThreadLocal<CodecOutput> outputs = ThreadLocal.withInitial(CodecOutput::new);
+
+    private final String createTableQuery;
+    private final String insertQuery;
+    private final String selectQuery;
+    private final String selectChunkPrefix;
+    private final String deleteQuery;
+    private final String scanQuery;
+
+    /**
+     * @param type the value type
+     * @param keyType the key type, or null if the keys are strings
+     * @param storageBase the storage this resolver belongs to
+     * @param table the name of the table
+     * @param keyColumnType the SQL type of the key column, e.g. {@code BLOB}
+     * for UUID keys
+     * @param codec the codec the values are encoded with
+     */
+    public BlobValueResolver(final Class<V> type, final Class<K> keyType,
+            final StorageBase storageBase, final String table, final String keyColumnType,
+            final StorageValueCodec<V> codec) {
+        this(type, keyType, storageBase, table, keyColumnType, codec, 0);
+    }
+
+    /**
+     * @param type the value type
+     * @param keyType the key type, or null if the keys are strings
+     * @param storageBase the storage this resolver belongs to
+     * @param table the name of the table
+     * @param keyColumnType the SQL type of the key column, e.g. {@code BLOB}
+     * for UUID keys
+     * @param codec the codec the values are encoded with
+     * @param compressionThreshold the encoded size in bytes from which values
+     * are compressed via {@link CompressingCodec}, or 0 to never compress them
+     */
+    public BlobValueResolver(final Class<V> type, final Class<K> keyType,
+            final StorageBase storageBase, final String table, final String keyColumnType,
+            final StorageValueCodec<V> codec, final int compressionThreshold) {
+        super(type, keyType, storageBase);
+        if (compressionThreshold < 0) {
+            throw new IllegalArgumentException("compressionThreshold must not be negative");
+        }
+
+        this.codec = compressionThreshold == 0 ? codec : new CompressingCodec<>(codec, compressionThreshold);
+
+        this.createTableQuery = "CREATE TABLE IF NOT EXISTS " + table + " (id " + keyColumnType +
+                " PRIMARY KEY, data BLOB NOT NULL)";
+        this.insertQuery = "INSERT OR REPLACE INTO " + table + " (id, data) VALUES (?, ?)";
+        this.selectQuery = "SELECT data FROM " + table + " WHERE id = ?";
+        this.selectChunkPrefix = "SELECT id, data FROM " + table + " WHERE id IN (";
+        this.deleteQuery = "DELETE FROM " + table + " WHERE id = ?";
+        this.scanQuery = "SELECT id, data FROM " + table;
+    }
+
+    /**
+     * This method will create the table of the values, if it does not exist yet.
+     *
+     * @throws SQLException if the table could not be created
+     */
+    public void createTable() throws SQLException {
+        try (final CachedStatement cachedStatement = prepareStatement(createTableQuery)) {
+            cachedStatement.getStatement().execute();
+        }
+    }
+
+    @Override
+    public void save(final String key, final Object value) throws SQLException {
+        try (final CachedStatement cachedStatement = prepareStatement(insertQuery)) {
+            final PreparedStatement statement = cachedStatement.getStatement();
+            bindKey(statement, 1, key);
+            statement.setBytes(2, encode(value));
+            statement.executeUpdate();
+        }
+    }
+
+    @Override
+    public void saveAll(final Map<String, Object> values) throws SQLException {
+        try (final CachedStatement cachedStatement = prepareStatement(insertQuery)) {
+            final PreparedStatement statement = cachedStatement.getStatement();
+            for (final Map.Entry<String, Object> entry : values.entrySet()) {
+                bindKey(statement, 1, entry.getKey());
+                statement.setBytes(2, encode(entry.getValue()));
+                statement.addBatch();
+            }
+
+            statement.executeBatch();
+        }
+    }
+
+    @Override
+    public V retrieve(final String key) throws SQLException {
+        try (final CachedStatement cachedStatement = prepareStatement(selectQuery)) {
+            final PreparedStatement statement = cachedStatement.getStatement();
+            bindKey(statement, 1, key);
+
+            try (final ResultSet resultSet = statement.executeQuery()) {
+                if (!resultSet.next()) {
+                    return null;
+                }
+                return decode(resultSet.getBytes("data"));
+            }
+        }
+    }
+
+    @Override
+    public Map<String, V> retrieveAll(final Collection<String> keys) throws SQLException {
+        final Map<String, V> values = new HashMap<>();
+
+        final List<String> keyList = new ArrayList<>(keys);
+        for (int index = 0; index < keyList.size(); index += MAX_CHUNK_SIZE) {
+            final List<String> chunk = keyList.subList(index,
+                    Math.min(index + MAX_CHUNK_SIZE, keyList.size()));
+            final String query = selectChunkPrefix +
+                    String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+
+            try (final CachedStatement cachedStatement = prepareStatement(query)) {
+                final PreparedStatement statement = cachedStatement.getStatement();
+                for (int i = 0; i < chunk.size(); i++) {
+                    bindKey(statement, i + 1, chunk.get(i));
+                }
+
+                try (final ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        values.put(readKey(resultSet, "id"), decode(resultSet.getBytes("data")));
+                    }
+                }
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public void delete(final String key) throws SQLException {
+        try (final CachedStatement cachedStatement = prepareStatement(deleteQuery)) {
+            final PreparedStatement statement = cachedStatement.getStatement();
+            bindKey(statement, 1, key);
+            statement.executeUpdate();
+        }
+    }
+
+    @Override
+    public void deleteAll(final Collection<String> keys) throws SQLException {
+        try (final CachedStatement cachedStatement = prepareStatement(deleteQuery)) {
+            final PreparedStatement statement = cachedStatement.getStatement();
+            for (final String key : keys) {
+                bindKey(statement, 1, key);
+                statement.addBatch();
+            }
+
+            statement.executeBatch();
+        }
+    }
+
+    @Override
+    public StorageCursor<V> scan(final String fromKey, final String toKey,
+            final int fetchSize) throws SQLException {
+        final StringBuilder query = new StringBuilder(scanQuery);
+        if (fromKey != null) {
+            query.append(" WHERE id >= ?");
+        }
+        if (toKey != null) {
+            query.append(fromKey == null ? " WHERE" : " AND").append(" id < ?");
+        }
+        query.append(" ORDER BY id");
+
+        final PreparedStatement statement = storageBase.currentConnection().prepareStatement(
+                query.toString(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        try {
+            statement.setFetchSize(fetchSize);
+
+            int index = 1;
+            if (fromKey != null) {
+                bindKey(statement, index++, fromKey);
+            }
+            if (toKey != null) {
+                bindKey(statement, index, toKey);
+            }
+
+            return new ResultSetCursor<>(statement, statement.executeQuery(),
+                    resultSet -> readKey(resultSet, "id"),
+                    resultSet -> decode(resultSet.getBytes("data")));
+        } catch (SQLException | RuntimeException e) {
+            statement.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the codec the values are encoded with, which is wrapped in a
+     * {@link CompressingCodec} if a compression threshold was given
+     */
+    @Override
+    public StorageValueCodec<V> getCodec() {
+        return codec;
+    }
+
+    private byte[] encode(final Object value) {
+        // the output is reused per thread, only the final bytes are copied
+        final CodecOutput output = outputs.get();
+        output.clear();
+        codec.encode(getType().cast(value), output);
+        return output.toByteArray();
+    }
+
+    private V decode(final byte[] bytes) {
+        return codec.decode(new CodecInput(bytes));
+    }
+}
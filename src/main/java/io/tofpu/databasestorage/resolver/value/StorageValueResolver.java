@@ -1,15 +1,44 @@
 package io.tofpu.databasestorage.resolver.value;
 
 import io.tofpu.databasestorage.StorageBase;
+import io.tofpu.databasestorage.codec.StorageValueCodec;
+import io.tofpu.databasestorage.index.StorageIndex;
+import io.tofpu.databasestorage.resolver.key.StorageKeyResolver;
+import io.tofpu.databasestorage.scan.StorageCursor;
+import io.tofpu.databasestorage.statement.CachedStatement;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public abstract class StorageValueResolver<K, V> {
     private final Class<V> type;
+    private final Class<K> keyType;
     protected final StorageBase storageBase;
 
+    private StorageKeyResolver<K> keyResolver;
+
     protected StorageValueResolver(final Class<V> type, final StorageBase storageBase) {
+        this(type, null, storageBase);
+    }
+
+    /**
+     * @param type the value type
+     * @param keyType the key type, its {@link StorageKeyResolver} is used by
+     * {@link #bindKey(PreparedStatement, int, String)} and
+     * {@link #readKey(ResultSet, String)}
+     * @param storageBase the storage this resolver belongs to
+     */
+    protected StorageValueResolver(final Class<V> type, final Class<K> keyType,
+            final StorageBase storageBase) {
         this.type = type;
+        this.keyType = keyType;
         this.storageBase = storageBase;
     }
 
@@ -24,6 +53,45 @@ public abstract class StorageValueResolver<K, V> {
      */
     public abstract void save(final String key, final Object value) throws SQLException;
 
+    /**
+     * This method will be called asynchronously by the {@link StorageBase}
+     * class instead of {@link #save(String, Object)} when change tracking is
+     * enabled and the previously persisted state of the value is known, so
+     * that only the changed fields have to be written, e.g. with a narrow
+     * {@code UPDATE}. The fields are named as in {@link #snapshot(Object)}.
+     * <p>
+     * By default, this method will call {@link #save(String, Object)}.
+     *
+     * @param key the value key
+     * @param value the value to store in the database
+     * @param changedFields the names of the fields that changed since the
+     * value was last persisted, never empty
+     *
+     * @throws SQLException if an error occurs while storing the value
+     */
+    public void saveChanges(final String key, final Object value,
+            final Set<String> changedFields) throws SQLException {
+        save(key, value);
+    }
+
+    /**
+     * This method will be called by the {@link StorageBase} class when
+     * several values are written at once, for an example when the write-behind
+     * queue is flushed. The call is already wrapped in a transaction.
+     * <p>
+     * By default, this method will call {@link #save(String, Object)} for each
+     * value, resolvers are encouraged to override it with a JDBC batch.
+     *
+     * @param values the values to store in the database, mapped by their key
+     *
+     * @throws SQLException if an error occurs while storing the values
+     */
+    public void saveAll(final Map<String, Object> values) throws SQLException {
+        for (final Map.Entry<String, Object> entry : values.entrySet()) {
+            save(entry.getKey(), entry.getValue());
+        }
+    }
+
     /**
      * @param key the key that is used to retrieve the value
      * from the database
@@ -33,6 +101,31 @@ public abstract class StorageValueResolver<K, V> {
      */
     public abstract V retrieve(final String key) throws SQLException;
 
+    /**
+     * This method will be called asynchronously by the {@link StorageBase}
+     * class when several values are retrieved at once.
+     * <p>
+     * By default, this method will call {@link #retrieve(String)} for each
+     * key, resolvers are encouraged to override it with a single query, e.g.
+     * by chunking the keys into {@code IN (...)} clauses.
+     *
+     * @param keys the keys that are used to retrieve the values
+     *
+     * @return the values that are stored in the database mapped by their key,
+     * keys without a value are left out
+     * @throws SQLException if an error occurs while retrieving the values
+     */
+    public Map<String, V> retrieveAll(final Collection<String> keys) throws SQLException {
+        final Map<String, V> values = new HashMap<>();
+        for (final String key : keys) {
+            final V value = retrieve(key);
+            if (value != null) {
+                values.put(key, value);
+            }
+        }
+        return values;
+    }
+
     /**
      * This method will be called asynchronously by
      * the {@link StorageBase} class.
@@ -42,6 +135,186 @@ public abstract class StorageValueResolver<K, V> {
      */
     public abstract void delete(final String key) throws SQLException;
 
+    /**
+     * This method will be called by the {@link StorageBase} class when
+     * several values are deleted at once. The call is already wrapped in
+     * a transaction.
+     * <p>
+     * By default, this method will call {@link #delete(String)} for each
+     * key, resolvers are encouraged to override it with a JDBC batch.
+     *
+     * @param keys the keys that are associated with the values
+     *
+     * @throws SQLException if an error occurs while deleting the values
+     */
+    public void deleteAll(final Collection<String> keys) throws SQLException {
+        for (final String key : keys) {
+            delete(key);
+        }
+    }
+
+    /**
+     * This method will be called asynchronously by the {@link StorageBase}
+     * class to stream the stored values of this type. The cursor shall be
+     * backed by a forward-only result set with the given fetch size, so that
+     * only the rows that are requested are held in memory, see
+     * {@link io.tofpu.databasestorage.scan.ResultSetCursor}. The statement
+     * shall be prepared on {@link StorageBase#currentConnection()} without
+     * the statement cache, as it stays open until the cursor is closed.
+     * <p>
+     * By default, scans are not supported.
+     *
+     * @param fromKey the lowest serialized key to be scanned, or null to scan
+     * from the first key
+     * @param toKey the serialized key to stop the scan at, which is not scanned
+     * itself, or null to scan until the last key
+     * @param fetchSize the amount of rows to be fetched from the database at once
+     *
+     * @return the cursor over the values in the order of their keys
+     * @throws SQLException if an error occurs while querying the values
+     * @throws UnsupportedOperationException if this resolver does not support scans
+     */
+    public StorageCursor<V> scan(final String fromKey, final String toKey,
+            final int fetchSize) throws SQLException {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support scans");
+    }
+
+    /**
+     * This method will be called asynchronously by the {@link StorageBase}
+     * class when a lookup of one of the {@link #getIndexes()} found no key in
+     * memory, e.g. with a {@code SELECT ... WHERE name = ?}.
+     * <p>
+     * By default, index queries are not supported, and such a lookup finds
+     * no value.
+     *
+     * @param indexName the name of the index
+     * @param indexedValue the indexed value that is looked up
+     *
+     * @return the values whose indexed value equals the given one, mapped by
+     * their key
+     * @throws SQLException if an error occurs while querying the values
+     * @throws UnsupportedOperationException if this resolver does not support
+     * index queries
+     */
+    public Map<String, V> findByIndex(final String indexName, final Object indexedValue) throws SQLException {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support index queries");
+    }
+
+    /**
+     * This method will check out a cached statement of the given SQL from the
+     * {@link StorageBase}, the statement has to be closed once it is no longer
+     * used, which returns it to the cache.
+     *
+     * @param sql the SQL of the statement
+     *
+     * @return the checked out statement
+     * @throws SQLException if the statement could not be prepared
+     * @see StorageBase#prepareStatement(String)
+     */
+    protected CachedStatement prepareStatement(final String sql) throws SQLException {
+        return storageBase.prepareStatement(sql);
+    }
+
+    /**
+     * This method will bind the given key to a statement parameter in the
+     * native form of the key type, e.g. a UUID as 16 bytes, via
+     * {@link StorageKeyResolver#bind(PreparedStatement, int, String)}. If no
+     * key type was given, the key is bound as a string.
+     *
+     * @param statement the statement to bind the key to
+     * @param index the index of the parameter
+     * @param key the serialized key
+     *
+     * @throws SQLException if the key could not be bound
+     */
+    protected void bindKey(final PreparedStatement statement, final int index,
+            final String key) throws SQLException {
+        final StorageKeyResolver<K> resolver = getKeyResolver();
+        if (resolver == null) {
+            statement.setString(index, key);
+            return;
+        }
+        resolver.bind(statement, index, key);
+    }
+
+    /**
+     * This method is the reverse of {@link #bindKey(PreparedStatement, int, String)}.
+     *
+     * @param resultSet the result set to read the key from
+     * @param column the column of the key
+     *
+     * @return the serialized key
+     * @throws SQLException if the key could not be read
+     */
+    protected String readKey(final ResultSet resultSet, final String column) throws SQLException {
+        final StorageKeyResolver<K> resolver = getKeyResolver();
+        if (resolver == null) {
+            return resultSet.getString(column);
+        }
+        return resolver.read(resultSet, column);
+    }
+
+    /**
+     * @return the {@link StorageKeyResolver} of the key type, or null if no
+     * key type was given
+     */
+    protected StorageKeyResolver<K> getKeyResolver() {
+        // resolved lazily, the key resolvers are registered after the value resolvers
+        if (keyResolver == null && keyType != null) {
+            keyResolver = storageBase.getKeyResolver(keyType);
+        }
+        return keyResolver;
+    }
+
+    /**
+     * This method shall be overridden by resolvers whose values can be
+     * encoded into a binary form, which is required for the values to be
+     * appended to the {@link io.tofpu.databasestorage.journal.StorageJournal}.
+     *
+     * @return the codec of the values, or null if they cannot be encoded
+     */
+    public StorageValueCodec<V> getCodec() {
+        return null;
+    }
+
+    /**
+     * This method shall be overridden by resolvers that wish to take part in
+     * the change tracking of the {@link StorageBase}. The snapshot is compared
+     * to the one of the last persisted state, a save whose snapshot did not
+     * change is skipped, and otherwise the changed fields are passed to
+     * {@link #saveChanges(String, Object, Set)}.
+     * <p>
+     * The snapshot shall map every persisted field to an immutable copy of
+     * its state, which implements {@code equals}.
+     *
+     * @param value the value to take the snapshot of
+     *
+     * @return the state of the persisted fields mapped by their name, or null
+     * if the value shall not be tracked
+     */
+    public Map<String, Object> snapshot(final V value) {
+        return null;
+    }
+
+    /**
+     * This method shall be overridden by resolvers that wish to look up their
+     * values by something else than their key, via
+     * {@link StorageBase#findByIndexAsync(Class, String, Object)}. The
+     * indexes are created once by the {@link StorageBase} constructor.
+     *
+     * @return the secondary indexes of the values
+     */
+    public List<StorageIndex<V>> getIndexes() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * @return the key type, or null if it was not given
+     */
+    public Class<K> getKeyType() {
+        return keyType;
+    }
+
     /**
      * @return the value resolver type
      */
@@ -0,0 +1,77 @@
+package io.tofpu.databasestorage.scan;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * A {@link StorageCursor} over the rows of a {@link ResultSet}. The result set
+ * and its statement are closed alongside the cursor.
+ *
+ * @param <V> the type of the values
+ */
+public final class ResultSetCursor<V> implements StorageCursor<V> {
+    private final Statement statement;
+    private final ResultSet resultSet;
+    private final RowReader<String> keyReader;
+    private final RowReader<V> valueReader;
+
+    private String key;
+    private V value;
+
+    /**
+     * @param statement the statement the result set was queried by
+     * @param resultSet the result set to iterate over
+     * @param keyReader reads the serialized key of the current row
+     * @param valueReader reads the value of the current row
+     */
+    public ResultSetCursor(final Statement statement, final ResultSet resultSet,
+            final RowReader<String> keyReader, final RowReader<V> valueReader) {
+        this.statement = statement;
+        this.resultSet = resultSet;
+        this.keyReader = keyReader;
+        this.valueReader = valueReader;
+    }
+
+    @Override
+    public boolean next() throws SQLException {
+        if (!resultSet.next()) {
+            key = null;
+            value = null;
+            return false;
+        }
+
+        key = keyReader.read(resultSet);
+        value = valueReader.read(resultSet);
+        return true;
+    }
+
+    @Override
+    public String getKey() {
+        return key;
+    }
+
+    @Override
+    public V getValue() {
+        return value;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try {
+            resultSet.close();
+        } finally {
+            statement.close();
+        }
+    }
+
+    /**
+     * Reads a column or a value from the current row of a result set.
+     *
+     * @param <T> the type of the read value
+     */
+    @FunctionalInterface
+    public interface RowReader<T> {
+        T read(final ResultSet resultSet) throws SQLException;
+    }
+}
@@ -0,0 +1,71 @@
+package io.tofpu.databasestorage.scan;
+
+/**
+ * The options of a scan via {@link io.tofpu.databasestorage.StorageBase#streamAsync(Class, ScanOptions)}.
+ */
+public class ScanOptions {
+    private static final int DEFAULT_FETCH_SIZE = 256;
+
+    private final int fetchSize;
+    private final Object fromKey;
+    private final Object toKey;
+
+    /**
+     * Scans every value of a type.
+     */
+    public ScanOptions() {
+        this(DEFAULT_FETCH_SIZE);
+    }
+
+    /**
+     * Scans every value of a type.
+     *
+     * @param fetchSize the amount of rows that are fetched from the database
+     * at once
+     */
+    public ScanOptions(final int fetchSize) {
+        this(fetchSize, null, null);
+    }
+
+    /**
+     * Scans the values whose key is within the given range, in the order the
+     * database sorts the bound keys in.
+     *
+     * @param fetchSize the amount of rows that are fetched from the database
+     * at once
+     * @param fromKey the lowest key to be scanned, or null to scan from the
+     * first key
+     * @param toKey the key to stop the scan at, which is not scanned itself,
+     * or null to scan until the last key
+     */
+    public ScanOptions(final int fetchSize, final Object fromKey, final Object toKey) {
+        if (fetchSize <= 0) {
+            throw new IllegalArgumentException("fetchSize must be positive");
+        }
+
+        this.fetchSize = fetchSize;
+        this.fromKey = fromKey;
+        this.toKey = toKey;
+    }
+
+    /**
+     * @return the amount of rows that are fetched from the database at once
+     */
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * @return the lowest key to be scanned, or null
+     */
+    public Object getFromKey() {
+        return fromKey;
+    }
+
+    /**
+     * @return the key to stop the scan at, or null
+     */
+    public Object getToKey() {
+        return toKey;
+    }
+}
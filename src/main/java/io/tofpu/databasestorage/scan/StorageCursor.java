@@ -0,0 +1,32 @@
+package io.tofpu.databasestorage.scan;
+
+import java.sql.SQLException;
+
+/**
+ * A forward-only cursor over the values of a type, which is returned by
+ * {@link io.tofpu.databasestorage.resolver.value.StorageValueResolver#scan(String, String, int)}.
+ *
+ * @param <V> the type of the values
+ */
+public interface StorageCursor<V> extends AutoCloseable {
+    /**
+     * Moves the cursor to the next value.
+     *
+     * @return true if there is a next value, false once the cursor is exhausted
+     * @throws SQLException if the next value could not be read
+     */
+    boolean next() throws SQLException;
+
+    /**
+     * @return the serialized key of the current value
+     */
+    String getKey();
+
+    /**
+     * @return the current value
+     */
+    V getValue();
+
+    @Override
+    void close() throws SQLException;
+}
@@ -0,0 +1,217 @@
+package io.tofpu.databasestorage.shard;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Merges the values of several publishers into one. Every source is
+ * subscribed to at once, and requests at most the prefetch amount of values
+ * ahead of the subscriber, so that the sources are read in parallel, while
+ * the amount of buffered values stays bounded.
+ * <p>
+ * The values of a source keep their order, but the values of different
+ * sources are interleaved in the order they arrive.
+ */
+final class MergingPublisher<T> implements Flow.Publisher<T> {
+    private final List<Flow.Publisher<T>> sources;
+    private final int prefetch;
+
+    MergingPublisher(final List<Flow.Publisher<T>> sources, final int prefetch) {
+        this.sources = sources;
+        this.prefetch = prefetch;
+    }
+
+    @Override
+    public void subscribe(final Flow.Subscriber<? super T> subscriber) {
+        final MergeSubscription subscription = new MergeSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+        for (int i = 0; i < sources.size(); i++) {
+            sources.get(i).subscribe(subscription.sources.get(i));
+        }
+    }
+
+    private final class MergeSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super T> subscriber;
+        private final List<SourceSubscriber> sources = new ArrayList<>();
+        private final Queue<Item> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger pendingDrains = new AtomicInteger();
+        private final AtomicInteger remainingSources;
+        private final AtomicReference<Throwable> error = new AtomicReference<>();
+
+        private volatile boolean cancelled;
+
+        // only accessed by the drain loop, which never runs concurrently
+        private boolean terminated;
+
+        private MergeSubscription(final Flow.Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+            for (int i = 0; i < MergingPublisher.this.sources.size(); i++) {
+                sources.add(new SourceSubscriber(this));
+            }
+            this.remainingSources = new AtomicInteger(sources.size());
+        }
+
+        @Override
+        public void request(final long n) {
+            if (n <= 0) {
+                fail(new IllegalArgumentException("non-positive request: " + n));
+                return;
+            }
+            demand.getAndAccumulate(n, (current, added) -> {
+                final long sum = current + added;
+                return sum < 0 ? Long.MAX_VALUE : sum;
+            });
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            cancelSources();
+            drain();
+        }
+
+        private void fail(final Throwable throwable) {
+            if (error.compareAndSet(null, throwable)) {
+                cancelSources();
+            }
+            drain();
+        }
+
+        private void cancelSources() {
+            for (final SourceSubscriber source : sources) {
+                source.cancel();
+            }
+        }
+
+        private void drain() {
+            if (pendingDrains.getAndIncrement() != 0) {
+                return;
+            }
+
+            int missed = 1;
+            while (true) {
+                if (!terminated) {
+                    emit();
+                }
+
+                missed = pendingDrains.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        private void emit() {
+            if (cancelled) {
+                terminated = true;
+                queue.clear();
+                return;
+            }
+
+            final long requested = demand.get();
+            long emitted = 0;
+            while (emitted != requested && error.get() == null && !cancelled) {
+                final Item item = queue.poll();
+                if (item == null) {
+                    break;
+                }
+
+                subscriber.onNext(item.value);
+                item.source.consumed();
+                emitted++;
+            }
+            if (emitted != 0 && requested != Long.MAX_VALUE) {
+                demand.addAndGet(-emitted);
+            }
+
+            final Throwable throwable = error.get();
+            if (throwable != null) {
+                terminated = true;
+                queue.clear();
+                subscriber.onError(throwable);
+            } else if (remainingSources.get() == 0 && queue.isEmpty()) {
+                terminated = true;
+                subscriber.onComplete();
+            }
+        }
+    }
+
+    private final class SourceSubscriber implements Flow.Subscriber<T> {
+        private final MergeSubscription parent;
+        private final int limit = Math.max(1, prefetch / 2);
+
+        private volatile Flow.Subscription subscription;
+        private volatile boolean cancelled;
+
+        // only accessed by the drain loop
+        private int consumed;
+
+        private SourceSubscriber(final MergeSubscription parent) {
+            this.parent = parent;
+        }
+
+        @Override
+        public void onSubscribe(final Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (cancelled) {
+                subscription.cancel();
+            } else {
+                subscription.request(prefetch);
+            }
+        }
+
+        @Override
+        public void onNext(final T value) {
+            parent.queue.offer(new Item(this, value));
+            parent.drain();
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            parent.fail(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            parent.remainingSources.decrementAndGet();
+            parent.drain();
+        }
+
+        /**
+         * Requests the next values once half of the prefetched ones were
+         * emitted, rather than one at a time.
+         */
+        private void consumed() {
+            if (++consumed == limit) {
+                consumed = 0;
+                subscription.request(limit);
+            }
+        }
+
+        private void cancel() {
+            cancelled = true;
+            final Flow.Subscription subscription = this.subscription;
+            if (subscription != null) {
+                subscription.cancel();
+            }
+        }
+    }
+
+    private final class Item {
+        private final SourceSubscriber source;
+        private final T value;
+
+        private Item(final SourceSubscriber source, final T value) {
+            this.source = source;
+            this.value = value;
+        }
+    }
+}
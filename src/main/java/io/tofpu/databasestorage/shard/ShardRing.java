@@ -0,0 +1,63 @@
+package io.tofpu.databasestorage.shard;
+
+import io.tofpu.databasestorage.KeyHash;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A consistent hash ring, which maps serialized keys to the names of the
+ * shards. Every shard is placed on the ring at several points, its virtual
+ * nodes, and a key belongs to the shard of the first point at or after the
+ * hash of the key. The points only depend on the names of the shards, so
+ * adding a shard only moves the keys that now belong to it, which are about
+ * {@code 1 / shardCount} of them.
+ */
+final class ShardRing {
+    private final long[] points;
+    private final int[] owners;
+
+    /**
+     * @param shardNames the names of the shards
+     * @param virtualNodes the amount of points per shard
+     */
+    ShardRing(final List<String> shardNames, final int virtualNodes) {
+        final int size = shardNames.size() * virtualNodes;
+        final long[][] entries = new long[size][];
+
+        int index = 0;
+        for (int shard = 0; shard < shardNames.size(); shard++) {
+            for (int node = 0; node < virtualNodes; node++) {
+                entries[index++] = new long[]{KeyHash.hash(shardNames.get(shard) + '#' + node), shard};
+            }
+        }
+        // ties are broken by the shard index, so the ring does not depend on hash collisions
+        Arrays.sort(entries, (first, second) -> first[0] != second[0] ?
+                Long.compare(first[0], second[0]) : Long.compare(first[1], second[1]));
+
+        this.points = new long[size];
+        this.owners = new int[size];
+        for (int i = 0; i < size; i++) {
+            points[i] = entries[i][0];
+            owners[i] = (int) entries[i][1];
+        }
+    }
+
+    /**
+     * @param key the serialized key
+     *
+     * @return the index of the shard the key belongs to
+     */
+    int shardOf(final String key) {
+        int index = Arrays.binarySearch(points, KeyHash.hash(key));
+        if (index < 0) {
+            index = -index - 1;
+        } else {
+            // the first of several equal points
+            while (index > 0 && points[index - 1] == points[index]) {
+                index--;
+            }
+        }
+        return owners[index == points.length ? 0 : index];
+    }
+}
@@ -0,0 +1,274 @@
+package io.tofpu.databasestorage.shard;
+
+import io.tofpu.databasestorage.StorageBase;
+import io.tofpu.databasestorage.resolver.key.StorageKeyResolver;
+import io.tofpu.databasestorage.scan.ScanOptions;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+
+/**
+ * Routes the operations of {@link StorageBase} across several shards, e.g.
+ * one SQLite file per disk, so that writes are no longer limited by a single
+ * writer. Every key belongs to exactly one shard, which is chosen by a
+ * consistent hash of its serialized key, and every shard has to be able to
+ * resolve the same key and value types.
+ * <p>
+ * Bulk operations are split per shard and run in parallel, and their
+ * results are merged. Scans run on every shard in parallel, and the values
+ * of different shards are interleaved, so they are not ordered by key.
+ * <p>
+ * The shards are placed on the hash ring by their name, so adding a shard
+ * under a new name moves only about {@code 1 / shardCount} of the keys to it,
+ * see {@link #getShard(Object)}. Values whose keys moved are not migrated by
+ * this class.
+ */
+public class ShardedStorage {
+    private static final int DEFAULT_VIRTUAL_NODES = 128;
+    private static final int SCAN_PREFETCH = 256;
+
+    private final List<String> shardNames;
+    private final List<StorageBase> shards;
+    private final ShardRing ring;
+
+    /**
+     * @param shards the shards mapped by their name, the name decides which
+     * keys belong to the shard, and therefore has to stay the same
+     */
+    public ShardedStorage(final Map<String, ? extends StorageBase> shards) {
+        this(shards, DEFAULT_VIRTUAL_NODES);
+    }
+
+    /**
+     * @param shards the shards mapped by their name, the name decides which
+     * keys belong to the shard, and therefore has to stay the same
+     * @param virtualNodes the amount of points per shard on the hash ring,
+     * more points spread the keys more evenly
+     */
+    public ShardedStorage(final Map<String, ? extends StorageBase> shards, final int virtualNodes) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("shards must not be empty");
+        }
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("virtualNodes must be positive");
+        }
+
+        this.shardNames = Collections.unmodifiableList(new ArrayList<>(shards.keySet()));
+        this.shards = Collections.unmodifiableList(new ArrayList<>(shards.values()));
+        this.ring = new ShardRing(shardNames, virtualNodes);
+    }
+
+    /**
+     * Initializes every shard in parallel.
+     *
+     * @return true if every shard was initialized, false otherwise
+     * @see StorageBase#init()
+     */
+    public CompletableFuture<Boolean> init() {
+        final List<CompletableFuture<Boolean>> futures = new ArrayList<>(shards.size());
+        for (final StorageBase shard : shards) {
+            futures.add(shard.init());
+        }
+        return allTrue(futures);
+    }
+
+    /**
+     * @see StorageBase#saveAsync(Object, Object)
+     */
+    public CompletableFuture<Boolean> saveAsync(final Object key, final Object value) {
+        return getShard(key).saveAsync(key, value);
+    }
+
+    /**
+     * @see StorageBase#retrieveAsync(Object, Class)
+     */
+    public <T> CompletableFuture<T> retrieveAsync(final Object key, final Class<T> valueType) {
+        return getShard(key).retrieveAsync(key, valueType);
+    }
+
+    /**
+     * @see StorageBase#deleteAsync(Object, Class)
+     */
+    public CompletableFuture<Boolean> deleteAsync(final Object key, final Class<?> valueType) {
+        return getShard(key).deleteAsync(key, valueType);
+    }
+
+    /**
+     * This method will split the values per shard, and save them on every
+     * shard in parallel.
+     *
+     * @return true if the values were successfully stored on every shard,
+     * false otherwise
+     * @see StorageBase#saveAllAsync(Map)
+     */
+    public CompletableFuture<Boolean> saveAllAsync(final Map<?, ?> values) {
+        final Map<StorageBase, Map<Object, Object>> partitions = new LinkedHashMap<>();
+        for (final Map.Entry<?, ?> entry : values.entrySet()) {
+            partitions.computeIfAbsent(getShard(entry.getKey()), shard -> new LinkedHashMap<>())
+                    .put(entry.getKey(), entry.getValue());
+        }
+
+        final List<CompletableFuture<Boolean>> futures = new ArrayList<>(partitions.size());
+        for (final Map.Entry<StorageBase, Map<Object, Object>> partition : partitions.entrySet()) {
+            futures.add(partition.getKey().saveAllAsync(partition.getValue()));
+        }
+        return allTrue(futures);
+    }
+
+    /**
+     * This method will split the keys per shard, retrieve them from every
+     * shard in parallel, and merge the results.
+     *
+     * @see StorageBase#retrieveAllAsync(Collection, Class)
+     */
+    public <K, T> CompletableFuture<Map<K, T>> retrieveAllAsync(final Collection<K> keys,
+            final Class<T> valueType) {
+        final List<CompletableFuture<Map<K, T>>> futures = new ArrayList<>();
+        for (final Map.Entry<StorageBase, List<K>> partition : partition(keys).entrySet()) {
+            futures.add(partition.getKey().retrieveAllAsync(partition.getValue(), valueType));
+        }
+
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+            final Map<K, T> values = new HashMap<>();
+            for (final CompletableFuture<Map<K, T>> future : futures) {
+                values.putAll(future.join());
+            }
+            return values;
+        });
+    }
+
+    /**
+     * This method will split the keys per shard, and delete them on every
+     * shard in parallel.
+     *
+     * @return true if the values were successfully deleted on every shard,
+     * false otherwise
+     * @see StorageBase#deleteAllAsync(Collection, Class)
+     */
+    public CompletableFuture<Boolean> deleteAllAsync(final Collection<?> keys, final Class<?> valueType) {
+        final List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        for (final Map.Entry<StorageBase, ? extends List<?>> partition : partition(keys).entrySet()) {
+            futures.add(partition.getKey().deleteAllAsync(partition.getValue(), valueType));
+        }
+        return allTrue(futures);
+    }
+
+    /**
+     * @see #streamAsync(Class, ScanOptions)
+     */
+    public <T> Flow.Publisher<T> streamAsync(final Class<T> valueType) {
+        return streamAsync(valueType, new ScanOptions());
+    }
+
+    /**
+     * This method will scan every shard in parallel, the values of a shard
+     * are streamed in the order of their keys, but the values of different
+     * shards are interleaved.
+     *
+     * @see StorageBase#streamAsync(Class, ScanOptions)
+     */
+    public <T> Flow.Publisher<T> streamAsync(final Class<T> valueType, final ScanOptions options) {
+        final List<Flow.Publisher<T>> publishers = new ArrayList<>(shards.size());
+        for (final StorageBase shard : shards) {
+            publishers.add(shard.streamAsync(valueType, options));
+        }
+        return new MergingPublisher<>(publishers, Math.min(options.getFetchSize(), SCAN_PREFETCH));
+    }
+
+    /**
+     * This method will look up the indexed value on every shard in parallel,
+     * and concatenate the results in the order of the shards.
+     *
+     * @see StorageBase#findByIndexAsync(Class, String, Object)
+     */
+    public <T> CompletableFuture<List<T>> findByIndexAsync(final Class<T> valueType, final String indexName,
+            final Object indexedValue) {
+        final List<CompletableFuture<List<T>>> futures = new ArrayList<>(shards.size());
+        for (final StorageBase shard : shards) {
+            futures.add(shard.findByIndexAsync(valueType, indexName, indexedValue));
+        }
+
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+            final List<T> values = new ArrayList<>();
+            for (final CompletableFuture<List<T>> future : futures) {
+                values.addAll(future.join());
+            }
+            return values;
+        });
+    }
+
+    /**
+     * @return a future that is completed once every shard flushed its queued writes
+     * @see StorageBase#flushAsync()
+     */
+    public CompletableFuture<Void> flushAsync() {
+        final List<CompletableFuture<Void>> futures = new ArrayList<>(shards.size());
+        for (final StorageBase shard : shards) {
+            futures.add(shard.flushAsync());
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]));
+    }
+
+    /**
+     * This method will shutdown every shard.
+     *
+     * @see StorageBase#shutdown()
+     */
+    public void shutdown() {
+        for (final StorageBase shard : shards) {
+            shard.shutdown();
+        }
+    }
+
+    /**
+     * @param key the key of a value
+     *
+     * @return the shard the key belongs to
+     * @throws IllegalArgumentException if no {@link StorageKeyResolver} is
+     * found for the type of the key
+     */
+    public StorageBase getShard(final Object key) {
+        final StorageKeyResolver<?> keyResolver = shards.get(0).getKeyResolver(key.getClass());
+        if (keyResolver == null) {
+            throw new IllegalArgumentException("No keyResolver found for key type " + key.getClass());
+        }
+        return shards.get(ring.shardOf(keyResolver.serialize(key)));
+    }
+
+    /**
+     * @return the shards mapped by their name
+     */
+    public Map<String, StorageBase> getShards() {
+        final Map<String, StorageBase> shardMap = new LinkedHashMap<>();
+        for (int i = 0; i < shards.size(); i++) {
+            shardMap.put(shardNames.get(i), shards.get(i));
+        }
+        return shardMap;
+    }
+
+    private <K> Map<StorageBase, List<K>> partition(final Collection<K> keys) {
+        final Map<StorageBase, List<K>> partitions = new LinkedHashMap<>();
+        for (final K key : keys) {
+            partitions.computeIfAbsent(getShard(key), shard -> new ArrayList<>()).add(key);
+        }
+        return partitions;
+    }
+
+    private static CompletableFuture<Boolean> allTrue(final List<CompletableFuture<Boolean>> futures) {
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+            for (final CompletableFuture<Boolean> future : futures) {
+                if (!future.join()) {
+                    return false;
+                }
+            }
+            return true;
+        });
+    }
+}
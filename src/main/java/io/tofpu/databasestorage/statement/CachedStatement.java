@@ -0,0 +1,61 @@
+package io.tofpu.databasestorage.statement;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * A {@link PreparedStatement} that is checked out of the {@link StatementCache},
+ * closing it returns the statement to the cache instead of closing it.
+ */
+public final class CachedStatement implements AutoCloseable {
+    private final StatementCache statementCache;
+    private final Connection connection;
+    private final String sql;
+    private final PreparedStatement statement;
+
+    private boolean returned;
+
+    CachedStatement(final StatementCache statementCache, final Connection connection,
+            final String sql, final PreparedStatement statement) {
+        this.statementCache = statementCache;
+        this.connection = connection;
+        this.sql = sql;
+        this.statement = statement;
+    }
+
+    /**
+     * @return the underlying statement, it must not be closed directly
+     */
+    public PreparedStatement getStatement() {
+        return statement;
+    }
+
+    /**
+     * @return the connection the statement belongs to
+     */
+    public Connection getConnection() {
+        return connection;
+    }
+
+    /**
+     * @return the SQL of the statement
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * Returns the statement to the cache.
+     *
+     * @throws SQLException if the statement could not be reset
+     */
+    @Override
+    public void close() throws SQLException {
+        if (returned) {
+            return;
+        }
+        returned = true;
+        statementCache.release(this);
+    }
+}
@@ -0,0 +1,166 @@
+package io.tofpu.databasestorage.statement;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caches {@link PreparedStatement}s per connection and SQL, so that the
+ * database does not have to parse and plan the same SQL on every operation.
+ * <p>
+ * A statement is checked out of the cache while it is used, so that two
+ * threads sharing the same connection never use the same statement at once,
+ * the second thread simply prepares its own statement. Every connection
+ * keeps at most the configured amount of statements, the least recently used
+ * statement is closed once that amount is exceeded.
+ */
+public class StatementCache implements AutoCloseable {
+    private final int maximumSize;
+    private final Map<Connection, ConnectionStatements> connectionMap = new ConcurrentHashMap<>();
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+
+    /**
+     * @param maximumSize the maximum amount of statements that are cached
+     * per connection, or 0 to close every statement once it is returned
+     */
+    public StatementCache(final int maximumSize) {
+        if (maximumSize < 0) {
+            throw new IllegalArgumentException("maximumSize must not be negative");
+        }
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * Checks out the cached statement of the given SQL, or prepares a new one
+     * if there is none. The returned statement has to be closed once it is no
+     * longer used, which returns it to the cache.
+     *
+     * @param connection the connection the statement belongs to
+     * @param sql the SQL of the statement
+     *
+     * @return the checked out statement
+     * @throws SQLException if the statement could not be prepared
+     */
+    public CachedStatement prepare(final Connection connection, final String sql) throws SQLException {
+        final ConnectionStatements statements = connectionMap.computeIfAbsent(connection,
+                ignored -> new ConnectionStatements());
+
+        final PreparedStatement cached = statements.checkout(sql);
+        if (cached != null && !cached.isClosed()) {
+            hitCount.increment();
+            return new CachedStatement(this, connection, sql, cached);
+        }
+
+        missCount.increment();
+        return new CachedStatement(this, connection, sql, connection.prepareStatement(sql));
+    }
+
+    void release(final CachedStatement cachedStatement) throws SQLException {
+        final PreparedStatement statement = cachedStatement.getStatement();
+        final ConnectionStatements statements = connectionMap.get(cachedStatement.getConnection());
+        if (statements == null || maximumSize == 0 || statement.isClosed()) {
+            statement.close();
+            return;
+        }
+
+        statement.clearParameters();
+        statement.clearBatch();
+        statements.checkin(cachedStatement.getSql(), statement);
+    }
+
+    /**
+     * Closes every cached statement of the given connection, this has to be
+     * called before the connection is closed.
+     *
+     * @param connection the connection whose statements are closed
+     */
+    public void invalidate(final Connection connection) {
+        final ConnectionStatements statements = connectionMap.remove(connection);
+        if (statements != null) {
+            statements.closeAll();
+        }
+    }
+
+    /**
+     * @return the amount of statements that were taken from the cache
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * @return the amount of statements that had to be prepared
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * Closes every cached statement.
+     */
+    @Override
+    public void close() {
+        for (final Connection connection : connectionMap.keySet()) {
+            invalidate(connection);
+        }
+    }
+
+    /**
+     * The cached statements of a single connection, ordered from the least
+     * recently used to the most recently used.
+     */
+    private final class ConnectionStatements {
+        private final LinkedHashMap<String, PreparedStatement> statementMap =
+                new LinkedHashMap<>(16, 0.75f, true);
+
+        private synchronized PreparedStatement checkout(final String sql) {
+            return statementMap.remove(sql);
+        }
+
+        private void checkin(final String sql, final PreparedStatement statement) throws SQLException {
+            final List<PreparedStatement> evicted = new ArrayList<>(1);
+            synchronized (this) {
+                // another thread returned a statement of the same SQL in the meantime
+                if (statementMap.containsKey(sql)) {
+                    evicted.add(statement);
+                } else {
+                    statementMap.put(sql, statement);
+                    if (statementMap.size() > maximumSize) {
+                        final Map.Entry<String, PreparedStatement> eldest = statementMap.entrySet()
+                                .iterator().next();
+                        statementMap.remove(eldest.getKey());
+                        evicted.add(eldest.getValue());
+                    }
+                }
+            }
+
+            for (final PreparedStatement evictedStatement : evicted) {
+                evictedStatement.close();
+            }
+        }
+
+        private void closeAll() {
+            final List<PreparedStatement> statements;
+            synchronized (this) {
+                statements = new ArrayList<>(statementMap.values());
+                statementMap.clear();
+            }
+
+            for (final PreparedStatement statement : statements) {
+                try {
+                    statement.close();
+                } catch (SQLException ignored) {
+                    // the connection is about to be closed either way
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package io.tofpu.databasestorage.tracking;
+
+import io.tofpu.databasestorage.EntryKey;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Remembers the last persisted state of the entries, as a snapshot of their
+ * fields given by {@link io.tofpu.databasestorage.resolver.value.StorageValueResolver#snapshot(Object)},
+ * so that the fields that changed since can be determined on the next save.
+ * <p>
+ * The snapshots are kept in striped, access-ordered maps that forget their
+ * least recently used entries beyond the maximum size. A forgotten entry is
+ * simply saved in full on its next save. A deleted entry is remembered by a
+ * tombstone, so that a retrieval that raced the delete cannot record the
+ * deleted state as persisted.
+ */
+public final class ChangeTracker {
+    private static final int STRIPE_COUNT = 16;
+
+    // compared by identity, a deleted entry is saved in full on its next save
+    private static final Map<String, Object> TOMBSTONE = Collections.unmodifiableMap(new HashMap<>());
+
+    private final Stripe[] stripes = new Stripe[STRIPE_COUNT];
+
+    public ChangeTracker(final ChangeTrackingOptions options) {
+        final int stripeSize = Math.max(1, (options.getMaximumSize() + STRIPE_COUNT - 1) / STRIPE_COUNT);
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            stripes[i] = new Stripe(stripeSize);
+        }
+    }
+
+    /**
+     * This method will record the given snapshot as the state of the entry,
+     * and compare it to the previously recorded one.
+     *
+     * @param entryKey the entry that is saved
+     * @param snapshot the snapshot of the saved value
+     *
+     * @return the names of the fields that changed, an empty set if the state
+     * did not change, or null if the previous state is unknown
+     */
+    public Set<String> track(final EntryKey entryKey, final Map<String, Object> snapshot) {
+        final Map<String, Object> previous;
+        final Stripe stripe = stripeFor(entryKey);
+        synchronized (stripe) {
+            previous = stripe.put(entryKey, snapshot);
+        }
+
+        if (previous == null || previous == TOMBSTONE) {
+            return null;
+        }
+        if (previous.equals(snapshot)) {
+            return Collections.emptySet();
+        }
+
+        final Set<String> changedFields = new HashSet<>();
+        for (final Map.Entry<String, Object> entry : snapshot.entrySet()) {
+            if (!previous.containsKey(entry.getKey()) ||
+                !Objects.equals(previous.get(entry.getKey()), entry.getValue())) {
+                changedFields.add(entry.getKey());
+            }
+        }
+        for (final String field : previous.keySet()) {
+            if (!snapshot.containsKey(field)) {
+                changedFields.add(field);
+            }
+        }
+        return changedFields;
+    }
+
+    /**
+     * This method will record the state of an entry that was retrieved from
+     * the database, unless the entry was saved or deleted in the meantime.
+     * The caller has to make sure that the entry was not written while it
+     * was retrieved.
+     *
+     * @param entryKey the entry that was retrieved
+     * @param snapshot the snapshot of the retrieved value
+     */
+    public void recordLoaded(final EntryKey entryKey, final Map<String, Object> snapshot) {
+        final Stripe stripe = stripeFor(entryKey);
+        synchronized (stripe) {
+            stripe.putIfAbsent(entryKey, snapshot);
+        }
+    }
+
+    /**
+     * This method will record that the given entry was deleted, so that
+     * neither its next save is skipped, nor the state of a retrieval that
+     * raced the delete recorded.
+     *
+     * @param entryKey the entry that is deleted
+     */
+    public void recordDeleted(final EntryKey entryKey) {
+        final Stripe stripe = stripeFor(entryKey);
+        synchronized (stripe) {
+            stripe.put(entryKey, TOMBSTONE);
+        }
+    }
+
+    /**
+     * This method will forget the state of the given entry, e.g. once its
+     * save failed, so that its next save is not skipped.
+     *
+     * @param entryKey the entry to be forgotten
+     */
+    public void invalidate(final EntryKey entryKey) {
+        final Stripe stripe = stripeFor(entryKey);
+        synchronized (stripe) {
+            stripe.remove(entryKey);
+        }
+    }
+
+    /**
+     * @return the amount of entries whose state is tracked
+     */
+    public int size() {
+        int size = 0;
+        for (final Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    private Stripe stripeFor(final EntryKey entryKey) {
+        final int hash = entryKey.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (STRIPE_COUNT - 1)];
+    }
+
+    private static final class Stripe extends LinkedHashMap<EntryKey, Map<String, Object>> {
+        private static final long serialVersionUID = 1L;
+
+        private final int maximumSize;
+
+        private Stripe(final int maximumSize) {
+            super(16, 0.75f, true);
+            this.maximumSize = maximumSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<EntryKey, Map<String, Object>> eldest) {
+            return size() > maximumSize;
+        }
+    }
+}
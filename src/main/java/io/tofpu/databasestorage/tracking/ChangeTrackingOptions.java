@@ -0,0 +1,28 @@
+package io.tofpu.databasestorage.tracking;
+
+/**
+ * The options that are used to configure the change tracking of
+ * the {@link io.tofpu.databasestorage.StorageBase}.
+ */
+public class ChangeTrackingOptions {
+    private final int maximumSize;
+
+    /**
+     * @param maximumSize the maximum amount of entries whose persisted state
+     * is tracked, the least recently used entries are forgotten beyond it
+     */
+    public ChangeTrackingOptions(final int maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize must be positive");
+        }
+
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * @return the maximum amount of entries whose persisted state is tracked
+     */
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+}
@@ -0,0 +1,282 @@
+package io.tofpu.databasestorage.warmup;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Holds the values of a value type in memory, so that their retrievals are
+ * answered without a query. Unlike a cache, the values are never evicted,
+ * so it shall only be used for value types that fit into memory.
+ * <p>
+ * On startup, the store is filled by a warm-up that runs in the background,
+ * while the values that were not preloaded yet are retrieved on demand. A
+ * value is only preloaded if its key is not resident yet, and a key that is
+ * invalidated during the warm-up is marked as written, so that a value the
+ * warm-up read before a write is never preloaded over it.
+ * <p>
+ * The resident keys are persisted in the order of their last access on
+ * shutdown, so that the next warm-up can preload the most recently accessed ones.
+ */
+public final class ResidentStore {
+    private static final int KEYS_FILE_MAGIC = 0x52455331;
+    private static final Resident WRITTEN = new Resident(null, 0);
+
+    private final Class<?> valueType;
+    private final WarmUpOptions options;
+    private final Map<String, Resident> residents = new ConcurrentHashMap<>();
+    private final AtomicLong loadedCount = new AtomicLong();
+
+    private volatile boolean warming;
+    private volatile boolean complete;
+    private volatile long totalCount = -1;
+    private volatile long startTime;
+    private volatile long finishTime;
+
+    /**
+     * @param valueType the value type of the values
+     * @param options the options of the store
+     */
+    public ResidentStore(final Class<?> valueType, final WarmUpOptions options) {
+        this.valueType = valueType;
+        this.options = options;
+    }
+
+    /**
+     * @param key the serialized key of the value
+     *
+     * @return the resident value, or null if it is not resident
+     */
+    public Object get(final String key) {
+        final Resident resident = residents.get(key);
+        if (resident == null || resident.value == null) {
+            return null;
+        }
+        resident.touch();
+        return resident.value;
+    }
+
+    /**
+     * This method shall be called once a value is saved, or was retrieved on
+     * demand without a write to its key in the meantime.
+     *
+     * @param key the serialized key of the value
+     * @param value the value
+     */
+    public void put(final String key, final Object value) {
+        residents.put(key, new Resident(value, System.currentTimeMillis()));
+    }
+
+    /**
+     * This method shall be called once a value is deleted, or its write failed.
+     *
+     * @param key the serialized key of the value
+     */
+    public void invalidate(final String key) {
+        if (warming) {
+            residents.put(key, WRITTEN);
+        } else {
+            residents.remove(key);
+        }
+    }
+
+    /**
+     * This method will make the value that was loaded by the warm-up
+     * resident, unless its key was written in the meantime.
+     *
+     * @param key the serialized key of the value
+     * @param value the loaded value
+     *
+     * @return true if the value was made resident, false otherwise
+     */
+    public boolean preload(final String key, final Object value) {
+        loadedCount.incrementAndGet();
+        return residents.putIfAbsent(key, new Resident(value, 0)) == null;
+    }
+
+    /**
+     * This method shall be called before the warm-up loads the first value.
+     *
+     * @param totalCount the amount of values that are preloaded, or -1 if it
+     * is not known up front
+     */
+    public void startWarmUp(final long totalCount) {
+        this.totalCount = totalCount;
+        this.startTime = System.nanoTime();
+        this.warming = true;
+    }
+
+    /**
+     * This method shall be called once the warm-up has completed, or failed.
+     */
+    public void finishWarmUp() {
+        warming = false;
+        finishTime = System.nanoTime();
+        // the marks are no longer needed, the warm-up cannot overwrite a write anymore
+        residents.values().removeIf(resident -> resident == WRITTEN);
+    }
+
+    /**
+     * This method shall be called once a warm-up with {@link WarmUpMode#ALL}
+     * has loaded every value of the type, from then on the store holds every
+     * value that exists.
+     */
+    public void markComplete() {
+        complete = true;
+    }
+
+    /**
+     * @return true if every value of the type was loaded by a warm-up with
+     * {@link WarmUpMode#ALL}, false otherwise
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * @return true if the warm-up is running
+     */
+    public boolean isWarming() {
+        return warming;
+    }
+
+    /**
+     * @return a snapshot of the progress of the warm-up
+     */
+    public WarmUpProgress getProgress() {
+        final long start = startTime;
+        final long finish = finishTime;
+        final long elapsed = start == 0 ? 0 : (finish == 0 ? System.nanoTime() : finish) - start;
+        return new WarmUpProgress(valueType, loadedCount.get(), totalCount, elapsed, finish != 0);
+    }
+
+    /**
+     * This method will read the keys that were persisted on the last
+     * shutdown, the most recently accessed one first.
+     *
+     * @return the persisted keys, or an empty list if there is no file
+     * @throws IOException if the file could not be read
+     */
+    public List<String> loadRecentKeys() throws IOException {
+        final Path file = options.getKeysFile();
+        if (file == null) {
+            return Collections.emptyList();
+        }
+
+        try (final DataInputStream input = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file)))) {
+            if (input.readInt() != KEYS_FILE_MAGIC) {
+                return Collections.emptyList();
+            }
+
+            final int count = input.readInt();
+            final List<String> keys = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                keys.add(input.readUTF());
+            }
+            return keys;
+        } catch (NoSuchFileException e) {
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * This method will write the most recently accessed keys to the keys
+     * file, if there is one. It shall only be called once no more writes
+     * are submitted.
+     *
+     * @throws IOException if the file could not be written
+     */
+    public void persistRecentKeys() throws IOException {
+        final Path file = options.getKeysFile();
+        if (file == null) {
+            return;
+        }
+
+        // the access times are copied, as they keep changing while the keys are sorted
+        final List<RecentKey> recentKeys = new ArrayList<>(residents.size());
+        for (final Map.Entry<String, Resident> entry : residents.entrySet()) {
+            final Resident resident = entry.getValue();
+            if (resident.value != null) {
+                recentKeys.add(new RecentKey(entry.getKey(), resident.lastAccess));
+            }
+        }
+        recentKeys.sort((first, second) -> Long.compare(second.lastAccess, first.lastAccess));
+
+        final int count = Math.min(recentKeys.size(), options.getMaxRecentKeys());
+        final Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (final DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+            output.writeInt(KEYS_FILE_MAGIC);
+            output.writeInt(count);
+            for (int i = 0; i < count; i++) {
+                output.writeUTF(recentKeys.get(i).key);
+            }
+        }
+        Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return the amount of resident values, including the keys that were
+     * marked as written during the warm-up
+     */
+    public int size() {
+        return residents.size();
+    }
+
+    /**
+     * @return the value type of the values
+     */
+    public Class<?> getValueType() {
+        return valueType;
+    }
+
+    /**
+     * @return the options of the store
+     */
+    public WarmUpOptions getOptions() {
+        return options;
+    }
+
+    private static final class Resident {
+        private final Object value;
+        private volatile long lastAccess;
+
+        private Resident(final Object value, final long lastAccess) {
+            this.value = value;
+            this.lastAccess = lastAccess;
+        }
+
+        private void touch() {
+            final long now = System.currentTimeMillis();
+            // skips the write while the time did not change, so that hot values
+            // are not written to by every reading thread
+            if (lastAccess != now) {
+                lastAccess = now;
+            }
+        }
+    }
+
+    private static final class RecentKey {
+        private final String key;
+        private final long lastAccess;
+
+        private RecentKey(final String key, final long lastAccess) {
+            this.key = key;
+            this.lastAccess = lastAccess;
+        }
+    }
+}
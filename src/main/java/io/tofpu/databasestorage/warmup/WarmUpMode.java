@@ -0,0 +1,17 @@
+package io.tofpu.databasestorage.warmup;
+
+/**
+ * Decides which values of a value type are preloaded into its
+ * {@link ResidentStore} on startup.
+ */
+public enum WarmUpMode {
+    /**
+     * Every stored value is preloaded, via range scans of one chunk each.
+     */
+    ALL,
+    /**
+     * The values of the keys that were the most recently accessed ones on the
+     * last shutdown are preloaded, in chunks that are retrieved in parallel.
+     */
+    RECENT
+}
@@ -0,0 +1,100 @@
+package io.tofpu.databasestorage.warmup;
+
+import java.nio.file.Path;
+
+/**
+ * The options that are used to configure the {@link ResidentStore} of
+ * a value type, and how it is preloaded on startup.
+ */
+public class WarmUpOptions {
+    private static final int DEFAULT_CHUNK_SIZE = 512;
+    private static final int DEFAULT_PARALLELISM = 4;
+    private static final int DEFAULT_MAX_RECENT_KEYS = 10_000;
+
+    private final WarmUpMode mode;
+    private final int chunkSize;
+    private final int parallelism;
+    private final Path keysFile;
+    private final int maxRecentKeys;
+
+    /**
+     * @param mode the values to be preloaded
+     * @param keysFile the file the most recently accessed keys are persisted
+     * to on shutdown, or null to not persist them, which is only allowed for
+     * {@link WarmUpMode#ALL}
+     */
+    public WarmUpOptions(final WarmUpMode mode, final Path keysFile) {
+        this(mode, DEFAULT_CHUNK_SIZE, DEFAULT_PARALLELISM, keysFile, DEFAULT_MAX_RECENT_KEYS);
+    }
+
+    /**
+     * @param mode the values to be preloaded
+     * @param chunkSize the amount of values that are loaded by a single task
+     * @param parallelism the maximum amount of tasks of the warm-up that run,
+     * or wait for the executor, at once
+     * @param keysFile the file the most recently accessed keys are persisted
+     * to on shutdown, or null to not persist them, which is only allowed for
+     * {@link WarmUpMode#ALL}
+     * @param maxRecentKeys the maximum amount of keys that are persisted
+     */
+    public WarmUpOptions(final WarmUpMode mode, final int chunkSize, final int parallelism,
+            final Path keysFile, final int maxRecentKeys) {
+        if (mode == null) {
+            throw new IllegalArgumentException("mode must not be null");
+        }
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be positive");
+        }
+        if (mode == WarmUpMode.RECENT && keysFile == null) {
+            throw new IllegalArgumentException("keysFile must be given to preload the recent keys");
+        }
+        if (maxRecentKeys <= 0) {
+            throw new IllegalArgumentException("maxRecentKeys must be positive");
+        }
+
+        this.mode = mode;
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+        this.keysFile = keysFile;
+        this.maxRecentKeys = maxRecentKeys;
+    }
+
+    /**
+     * @return the values to be preloaded
+     */
+    public WarmUpMode getMode() {
+        return mode;
+    }
+
+    /**
+     * @return the amount of values that are loaded by a single task
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * @return the maximum amount of tasks of the warm-up that run at once
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * @return the file the most recently accessed keys are persisted to, or
+     * null if they are not persisted
+     */
+    public Path getKeysFile() {
+        return keysFile;
+    }
+
+    /**
+     * @return the maximum amount of keys that are persisted
+     */
+    public int getMaxRecentKeys() {
+        return maxRecentKeys;
+    }
+}
@@ -0,0 +1,62 @@
+package io.tofpu.databasestorage.warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A snapshot of the progress of the warm-up of a {@link ResidentStore}.
+ */
+public final class WarmUpProgress {
+    private final Class<?> valueType;
+    private final long loadedCount;
+    private final long totalCount;
+    private final long elapsedNanos;
+    private final boolean done;
+
+    public WarmUpProgress(final Class<?> valueType, final long loadedCount, final long totalCount,
+            final long elapsedNanos, final boolean done) {
+        this.valueType = valueType;
+        this.loadedCount = loadedCount;
+        this.totalCount = totalCount;
+        this.elapsedNanos = elapsedNanos;
+        this.done = done;
+    }
+
+    /**
+     * @return the value type that is preloaded
+     */
+    public Class<?> getValueType() {
+        return valueType;
+    }
+
+    /**
+     * @return the amount of values that were loaded so far
+     */
+    public long getLoadedCount() {
+        return loadedCount;
+    }
+
+    /**
+     * @return the amount of keys that are preloaded, or -1 if it is not known
+     * up front, i.e. with {@link WarmUpMode#ALL}
+     */
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * @param unit the unit of the time
+     *
+     * @return the time since the warm-up started, or the time it took once
+     * it is done
+     */
+    public long getElapsed(final TimeUnit unit) {
+        return unit.convert(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return true if the warm-up has completed, or failed
+     */
+    public boolean isDone() {
+        return done;
+    }
+}
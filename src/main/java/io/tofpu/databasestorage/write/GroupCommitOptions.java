@@ -0,0 +1,29 @@
+package io.tofpu.databasestorage.write;
+
+/**
+ * The options that are used to configure the group-commit mode of
+ * the {@link io.tofpu.databasestorage.StorageBase}.
+ */
+public class GroupCommitOptions {
+    private final int maxBatchSize;
+
+    /**
+     * @param maxBatchSize the maximum amount of writes that are committed
+     * within a single transaction
+     */
+    public GroupCommitOptions(final int maxBatchSize) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("maxBatchSize must be positive");
+        }
+
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * @return the maximum amount of writes that are committed within a
+     * single transaction
+     */
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+}
@@ -0,0 +1,164 @@
+package io.tofpu.databasestorage.write;
+
+import io.tofpu.databasestorage.EntryKey;
+import io.tofpu.databasestorage.resolver.value.StorageValueResolver;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs every write on a single dedicated writer thread. Whenever the writer
+ * is free, it drains everything that was queued in the meantime and commits
+ * it as one batch, so the amount of commits shrinks as the offered load
+ * grows. Unlike the {@link WriteBehindQueue}, a write is never delayed on
+ * purpose, it is only batched with the writes that arrived while the
+ * previous batch was committed.
+ * <p>
+ * Writes to the same {@link EntryKey} that are queued at the same time are
+ * coalesced, so only the latest value of an entry is written.
+ */
+public class GroupCommitWriter {
+    private final GroupCommitOptions options;
+    private final WriteBatchHandler handler;
+    private final Thread thread;
+
+    private final Object lock = new Object();
+    private Map<EntryKey, WriteOperation> pending = new LinkedHashMap<>();
+    private boolean shutdown;
+
+    public GroupCommitWriter(final GroupCommitOptions options, final WriteBatchHandler handler) {
+        this.options = options;
+        this.handler = handler;
+
+        this.thread = new Thread(this::run, "storage-group-commit");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Queues the given value to be written by the writer thread, if a write
+     * to the same entry is already queued, it will be replaced by this one.
+     *
+     * @param entryKey the entry to be written
+     * @param valueResolver the resolver that will write the value
+     * @param value the value to be saved, or null to delete the entry
+     *
+     * @return a future that is completed once the batch containing this
+     * write has been committed
+     */
+    public CompletableFuture<Boolean> submit(final EntryKey entryKey,
+            final StorageValueResolver<?, ?> valueResolver, final Object value) {
+        final CompletableFuture<Boolean> future = new CompletableFuture<>();
+
+        synchronized (lock) {
+            if (shutdown) {
+                future.completeExceptionally(new RejectedExecutionException("The group-commit writer was shut down"));
+                return future;
+            }
+
+            final WriteOperation operation = pending.get(entryKey);
+            if (operation != null) {
+                operation.coalesce(value, future);
+            } else {
+                pending.put(entryKey, new WriteOperation(entryKey, valueResolver, value, future));
+                if (pending.size() == 1) {
+                    lock.notifyAll();
+                }
+            }
+        }
+        return future;
+    }
+
+    /**
+     * @return the amount of queued writes, excluding the ones that are
+     * currently committing
+     */
+    public int getPendingCount() {
+        synchronized (lock) {
+            return pending.size();
+        }
+    }
+
+    private void run() {
+        while (true) {
+            final Map<EntryKey, WriteOperation> batch;
+            try {
+                batch = takeBatch();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (batch == null) {
+                return;
+            }
+
+            Throwable failure = null;
+            try {
+                handler.write(batch.values());
+            } catch (Throwable throwable) {
+                failure = throwable;
+            }
+
+            for (final WriteOperation operation : batch.values()) {
+                if (failure == null) {
+                    operation.complete();
+                } else {
+                    operation.fail(failure);
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits until a write is queued, and then drains up to the maximum batch
+     * size of writes.
+     *
+     * @return the drained writes, or null once the writer was shut down and
+     * every queued write was drained
+     */
+    private Map<EntryKey, WriteOperation> takeBatch() throws InterruptedException {
+        synchronized (lock) {
+            while (pending.isEmpty()) {
+                if (shutdown) {
+                    return null;
+                }
+                lock.wait();
+            }
+
+            if (pending.size() <= options.getMaxBatchSize()) {
+                final Map<EntryKey, WriteOperation> batch = pending;
+                pending = new LinkedHashMap<>();
+                return batch;
+            }
+
+            final Map<EntryKey, WriteOperation> batch = new LinkedHashMap<>();
+            final Iterator<WriteOperation> iterator = pending.values().iterator();
+            while (batch.size() < options.getMaxBatchSize()) {
+                final WriteOperation operation = iterator.next();
+                iterator.remove();
+                batch.put(operation.getEntryKey(), operation);
+            }
+            return batch;
+        }
+    }
+
+    /**
+     * Stops accepting writes, and then waits until the writer thread has
+     * committed every queued write.
+     */
+    public void shutdown() {
+        synchronized (lock) {
+            shutdown = true;
+            lock.notifyAll();
+        }
+
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
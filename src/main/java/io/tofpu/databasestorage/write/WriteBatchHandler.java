@@ -0,0 +1,20 @@
+package io.tofpu.databasestorage.write;
+
+import java.sql.SQLException;
+import java.util.Collection;
+
+/**
+ * Writes a batch of coalesced {@link WriteOperation}s to the database.
+ */
+@FunctionalInterface
+public interface WriteBatchHandler {
+    /**
+     * This method is expected to write every operation within a single
+     * transaction, it shall either commit all of them or none of them.
+     *
+     * @param operations the operations to be written
+     *
+     * @throws SQLException if an error occurs while writing the batch
+     */
+    void write(final Collection<WriteOperation> operations) throws SQLException;
+}
@@ -0,0 +1,45 @@
+package io.tofpu.databasestorage.write;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The options that are used to configure the write-behind mode of
+ * the {@link io.tofpu.databasestorage.StorageBase}.
+ */
+public class WriteBehindOptions {
+    private final int maxBatchSize;
+    private final long flushIntervalMillis;
+
+    /**
+     * @param maxBatchSize the amount of pending writes that will trigger a flush
+     * @param flushInterval the maximum time a write may stay queued before
+     * it is flushed
+     * @param unit the unit of the flush interval
+     */
+    public WriteBehindOptions(final int maxBatchSize, final long flushInterval,
+            final TimeUnit unit) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("maxBatchSize must be positive");
+        }
+        if (flushInterval <= 0) {
+            throw new IllegalArgumentException("flushInterval must be positive");
+        }
+
+        this.maxBatchSize = maxBatchSize;
+        this.flushIntervalMillis = unit.toMillis(flushInterval);
+    }
+
+    /**
+     * @return the amount of pending writes that will trigger a flush
+     */
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * @return the maximum time in milliseconds a write may stay queued
+     */
+    public long getFlushIntervalMillis() {
+        return flushIntervalMillis;
+    }
+}
@@ -0,0 +1,183 @@
+package io.tofpu.databasestorage.write;
+
+import io.tofpu.databasestorage.EntryKey;
+import io.tofpu.databasestorage.resolver.value.StorageValueResolver;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Queues writes and coalesces them per {@link EntryKey}, so only the latest
+ * value of an entry is written. The queue is flushed as one batch once it
+ * reaches the configured size, or once the flush interval has elapsed.
+ */
+public class WriteBehindQueue {
+    private final WriteBehindOptions options;
+    private final Executor executor;
+    private final WriteBatchHandler handler;
+    private final ScheduledExecutorService scheduler;
+
+    private final Object lock = new Object();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private Map<EntryKey, WriteOperation> pending = new LinkedHashMap<>();
+    private Map<EntryKey, WriteOperation> flushing = Collections.emptyMap();
+    private boolean flushScheduled;
+
+    public WriteBehindQueue(final WriteBehindOptions options, final Executor executor,
+            final WriteBatchHandler handler) {
+        this.options = options;
+        this.executor = executor;
+        this.handler = handler;
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "storage-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        final long interval = options.getFlushIntervalMillis();
+        scheduler.scheduleWithFixedDelay(this::scheduleFlush, interval, interval,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queues the given value to be written, if a write to the same entry is
+     * already queued, it will be replaced by this one.
+     *
+     * @param entryKey the entry to be written
+     * @param valueResolver the resolver that will write the value
+     * @param value the value to be saved, or null to delete the entry
+     *
+     * @return a future that is completed once the batch containing this
+     * write has been committed
+     */
+    public CompletableFuture<Boolean> enqueue(final EntryKey entryKey,
+            final StorageValueResolver<?, ?> valueResolver, final Object value) {
+        final CompletableFuture<Boolean> future = new CompletableFuture<>();
+
+        final boolean full;
+        synchronized (lock) {
+            final WriteOperation operation = pending.get(entryKey);
+            if (operation != null) {
+                operation.coalesce(value, future);
+            } else {
+                pending.put(entryKey, new WriteOperation(entryKey, valueResolver, value, future));
+            }
+
+            full = pending.size() >= options.getMaxBatchSize() && !flushScheduled;
+            if (full) {
+                flushScheduled = true;
+            }
+        }
+
+        if (full) {
+            executor.execute(this::flush);
+        }
+        return future;
+    }
+
+    /**
+     * @param entryKey the entry to look for
+     *
+     * @return the queued or currently flushing write of the given entry, or
+     * null if there is none
+     */
+    public WriteOperation getPending(final EntryKey entryKey) {
+        synchronized (lock) {
+            final WriteOperation operation = pending.get(entryKey);
+            if (operation != null) {
+                return operation;
+            }
+            return flushing.get(entryKey);
+        }
+    }
+
+    /**
+     * @return the amount of queued writes, excluding the ones that are
+     * currently flushing
+     */
+    public int getPendingCount() {
+        synchronized (lock) {
+            return pending.size();
+        }
+    }
+
+    /**
+     * Flushes every queued write asynchronously.
+     *
+     * @return a future that is completed once the queued writes were flushed
+     */
+    public CompletableFuture<Void> flushAsync() {
+        return CompletableFuture.runAsync(this::flush, executor);
+    }
+
+    /**
+     * Drains the queue and writes the drained operations as one batch. Only one
+     * flush may run at a time, so that writes to the same entry are committed
+     * in the order they were queued.
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            final Map<EntryKey, WriteOperation> batch;
+            synchronized (lock) {
+                flushScheduled = false;
+                if (pending.isEmpty()) {
+                    return;
+                }
+
+                batch = pending;
+                pending = new LinkedHashMap<>();
+                flushing = batch;
+            }
+
+            Throwable failure = null;
+            try {
+                handler.write(batch.values());
+            } catch (Throwable throwable) {
+                failure = throwable;
+            } finally {
+                synchronized (lock) {
+                    flushing = Collections.emptyMap();
+                }
+            }
+
+            for (final WriteOperation operation : batch.values()) {
+                if (failure == null) {
+                    operation.complete();
+                } else {
+                    operation.fail(failure);
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void scheduleFlush() {
+        synchronized (lock) {
+            if (pending.isEmpty() || flushScheduled) {
+                return;
+            }
+            flushScheduled = true;
+        }
+        executor.execute(this::flush);
+    }
+
+    /**
+     * Stops the flush timer, and then flushes every queued write on the
+     * calling thread.
+     */
+    public void shutdown() {
+        scheduler.shutdownNow();
+        flush();
+    }
+}
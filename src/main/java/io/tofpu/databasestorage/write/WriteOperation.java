@@ -0,0 +1,95 @@
+package io.tofpu.databasestorage.write;
+
+import io.tofpu.databasestorage.EntryKey;
+import io.tofpu.databasestorage.resolver.value.StorageValueResolver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A pending save or delete of a single entry. A delete is represented
+ * by a null value.
+ */
+public class WriteOperation {
+    private final EntryKey entryKey;
+    private final StorageValueResolver<?, ?> valueResolver;
+    private final List<CompletableFuture<Boolean>> futures = new ArrayList<>(1);
+    private volatile Object value;
+
+    public WriteOperation(final EntryKey entryKey,
+            final StorageValueResolver<?, ?> valueResolver, final Object value,
+            final CompletableFuture<Boolean> future) {
+        this.entryKey = entryKey;
+        this.valueResolver = valueResolver;
+        this.value = value;
+        this.futures.add(future);
+    }
+
+    /**
+     * Replaces the value of this operation with a newer one, the future of
+     * the newer write will be completed alongside the existing ones.
+     *
+     * @param value the newer value, or null for a delete
+     * @param future the future of the newer write
+     */
+    void coalesce(final Object value, final CompletableFuture<Boolean> future) {
+        this.value = value;
+        this.futures.add(future);
+    }
+
+    /**
+     * Completes every future that is waiting on this operation.
+     */
+    public void complete() {
+        for (final CompletableFuture<Boolean> future : futures) {
+            future.complete(true);
+        }
+    }
+
+    /**
+     * Completes every future that is waiting on this operation exceptionally.
+     *
+     * @param throwable the cause of the failure
+     */
+    public void fail(final Throwable throwable) {
+        for (final CompletableFuture<Boolean> future : futures) {
+            future.completeExceptionally(throwable);
+        }
+    }
+
+    /**
+     * @return the entry this operation writes to
+     */
+    public EntryKey getEntryKey() {
+        return entryKey;
+    }
+
+    /**
+     * @return the value resolver this operation will be written by
+     */
+    public StorageValueResolver<?, ?> getValueResolver() {
+        return valueResolver;
+    }
+
+    /**
+     * @return the serialized key of the entry
+     */
+    public String getKey() {
+        return entryKey.getKey();
+    }
+
+    /**
+     * @return the value to be saved, or null if the entry is to be deleted
+     */
+    public Object getValue() {
+        return value;
+    }
+
+    /**
+     * @return true if this operation deletes the entry, false otherwise
+     */
+    public boolean isDelete() {
+        return value == null;
+    }
+}
@@ -0,0 +1,77 @@
+package io.tofpu.databasestorage;
+
+import io.tofpu.databasestorage.data.PlayerProfile;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class BulkStorageTest {
+    private static final int PROFILE_COUNT = 1200;
+
+    private static StorageBase storageBase;
+    private static Map<UUID, PlayerProfile> profiles;
+
+    @BeforeAll
+    public static void setUp() throws ExecutionException, InterruptedException {
+        storageBase = new SQLiteStorage();
+        storageBase.init().get();
+
+        profiles = new LinkedHashMap<>();
+        for (int i = 0; i < PROFILE_COUNT; i++) {
+            final UUID uuid = UUID.randomUUID();
+            profiles.put(uuid, new PlayerProfile(uuid, "Player" + i));
+        }
+    }
+
+    @Test
+    @Order(1)
+    public void profiles_should_be_inserted() throws ExecutionException, InterruptedException {
+        assertTrue(storageBase.saveAllAsync(profiles).get(), "Profiles were not saved");
+    }
+
+    @Test
+    @Order(2)
+    public void profiles_should_be_received() throws ExecutionException, InterruptedException {
+        final Map<UUID, PlayerProfile> retrievedProfiles = storageBase.retrieveAllAsync(profiles.keySet(),
+                PlayerProfile.class).get();
+
+        assertEquals(profiles.size(), retrievedProfiles.size(), "Not every profile was retrieved");
+        for (final PlayerProfile profile : profiles.values()) {
+            assertEquals(profile.getName(), retrievedProfiles.get(profile.getUUID()).getName(),
+                    "Retrieved profile is not equal to the saved profile");
+        }
+    }
+
+    @Test
+    @Order(3)
+    public void profiles_should_be_deleted() throws ExecutionException, InterruptedException {
+        assertTrue(storageBase.deleteAllAsync(profiles.keySet(), PlayerProfile.class)
+                .get(), "Profiles were not deleted");
+
+        assertTrue(storageBase.retrieveAllAsync(profiles.keySet(), PlayerProfile.class)
+                .get().isEmpty(), "Profiles were not deleted");
+    }
+
+    @AfterAll
+    public static void tearDown() {
+        final File databaseFile = new File("test.db");
+        if (databaseFile.exists()) {
+            databaseFile.delete();
+        }
+
+        storageBase.shutdown();
+    }
+}
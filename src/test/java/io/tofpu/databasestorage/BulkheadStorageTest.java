@@ -0,0 +1,113 @@
+package io.tofpu.databasestorage;
+
+import io.tofpu.databasestorage.data.PlayerProfile;
+import io.tofpu.databasestorage.data.mapper.PlayerProfileValueResolver;
+import io.tofpu.databasestorage.executor.BulkheadOptions;
+import io.tofpu.databasestorage.resolver.value.StorageValueResolver;
+import io.tofpu.databasestorage.tracking.ChangeTrackingOptions;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BulkheadStorageTest {
+    private static volatile CountDownLatch retrieveLatch;
+
+    private static StorageBase storageBase;
+
+    @BeforeAll
+    public static void setUp() throws ExecutionException, InterruptedException {
+        storageBase = new SQLiteStorage() {
+            @Override
+            protected List<StorageValueResolver<?, ?>> getValueResolvers() {
+                return Collections.singletonList(new PlayerProfileValueResolver(this) {
+                    @Override
+                    public PlayerProfile retrieve(final String key) throws SQLException {
+                        final CountDownLatch latch = retrieveLatch;
+                        if (latch != null) {
+                            try {
+                                latch.await(5, TimeUnit.SECONDS);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                        }
+                        return super.retrieve(key);
+                    }
+                });
+            }
+
+            @Override
+            protected BulkheadOptions getBulkheadOptions(final Class<?> valueType) {
+                // a single slot without a queue, every concurrent operation is rejected
+                return new BulkheadOptions(1, 0);
+            }
+
+            @Override
+            protected ChangeTrackingOptions getChangeTrackingOptions() {
+                return new ChangeTrackingOptions(100);
+            }
+        };
+        storageBase.init().get();
+    }
+
+    @Test
+    public void rejected_operations_should_leave_no_trace() throws ExecutionException, InterruptedException,
+            TimeoutException {
+        final UUID uuid = UUID.randomUUID();
+        final PlayerProfile profile = new PlayerProfile(uuid, "tofpu");
+
+        // occupies the only slot of the bulkhead
+        retrieveLatch = new CountDownLatch(1);
+        final CompletableFuture<PlayerProfile> running = storageBase.retrieveAsync(UUID.randomUUID(),
+                PlayerProfile.class);
+
+        assertRejected(storageBase.saveAsync(uuid, profile));
+        assertRejected(storageBase.retrieveAsync(uuid, PlayerProfile.class));
+
+        retrieveLatch.countDown();
+        retrieveLatch = null;
+        running.get(5, TimeUnit.SECONDS);
+
+        // the rejected retrieval would be joined, and the rejected save served
+        assertNull(storageBase.retrieveAsync(uuid, PlayerProfile.class).get(5, TimeUnit.SECONDS),
+                "Rejected save was observed");
+
+        // the rejected save would be remembered as persisted, and the retry skipped
+        assertTrue(storageBase.saveAsync(uuid, profile).get(5, TimeUnit.SECONDS));
+        assertEquals(profile, storageBase.retrieveAsync(uuid, PlayerProfile.class).get(5, TimeUnit.SECONDS),
+                "Retried save was skipped");
+    }
+
+    private static void assertRejected(final CompletableFuture<?> future) {
+        final ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> future.get(5, TimeUnit.SECONDS));
+        assertTrue(exception.getCause() instanceof RejectedExecutionException,
+                "Operation was not rejected: " + exception.getCause());
+    }
+
+    @AfterAll
+    public static void tearDown() {
+        final File databaseFile = new File("test.db");
+        if (databaseFile.exists()) {
+            databaseFile.delete();
+        }
+
+        storageBase.shutdown();
+    }
+}
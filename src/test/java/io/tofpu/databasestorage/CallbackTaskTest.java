@@ -0,0 +1,85 @@
+package io.tofpu.databasestorage;
+
+import io.tofpu.databasestorage.metrics.StorageOperation;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CallbackTaskTest {
+    @Test
+    public void completed_task_should_be_reused() {
+        final CallbackTask.Pool pool = new CallbackTask.Pool(null, 2);
+        final AtomicReference<Object> result = new AtomicReference<>();
+
+        final CallbackTask task = pool.acquire();
+        task.init(StorageOperation.SAVE, null, "key", "value", null,
+                (value, throwable) -> result.set(value), 0).complete(true, null);
+
+        assertEquals(true, result.get());
+        assertSame(task, pool.acquire());
+        assertNotSame(task, pool.acquire());
+    }
+
+    @Test
+    public void pool_should_drop_tasks_when_full() {
+        final CallbackTask.Pool pool = new CallbackTask.Pool(null, 2);
+        final List<CallbackTask> tasks = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            tasks.add(pool.acquire());
+        }
+        for (final CallbackTask task : tasks) {
+            task.init(StorageOperation.DELETE, null, "key", null, null, (value, throwable) -> {}, 0)
+                    .complete(true, null);
+        }
+
+        assertSame(tasks.get(0), pool.acquire());
+        assertSame(tasks.get(1), pool.acquire());
+        assertTrue(!tasks.contains(pool.acquire()), "the third task should have been dropped");
+
+        assertThrows(IllegalArgumentException.class, () -> new CallbackTask.Pool(null, 3));
+    }
+
+    @Test
+    public void concurrent_tasks_should_never_be_handed_out_twice() throws Exception {
+        final CallbackTask.Pool pool = new CallbackTask.Pool(null, 8);
+        final Set<CallbackTask> leased = Collections.synchronizedSet(
+                Collections.newSetFromMap(new IdentityHashMap<>()));
+        final AtomicReference<String> failure = new AtomicReference<>();
+
+        final ExecutorService executorService = Executors.newFixedThreadPool(4);
+        final CountDownLatch done = new CountDownLatch(4);
+        for (int thread = 0; thread < 4; thread++) {
+            executorService.execute(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    final CallbackTask task = pool.acquire();
+                    if (!leased.add(task)) {
+                        failure.set("a leased task was handed out again");
+                    }
+                    leased.remove(task);
+                    task.init(StorageOperation.RETRIEVE, null, "key", null, Object.class,
+                            (value, throwable) -> {}, 0).complete(null, null);
+                }
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        executorService.shutdown();
+        assertEquals(null, failure.get());
+    }
+}
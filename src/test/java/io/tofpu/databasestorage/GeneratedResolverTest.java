@@ -0,0 +1,78 @@
+package io.tofpu.databasestorage;
+
+import io.tofpu.databasestorage.data.PlayerStats;
+import io.tofpu.databasestorage.data.PlayerStatsStorageResolver;
+import io.tofpu.databasestorage.data.mapper.PlayerProfileValueResolver;
+import io.tofpu.databasestorage.resolver.value.StorageValueResolver;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class GeneratedResolverTest {
+    private static StorageBase storageBase;
+
+    @BeforeAll
+    public static void setUp() throws ExecutionException, InterruptedException, SQLException {
+        storageBase = new SQLiteStorage() {
+            @Override
+            protected List<StorageValueResolver<?, ?>> getValueResolvers() {
+                return Arrays.asList(new PlayerProfileValueResolver(this), new PlayerStatsStorageResolver(this));
+            }
+        };
+        storageBase.init().get();
+        ((PlayerStatsStorageResolver) storageBase.getValueResolver(PlayerStats.class)).createTable();
+    }
+
+    @Test
+    public void generated_resolver_should_round_trip_values() throws ExecutionException, InterruptedException {
+        final UUID uuid = UUID.randomUUID();
+        storageBase.saveAsync(uuid, new PlayerStats(uuid, "tofpu", 12, 3600L)).get();
+
+        final PlayerStats stats = storageBase.retrieveAsync(uuid, PlayerStats.class).get();
+        assertEquals(uuid, stats.getUUID(), "Key was not mapped");
+        assertEquals("tofpu", stats.getName(), "Name was not mapped");
+        assertEquals(12, stats.getKills(), "Kills were not mapped");
+        assertEquals(3600L, stats.getPlayTime(), "Play time was not mapped");
+
+        storageBase.deleteAsync(uuid, PlayerStats.class).get();
+        assertNull(storageBase.retrieveAsync(uuid, PlayerStats.class).get(), "Stats were not deleted");
+    }
+
+    @Test
+    public void generated_resolver_should_batch_values() throws ExecutionException, InterruptedException {
+        final Map<UUID, PlayerStats> values = new HashMap<>();
+        for (int i = 0; i < 600; i++) {
+            final UUID uuid = UUID.randomUUID();
+            values.put(uuid, new PlayerStats(uuid, "stats-" + i, i, i * 60L));
+        }
+        storageBase.saveAllAsync(values).get();
+
+        final Map<UUID, PlayerStats> retrieved = storageBase.retrieveAllAsync(values.keySet(), PlayerStats.class).get();
+        assertEquals(values.size(), retrieved.size(), "Not every value was retrieved");
+        for (final Map.Entry<UUID, PlayerStats> entry : retrieved.entrySet()) {
+            assertEquals(values.get(entry.getKey()).getKills(), entry.getValue().getKills(), "Kills were not mapped");
+        }
+    }
+
+    @AfterAll
+    public static void tearDown() {
+        final File databaseFile = new File("test.db");
+        if (databaseFile.exists()) {
+            databaseFile.delete();
+        }
+
+        storageBase.shutdown();
+    }
+}
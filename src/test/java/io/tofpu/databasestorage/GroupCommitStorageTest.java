@@ -0,0 +1,111 @@
+package io.tofpu.databasestorage;
+
+import io.tofpu.databasestorage.data.PlayerProfile;
+import io.tofpu.databasestorage.write.GroupCommitOptions;
+import io.tofpu.databasestorage.write.WriteOperation;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GroupCommitStorageTest {
+    private static final AtomicInteger BATCH_COUNT = new AtomicInteger();
+    private static volatile CountDownLatch writerLatch;
+
+    private static StorageBase storageBase;
+
+    @BeforeAll
+    public static void setUp() throws ExecutionException, InterruptedException {
+        storageBase = new SQLiteStorage() {
+            @Override
+            protected GroupCommitOptions getGroupCommitOptions() {
+                return new GroupCommitOptions(1000);
+            }
+
+            @Override
+            protected void applyWrites(final Collection<WriteOperation> operations) throws SQLException {
+                final CountDownLatch latch = writerLatch;
+                if (latch != null) {
+                    try {
+                        latch.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+
+                BATCH_COUNT.incrementAndGet();
+                super.applyWrites(operations);
+            }
+        };
+        storageBase.init().get();
+    }
+
+    @Test
+    public void queued_writes_should_be_committed_together() throws ExecutionException, InterruptedException {
+        writerLatch = new CountDownLatch(1);
+
+        // occupies the writer, so that the following saves queue up behind it
+        final UUID blocker = UUID.randomUUID();
+        final CompletableFuture<Boolean> blocking = storageBase.saveAsync(blocker, new PlayerProfile(blocker, "blocker"));
+        Thread.sleep(100);
+
+        final List<UUID> uuids = new ArrayList<>();
+        final List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            final UUID uuid = UUID.randomUUID();
+            uuids.add(uuid);
+            futures.add(storageBase.saveAsync(uuid, new PlayerProfile(uuid, "profile-" + i)));
+        }
+
+        final int batchCount = BATCH_COUNT.get();
+        writerLatch.countDown();
+        writerLatch = null;
+
+        assertTrue(blocking.get(), "Profile was not saved");
+        for (final CompletableFuture<Boolean> future : futures) {
+            assertTrue(future.get(), "Profile was not saved");
+        }
+        assertTrue(BATCH_COUNT.get() - batchCount <= 2, "Queued saves were not committed together");
+
+        for (int i = 0; i < uuids.size(); i++) {
+            assertEquals("profile-" + i, storageBase.retrieveAsync(uuids.get(i), PlayerProfile.class)
+                    .get().getName(), "Profile was not saved");
+        }
+    }
+
+    @Test
+    public void delete_should_be_written_after_save() throws ExecutionException, InterruptedException {
+        final UUID uuid = UUID.randomUUID();
+
+        storageBase.saveAsync(uuid, new PlayerProfile(uuid, "Tofpu"));
+        assertTrue(storageBase.deleteAsync(uuid, PlayerProfile.class).get(), "Profile was not deleted");
+
+        assertNull(storageBase.retrieveAsync(uuid, PlayerProfile.class)
+                .get(), "Profile was not deleted");
+    }
+
+    @AfterAll
+    public static void tearDown() {
+        final File databaseFile = new File("test.db");
+        if (databaseFile.exists()) {
+            databaseFile.delete();
+        }
+
+        storageBase.shutdown();
+    }
+}
@@ -0,0 +1,113 @@
+package io.tofpu.databasestorage;
+
+import io.tofpu.databasestorage.data.PlayerProfile;
+import io.tofpu.databasestorage.data.mapper.PlayerProfileValueResolver;
+import io.tofpu.databasestorage.index.IndexType;
+import io.tofpu.databasestorage.index.StorageIndex;
+import io.tofpu.databasestorage.resolver.value.StorageValueResolver;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IndexStorageTest {
+    private static StorageBase storageBase;
+
+    @BeforeAll
+    public static void setUp() throws ExecutionException, InterruptedException {
+        storageBase = new SQLiteStorage() {
+            @Override
+            protected List<StorageValueResolver<?, ?>> getValueResolvers() {
+                return Collections.singletonList(new PlayerProfileValueResolver(this) {
+                    @Override
+                    public List<StorageIndex<PlayerProfile>> getIndexes() {
+                        return Collections.singletonList(new StorageIndex<>("name", IndexType.HASH,
+                                PlayerProfile::getName));
+                    }
+                });
+            }
+        };
+        storageBase.init().get();
+    }
+
+    @Test
+    public void saved_value_should_be_found_by_index() throws ExecutionException, InterruptedException {
+        final UUID uuid = UUID.randomUUID();
+        final String name = "tofpu-" + uuid;
+        storageBase.saveAsync(uuid, new PlayerProfile(uuid, name)).get();
+
+        final List<PlayerProfile> profiles = storageBase.findByIndexAsync(PlayerProfile.class, "name", name).get();
+        assertEquals(Collections.singletonList(new PlayerProfile(uuid, name)), profiles);
+
+        final String renamed = "renamed-" + uuid;
+        storageBase.saveAsync(uuid, new PlayerProfile(uuid, renamed)).get();
+        assertTrue(storageBase.findByIndexAsync(PlayerProfile.class, "name", name).get().isEmpty(),
+                "Value was found by its previous name");
+        assertEquals(1, storageBase.findByIndexAsync(PlayerProfile.class, "name", renamed).get().size());
+
+        storageBase.deleteAsync(uuid, PlayerProfile.class).get();
+        assertTrue(storageBase.findByIndexAsync(PlayerProfile.class, "name", renamed).get().isEmpty(),
+                "Deleted value was found by its name");
+    }
+
+    @Test
+    public void missed_lookup_should_query_the_resolver() throws ExecutionException, InterruptedException {
+        final UUID uuid = UUID.randomUUID();
+        final String name = "unindexed-" + uuid;
+        // saved by another storage, so that it is not indexed by this one
+        final SQLiteStorage other = new SQLiteStorage();
+        other.init().get();
+        other.saveAsync(uuid, new PlayerProfile(uuid, name)).get();
+        other.shutdown();
+
+        final List<PlayerProfile> profiles = storageBase.findByIndexAsync(PlayerProfile.class, "name", name).get();
+        assertEquals(Collections.singletonList(new PlayerProfile(uuid, name)), profiles);
+        assertEquals(Collections.singletonList(uuid.toString()),
+                storageBase.getIndex(PlayerProfile.class, "name").find(name));
+    }
+
+    @Test
+    public void indexed_values_should_be_merged_with_queried_rows() throws ExecutionException,
+            InterruptedException {
+        final UUID stored = UUID.randomUUID();
+        final UUID written = UUID.randomUUID();
+        final String name = "shared-" + stored;
+        // saved by another storage, so that it is only found by the query
+        final SQLiteStorage other = new SQLiteStorage();
+        other.init().get();
+        other.saveAsync(stored, new PlayerProfile(stored, name)).get();
+        other.shutdown();
+
+        storageBase.saveAsync(written, new PlayerProfile(written, name)).get();
+
+        final List<PlayerProfile> profiles = storageBase.findByIndexAsync(PlayerProfile.class, "name", name).get();
+        assertEquals(2, profiles.size(), "Indexed value hid the stored row");
+        assertTrue(profiles.contains(new PlayerProfile(stored, name)));
+        assertTrue(profiles.contains(new PlayerProfile(written, name)));
+    }
+
+    @Test
+    public void unknown_index_should_be_rejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> storageBase.findByIndexAsync(PlayerProfile.class, "score", 42));
+    }
+
+    @AfterAll
+    public static void tearDown() {
+        final File databaseFile = new File("test.db");
+        if (databaseFile.exists()) {
+            databaseFile.delete();
+        }
+
+        storageBase.shutdown();
+    }
+}
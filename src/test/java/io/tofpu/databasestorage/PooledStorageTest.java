@@ -0,0 +1,145 @@
+package io.tofpu.databasestorage;
+
+import io.tofpu.databasestorage.data.PlayerProfile;
+import io.tofpu.databasestorage.data.mapper.PlayerProfileValueResolver;
+import io.tofpu.databasestorage.pool.ConnectionFactory;
+import io.tofpu.databasestorage.pool.ConnectionPool;
+import io.tofpu.databasestorage.resolver.value.StorageValueResolver;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PooledStorageTest {
+    private static final AtomicBoolean BREAK_CONNECTION = new AtomicBoolean();
+
+    private static StorageBase storageBase;
+
+    @BeforeAll
+    public static void setUp() throws ExecutionException, InterruptedException {
+        storageBase = new SQLiteStorage() {
+            @Override
+            protected ConnectionFactory getConnectionFactory() {
+                return () -> DriverManager.getConnection("jdbc:sqlite:test.db");
+            }
+
+            @Override
+            protected List<StorageValueResolver<?, ?>> getValueResolvers() {
+                return Collections.singletonList(new PlayerProfileValueResolver(this) {
+                    @Override
+                    public PlayerProfile retrieve(final String key) throws SQLException {
+                        if (BREAK_CONNECTION.getAndSet(false)) {
+                            currentConnection().close();
+                            throw new SQLException("The connection was lost", "08006");
+                        }
+                        return super.retrieve(key);
+                    }
+                });
+            }
+        };
+        storageBase.init().get();
+    }
+
+    @Test
+    public void operations_should_lease_pooled_connections() throws ExecutionException, InterruptedException {
+        final List<CompletableFuture<Boolean>> saves = new ArrayList<>();
+        final List<UUID> uuids = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            final UUID uuid = UUID.randomUUID();
+            uuids.add(uuid);
+            saves.add(storageBase.saveAsync(uuid, new PlayerProfile(uuid, "tofpu")));
+        }
+        CompletableFuture.allOf(saves.toArray(new CompletableFuture<?>[0])).get();
+
+        for (final UUID uuid : uuids) {
+            assertEquals("tofpu", storageBase.retrieveAsync(uuid, PlayerProfile.class).get().getName());
+        }
+
+        final ConnectionPool pool = storageBase.getConnectionPool();
+        assertTrue(pool.getOpenCount() <= pool.getOptions().getMaximumSize(), "Pool exceeded its maximum size");
+    }
+
+    @Test
+    public void broken_connection_should_not_return_to_the_pool() throws ExecutionException,
+            InterruptedException {
+        final UUID uuid = UUID.randomUUID();
+        storageBase.saveAsync(uuid, new PlayerProfile(uuid, "tofpu")).get();
+
+        BREAK_CONNECTION.set(true);
+        assertThrows(ExecutionException.class, () -> storageBase.retrieveAsync(uuid, PlayerProfile.class).get());
+
+        // the closed connection would be leased again without validation
+        assertEquals("tofpu", storageBase.retrieveAsync(uuid, PlayerProfile.class).get().getName(),
+                "Broken connection was returned to the pool");
+    }
+
+    @Test
+    public void open_scans_should_not_starve_the_pool() throws ExecutionException, InterruptedException,
+            TimeoutException {
+        final UUID uuid = UUID.randomUUID();
+        storageBase.saveAsync(uuid, new PlayerProfile(uuid, "tofpu")).get();
+
+        // every scan keeps its cursor open, as only one value is requested
+        final int scanCount = storageBase.getConnectionPool().getOptions().getMaximumSize() + 1;
+        final List<Flow.Subscription> subscriptions = new ArrayList<>();
+        final List<CompletableFuture<PlayerProfile>> firstValues = new ArrayList<>();
+        for (int i = 0; i < scanCount; i++) {
+            final CompletableFuture<PlayerProfile> firstValue = new CompletableFuture<>();
+            firstValues.add(firstValue);
+            storageBase.streamAsync(PlayerProfile.class).subscribe(new Flow.Subscriber<PlayerProfile>() {
+                @Override
+                public void onSubscribe(final Flow.Subscription subscription) {
+                    subscriptions.add(subscription);
+                    subscription.request(1);
+                }
+
+                @Override
+                public void onNext(final PlayerProfile item) {
+                    firstValue.complete(item);
+                }
+
+                @Override
+                public void onError(final Throwable throwable) {
+                    firstValue.completeExceptionally(throwable);
+                }
+
+                @Override
+                public void onComplete() {}
+            });
+        }
+        for (final CompletableFuture<PlayerProfile> firstValue : firstValues) {
+            firstValue.get(5, TimeUnit.SECONDS);
+        }
+
+        assertEquals("tofpu", storageBase.retrieveAsync(uuid, PlayerProfile.class).get(5, TimeUnit.SECONDS)
+                .getName(), "Open scans held every connection of the pool");
+        subscriptions.forEach(Flow.Subscription::cancel);
+    }
+
+    @AfterAll
+    public static void tearDown() {
+        final File databaseFile = new File("test.db");
+        if (databaseFile.exists()) {
+            databaseFile.delete();
+        }
+
+        storageBase.shutdown();
+    }
+}
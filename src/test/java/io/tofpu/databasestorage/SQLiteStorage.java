@@ -29,17 +29,34 @@ public class SQLiteStorage extends StorageBase {
         }
 
         CompletableFuture.runAsync(() -> {
-            establishConnection();
-            execute("CREATE TABLE IF NOT EXISTS player_profile (id STRING PRIMARY KEY, " +
-                    "name" + " STRING NOT NULL)", statement -> {
-                try {
-                    statement.execute();
-                } catch (SQLException e) {
-                    throw new IllegalStateException(e);
-                }
-            });
+            try {
+                establishConnection();
+                // lets the readers run concurrently with the single writer
+                execute("PRAGMA journal_mode=WAL", statement -> {
+                    try {
+                        statement.execute();
+                    } catch (SQLException e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+                execute("CREATE TABLE IF NOT EXISTS player_profile (id BLOB PRIMARY KEY, " +
+                        "name" + " STRING NOT NULL)", statement -> {
+                    try {
+                        statement.execute();
+                    } catch (SQLException e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+
+                replayJournal();
+                loadMembershipFilters();
+                warmUp();
 
-            future.complete(true);
+                future.complete(true);
+            } catch (Throwable throwable) {
+                // completes the future, so that init().get() fails instead of waiting forever
+                future.completeExceptionally(throwable);
+            }
         });
         return future;
     }
@@ -0,0 +1,146 @@
+package io.tofpu.databasestorage;
+
+import io.tofpu.databasestorage.data.PlayerProfile;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ScanStorageTest {
+    private static final int PROFILE_COUNT = 1000;
+
+    private static StorageBase storageBase;
+
+    @BeforeAll
+    public static void setUp() throws ExecutionException, InterruptedException {
+        storageBase = new SQLiteStorage();
+        storageBase.init().get();
+
+        final Map<UUID, PlayerProfile> profiles = new HashMap<>();
+        for (int i = 0; i < PROFILE_COUNT; i++) {
+            final UUID uuid = UUID.randomUUID();
+            profiles.put(uuid, new PlayerProfile(uuid, "profile-" + i));
+        }
+        storageBase.saveAllAsync(profiles).get();
+    }
+
+    @Test
+    public void every_profile_should_be_streamed() throws ExecutionException, InterruptedException,
+            TimeoutException {
+        final CompletableFuture<Integer> completion = new CompletableFuture<>();
+        final AtomicInteger received = new AtomicInteger();
+
+        storageBase.streamAsync(PlayerProfile.class).subscribe(new Flow.Subscriber<PlayerProfile>() {
+            private Flow.Subscription subscription;
+            private int outstanding;
+
+            @Override
+            public void onSubscribe(final Flow.Subscription subscription) {
+                this.subscription = subscription;
+                this.outstanding = 10;
+                subscription.request(10);
+            }
+
+            @Override
+            public void onNext(final PlayerProfile item) {
+                received.incrementAndGet();
+                if (--outstanding == 0) {
+                    outstanding = 10;
+                    subscription.request(10);
+                }
+            }
+
+            @Override
+            public void onError(final Throwable throwable) {
+                completion.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                completion.complete(received.get());
+            }
+        });
+
+        assertTrue(completion.get(10, TimeUnit.SECONDS) >= PROFILE_COUNT, "Not every profile was streamed");
+    }
+
+    @Test
+    public void stream_should_honor_demand() throws ExecutionException, InterruptedException,
+            TimeoutException {
+        final AtomicLong requested = new AtomicLong();
+        final AtomicInteger received = new AtomicInteger();
+        final AtomicInteger overflow = new AtomicInteger();
+        final CompletableFuture<Flow.Subscription> fifthReceived = new CompletableFuture<>();
+        final CompletableFuture<Void> sixthReceived = new CompletableFuture<>();
+        final CompletableFuture<Void> terminated = new CompletableFuture<>();
+
+        storageBase.streamAsync(PlayerProfile.class).subscribe(new Flow.Subscriber<PlayerProfile>() {
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(final Flow.Subscription subscription) {
+                this.subscription = subscription;
+                requested.set(5);
+                subscription.request(5);
+            }
+
+            @Override
+            public void onNext(final PlayerProfile item) {
+                final int count = received.incrementAndGet();
+                if (count > requested.get()) {
+                    overflow.incrementAndGet();
+                }
+                if (count == 5) {
+                    fifthReceived.complete(subscription);
+                } else if (count == 6) {
+                    sixthReceived.complete(null);
+                }
+            }
+
+            @Override
+            public void onError(final Throwable throwable) {
+                terminated.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                terminated.complete(null);
+            }
+        });
+
+        final Flow.Subscription subscription = fifthReceived.get(5, TimeUnit.SECONDS);
+        // a profile beyond the demand would be emitted before the sixth is requested
+        requested.set(6);
+        subscription.request(1);
+        sixthReceived.get(5, TimeUnit.SECONDS);
+        subscription.cancel();
+
+        assertEquals(0, overflow.get(), "More profiles were streamed than requested");
+        assertFalse(terminated.isDone(), "Stream was terminated before it was exhausted");
+    }
+
+    @AfterAll
+    public static void tearDown() {
+        final File databaseFile = new File("test.db");
+        if (databaseFile.exists()) {
+            databaseFile.delete();
+        }
+
+        storageBase.shutdown();
+    }
+}
@@ -0,0 +1,146 @@
+package io.tofpu.databasestorage;
+
+import io.tofpu.databasestorage.data.PlayerProfile;
+import io.tofpu.databasestorage.data.mapper.PlayerProfileValueResolver;
+import io.tofpu.databasestorage.resolver.value.StorageValueResolver;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SingleFlightStorageTest {
+    private static final AtomicInteger RETRIEVE_COUNT = new AtomicInteger();
+    private static volatile CountDownLatch retrieveLatch;
+    private static volatile CountDownLatch saveLatch;
+
+    private static StorageBase storageBase;
+
+    @BeforeAll
+    public static void setUp() throws ExecutionException, InterruptedException {
+        storageBase = new SQLiteStorage() {
+            @Override
+            protected List<StorageValueResolver<?, ?>> getValueResolvers() {
+                return Collections.singletonList(new PlayerProfileValueResolver(this) {
+                    @Override
+                    public void save(final String key, final Object value) throws SQLException {
+                        await(saveLatch);
+                        super.save(key, value);
+                    }
+
+                    @Override
+                    public PlayerProfile retrieve(final String key) throws SQLException {
+                        await(retrieveLatch);
+                        RETRIEVE_COUNT.incrementAndGet();
+                        return super.retrieve(key);
+                    }
+                });
+            }
+        };
+        storageBase.init().get();
+    }
+
+    @Test
+    public void concurrent_retrievals_should_share_one_call() throws ExecutionException, InterruptedException {
+        final UUID uuid = UUID.randomUUID();
+        storageBase.saveAsync(uuid, new PlayerProfile(uuid, "tofpu")).get();
+
+        retrieveLatch = new CountDownLatch(1);
+        final int retrieveCount = RETRIEVE_COUNT.get();
+
+        final List<CompletableFuture<PlayerProfile>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(storageBase.retrieveAsync(uuid, PlayerProfile.class));
+        }
+
+        retrieveLatch.countDown();
+        retrieveLatch = null;
+
+        for (final CompletableFuture<PlayerProfile> future : futures) {
+            assertEquals("tofpu", future.get().getName(), "Profile was not retrieved");
+        }
+        assertEquals(retrieveCount + 1, RETRIEVE_COUNT.get(), "Retrievals were not deduplicated");
+    }
+
+    @Test
+    public void retrieval_after_save_should_not_join_earlier_retrieval() throws ExecutionException,
+            InterruptedException {
+        final UUID uuid = UUID.randomUUID();
+        storageBase.saveAsync(uuid, new PlayerProfile(uuid, "before")).get();
+
+        retrieveLatch = new CountDownLatch(1);
+        final CompletableFuture<PlayerProfile> earlier = storageBase.retrieveAsync(uuid, PlayerProfile.class);
+
+        final CompletableFuture<Boolean> save = storageBase.saveAsync(uuid, new PlayerProfile(uuid, "after"));
+        final CompletableFuture<PlayerProfile> later = storageBase.retrieveAsync(uuid, PlayerProfile.class);
+
+        retrieveLatch.countDown();
+        retrieveLatch = null;
+
+        earlier.get();
+        save.get();
+        assertEquals("after", later.get().getName(), "Retrieval observed a value from before the save");
+    }
+
+    @Test
+    public void retrieval_after_callback_save_should_observe_the_save() throws ExecutionException,
+            InterruptedException {
+        final UUID uuid = UUID.randomUUID();
+        storageBase.saveAsync(uuid, new PlayerProfile(uuid, "before")).get();
+
+        saveLatch = new CountDownLatch(1);
+        final CompletableFuture<Boolean> save = new CompletableFuture<>();
+        storageBase.saveAsync(uuid, new PlayerProfile(uuid, "after"), (result, throwable) -> save.complete(result));
+        final CompletableFuture<PlayerProfile> later = storageBase.retrieveAsync(uuid, PlayerProfile.class);
+
+        saveLatch.countDown();
+        saveLatch = null;
+
+        assertEquals(true, save.get());
+        assertEquals("after", later.get().getName(), "Retrieval overtook the callback save");
+    }
+
+    @Test
+    public void retrieval_after_blocking_save_should_observe_the_save() throws ExecutionException,
+            InterruptedException {
+        final UUID uuid = UUID.randomUUID();
+        storageBase.save(uuid, new PlayerProfile(uuid, "before"));
+        storageBase.save(uuid, new PlayerProfile(uuid, "after"));
+
+        // the blocking save is not pending, it has completed once it returns
+        assertEquals("after", storageBase.retrieveAsync(uuid, PlayerProfile.class).get().getName());
+    }
+
+    private static void await(final CountDownLatch latch) {
+        if (latch == null) {
+            return;
+        }
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @AfterAll
+    public static void tearDown() {
+        final File databaseFile = new File("test.db");
+        if (databaseFile.exists()) {
+            databaseFile.delete();
+        }
+
+        storageBase.shutdown();
+    }
+}
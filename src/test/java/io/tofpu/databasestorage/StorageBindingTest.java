@@ -0,0 +1,74 @@
+package io.tofpu.databasestorage;
+
+import io.tofpu.databasestorage.data.PlayerProfile;
+import io.tofpu.databasestorage.resolver.key.StorageKeyResolver;
+import io.tofpu.databasestorage.resolver.key.impl.StorageNumberSerializer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StorageBindingTest {
+    private static final StorageNumberSerializer NUMBER_RESOLVER = new StorageNumberSerializer();
+
+    private static StorageBase storageBase;
+    private static StorageBinding<UUID, PlayerProfile> profileBinding;
+
+    @BeforeAll
+    public static void setUp() throws ExecutionException, InterruptedException {
+        storageBase = new SQLiteStorage() {
+            @Override
+            protected List<StorageKeyResolver<?>> getKeyResolvers() {
+                return Collections.singletonList(NUMBER_RESOLVER);
+            }
+        };
+        storageBase.init().get();
+
+        profileBinding = storageBase.bind(UUID.class, PlayerProfile.class);
+    }
+
+    @Test
+    public void binding_should_save_retrieve_and_delete() throws ExecutionException, InterruptedException {
+        final PlayerProfile profile = new PlayerProfile(UUID.randomUUID(), "Tofpu");
+
+        assertTrue(profileBinding.saveAsync(profile.getUUID(), profile).get(), "Profile was not saved");
+        assertEquals(profile.getName(), profileBinding.retrieveAsync(profile.getUUID())
+                .get().getName(), "Retrieved profile is not equal to the saved profile");
+
+        assertTrue(profileBinding.deleteAsync(profile.getUUID()).get(), "Profile was not deleted");
+        assertNull(profileBinding.retrieveAsync(profile.getUUID()).get(), "Profile was not deleted");
+    }
+
+    @Test
+    public void key_resolver_should_be_resolved_by_supertype() {
+        assertSame(NUMBER_RESOLVER, storageBase.getKeyResolver(Integer.class),
+                "Integer key was not resolved by the Number resolver");
+        assertSame(NUMBER_RESOLVER, storageBase.getKeyResolver(Long.class));
+    }
+
+    @Test
+    public void unknown_types_should_not_be_bound() {
+        assertThrows(IllegalArgumentException.class, () -> storageBase.bind(UUID.class, String.class));
+    }
+
+    @AfterAll
+    public static void tearDown() {
+        final File databaseFile = new File("test.db");
+        if (databaseFile.exists()) {
+            databaseFile.delete();
+        }
+
+        storageBase.shutdown();
+    }
+}
@@ -0,0 +1,69 @@
+package io.tofpu.databasestorage;
+
+import io.tofpu.databasestorage.data.PlayerProfile;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TransactionStorageTest {
+    private static StorageBase storageBase;
+
+    @BeforeAll
+    public static void setUp() throws ExecutionException, InterruptedException {
+        storageBase = new SQLiteStorage();
+        storageBase.init().get();
+    }
+
+    @Test
+    public void transaction_should_be_committed_at_once() throws ExecutionException, InterruptedException {
+        final PlayerProfile seller = new PlayerProfile(UUID.randomUUID(), "Seller");
+        final PlayerProfile buyer = new PlayerProfile(UUID.randomUUID(), "Buyer");
+        storageBase.saveAsync(seller.getUUID(), seller);
+
+        assertTrue(storageBase.transactionAsync(transaction -> {
+            transaction.save(buyer.getUUID(), buyer);
+            assertEquals(buyer.getName(), transaction.retrieve(buyer.getUUID(), PlayerProfile.class)
+                    .getName(), "Transaction did not see its own save");
+            transaction.delete(seller.getUUID(), PlayerProfile.class);
+        }).get(), "Transaction was not committed");
+
+        assertEquals(buyer.getName(), storageBase.retrieveAsync(buyer.getUUID(), PlayerProfile.class)
+                .get().getName(), "Profile was not saved by the transaction");
+        assertNull(storageBase.retrieveAsync(seller.getUUID(), PlayerProfile.class).get(),
+                "Profile was not deleted by the transaction");
+    }
+
+    @Test
+    public void failed_transaction_should_be_rolled_back() throws ExecutionException, InterruptedException {
+        final PlayerProfile profile = new PlayerProfile(UUID.randomUUID(), "Tofpu");
+
+        final ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> storageBase.transactionAsync(transaction -> {
+                    transaction.save(profile.getUUID(), profile);
+                    throw new IllegalStateException("trade was cancelled");
+                }).get());
+        assertTrue(exception.getCause() instanceof IllegalStateException);
+
+        assertNull(storageBase.retrieveAsync(profile.getUUID(), PlayerProfile.class).get(),
+                "Profile of the rolled back transaction was saved");
+    }
+
+    @AfterAll
+    public static void tearDown() {
+        final File databaseFile = new File("test.db");
+        if (databaseFile.exists()) {
+            databaseFile.delete();
+        }
+
+        storageBase.shutdown();
+    }
+}
@@ -0,0 +1,80 @@
+package io.tofpu.databasestorage;
+
+import io.tofpu.databasestorage.data.PlayerProfile;
+import io.tofpu.databasestorage.write.WriteBehindOptions;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class WriteBehindStorageTest {
+    private static StorageBase storageBase;
+
+    @BeforeAll
+    public static void setUp() throws ExecutionException, InterruptedException {
+        storageBase = new SQLiteStorage() {
+            @Override
+            protected WriteBehindOptions getWriteBehindOptions() {
+                return new WriteBehindOptions(1000, 1, TimeUnit.MINUTES);
+            }
+        };
+        storageBase.init().get();
+    }
+
+    @Test
+    public void queued_saves_should_be_coalesced() throws ExecutionException, InterruptedException {
+        final UUID uuid = UUID.randomUUID();
+
+        final CompletableFuture<Boolean> first = storageBase.saveAsync(uuid, new PlayerProfile(uuid, "first"));
+        final CompletableFuture<Boolean> second = storageBase.saveAsync(uuid, new PlayerProfile(uuid, "second"));
+        assertFalse(first.isDone(), "Save was written before the queue was flushed");
+
+        assertEquals("second", storageBase.retrieveAsync(uuid, PlayerProfile.class)
+                .get().getName(), "Queued save is not visible");
+
+        storageBase.flushAsync().get();
+        assertTrue(first.get() && second.get(), "Profile was not saved");
+
+        assertEquals("second", storageBase.retrieveAsync(uuid, PlayerProfile.class)
+                .get().getName(), "Latest profile was not written");
+    }
+
+    @Test
+    public void queued_delete_should_replace_save() throws ExecutionException, InterruptedException {
+        final UUID uuid = UUID.randomUUID();
+
+        storageBase.saveAsync(uuid, new PlayerProfile(uuid, "Tofpu"));
+        storageBase.flushAsync().get();
+
+        final CompletableFuture<Boolean> save = storageBase.saveAsync(uuid, new PlayerProfile(uuid, "Tofpu"));
+        final CompletableFuture<Boolean> delete = storageBase.deleteAsync(uuid, PlayerProfile.class);
+        assertNull(storageBase.retrieveAsync(uuid, PlayerProfile.class)
+                .get(), "Queued delete is not visible");
+
+        storageBase.flushAsync().get();
+        assertTrue(save.get() && delete.get(), "Profile was not deleted");
+
+        assertNull(storageBase.retrieveAsync(uuid, PlayerProfile.class)
+                .get(), "Profile was not deleted");
+    }
+
+    @AfterAll
+    public static void tearDown() {
+        final File databaseFile = new File("test.db");
+        if (databaseFile.exists()) {
+            databaseFile.delete();
+        }
+
+        storageBase.shutdown();
+    }
+}
@@ -0,0 +1,62 @@
+package io.tofpu.databasestorage.cache;
+
+import io.tofpu.databasestorage.EntryKey;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class SegmentedLruCacheTest {
+    private static EntryKey key(final int index) {
+        return new EntryKey(String.class, "key-" + index);
+    }
+
+    @Test
+    public void size_should_be_bounded() {
+        final StorageCache cache = new SegmentedLruCache(10, 0, TimeUnit.SECONDS);
+        for (int i = 0; i < 100; i++) {
+            cache.put(key(i), "value-" + i);
+        }
+
+        final CacheStats stats = cache.getStats();
+        assertEquals(10, stats.getSize(), "Cache exceeded its maximum size");
+        assertEquals(90, stats.getEvictionCount(), "Evictions were not counted");
+    }
+
+    @Test
+    public void accessed_entries_should_survive_a_scan() {
+        final StorageCache cache = new SegmentedLruCache(10, 0, TimeUnit.SECONDS);
+        cache.put(key(0), "hot");
+        assertNotNull(cache.getIfPresent(key(0)));
+
+        for (int i = 1; i < 100; i++) {
+            cache.put(key(i), "cold-" + i);
+        }
+
+        assertEquals("hot", cache.getIfPresent(key(0)), "Hot entry was evicted by a scan");
+    }
+
+    @Test
+    public void entries_should_expire() throws InterruptedException {
+        final StorageCache cache = new SegmentedLruCache(10, 10, TimeUnit.MILLISECONDS);
+        cache.put(key(0), "value");
+
+        Thread.sleep(50);
+
+        assertNull(cache.getIfPresent(key(0)), "Entry did not expire");
+        assertEquals(1, cache.getStats().getMissCount());
+    }
+
+    @Test
+    public void invalidated_entries_should_be_removed() {
+        final StorageCache cache = new SegmentedLruCache(10, 0, TimeUnit.SECONDS);
+        cache.put(key(0), "value");
+        cache.invalidate(key(0));
+
+        assertNull(cache.getIfPresent(key(0)), "Entry was not invalidated");
+        assertEquals(0, cache.getStats().getSize());
+    }
+}
@@ -0,0 +1,139 @@
+package io.tofpu.databasestorage.codec;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CodecTest {
+    @Test
+    public void varints_should_round_trip() {
+        final CodecOutput output = new CodecOutput(1);
+        final int[] ints = {0, 1, 127, 128, 16_383, 16_384, Integer.MAX_VALUE, -1, Integer.MIN_VALUE};
+        final long[] longs = {0, 1, Long.MAX_VALUE, -1, Long.MIN_VALUE};
+        for (final int value : ints) {
+            output.writeVarInt(value);
+            output.writeSignedVarInt(value);
+        }
+        for (final long value : longs) {
+            output.writeVarLong(value);
+            output.writeSignedVarLong(value);
+        }
+
+        final CodecInput input = new CodecInput(output.toByteArray());
+        for (final int value : ints) {
+            assertEquals(value, input.readVarInt());
+            assertEquals(value, input.readSignedVarInt());
+        }
+        for (final long value : longs) {
+            assertEquals(value, input.readVarLong());
+            assertEquals(value, input.readSignedVarLong());
+        }
+        assertEquals(0, input.remaining());
+
+        output.clear();
+        output.writeSignedVarInt(-1);
+        assertEquals(1, output.size(), "Small negative value was not zigzag-encoded");
+    }
+
+    @Test
+    public void repeated_strings_should_be_written_once() {
+        final CodecOutput output = new CodecOutput();
+        for (int i = 0; i < 10; i++) {
+            output.writeTableString("diamond_sword");
+        }
+        output.writeTableString(null);
+        output.writeTableString("apple");
+        assertTrue(output.size() < 40, "Repeated strings were not written via the table: " + output.size());
+
+        final CodecInput input = new CodecInput(output.toByteBuffer());
+        for (int i = 0; i < 10; i++) {
+            assertEquals("diamond_sword", input.readTableString());
+        }
+        assertNull(input.readTableString());
+        assertEquals("apple", input.readTableString());
+    }
+
+    @Test
+    public void older_versions_should_still_be_decoded() {
+        final CodecOutput output = new CodecOutput();
+        new InventoryCodec(1).encode(Collections.singletonMap("apple", 3), output);
+
+        final Map<String, Integer> inventory = new InventoryCodec(2).decode(new CodecInput(output.toByteArray()));
+        assertEquals(Collections.singletonMap("apple", 3), inventory);
+
+        output.clear();
+        new InventoryCodec(3).encode(inventory, output);
+        assertThrows(IllegalArgumentException.class,
+                () -> new InventoryCodec(2).decode(new CodecInput(output.toByteArray())));
+    }
+
+    @Test
+    public void large_values_should_be_compressed() {
+        final Map<String, Integer> inventory = new LinkedHashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            inventory.put("item-" + (i % 50) + "-" + i, i % 64);
+        }
+
+        final InventoryCodec codec = new InventoryCodec(2);
+        final CodecOutput plain = new CodecOutput();
+        codec.encode(inventory, plain);
+
+        final CompressingCodec<Map<String, Integer>> compressingCodec = new CompressingCodec<>(codec, 256);
+        final CodecOutput compressed = new CodecOutput();
+        compressingCodec.encode(inventory, compressed);
+        compressed.writeInt(42);
+        assertTrue(compressed.size() < plain.size() / 2, "Large value was not compressed");
+
+        final CodecInput input = new CodecInput(compressed.toByteArray());
+        assertEquals(inventory, compressingCodec.decode(input));
+        assertEquals(42, input.readInt(), "Bytes after the compressed value were consumed");
+
+        final CodecOutput small = new CodecOutput();
+        compressingCodec.encode(Collections.singletonMap("apple", 3), small);
+        small.writeInt(42);
+        final CodecInput smallInput = new CodecInput(small.toByteArray());
+        assertEquals(Collections.singletonMap("apple", 3), compressingCodec.decode(smallInput));
+        assertEquals(42, smallInput.readInt());
+
+        final byte[] truncated = Arrays.copyOf(compressed.toByteArray(), compressed.size() / 2);
+        assertThrows(IllegalArgumentException.class, () -> compressingCodec.decode(new CodecInput(truncated)));
+    }
+
+    private static final class InventoryCodec extends VersionedCodec<Map<String, Integer>> {
+        private InventoryCodec(final int version) {
+            super(version);
+        }
+
+        @Override
+        protected void encodeValue(final Map<String, Integer> value, final CodecOutput output) {
+            output.writeVarInt(value.size());
+            for (final Map.Entry<String, Integer> entry : value.entrySet()) {
+                output.writeTableString(entry.getKey());
+                if (getVersion() == 1) {
+                    output.writeInt(entry.getValue());
+                } else {
+                    output.writeVarInt(entry.getValue());
+                }
+            }
+        }
+
+        @Override
+        protected Map<String, Integer> decode(final CodecInput input, final int version) {
+            final int size = input.readVarInt();
+            final Map<String, Integer> value = new LinkedHashMap<>();
+            for (int i = 0; i < size; i++) {
+                // version 1 wrote the amounts as fixed-size ints
+                value.put(input.readTableString(), version == 1 ? input.readInt() : input.readVarInt());
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package io.tofpu.databasestorage.data;
+
+import io.tofpu.databasestorage.annotation.StorageColumn;
+import io.tofpu.databasestorage.annotation.StorageEntity;
+import io.tofpu.databasestorage.annotation.StorageKey;
+
+import java.util.UUID;
+
+@StorageEntity(table = "player_stats")
+public class PlayerStats {
+    @StorageKey(name = "id")
+    private final UUID uuid;
+    @StorageColumn
+    private final String name;
+    @StorageColumn
+    private final int kills;
+    @StorageColumn
+    private final long playTime;
+
+    public PlayerStats(final UUID uuid, final String name, final int kills, final long playTime) {
+        this.uuid = uuid;
+        this.name = name;
+        this.kills = kills;
+        this.playTime = playTime;
+    }
+
+    public UUID getUUID() {
+        return uuid;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getKills() {
+        return kills;
+    }
+
+    public long getPlayTime() {
+        return playTime;
+    }
+}
@@ -0,0 +1,19 @@
+package io.tofpu.databasestorage.data.codec;
+
+import io.tofpu.databasestorage.codec.CodecInput;
+import io.tofpu.databasestorage.codec.CodecOutput;
+import io.tofpu.databasestorage.codec.StorageValueCodec;
+import io.tofpu.databasestorage.data.PlayerProfile;
+
+public class PlayerProfileCodec implements StorageValueCodec<PlayerProfile> {
+    @Override
+    public void encode(final PlayerProfile value, final CodecOutput output) {
+        output.writeUUID(value.getUUID());
+        output.writeString(value.getName());
+    }
+
+    @Override
+    public PlayerProfile decode(final CodecInput input) {
+        return new PlayerProfile(input.readUUID(), input.readString());
+    }
+}
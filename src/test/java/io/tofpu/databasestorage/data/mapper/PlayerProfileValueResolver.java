@@ -1,33 +1,48 @@
 package io.tofpu.databasestorage.data.mapper;
 
 import io.tofpu.databasestorage.StorageBase;
+import io.tofpu.databasestorage.codec.StorageValueCodec;
 import io.tofpu.databasestorage.data.PlayerProfile;
+import io.tofpu.databasestorage.data.codec.PlayerProfileCodec;
 import io.tofpu.databasestorage.resolver.value.StorageValueResolver;
+import io.tofpu.databasestorage.scan.ResultSetCursor;
+import io.tofpu.databasestorage.scan.StorageCursor;
+import io.tofpu.databasestorage.statement.CachedStatement;
 
-import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 public class PlayerProfileValueResolver extends StorageValueResolver<UUID, PlayerProfile> {
     private static final String INSET_PROFILE_QUERY =
             "INSERT OR REPLACE INTO " + "player_profile" + " (id," +
             "name) VALUES (?, ?)";
+    private static final String UPDATE_NAME_QUERY = "UPDATE player_profile SET name = ? WHERE id = ?";
     private static final String SELECT_PROFILE_QUERY = "SELECT * FROM player_profile WHERE id = ?";
+    private static final String DELETE_PROFILE_QUERY = "DELETE FROM player_profile WHERE id = ?";
+    private static final String SELECT_BY_NAME_QUERY = "SELECT id, name FROM player_profile WHERE name = ?";
+    private static final int MAX_CHUNK_SIZE = 500;
+    private static final PlayerProfileCodec CODEC = new PlayerProfileCodec();
 
     public PlayerProfileValueResolver(final StorageBase storageBase) {
-        super(PlayerProfile.class, storageBase);
+        super(PlayerProfile.class, UUID.class, storageBase);
     }
 
     @Override
     public void save(final String key, Object value) throws SQLException {
-        final Connection connection = storageBase.getConnection();
-
         final PlayerProfile playerProfile = (PlayerProfile) value;
 
-        try (final PreparedStatement statement = connection.prepareStatement(INSET_PROFILE_QUERY)) {
-            statement.setString(1, key);
+        try (final CachedStatement cachedStatement = prepareStatement(INSET_PROFILE_QUERY)) {
+            final PreparedStatement statement = cachedStatement.getStatement();
+            bindKey(statement, 1, key);
             statement.setObject(2, playerProfile.getName());
 
             statement.executeUpdate();
@@ -35,31 +50,172 @@ public class PlayerProfileValueResolver extends StorageValueResolver<UUID, Playe
     }
 
     @Override
-    public PlayerProfile retrieve(final String key) throws SQLException {
-        final Connection connection = storageBase.getConnection();
+    public void saveChanges(final String key, final Object value,
+            final Set<String> changedFields) throws SQLException {
+        if (!changedFields.contains("name")) {
+            return;
+        }
+
+        final PlayerProfile playerProfile = (PlayerProfile) value;
+        try (final CachedStatement cachedStatement = prepareStatement(UPDATE_NAME_QUERY)) {
+            final PreparedStatement statement = cachedStatement.getStatement();
+            statement.setObject(1, playerProfile.getName());
+            bindKey(statement, 2, key);
+
+            if (statement.executeUpdate() > 0) {
+                return;
+            }
+        }
+        // the row was deleted in the meantime
+        save(key, value);
+    }
+
+    @Override
+    public void saveAll(final Map<String, Object> values) throws SQLException {
+        try (final CachedStatement cachedStatement = prepareStatement(INSET_PROFILE_QUERY)) {
+            final PreparedStatement statement = cachedStatement.getStatement();
+            for (final Map.Entry<String, Object> entry : values.entrySet()) {
+                final PlayerProfile playerProfile = (PlayerProfile) entry.getValue();
+
+                bindKey(statement, 1, entry.getKey());
+                statement.setObject(2, playerProfile.getName());
+                statement.addBatch();
+            }
 
-        try (final PreparedStatement statement = connection.prepareStatement(SELECT_PROFILE_QUERY)) {
-            System.out.println("key: " + key + " type: " + key.getClass());
-            statement.setString(1, key);
+            statement.executeBatch();
+        }
+    }
+
+    @Override
+    public PlayerProfile retrieve(final String key) throws SQLException {
+        try (final CachedStatement cachedStatement = prepareStatement(SELECT_PROFILE_QUERY)) {
+            final PreparedStatement statement = cachedStatement.getStatement();
+            bindKey(statement, 1, key);
 
             try (final ResultSet resultSet = statement.executeQuery()) {
                 if (resultSet.isClosed()) {
-                    System.out.println("ResultSet is closed");
                     return null;
                 }
 
-                return new PlayerProfile(UUID.fromString(resultSet.getString("id")), resultSet.getString("name"));
+                return new PlayerProfile(UUID.fromString(key), resultSet.getString("name"));
             }
         }
     }
 
     @Override
-    public void delete(final String key) throws SQLException {
-        final Connection connection = storageBase.getConnection();
+    public Map<String, PlayerProfile> retrieveAll(final Collection<String> keys) throws SQLException {
+        final Map<String, PlayerProfile> profiles = new HashMap<>();
+
+        final List<String> keyList = new ArrayList<>(keys);
+        for (int index = 0; index < keyList.size(); index += MAX_CHUNK_SIZE) {
+            final List<String> chunk = keyList.subList(index,
+                    Math.min(index + MAX_CHUNK_SIZE, keyList.size()));
+            final String query = "SELECT * FROM player_profile WHERE id IN (" +
+                                 String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+
+            try (final CachedStatement cachedStatement = prepareStatement(query)) {
+                final PreparedStatement statement = cachedStatement.getStatement();
+                for (int i = 0; i < chunk.size(); i++) {
+                    bindKey(statement, i + 1, chunk.get(i));
+                }
+
+                try (final ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        final String id = readKey(resultSet, "id");
+                        profiles.put(id, new PlayerProfile(UUID.fromString(id), resultSet.getString("name")));
+                    }
+                }
+            }
+        }
+        return profiles;
+    }
+
+    @Override
+    public Map<String, PlayerProfile> findByIndex(final String indexName,
+            final Object indexedValue) throws SQLException {
+        if (!"name".equals(indexName)) {
+            return super.findByIndex(indexName, indexedValue);
+        }
+
+        final Map<String, PlayerProfile> profiles = new HashMap<>();
+        try (final CachedStatement cachedStatement = prepareStatement(SELECT_BY_NAME_QUERY)) {
+            final PreparedStatement statement = cachedStatement.getStatement();
+            statement.setString(1, (String) indexedValue);
 
-        try (final PreparedStatement statement = connection.prepareStatement("DELETE FROM player_profile WHERE id = ?")) {
-            statement.setString(1, key);
+            try (final ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    final String id = readKey(resultSet, "id");
+                    profiles.put(id, new PlayerProfile(UUID.fromString(id), resultSet.getString("name")));
+                }
+            }
+        }
+        return profiles;
+    }
+
+    @Override
+    public Map<String, Object> snapshot(final PlayerProfile value) {
+        return Collections.singletonMap("name", value.getName());
+    }
+
+    @Override
+    public StorageValueCodec<PlayerProfile> getCodec() {
+        return CODEC;
+    }
+
+    @Override
+    public StorageCursor<PlayerProfile> scan(final String fromKey, final String toKey,
+            final int fetchSize) throws SQLException {
+        final StringBuilder query = new StringBuilder("SELECT id, name FROM player_profile");
+        if (fromKey != null) {
+            query.append(" WHERE id >= ?");
+        }
+        if (toKey != null) {
+            query.append(fromKey != null ? " AND" : " WHERE").append(" id < ?");
+        }
+        query.append(" ORDER BY id");
+
+        final PreparedStatement statement = storageBase.currentConnection().prepareStatement(
+                query.toString(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        try {
+            statement.setFetchSize(fetchSize);
+
+            int index = 1;
+            if (fromKey != null) {
+                bindKey(statement, index++, fromKey);
+            }
+            if (toKey != null) {
+                bindKey(statement, index, toKey);
+            }
+
+            return new ResultSetCursor<>(statement, statement.executeQuery(),
+                    resultSet -> readKey(resultSet, "id"),
+                    resultSet -> new PlayerProfile(UUID.fromString(readKey(resultSet, "id")),
+                            resultSet.getString("name")));
+        } catch (SQLException | RuntimeException e) {
+            statement.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void delete(final String key) throws SQLException {
+        try (final CachedStatement cachedStatement = prepareStatement(DELETE_PROFILE_QUERY)) {
+            final PreparedStatement statement = cachedStatement.getStatement();
+            bindKey(statement, 1, key);
             statement.executeUpdate();
         }
     }
+
+    @Override
+    public void deleteAll(final Collection<String> keys) throws SQLException {
+        try (final CachedStatement cachedStatement = prepareStatement(DELETE_PROFILE_QUERY)) {
+            final PreparedStatement statement = cachedStatement.getStatement();
+            for (final String key : keys) {
+                bindKey(statement, 1, key);
+                statement.addBatch();
+            }
+
+            statement.executeBatch();
+        }
+    }
 }
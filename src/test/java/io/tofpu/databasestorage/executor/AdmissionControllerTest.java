@@ -0,0 +1,165 @@
+package io.tofpu.databasestorage.executor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AdmissionControllerTest {
+    @Test
+    public void full_queue_should_reject_or_drop_tasks() throws Exception {
+        final ExecutorService executorService = Executors.newSingleThreadExecutor();
+        final CountDownLatch release = new CountDownLatch(1);
+
+        final AdmissionController failFast = new AdmissionController(
+                new AdmissionOptions(1, 1, AdmissionPolicy.FAIL_FAST));
+        failFast.submit(executorService, TaskPriority.BACKGROUND, 0, await(release));
+        final CompletableFuture<String> queued = failFast.submit(executorService, TaskPriority.BACKGROUND, 0,
+                () -> "queued");
+        assertRejected(failFast.submit(executorService, TaskPriority.BACKGROUND, 0, () -> "rejected"));
+
+        final AdmissionController dropOldestRead = new AdmissionController(
+                new AdmissionOptions(1, 1, AdmissionPolicy.DROP_OLDEST_READ));
+        dropOldestRead.submit(executorService, TaskPriority.BACKGROUND, 0, await(release));
+        final CompletableFuture<String> oldRead = dropOldestRead.submit(executorService,
+                TaskPriority.INTERACTIVE, 0, () -> "old");
+        final CompletableFuture<String> newRead = dropOldestRead.submit(executorService,
+                TaskPriority.INTERACTIVE, 0, () -> "new");
+        assertRejected(oldRead);
+
+        release.countDown();
+        assertEquals("queued", queued.get(5, TimeUnit.SECONDS));
+        assertEquals("new", newRead.get(5, TimeUnit.SECONDS));
+        assertEquals(2, failFast.getRejectedCount() + dropOldestRead.getRejectedCount());
+        executorService.shutdown();
+    }
+
+    @Test
+    public void interactive_tasks_should_overtake_background_tasks() throws Exception {
+        final ExecutorService executorService = Executors.newSingleThreadExecutor();
+        final AdmissionController controller = new AdmissionController(
+                new AdmissionOptions(1, 100, AdmissionPolicy.BLOCK));
+
+        final CountDownLatch release = new CountDownLatch(1);
+        controller.submit(executorService, TaskPriority.BACKGROUND, 0, await(release));
+
+        final List<String> order = Collections.synchronizedList(new ArrayList<>());
+        final List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            futures.add(controller.submit(executorService, TaskPriority.BACKGROUND, 0,
+                    () -> order.add("write")));
+        }
+        for (int i = 0; i < 3; i++) {
+            futures.add(controller.submit(executorService, TaskPriority.INTERACTIVE, 0,
+                    () -> order.add("read")));
+        }
+
+        release.countDown();
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(5, TimeUnit.SECONDS);
+        assertEquals(Arrays.asList("read", "read", "read", "write", "write", "write"), order);
+        executorService.shutdown();
+    }
+
+    @Test
+    public void queued_task_should_be_cancelled_at_its_deadline() throws Exception {
+        final ExecutorService executorService = Executors.newSingleThreadExecutor();
+        final AdmissionController controller = new AdmissionController(
+                new AdmissionOptions(1, 10, AdmissionPolicy.BLOCK, 50, TimeUnit.MILLISECONDS));
+
+        final CountDownLatch release = new CountDownLatch(1);
+        controller.submit(executorService, TaskPriority.BACKGROUND, 0, await(release));
+        final CompletableFuture<String> expiring = controller.submit(executorService,
+                TaskPriority.INTERACTIVE, 50, () -> "too late");
+
+        final ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> expiring.get(5, TimeUnit.SECONDS));
+        assertTrue(exception.getCause() instanceof TimeoutException, "Task did not time out: " + exception.getCause());
+        assertEquals(0, controller.getQueuedCount(), "Expired task was still queued");
+
+        release.countDown();
+        assertEquals("next", controller.submit(executorService, TaskPriority.INTERACTIVE, 0, () -> "next")
+                .get(5, TimeUnit.SECONDS));
+        assertEquals(1, controller.getExpiredCount());
+        controller.shutdown();
+        executorService.shutdown();
+    }
+
+    @Test
+    public void blocked_task_should_be_cancelled_at_its_deadline() throws Exception {
+        final ExecutorService executorService = Executors.newSingleThreadExecutor();
+        final AdmissionController controller = new AdmissionController(
+                new AdmissionOptions(1, 1, AdmissionPolicy.BLOCK));
+
+        final CountDownLatch release = new CountDownLatch(1);
+        controller.submit(executorService, TaskPriority.BACKGROUND, 0, await(release));
+        controller.submit(executorService, TaskPriority.BACKGROUND, 0, () -> true);
+
+        // blocks the caller, as the queue is full, but not past the deadline
+        final CompletableFuture<String> blocked = controller.submit(executorService,
+                TaskPriority.INTERACTIVE, 50, () -> "too late");
+        final ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> blocked.get(5, TimeUnit.SECONDS));
+        assertTrue(exception.getCause() instanceof TimeoutException, "Task did not time out: " + exception.getCause());
+        assertEquals(1, controller.getExpiredCount());
+
+        release.countDown();
+        controller.shutdown();
+        executorService.shutdown();
+    }
+
+    @Test
+    public void rejecting_executor_should_cancel_every_queued_task() throws Exception {
+        final ExecutorService executorService = Executors.newSingleThreadExecutor();
+        final AdmissionController controller = new AdmissionController(
+                new AdmissionOptions(1, 100_000, AdmissionPolicy.BLOCK));
+
+        final CountDownLatch release = new CountDownLatch(1);
+        controller.submit(executorService, TaskPriority.BACKGROUND, 0, await(release));
+        final List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            futures.add(controller.submit(executorService, TaskPriority.BACKGROUND, 0, () -> true));
+        }
+
+        // every queued task is rejected in turn once the running task completes
+        executorService.shutdown();
+        release.countDown();
+        for (final CompletableFuture<Boolean> future : futures) {
+            assertRejected(future);
+        }
+        assertEquals(0, controller.getActiveCount(), "Rejected tasks kept their slot");
+        controller.shutdown();
+    }
+
+    private static Supplier<Boolean> await(final CountDownLatch latch) {
+        return () -> {
+            try {
+                return latch.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        };
+    }
+
+    private static void assertRejected(final CompletableFuture<?> future) {
+        final ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> future.get(5, TimeUnit.SECONDS));
+        assertTrue(exception.getCause() instanceof RejectedExecutionException,
+                "Task was not rejected: " + exception.getCause());
+    }
+}
@@ -0,0 +1,116 @@
+package io.tofpu.databasestorage.executor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BulkheadTest {
+    @Test
+    public void full_bulkhead_should_reject_tasks() throws InterruptedException {
+        final ExecutorService executorService = Executors.newFixedThreadPool(4);
+        final Bulkhead bulkhead = new Bulkhead(executorService, new BulkheadOptions(1, 1));
+
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch completed = new CountDownLatch(2);
+        final Runnable task = () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            completed.countDown();
+        };
+
+        bulkhead.execute(task);
+        bulkhead.execute(task);
+        assertThrows(RejectedExecutionException.class, () -> bulkhead.execute(task),
+                "Bulkhead exceeded its queue capacity");
+
+        release.countDown();
+        assertTrue(completed.await(5, TimeUnit.SECONDS), "Queued task was not run");
+        executorService.shutdown();
+    }
+
+    @Test
+    public void concurrency_should_be_limited() throws InterruptedException {
+        final ExecutorService executorService = Executors.newFixedThreadPool(8);
+        final Bulkhead bulkhead = new Bulkhead(executorService, new BulkheadOptions(2, 1000));
+
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final CountDownLatch completed = new CountDownLatch(200);
+        for (int i = 0; i < 200; i++) {
+            bulkhead.execute(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Thread.yield();
+                running.decrementAndGet();
+                completed.countDown();
+            });
+        }
+
+        assertTrue(completed.await(5, TimeUnit.SECONDS), "Not every task was run");
+        assertTrue(maxRunning.get() <= 2, "Bulkhead exceeded its concurrency limit");
+        assertEquals(0, bulkhead.getQueuedCount());
+        executorService.shutdown();
+    }
+
+    @Test
+    public void rejected_tasks_should_not_be_lost() throws InterruptedException {
+        final ExecutorService executorService = Executors.newFixedThreadPool(4);
+        final AtomicBoolean rejecting = new AtomicBoolean(true);
+        final Bulkhead bulkhead = new Bulkhead(task -> {
+            if (rejecting.get()) {
+                throw new RejectedExecutionException("rejecting");
+            }
+            executorService.execute(task);
+        }, new BulkheadOptions(1, 10));
+
+        assertThrows(RejectedExecutionException.class, () -> bulkhead.execute(() -> {}));
+        assertEquals(0, bulkhead.getQueuedCount(), "Rejected task was still counted");
+        assertEquals(0, bulkhead.getActiveCount(), "Rejected task kept its slot");
+
+        rejecting.set(false);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch completed = new CountDownLatch(2);
+        bulkhead.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            rejecting.set(true);
+        });
+        bulkhead.execute(completed::countDown);
+
+        // the queued task is rejected once the running task completes
+        release.countDown();
+        assertTrue(awaitIdle(bulkhead), "Running task was not completed");
+        assertEquals(1, bulkhead.getQueuedCount(), "Rejected task was lost");
+
+        rejecting.set(false);
+        bulkhead.execute(completed::countDown);
+        assertTrue(completed.await(5, TimeUnit.SECONDS), "Rejected task was not run");
+        executorService.shutdown();
+    }
+
+    private static boolean awaitIdle(final Bulkhead bulkhead) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (bulkhead.getActiveCount() != 0) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,72 @@
+package io.tofpu.databasestorage.filter;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MembershipFilterTest {
+    @Test
+    public void added_keys_should_never_be_reported_absent() {
+        final BloomFilter bloomFilter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            bloomFilter.put("key-" + i);
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(bloomFilter.mightContain("key-" + i), "Added key was reported absent");
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (bloomFilter.mightContain("absent-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 200, "False positive rate exceeded its bound: " + falsePositives);
+    }
+
+    @Test
+    public void absent_keys_should_be_remembered_until_written() {
+        final MembershipFilter filter = new MembershipFilter(String.class,
+                new MembershipFilterOptions(100, 0.01, 100, 1, TimeUnit.MINUTES, null));
+        filter.add("deleted");
+        filter.markReady();
+
+        assertFalse(filter.mightContain("unknown"), "Unknown key was reported present");
+        assertTrue(filter.mightContain("deleted"), "Added key was reported absent");
+
+        final long stamp = filter.stamp("deleted");
+        filter.remove("deleted");
+        filter.recordAbsent("deleted", stamp);
+        assertTrue(filter.mightContain("deleted"), "Key was recorded absent despite a concurrent write");
+
+        filter.recordAbsent("deleted", filter.stamp("deleted"));
+        assertFalse(filter.mightContain("deleted"), "Absent key was not remembered");
+
+        filter.add("deleted");
+        assertTrue(filter.mightContain("deleted"), "Saved key was still remembered as absent");
+    }
+
+    @Test
+    public void filter_should_survive_a_restart() throws IOException {
+        final Path file = Files.createTempFile("membership", ".filter");
+        final MembershipFilterOptions options = new MembershipFilterOptions(100, 0.01, 0, 0,
+                TimeUnit.SECONDS, file);
+
+        final MembershipFilter filter = new MembershipFilter(String.class, options);
+        filter.add("stored");
+        filter.markReady();
+        filter.persist();
+
+        final MembershipFilter restarted = new MembershipFilter(String.class, options);
+        assertTrue(restarted.load(), "Filter was not loaded");
+        assertTrue(restarted.mightContain("stored"), "Stored key was lost");
+        assertFalse(Files.exists(file), "File was kept after loading it");
+    }
+}
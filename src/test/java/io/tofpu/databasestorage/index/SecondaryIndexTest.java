@@ -0,0 +1,61 @@
+package io.tofpu.databasestorage.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SecondaryIndexTest {
+    @Test
+    public void write_should_move_key_to_new_indexed_value() {
+        final SecondaryIndex index = SecondaryIndex.create(new StorageIndex<String>("length", IndexType.HASH,
+                String::length));
+        index.update("a", "xx");
+        index.update("b", "yy");
+        index.update("a", "xxx");
+
+        assertEquals(Collections.singletonList("b"), index.find(2));
+        assertEquals(Collections.singletonList("a"), index.find(3));
+
+        index.update("b", null);
+        assertTrue(index.find(2).isEmpty(), "Deleted key was still indexed");
+        assertEquals(1, index.size());
+        assertThrows(UnsupportedOperationException.class, () -> index.findRange(1, 3));
+    }
+
+    @Test
+    public void retrieved_value_should_not_replace_written_value() {
+        final SecondaryIndex index = SecondaryIndex.create(new StorageIndex<String>("value", IndexType.HASH,
+                value -> value));
+        index.update("a", "new");
+        index.load("a", "old");
+        index.load("b", "old");
+
+        assertEquals(Collections.singletonList("a"), index.find("new"));
+        assertEquals(Collections.singletonList("b"), index.find("old"));
+    }
+
+    @Test
+    public void sorted_index_should_find_ranges_in_order() {
+        final SecondaryIndex index = SecondaryIndex.create(new StorageIndex<Integer>("score", IndexType.SORTED,
+                score -> score));
+        index.update("c", 30);
+        index.update("a", 10);
+        index.update("b", 20);
+        index.update("d", 20);
+
+        assertEquals(new HashSet<>(Arrays.asList("b", "d")), new HashSet<>(index.find(20)));
+        assertEquals(Arrays.asList("a", "b", "d"), index.findRange(null, 30));
+        assertEquals(Arrays.asList("b", "d", "c"), index.findRange(20, null));
+        assertEquals(Arrays.asList("b", "d"), index.findRange(15, 25));
+
+        index.update("b", 40);
+        assertEquals(Arrays.asList("d", "c", "b"), index.findRange(20, null));
+        assertTrue(index.matchesRange(25, 20, 30), "Value within the range did not match");
+    }
+}
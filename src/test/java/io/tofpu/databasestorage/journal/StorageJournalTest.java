@@ -0,0 +1,175 @@
+package io.tofpu.databasestorage.journal;
+
+import io.tofpu.databasestorage.EntryKey;
+import io.tofpu.databasestorage.data.PlayerProfile;
+import io.tofpu.databasestorage.data.codec.PlayerProfileCodec;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StorageJournalTest {
+    private static final PlayerProfileCodec CODEC = new PlayerProfileCodec();
+
+    private static JournalOptions createOptions(final Path directory) {
+        return new JournalOptions(directory, FsyncPolicy.ALWAYS);
+    }
+
+    private static EntryKey entryKey(final UUID uuid) {
+        return new EntryKey(PlayerProfile.class, uuid.toString());
+    }
+
+    private static List<Path> listSegments(final Path directory) throws IOException {
+        final List<Path> segments = new ArrayList<>();
+        try (final DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            stream.forEach(segments::add);
+        }
+        return segments;
+    }
+
+    @Test
+    public void uncommitted_records_should_be_recovered() throws IOException {
+        final Path directory = Files.createTempDirectory("journal");
+        final UUID saved = UUID.randomUUID();
+        final UUID deleted = UUID.randomUUID();
+        final UUID committed = UUID.randomUUID();
+
+        try (final StorageJournal journal = new StorageJournal(createOptions(directory))) {
+            journal.append(entryKey(saved), CODEC, new PlayerProfile(saved, "first"));
+            journal.append(entryKey(saved), CODEC, new PlayerProfile(saved, "second"));
+            journal.append(entryKey(deleted), CODEC, new PlayerProfile(deleted, "Tofpu"));
+            journal.append(entryKey(deleted), CODEC, null);
+            journal.checkpoint(journal.append(entryKey(committed), CODEC, new PlayerProfile(committed, "Tofpu")));
+        }
+
+        try (final StorageJournal journal = new StorageJournal(createOptions(directory))) {
+            final List<JournalEntry> entries = new ArrayList<>(journal.recover());
+            assertEquals(3, entries.size(), "Committed records are only dropped once their segment is");
+
+            final JournalEntry first = entries.get(0);
+            assertEquals(saved.toString(), first.getKey());
+            assertEquals(PlayerProfile.class.getName(), first.getValueType());
+            assertEquals("second", first.decode(CODEC).getName(), "Latest record was not recovered");
+
+            assertTrue(entries.get(1).isDelete(), "Delete was not recovered");
+
+            journal.completeRecovery();
+        }
+        assertTrue(listSegments(directory).isEmpty(), "Recovered segments were not deleted");
+    }
+
+    @Test
+    public void checkpointed_segments_should_be_deleted() throws IOException {
+        final Path directory = Files.createTempDirectory("journal");
+
+        try (final StorageJournal journal = new StorageJournal(new JournalOptions(directory, 64,
+                FsyncPolicy.NEVER, 0, TimeUnit.SECONDS))) {
+            for (int i = 0; i < 10; i++) {
+                final UUID uuid = UUID.randomUUID();
+                journal.checkpoint(journal.append(entryKey(uuid), CODEC, new PlayerProfile(uuid, "Tofpu")));
+            }
+            assertEquals(1, listSegments(directory).size(), "Rolled segments were not deleted");
+        }
+        assertTrue(listSegments(directory).isEmpty(), "Active segment was not deleted");
+    }
+
+    @Test
+    public void superseded_records_should_not_be_recovered() throws IOException {
+        final Path directory = Files.createTempDirectory("journal");
+        final JournalOptions options = new JournalOptions(directory, 200, FsyncPolicy.NEVER, 0,
+                TimeUnit.SECONDS);
+        final UUID pinned = UUID.randomUUID();
+        final UUID overwritten = UUID.randomUUID();
+        final UUID committed = UUID.randomUUID();
+
+        try (final StorageJournal journal = new StorageJournal(options)) {
+            // the first segment holds a record that is never checkpointed
+            journal.append(entryKey(pinned), CODEC, new PlayerProfile(pinned, "Tofpu"));
+            journal.checkpoint(journal.append(entryKey(overwritten), CODEC,
+                    new PlayerProfile(overwritten, "first")));
+
+            // the second segment holds the committed overwrite
+            journal.checkpoint(journal.append(entryKey(overwritten), CODEC,
+                    new PlayerProfile(overwritten, "second")));
+            journal.checkpoint(journal.append(entryKey(committed), CODEC,
+                    new PlayerProfile(committed, "Tofpu")));
+            journal.checkpoint(journal.append(entryKey(committed), CODEC, null));
+
+            assertEquals(3, listSegments(directory).size(),
+                    "Segments after a pinned segment were deleted");
+        }
+
+        // simulates a crash, as the pinned record was never committed
+        try (final StorageJournal journal = new StorageJournal(options)) {
+            final List<JournalEntry> entries = new ArrayList<>(journal.recover());
+            assertEquals(3, entries.size());
+            assertEquals(pinned.toString(), entries.get(0).getKey());
+
+            final JournalEntry entry = entries.get(1);
+            assertEquals(overwritten.toString(), entry.getKey());
+            assertEquals("second", entry.decode(CODEC).getName(), "Superseded record was recovered");
+
+            assertTrue(entries.get(2).isDelete());
+
+            journal.completeRecovery();
+        }
+        assertTrue(listSegments(directory).isEmpty(), "Recovered segments were not deleted");
+    }
+
+    @Test
+    public void dead_letters_should_not_keep_segments_alive() throws IOException {
+        final Path directory = Files.createTempDirectory("journal");
+        final UUID uuid = UUID.randomUUID();
+
+        try (final StorageJournal journal = new StorageJournal(createOptions(directory))) {
+            journal.deadLetter(journal.append(entryKey(uuid), CODEC, new PlayerProfile(uuid, "Tofpu")),
+                    CODEC);
+
+            final List<JournalEntry> deadLetters = journal.readDeadLetters();
+            assertEquals(1, deadLetters.size());
+            assertEquals("Tofpu", deadLetters.get(0).decode(CODEC).getName());
+        }
+
+        try (final StorageJournal journal = new StorageJournal(createOptions(directory))) {
+            assertTrue(journal.recover().isEmpty(), "Dead letter was recovered");
+            assertEquals(1, journal.readDeadLetters().size());
+            journal.completeRecovery();
+        }
+        assertEquals(1, listSegments(directory).size(), "Only the dead-letter file should be left");
+    }
+
+    @Test
+    public void torn_records_should_be_skipped() throws IOException {
+        final Path directory = Files.createTempDirectory("journal");
+        final UUID uuid = UUID.randomUUID();
+
+        try (final StorageJournal journal = new StorageJournal(createOptions(directory))) {
+            journal.append(entryKey(uuid), CODEC, new PlayerProfile(uuid, "Tofpu"));
+        }
+
+        // simulates a crash in the middle of appending the next record
+        final Path segment = listSegments(directory).get(0);
+        try (final FileChannel channel = FileChannel.open(segment, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0, 0, 0, 42, 1, 2, 3}));
+        }
+
+        try (final StorageJournal journal = new StorageJournal(createOptions(directory))) {
+            final Collection<JournalEntry> entries = journal.recover();
+            assertEquals(1, entries.size(), "Torn record was not skipped");
+            journal.completeRecovery();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package io.tofpu.databasestorage.log;
+
+import io.tofpu.databasestorage.journal.FsyncPolicy;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LogStoreTest {
+    @Test
+    public void values_should_survive_a_restart() throws IOException {
+        final Path directory = Files.createTempDirectory("log-store");
+        final LogStoreOptions options = options(directory, 256);
+
+        try (final LogStore store = new LogStore(options)) {
+            for (int i = 0; i < 100; i++) {
+                store.put("key-" + i, encode("value-" + i));
+            }
+            store.put("key-1", encode("updated"));
+            assertTrue(store.delete("key-2"), "Present key was not deleted");
+            assertFalse(store.delete("key-2"), "Absent key was deleted");
+
+            assertEquals("updated", decode(store.get("key-1")));
+            assertNull(store.get("key-2"), "Deleted key was still present");
+            assertTrue(store.getSegmentCount() > 1, "Segments were not rolled");
+        }
+
+        try (final LogStore store = new LogStore(options)) {
+            assertEquals(99, store.size());
+            assertEquals("value-0", decode(store.get("key-0")));
+            assertEquals("updated", decode(store.get("key-1")));
+            assertNull(store.get("key-2"), "Deleted key was resurrected");
+        }
+
+        // without hint files, every segment has to be scanned
+        deleteFiles(directory, "*.hint");
+        try (final LogStore store = new LogStore(options)) {
+            assertEquals(99, store.size());
+            assertEquals("value-99", decode(store.get("key-99")));
+            assertEquals("updated", decode(store.get("key-1")));
+        }
+    }
+
+    @Test
+    public void torn_record_should_be_truncated() throws IOException {
+        final Path directory = Files.createTempDirectory("log-store");
+        final LogStoreOptions options = options(directory, 1024 * 1024);
+
+        try (final LogStore store = new LogStore(options)) {
+            store.put("first", encode("value"));
+            store.put("second", encode("value"));
+        }
+
+        // simulates a crash in the middle of the last record
+        deleteFiles(directory, "*.hint");
+        final Path segment = directory.resolve("segment-0.data");
+        try (final FileChannel channel = FileChannel.open(segment,
+                StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        try (final LogStore store = new LogStore(options)) {
+            assertEquals("value", decode(store.get("first")));
+            assertNull(store.get("second"), "Torn record was read");
+
+            store.put("third", encode("value"));
+        }
+
+        try (final LogStore store = new LogStore(options)) {
+            assertEquals("value", decode(store.get("third")));
+        }
+    }
+
+    @Test
+    public void compaction_should_reclaim_overwritten_records() throws IOException {
+        final Path directory = Files.createTempDirectory("log-store");
+        final LogStoreOptions options = options(directory, 512);
+
+        try (final LogStore store = new LogStore(options)) {
+            for (int round = 0; round < 20; round++) {
+                for (int i = 0; i < 10; i++) {
+                    store.put("key-" + i, encode("value-" + round));
+                }
+            }
+            store.delete("key-0");
+
+            final int segmentCount = store.getSegmentCount();
+            assertTrue(store.compact(), "Segments were not compacted");
+            assertTrue(store.getSegmentCount() < segmentCount, "Segments were not reclaimed");
+            assertFalse(store.compact(), "Compacted segments were compacted again");
+
+            assertNull(store.get("key-0"), "Deleted key was resurrected");
+            assertEquals("value-19", decode(store.get("key-9")));
+        }
+
+        try (final LogStore store = new LogStore(options)) {
+            assertEquals(9, store.size());
+            assertNull(store.get("key-0"), "Deleted key was resurrected");
+            assertEquals("value-19", decode(store.get("key-1")));
+        }
+    }
+
+    private static LogStoreOptions options(final Path directory, final int segmentSize) {
+        return new LogStoreOptions(directory, segmentSize, FsyncPolicy.NEVER, 0, TimeUnit.SECONDS,
+                0, TimeUnit.SECONDS, 0.5);
+    }
+
+    private static void deleteFiles(final Path directory, final String glob) throws IOException {
+        try (final DirectoryStream<Path> stream = Files.newDirectoryStream(directory, glob)) {
+            for (final Path path : stream) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private static ByteBuffer encode(final String value) {
+        return ByteBuffer.wrap(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decode(final ByteBuffer buffer) {
+        return StandardCharsets.UTF_8.decode(buffer).toString();
+    }
+}
@@ -0,0 +1,58 @@
+package io.tofpu.databasestorage.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LatencyHistogramTest {
+    @Test
+    public void buckets_should_be_contiguous() {
+        for (long value = 0; value < 1_000_000; value++) {
+            final int index = LatencyHistogram.bucketIndex(value);
+            assertTrue(value <= LatencyHistogram.bucketUpperBound(index), "Value is above its bucket");
+            if (index > 0) {
+                assertTrue(value > LatencyHistogram.bucketUpperBound(index - 1), "Value is below its bucket");
+            }
+        }
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.bucketUpperBound(
+                LatencyHistogram.bucketIndex(Long.MAX_VALUE)));
+    }
+
+    @Test
+    public void percentiles_should_be_within_error() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value * 1000);
+        }
+
+        final HistogramSnapshot snapshot = histogram.snapshot();
+        assertEquals(100_000, snapshot.getCount());
+        assertEquals(100_000_000, snapshot.getMax());
+        assertEquals(50_000_500, snapshot.getMean(), 1);
+
+        final long p50 = snapshot.getPercentile(50);
+        final long p99 = snapshot.getPercentile(99);
+        assertTrue(Math.abs(p50 - 50_000_000) <= 50_000_000 * 0.0625, "p50 is off by more than the error");
+        assertTrue(Math.abs(p99 - 99_000_000) <= 99_000_000 * 0.0625, "p99 is off by more than the error");
+        assertEquals(100_000_000, snapshot.getPercentile(100));
+    }
+
+    @Test
+    public void recorded_operations_should_be_counted() {
+        final RecordingStorageMetrics metrics = new RecordingStorageMetrics();
+        metrics.onSubmit(String.class, StorageOperation.SAVE);
+        metrics.onSubmit(String.class, StorageOperation.SAVE);
+        metrics.onStart(String.class, StorageOperation.SAVE, 1000);
+        metrics.onComplete(String.class, StorageOperation.SAVE, 5000, true);
+
+        final OperationMetrics operationMetrics = metrics.getOperationMetrics(String.class,
+                StorageOperation.SAVE);
+        assertEquals(1, operationMetrics.getCompletedCount());
+        assertEquals(1, operationMetrics.getErrorCount());
+        assertEquals(1, operationMetrics.getInFlightCount());
+        assertEquals(5000, operationMetrics.getExecution().getMax());
+        assertEquals(0, metrics.getOperationMetrics(String.class, StorageOperation.RETRIEVE)
+                .getCompletedCount());
+    }
+}
@@ -0,0 +1,76 @@
+package io.tofpu.databasestorage.pool;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConnectionPoolTest {
+    private static ConnectionPool createPool(final int maximumSize) {
+        return new ConnectionPool(() -> DriverManager.getConnection("jdbc:sqlite::memory:"),
+                new ConnectionPoolOptions(0, maximumSize, 0, 50, 1000, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void returned_connections_should_be_reused() throws SQLException {
+        try (final ConnectionPool pool = createPool(2)) {
+            final PooledConnection first = pool.lease();
+            first.close();
+
+            try (final PooledConnection second = pool.lease()) {
+                assertSame(first.getConnection(), second.getConnection(), "Idle connection was not reused");
+            }
+            assertEquals(1, pool.getOpenCount());
+        }
+    }
+
+    @Test
+    public void lease_should_time_out_when_exhausted() throws SQLException {
+        try (final ConnectionPool pool = createPool(1)) {
+            final PooledConnection leased = pool.lease();
+            assertThrows(SQLTimeoutException.class, pool::lease, "Pool exceeded its maximum size");
+            leased.close();
+
+            pool.lease().close();
+            assertEquals(1, pool.getOpenCount());
+        }
+    }
+
+    @Test
+    public void broken_connections_should_be_closed() throws SQLException {
+        try (final ConnectionPool pool = createPool(2)) {
+            final PooledConnection first = pool.lease();
+            first.invalidate();
+            first.close();
+
+            assertTrue(first.getConnection().isClosed(), "Broken connection was not closed");
+            try (final PooledConnection second = pool.lease()) {
+                assertNotSame(first.getConnection(), second.getConnection());
+            }
+        }
+    }
+
+    @Test
+    public void only_connection_failures_should_invalidate() throws SQLException {
+        try (final ConnectionPool pool = createPool(2)) {
+            final PooledConnection first = pool.lease();
+            first.invalidateOn(new SQLException("constraint violated", "23000"));
+            first.close();
+            assertTrue(!first.getConnection().isClosed(), "Valid connection was closed");
+
+            final PooledConnection second = pool.lease();
+            second.invalidateOn(new SQLException("connection lost", "08006"));
+            second.close();
+            assertTrue(second.getConnection().isClosed(), "Broken connection was not closed");
+            assertEquals(0, pool.getOpenCount());
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package io.tofpu.databasestorage.resolver.key;
+
+import io.tofpu.databasestorage.resolver.key.impl.StorageNumberSerializer;
+import io.tofpu.databasestorage.resolver.key.impl.StorageStringResolver;
+import io.tofpu.databasestorage.resolver.key.impl.StorageUUIDResolver;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class StorageKeyResolverTest {
+    private static String roundTrip(final StorageKeyResolver<?> resolver, final String serialized) {
+        final ByteBuffer buffer = ByteBuffer.allocate(resolver.getEncodedLength(serialized));
+        resolver.encode(serialized, buffer);
+        assertEquals(0, buffer.remaining(), "Encoded length does not match the written bytes");
+
+        buffer.flip();
+        return resolver.decode(buffer);
+    }
+
+    @Test
+    public void uuid_should_be_encoded_as_16_bytes() {
+        final StorageUUIDResolver resolver = new StorageUUIDResolver();
+        final UUID uuid = UUID.randomUUID();
+        final String serialized = resolver.serialize(uuid);
+
+        assertEquals(16, resolver.getEncodedLength(serialized));
+        assertEquals(serialized, roundTrip(resolver, serialized));
+        assertEquals(uuid, resolver.deserialize(serialized));
+
+        final ByteBuffer buffer = ByteBuffer.allocate(16);
+        resolver.encode(serialized, buffer);
+        buffer.flip();
+        assertEquals(uuid.getMostSignificantBits(), buffer.getLong());
+        assertEquals(uuid.getLeastSignificantBits(), buffer.getLong());
+    }
+
+    @Test
+    public void malformed_uuid_should_be_rejected() {
+        final StorageUUIDResolver resolver = new StorageUUIDResolver();
+        // 36 characters, but without the separators of the canonical form
+        final String malformed = "0123456789abcdef0123456789abcdef0123";
+
+        assertThrows(IllegalArgumentException.class, () -> resolver.encode(malformed, ByteBuffer.allocate(16)));
+    }
+
+    @Test
+    public void numbers_should_round_trip() {
+        final StorageNumberSerializer resolver = new StorageNumberSerializer();
+
+        assertEquals(9, resolver.getEncodedLength("-42"));
+        assertEquals("-42", roundTrip(resolver, "-42"));
+        assertEquals("1.5", roundTrip(resolver, "1.5"));
+        assertEquals(42L, resolver.deserialize("42"));
+    }
+
+    @Test
+    public void strings_should_round_trip() {
+        final StorageStringResolver resolver = new StorageStringResolver();
+
+        assertEquals("Tofpu \u00e9\u4e2d", roundTrip(resolver, "Tofpu \u00e9\u4e2d"));
+    }
+}
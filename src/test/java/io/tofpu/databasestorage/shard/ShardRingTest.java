@@ -0,0 +1,100 @@
+package io.tofpu.databasestorage.shard;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ShardRingTest {
+    private static final int KEY_COUNT = 100_000;
+
+    @Test
+    public void keys_should_spread_evenly() {
+        final ShardRing ring = new ShardRing(Arrays.asList("a", "b", "c", "d"), 128);
+        final int[] counts = new int[4];
+        for (int i = 0; i < KEY_COUNT; i++) {
+            counts[ring.shardOf("player-" + i)]++;
+        }
+
+        for (final int count : counts) {
+            assertTrue(Math.abs(count - KEY_COUNT / 4) < KEY_COUNT / 20,
+                    "Keys were not spread evenly: " + Arrays.toString(counts));
+        }
+    }
+
+    @Test
+    public void adding_a_shard_should_only_move_its_keys() {
+        final ShardRing before = new ShardRing(Arrays.asList("a", "b", "c", "d"), 128);
+        final ShardRing after = new ShardRing(Arrays.asList("a", "b", "c", "d", "e"), 128);
+
+        int moved = 0;
+        for (int i = 0; i < KEY_COUNT; i++) {
+            final String key = "player-" + i;
+            final int shard = after.shardOf(key);
+            if (shard != before.shardOf(key)) {
+                assertEquals(4, shard, "Key moved between the existing shards");
+                moved++;
+            }
+        }
+        assertTrue(moved < KEY_COUNT / 4, "Too many keys moved: " + moved);
+    }
+
+    @Test
+    public void merged_publishers_should_emit_every_value() throws Exception {
+        final List<SubmissionPublisher<Integer>> sources = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            sources.add(new SubmissionPublisher<>());
+        }
+        final MergingPublisher<Integer> publisher = new MergingPublisher<>(new ArrayList<>(sources), 8);
+
+        final List<Integer> values = Collections.synchronizedList(new ArrayList<>());
+        final CompletableFuture<Void> completed = new CompletableFuture<>();
+        publisher.subscribe(new Flow.Subscriber<Integer>() {
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(final Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(final Integer value) {
+                values.add(value);
+                subscription.request(1);
+            }
+
+            @Override
+            public void onError(final Throwable throwable) {
+                completed.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                completed.complete(null);
+            }
+        });
+
+        for (int i = 0; i < 300; i++) {
+            sources.get(i % 3).submit(i);
+        }
+        sources.forEach(SubmissionPublisher::close);
+
+        completed.get(10, TimeUnit.SECONDS);
+        assertEquals(300, values.size());
+        final List<Integer> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        for (int i = 0; i < 300; i++) {
+            assertEquals(i, (int) sorted.get(i));
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package io.tofpu.databasestorage.statement;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StatementCacheTest {
+    private Connection connection;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+    }
+
+    @AfterEach
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    public void returned_statements_should_be_reused() throws SQLException {
+        final StatementCache statementCache = new StatementCache(4);
+
+        final PreparedStatement first;
+        try (final CachedStatement statement = statementCache.prepare(connection, "SELECT 1")) {
+            first = statement.getStatement();
+        }
+
+        try (final CachedStatement statement = statementCache.prepare(connection, "SELECT 1")) {
+            assertSame(first, statement.getStatement(), "Returned statement was not reused");
+        }
+        assertEquals(1, statementCache.getHitCount());
+    }
+
+    @Test
+    public void checked_out_statements_should_not_be_shared() throws SQLException {
+        final StatementCache statementCache = new StatementCache(4);
+
+        try (final CachedStatement first = statementCache.prepare(connection, "SELECT 1");
+             final CachedStatement second = statementCache.prepare(connection, "SELECT 1")) {
+            assertNotSame(first.getStatement(), second.getStatement(),
+                    "Checked out statement was handed out twice");
+        }
+    }
+
+    @Test
+    public void least_recently_used_statements_should_be_closed() throws SQLException {
+        final StatementCache statementCache = new StatementCache(1);
+
+        final PreparedStatement first;
+        try (final CachedStatement statement = statementCache.prepare(connection, "SELECT 1")) {
+            first = statement.getStatement();
+        }
+        // returning this statement exceeds the maximum size
+        statementCache.prepare(connection, "SELECT 2").close();
+
+        assertTrue(first.isClosed(), "Evicted statement was not closed");
+    }
+}
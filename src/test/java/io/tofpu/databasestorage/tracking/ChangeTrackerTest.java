@@ -0,0 +1,66 @@
+package io.tofpu.databasestorage.tracking;
+
+import io.tofpu.databasestorage.EntryKey;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ChangeTrackerTest {
+    private static final EntryKey ENTRY_KEY = new EntryKey(String.class, "key");
+
+    private static Map<String, Object> snapshot(final String name, final int coins) {
+        final Map<String, Object> snapshot = new HashMap<>();
+        snapshot.put("name", name);
+        snapshot.put("coins", coins);
+        return snapshot;
+    }
+
+    @Test
+    public void unchanged_state_should_be_detected() {
+        final ChangeTracker tracker = new ChangeTracker(new ChangeTrackingOptions(100));
+
+        assertNull(tracker.track(ENTRY_KEY, snapshot("tofpu", 10)), "Unknown state was reported as known");
+        assertTrue(tracker.track(ENTRY_KEY, snapshot("tofpu", 10)).isEmpty(), "Unchanged state was reported as changed");
+        assertEquals(Collections.singleton("coins"), tracker.track(ENTRY_KEY, snapshot("tofpu", 20)),
+                "Changed field was not reported");
+    }
+
+    @Test
+    public void loaded_state_should_not_replace_saved_state() {
+        final ChangeTracker tracker = new ChangeTracker(new ChangeTrackingOptions(100));
+        tracker.track(ENTRY_KEY, snapshot("tofpu", 20));
+        tracker.recordLoaded(ENTRY_KEY, snapshot("tofpu", 10));
+
+        assertTrue(tracker.track(ENTRY_KEY, snapshot("tofpu", 20)).isEmpty(), "Loaded state replaced saved state");
+
+        tracker.invalidate(ENTRY_KEY);
+        assertNull(tracker.track(ENTRY_KEY, snapshot("tofpu", 20)), "Invalidated state was still known");
+    }
+
+    @Test
+    public void loaded_state_should_not_replace_deleted_state() {
+        final ChangeTracker tracker = new ChangeTracker(new ChangeTrackingOptions(100));
+        tracker.track(ENTRY_KEY, snapshot("tofpu", 10));
+        tracker.recordDeleted(ENTRY_KEY);
+        // retrieved before the delete, but completed after it
+        tracker.recordLoaded(ENTRY_KEY, snapshot("tofpu", 10));
+
+        assertNull(tracker.track(ENTRY_KEY, snapshot("tofpu", 10)), "Save of a deleted entry was skipped");
+    }
+
+    @Test
+    public void size_should_be_bounded() {
+        final ChangeTracker tracker = new ChangeTracker(new ChangeTrackingOptions(160));
+        for (int i = 0; i < 10_000; i++) {
+            tracker.track(new EntryKey(String.class, "key-" + i), snapshot("profile-" + i, i));
+        }
+
+        assertTrue(tracker.size() <= 160, "Tracker exceeded its maximum size");
+    }
+}
@@ -0,0 +1,60 @@
+package io.tofpu.databasestorage.warmup;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ResidentStoreTest {
+    @Test
+    public void preload_should_never_overwrite_a_write() {
+        final ResidentStore store = new ResidentStore(String.class, new WarmUpOptions(WarmUpMode.ALL, null));
+        store.startWarmUp(-1);
+
+        store.put("saved", "new");
+        assertFalse(store.preload("saved", "old"), "Preloaded value overwrote a save");
+        assertEquals("new", store.get("saved"));
+
+        store.invalidate("deleted");
+        assertFalse(store.preload("deleted", "old"), "Preloaded value overwrote a delete");
+        assertNull(store.get("deleted"));
+
+        assertTrue(store.preload("untouched", "value"), "Value was not preloaded");
+        assertEquals("value", store.get("untouched"));
+
+        store.finishWarmUp();
+        assertEquals(2, store.size(), "Written keys were still marked after the warm-up");
+
+        final WarmUpProgress progress = store.getProgress();
+        assertTrue(progress.isDone(), "Warm-up was not done");
+        assertEquals(3, progress.getLoadedCount());
+    }
+
+    @Test
+    public void recent_keys_should_be_persisted_in_access_order() throws IOException, InterruptedException {
+        final Path file = Files.createTempFile("resident", ".keys");
+        Files.delete(file);
+        final WarmUpOptions options = new WarmUpOptions(WarmUpMode.RECENT, 16, 1, file, 2);
+
+        final ResidentStore store = new ResidentStore(String.class, options);
+        assertTrue(store.loadRecentKeys().isEmpty(), "Keys were loaded without a file");
+
+        store.preload("cold", "value");
+        store.put("first", "value");
+        store.put("second", "value");
+        Thread.sleep(5);
+        store.get("first");
+        store.persistRecentKeys();
+
+        assertEquals(Arrays.asList("first", "second"),
+                new ResidentStore(String.class, options).loadRecentKeys());
+        Files.delete(file);
+    }
+}